@@ -16,10 +16,13 @@
 
 package com.googlesource.gerrit.plugins.reviewai;
 
+import com.google.gerrit.extensions.events.LifecycleListener;
 import com.google.gerrit.server.events.EventListener;
 import com.google.inject.AbstractModule;
+import com.google.inject.internal.UniqueAnnotations;
 import com.google.inject.multibindings.Multibinder;
 import com.googlesource.gerrit.plugins.reviewai.listener.GerritListener;
+import com.googlesource.gerrit.plugins.reviewai.listener.PluginLifecycleListener;
 
 public class Module extends AbstractModule {
   @Override
@@ -27,5 +30,8 @@ public class Module extends AbstractModule {
     Multibinder<EventListener> eventListenerBinder =
         Multibinder.newSetBinder(binder(), EventListener.class);
     eventListenerBinder.addBinding().to(GerritListener.class);
+    bind(LifecycleListener.class)
+        .annotatedWith(UniqueAnnotations.create())
+        .to(PluginLifecycleListener.class);
   }
 }
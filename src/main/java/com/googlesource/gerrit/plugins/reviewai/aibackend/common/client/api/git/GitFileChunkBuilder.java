@@ -17,68 +17,140 @@
 package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git;
 
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.FileEntry;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoBlob;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoChunk;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoChunkStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Packs the repository files into chunks using first-fit-decreasing bin packing. Directories are
+ * kept whole whenever they fit in a chunk and are placed preferably next to the directories that
+ * share the longest path with them, so that related files end up in the same chunk.
+ */
 @Slf4j
 public class GitFileChunkBuilder {
   private final long maxChunkSize;
-  private final List<Map<String, String>> chunks = new ArrayList<>();
+  private final long chunkCapacity;
+  private final List<PackingItem> items = new ArrayList<>();
 
-  private Map<String, String> currentChunk = new LinkedHashMap<>();
-  private long currentChunkSize = 0;
+  @Getter private RepoChunkStats stats;
 
   public GitFileChunkBuilder(Configuration config) {
     maxChunkSize = 1024 * 1024 * (long) config.getAiUploadedChunkSizeMb();
+    chunkCapacity = Math.max(1, (long) (maxChunkSize * config.getAiUploadedChunkFillRatio()));
   }
 
-  public void addFiles(String path, List<FileEntry> fileEntries) {
-    // Start a new chunk if adding the entire directory would exceed maxChunkSize
-    long dirSize = fileEntries.stream().mapToLong(FileEntry::getSize).sum();
-    if (currentChunkSize + dirSize > maxChunkSize) {
-      startNewChunk();
+  public void addFiles(String path, List<RepoBlob> repoBlobs) {
+    long dirSize = repoBlobs.stream().mapToLong(RepoBlob::getSize).sum();
+    if (dirSize <= chunkCapacity) {
+      items.add(new PackingItem(path, new ArrayList<>(repoBlobs), dirSize));
+      return;
     }
-    for (FileEntry fe : fileEntries) {
-      log.debug("ChunkBuilder - Processing file: {}", fe.getPath());
-      if (fe.getSize() > maxChunkSize) {
-        // Handle large file
-        startNewChunk();
-        Map<String, String> singleFileChunk = new LinkedHashMap<>();
-        updateChunk(singleFileChunk, fe);
-        chunks.add(singleFileChunk);
-        log.warn("File {} exceeds maxChunkSize, added in its own chunk", fe.getPath());
-      } else {
-        if (currentChunkSize + fe.getSize() > maxChunkSize) {
-          startNewChunk();
-        }
-        updateChunk(currentChunk, fe);
+    // Directories exceeding the chunk capacity are split into consecutive groups of files
+    PackingItem group = new PackingItem(path, new ArrayList<>(), 0);
+    for (RepoBlob repoBlob : repoBlobs) {
+      log.debug("ChunkBuilder - Processing file: {}", repoBlob.getPath());
+      if (repoBlob.getSize() > chunkCapacity) {
+        log.warn("File {} exceeds maxChunkSize, added in its own chunk", repoBlob.getPath());
+        items.add(new PackingItem(path, List.of(repoBlob), repoBlob.getSize()));
+        continue;
+      }
+      if (group.size + repoBlob.getSize() > chunkCapacity) {
+        items.add(group);
+        group = new PackingItem(path, new ArrayList<>(), 0);
       }
+      group.blobs.add(repoBlob);
+      group.size += repoBlob.getSize();
+    }
+    if (!group.blobs.isEmpty()) {
+      items.add(group);
     }
-    startNewChunk();
   }
 
-  public List<Map<String, String>> getChunks() {
-    startNewChunk();
+  public List<RepoChunk> getChunks() {
+    // Ties are broken by path to produce the same chunks from the same tree
+    items.sort(
+        Comparator.comparingLong((PackingItem item) -> item.size)
+            .reversed()
+            .thenComparing(item -> item.dir));
+    List<RepoChunk> chunks = new ArrayList<>();
+    for (PackingItem item : items) {
+      RepoChunk chunk = findChunk(chunks, item);
+      if (chunk == null) {
+        chunk = new RepoChunk();
+        chunks.add(chunk);
+      }
+      for (RepoBlob repoBlob : item.blobs) {
+        chunk.addBlob(item.dir, repoBlob);
+      }
+    }
+    stats = computeStats(chunks);
+    log.info(
+        "Packed {} files of {} bytes into {} chunks: average fill {}%, lowest fill {}%",
+        stats.getFileCount(),
+        stats.getTotalSize(),
+        stats.getChunkCount(),
+        Math.round(stats.getAverageFillRatio() * 100),
+        Math.round(stats.getMinFillRatio() * 100));
+
     return chunks;
   }
 
-  private void updateChunk(Map<String, String> chunk, FileEntry fe) {
-    chunk.put(fe.getPath(), fe.getContent());
-    currentChunkSize += fe.getSize();
+  private RepoChunk findChunk(List<RepoChunk> chunks, PackingItem item) {
+    if (item.size > chunkCapacity) {
+      return null;
+    }
+    RepoChunk bestChunk = null;
+    int bestAffinity = -1;
+    for (RepoChunk chunk : chunks) {
+      if (chunk.getSize() + item.size > chunkCapacity) continue;
+      int affinity = getAffinity(chunk.getDirs().get(0), item.dir);
+      if (affinity > bestAffinity) {
+        bestChunk = chunk;
+        bestAffinity = affinity;
+      }
+    }
+    return bestChunk;
   }
 
-  private void startNewChunk() {
-    if (currentChunk.isEmpty()) {
-      return;
+  private int getAffinity(String chunkDir, String dir) {
+    if (chunkDir.isEmpty() || dir.isEmpty()) {
+      return 0;
     }
-    log.debug("Started new chunk");
-    chunks.add(currentChunk);
-    currentChunk = new LinkedHashMap<>();
-    currentChunkSize = 0;
+    String[] chunkDirSegments = chunkDir.split("/");
+    String[] dirSegments = dir.split("/");
+    int commonSegments = 0;
+    while (commonSegments < Math.min(chunkDirSegments.length, dirSegments.length)
+        && chunkDirSegments[commonSegments].equals(dirSegments[commonSegments])) {
+      commonSegments++;
+    }
+    return commonSegments;
+  }
+
+  private RepoChunkStats computeStats(List<RepoChunk> chunks) {
+    int fileCount = chunks.stream().mapToInt(chunk -> chunk.getBlobs().size()).sum();
+    long totalSize = chunks.stream().mapToLong(RepoChunk::getSize).sum();
+    double averageFillRatio =
+        chunks.isEmpty() ? 0 : (double) totalSize / (chunks.size() * maxChunkSize);
+    double minFillRatio =
+        chunks.stream()
+            .mapToDouble(chunk -> (double) chunk.getSize() / maxChunkSize)
+            .min()
+            .orElse(0);
+
+    return new RepoChunkStats(chunks.size(), fileCount, totalSize, averageFillRatio, minFillRatio);
+  }
+
+  @AllArgsConstructor
+  private static class PackingItem {
+    private final String dir;
+    private final List<RepoBlob> blobs;
+    private long size;
   }
 }
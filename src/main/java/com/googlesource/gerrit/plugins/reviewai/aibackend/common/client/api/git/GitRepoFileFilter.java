@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git;
+
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.utils.HashUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.ignore.FastIgnoreRule;
+import org.eclipse.jgit.ignore.IgnoreNode;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.OrTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.matchesExtensionList;
+
+/**
+ * Selects the repository files made available to AI. The enabled file extensions and the ignore
+ * rules, taken from the configuration and from the `.reviewaiignore` file at the root of the
+ * repository, are compiled into a tree filter so that ignored subtrees are skipped by the tree
+ * walks without being entered. Blobs are further checked for their size and binary contents.
+ */
+@Slf4j
+public class GitRepoFileFilter {
+  public static final String IGNORE_FILENAME = ".reviewaiignore";
+
+  private final List<String> enabledFileExtensions;
+  private final long maxFileSize;
+  private final List<String> ignoredRepoFiles;
+  private final IgnoreNode ignoreNode;
+  private ObjectId ignoreFileId;
+
+  public GitRepoFileFilter(Configuration config, ObjectReader reader, RevTree tree)
+      throws IOException {
+    enabledFileExtensions = config.getEnabledFileExtensions();
+    maxFileSize = 1024L * config.getMaxRepoFileSizeKb();
+    ignoredRepoFiles = config.getIgnoredRepoFiles();
+    ignoreNode = new IgnoreNode(ignoredRepoFiles.stream().map(FastIgnoreRule::new).toList());
+    // Rules from the repository take precedence over the configured ones
+    try (TreeWalk treeWalk = TreeWalk.forPath(reader, IGNORE_FILENAME, tree)) {
+      if (treeWalk != null) {
+        log.debug("Loading ignore rules from {}", IGNORE_FILENAME);
+        ignoreFileId = treeWalk.getObjectId(0);
+        try (InputStream inputStream = reader.open(ignoreFileId, Constants.OBJ_BLOB).openStream()) {
+          ignoreNode.parse(IGNORE_FILENAME, inputStream);
+        }
+      }
+    }
+    log.debug("Repository file ignore rules: {}", ignoreNode.getRules());
+  }
+
+  /** Returns a key of the rules selecting the files, which changes whenever any of them does. */
+  public String getFilterKey() {
+    return HashUtils.hashData(
+        List.of(
+            String.join(",", enabledFileExtensions),
+            String.valueOf(maxFileSize),
+            String.join("\n", ignoredRepoFiles),
+            ignoreFileId != null ? ignoreFileId.getName() : ""));
+  }
+
+  public TreeFilter getTreeFilter() {
+    return AndTreeFilter.create(new IgnoreRulesTreeFilter(), getExtensionsTreeFilter());
+  }
+
+  public TreeFilter getTreeFilter(TreeFilter pathFilter) {
+    return AndTreeFilter.create(pathFilter, getTreeFilter());
+  }
+
+  public boolean isIncluded(String path) {
+    return matchesExtensionList(path, enabledFileExtensions);
+  }
+
+  public boolean isWithinSizeLimit(long size, String path) {
+    if (size > maxFileSize) {
+      log.debug("File {} skipped, size {} exceeds the limit of {}", path, size, maxFileSize);
+      return false;
+    }
+    return true;
+  }
+
+  /** Sniffs the first bytes of a blob to detect binary files without loading them. */
+  public boolean isTextBlob(ObjectReader reader, ObjectId objectId, String path)
+      throws IOException {
+    try (InputStream inputStream = reader.open(objectId, Constants.OBJ_BLOB).openStream()) {
+      return isText(RawText.isBinary(inputStream), path);
+    }
+  }
+
+  public boolean isText(byte[] bytes, String path) {
+    return isText(RawText.isBinary(bytes), path);
+  }
+
+  private boolean isText(boolean binary, String path) {
+    if (binary) {
+      log.debug("Binary file {} skipped", path);
+    }
+    return !binary;
+  }
+
+  private TreeFilter getExtensionsTreeFilter() {
+    List<TreeFilter> suffixFilters =
+        enabledFileExtensions.stream()
+            .map(extension -> (TreeFilter) PathSuffixFilter.create("." + extension))
+            .toList();
+    return switch (suffixFilters.size()) {
+      // Paths are still matched against the extension list by `isIncluded`
+      case 0 -> TreeFilter.ALL;
+      case 1 -> suffixFilters.get(0);
+      default -> OrTreeFilter.create(suffixFilters);
+    };
+  }
+
+  private class IgnoreRulesTreeFilter extends TreeFilter {
+    @Override
+    public boolean include(TreeWalk walker) {
+      // Excluding a subtree prevents the walk from entering it
+      Boolean ignored = ignoreNode.checkIgnored(walker.getPathString(), walker.isSubtree());
+      return !Boolean.TRUE.equals(ignored);
+    }
+
+    @Override
+    public boolean shouldBeRecursive() {
+      return false;
+    }
+
+    @Override
+    public TreeFilter clone() {
+      return this;
+    }
+  }
+}
@@ -16,69 +16,237 @@
 
 package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git;
 
+import com.google.gerrit.entities.Project;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.gson.stream.JsonWriter;
+import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.FileEntry;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoBlob;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoChunk;
 import lombok.extern.slf4j.Slf4j;
-import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 
-import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.matchesExtensionList;
+import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.getDirName;
 import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
 
 @Slf4j
-public class GitRepoFiles {
+public class GitRepoFiles implements AutoCloseable {
   public static final String REPO_PATTERN = "git/%s.git";
 
-  private GitFileChunkBuilder gitFileChunkBuilder;
-  private List<String> enabledFileExtensions;
-  private long fileSize;
-
-  public List<String> getGitRepoFilesAsJson(Configuration config, GerritChange change) {
-    log.debug("Getting Repository files as JSON");
-    gitFileChunkBuilder = new GitFileChunkBuilder(config);
-    enabledFileExtensions = config.getEnabledFileExtensions();
-    try (Repository repository = openRepository(change)) {
-      List<Map<String, String>> chunkedFileContent = listFilesWithContent(repository);
-      return chunkedFileContent.stream()
-          .map(chunk -> getGson().toJson(chunk))
-          .collect(Collectors.toList());
-    } catch (IOException | GitAPIException e) {
+  // Without a repository manager, outside of the Gerrit server, repositories are opened from the
+  // filesystem
+  private final GitRepositoryManager repositoryManager;
+
+  // Repository state cached for the lifetime of the instance, which is bound to a single task. Only
+  // its acquisition is synchronized: the object readers, which are not thread-safe, are opened per
+  // call, so that concurrent reads of the same task are not serialized.
+  private String projectName;
+  private Repository repository;
+  private RevCommit masterCommit;
+
+  @Inject
+  public GitRepoFiles(GitRepositoryManager repositoryManager) {
+    this.repositoryManager = repositoryManager;
+  }
+
+  /**
+   * Returns a new instance opening the repositories through the same manager, with its own
+   * repository state, for the work outliving the task this instance is bound to.
+   */
+  public GitRepoFiles newInstance() {
+    return new GitRepoFiles(repositoryManager);
+  }
+
+  public List<RepoChunk> getGitRepoChunks(Configuration config, GerritChange change) {
+    return getGitRepoChunks(config, change, null);
+  }
+
+  public List<RepoChunk> getGitRepoChunks(
+      Configuration config, GerritChange change, Set<String> dirs) {
+    log.debug("Getting Repository files as chunks for directories: {}", dirs);
+    try {
+      return listFileBlobs(config, change, dirs);
+    } catch (IOException e) {
       throw new RuntimeException("Failed to retrieve files in master branch: ", e);
     }
   }
 
-  public List<FileEntry> getDirFiles(Configuration config, GerritChange change, String path) {
+  /**
+   * Streams the chunk as a JSON object mapping file paths to their contents. The blobs are read
+   * one at a time from the object database, so that the chunk is never held in memory as a whole.
+   * Chunks can be written concurrently, each with its own object reader.
+   */
+  public void writeRepoChunk(GerritChange change, RepoChunk repoChunk, OutputStream outputStream)
+      throws IOException {
+    try (ObjectReader chunkReader = getRepository(change).newObjectReader()) {
+      Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+      JsonWriter jsonWriter = getGson().newJsonWriter(writer);
+      jsonWriter.beginObject();
+      for (RepoBlob repoBlob : repoChunk.getBlobs()) {
+        byte[] bytes = chunkReader.open(repoBlob.getObjectId(), Constants.OBJ_BLOB).getBytes();
+        jsonWriter.name(repoBlob.getPath()).value(new String(bytes, StandardCharsets.UTF_8));
+      }
+      jsonWriter.endObject();
+      // The output stream is owned by the caller and must not be closed
+      jsonWriter.flush();
+    }
+  }
+
+  public String getMasterCommitId(GerritChange change) {
+    try {
+      RevCommit commit = getMasterCommit(change);
+      return commit != null ? commit.getName() : null;
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to resolve master branch", e);
+    }
+  }
+
+  /** Returns whether the first commit is an ancestor of, or the same as, the second one. */
+  public boolean isAncestor(GerritChange change, String ancestorId, String commitId) {
+    try (RevWalk revWalk = new RevWalk(getRepository(change))) {
+      return revWalk.isMergedInto(
+          revWalk.parseCommit(ObjectId.fromString(ancestorId)),
+          revWalk.parseCommit(ObjectId.fromString(commitId)));
+    } catch (IOException | IllegalArgumentException e) {
+      log.debug("Failed to check if {} is an ancestor of {}", ancestorId, commitId, e);
+      return false;
+    }
+  }
+
+  /** Returns the key of the rules selecting the files of the master branch. */
+  public String getFileFilterKey(Configuration config, GerritChange change) {
+    try (ObjectReader objectReader = getRepository(change).newObjectReader()) {
+      return new GitRepoFileFilter(config, objectReader, getMasterRevTree(change)).getFilterKey();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read the file filter of master branch", e);
+    }
+  }
+
+  public Set<String> getChangedDirs(
+      Configuration config, GerritChange change, String fromCommitId) {
+    log.debug("Getting directories changed since commit {}", fromCommitId);
+    Set<String> changedDirs = new LinkedHashSet<>();
+    for (String path : getChangedFiles(config, change, fromCommitId)) {
+      changedDirs.add(getDirName(path));
+    }
+    log.debug("Changed directories: {}", changedDirs);
+    return changedDirs;
+  }
+
+  public Set<String> getChangedFiles(
+      Configuration config, GerritChange change, String fromCommitId) {
+    log.debug("Getting files changed since commit {}", fromCommitId);
+    Set<String> changedFiles = new LinkedHashSet<>();
+    try (ObjectReader objectReader = getRepository(change).newObjectReader()) {
+      RevTree masterTree = getMasterRevTree(change);
+      GitRepoFileFilter fileFilter = new GitRepoFileFilter(config, objectReader, masterTree);
+      try (RevWalk revWalk = new RevWalk(objectReader);
+          TreeWalk treeWalk = new TreeWalk(getRepository(change), objectReader)) {
+        treeWalk.addTree(revWalk.parseCommit(ObjectId.fromString(fromCommitId)).getTree());
+        treeWalk.addTree(masterTree);
+        treeWalk.setRecursive(true);
+        // Added, deleted and modified files; renamed files show up as a deletion and an addition
+        treeWalk.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, fileFilter.getTreeFilter()));
+        while (treeWalk.next()) {
+          String path = treeWalk.getPathString();
+          if (fileFilter.isIncluded(path)) {
+            changedFiles.add(path);
+          }
+        }
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      throw new RuntimeException("Failed to diff master branch against " + fromCommitId, e);
+    }
+    log.debug("Changed files: {}", changedFiles);
+    return changedFiles;
+  }
+
+  /**
+   * Passes blob and content of the master branch files to the visitor, one file at a time. When
+   * paths are provided, only those files are visited.
+   */
+  public void visitFiles(
+      Configuration config,
+      GerritChange change,
+      Set<String> paths,
+      BiConsumer<RepoBlob, String> visitor) {
+    if (paths != null && paths.isEmpty()) return;
+    try (ObjectReader objectReader = getRepository(change).newObjectReader()) {
+      RevTree tree = getMasterRevTree(change);
+      GitRepoFileFilter fileFilter = new GitRepoFileFilter(config, objectReader, tree);
+      try (TreeWalk treeWalk = new TreeWalk(getRepository(change), objectReader)) {
+        treeWalk.addTree(tree);
+        treeWalk.setRecursive(true);
+        treeWalk.setFilter(
+            fileFilter.getTreeFilter(
+                paths != null ? PathFilterGroup.createFromStrings(paths) : TreeFilter.ALL));
+
+        while (treeWalk.next()) {
+          String path = treeWalk.getPathString();
+          if (!fileFilter.isIncluded(path)) continue;
+          ObjectId objectId = treeWalk.getObjectId(0);
+          long size = objectReader.getObjectSize(objectId, Constants.OBJ_BLOB);
+          if (!fileFilter.isWithinSizeLimit(size, path)) continue;
+          byte[] bytes = objectReader.open(objectId, Constants.OBJ_BLOB).getBytes();
+          if (!fileFilter.isText(bytes, path)) continue;
+          visitor.accept(
+              new RepoBlob(path, objectId, size), new String(bytes, StandardCharsets.UTF_8));
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to visit files in master branch", e);
+    }
+  }
+
+  /**
+   * Lists the files of the directory, excluding its subdirectories, without reading their contents:
+   * the blobs returned can be read with {@link #getBlobContent} once a file is actually needed.
+   */
+  public List<RepoBlob> getDirFiles(
+      Configuration config, GerritChange change, String path) {
     log.debug("Getting files from selected directory");
-    enabledFileExtensions = config.getEnabledFileExtensions();
-    try (Repository repository = openRepository(change)) {
-      Map<String, List<FileEntry>> dirFilesMap =
-          getDirFilesMap(repository, PathFilter.create(path));
-      log.debug("Retrieved file directories: {}", dirFilesMap.keySet());
-      return dirFilesMap.get(path);
+    try {
+      List<RepoBlob> dirBlobs = listDirBlobs(config, change, path);
+      log.debug("Retrieved files in directory {}: {}", path, dirBlobs.size());
+      return dirBlobs;
     } catch (IOException e) {
       throw new RuntimeException("Failed to retrieve files in path " + path, e);
     }
   }
 
-  public String getFileContent(GerritChange change, String path) throws FileNotFoundException {
-    try (Repository repository = openRepository(change);
-        ObjectReader reader = repository.newObjectReader()) {
-      RevTree tree = getMasterRevTree(repository);
-      String content = readFileContent(reader, tree, path);
+  public String getBlobContent(GerritChange change, ObjectId objectId)
+      throws FileNotFoundException {
+    try (ObjectReader objectReader = getRepository(change).newObjectReader()) {
+      byte[] bytes = objectReader.open(objectId, Constants.OBJ_BLOB).getBytes();
+      return new String(bytes, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new FileNotFoundException("Blob not found: " + objectId.getName());
+    }
+  }
+
+  public String getFileContent(GerritChange change, String path)
+      throws FileNotFoundException {
+    try (ObjectReader objectReader = getRepository(change).newObjectReader()) {
+      String content = readFileContent(objectReader, getMasterRevTree(change), path);
       if (content != null) {
         return content;
       } else {
@@ -89,50 +257,115 @@ public class GitRepoFiles {
     }
   }
 
-  private List<Map<String, String>> listFilesWithContent(Repository repository)
-      throws IOException, GitAPIException {
-    Map<String, List<FileEntry>> dirFilesMap = getDirFilesMap(repository, TreeFilter.ANY_DIFF);
-    for (Map.Entry<String, List<FileEntry>> entry : dirFilesMap.entrySet()) {
-      String dirPath = entry.getKey();
-      log.debug("File from dirFilesMap processed: {}", dirPath);
-      List<FileEntry> fileEntries = entry.getValue();
-      gitFileChunkBuilder.addFiles(dirPath, fileEntries);
+  /** Releases the cached repository state; it is acquired again on the next access. */
+  @Override
+  public synchronized void close() {
+    if (repository != null) {
+      log.debug("Closing repository of project {}", projectName);
+      repository.close();
+      repository = null;
+    }
+    masterCommit = null;
+    projectName = null;
+  }
+
+  private List<RepoChunk> listFileBlobs(Configuration config, GerritChange change, Set<String> dirs)
+      throws IOException {
+    Map<String, List<RepoBlob>> dirBlobsMap = new LinkedHashMap<>();
+
+    RevTree tree = getMasterRevTree(change);
+    try (ObjectReader objectReader = getRepository(change).newObjectReader();
+        TreeWalk treeWalk = new TreeWalk(getRepository(change), objectReader)) {
+      GitRepoFileFilter fileFilter = new GitRepoFileFilter(config, objectReader, tree);
+      treeWalk.addTree(tree);
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(fileFilter.getTreeFilter(getDirsTreeFilter(dirs)));
+
+      while (treeWalk.next()) {
+        String path = treeWalk.getPathString();
+        if (!fileFilter.isIncluded(path)) continue;
+        String dirPath = getDirName(path);
+        if (dirs != null && !dirs.contains(dirPath)) continue;
+        ObjectId objectId = treeWalk.getObjectId(0);
+        // Only the size and the first bytes are read here: the contents are streamed at upload time
+        long size = objectReader.getObjectSize(objectId, Constants.OBJ_BLOB);
+        if (!fileFilter.isWithinSizeLimit(size, path)
+            || !fileFilter.isTextBlob(objectReader, objectId, path)) {
+          continue;
+        }
+        dirBlobsMap
+            .computeIfAbsent(dirPath, k -> new ArrayList<>())
+            .add(new RepoBlob(path, objectId, size));
+        log.debug("Repo File listed: {}", path);
+      }
+    }
+    GitFileChunkBuilder gitFileChunkBuilder = new GitFileChunkBuilder(config);
+    for (Map.Entry<String, List<RepoBlob>> entry : dirBlobsMap.entrySet()) {
+      log.debug("File from dirBlobsMap processed: {}", entry.getKey());
+      gitFileChunkBuilder.addFiles(entry.getKey(), entry.getValue());
     }
 
     return gitFileChunkBuilder.getChunks();
   }
 
-  private Map<String, List<FileEntry>> getDirFilesMap(Repository repository, TreeFilter filter)
-      throws IOException {
-    Map<String, List<FileEntry>> dirFilesMap = new LinkedHashMap<>();
+  private TreeFilter getDirsTreeFilter(Set<String> dirs) {
+    // The root directory cannot be selected with a path filter
+    if (dirs == null || dirs.isEmpty() || dirs.contains("")) {
+      return TreeFilter.ALL;
+    }
+    return PathFilterGroup.createFromStrings(dirs);
+  }
 
-    try (ObjectReader reader = repository.newObjectReader()) {
-      RevTree tree = getMasterRevTree(repository);
+  private List<RepoBlob> listDirBlobs(Configuration config, GerritChange change, String dir)
+      throws IOException {
+    List<RepoBlob> dirBlobs = new ArrayList<>();
 
-      try (TreeWalk treeWalk = new TreeWalk(repository)) {
-        treeWalk.addTree(tree);
-        treeWalk.setRecursive(true);
-        treeWalk.setFilter(filter);
+    RevTree tree = getMasterRevTree(change);
+    try (ObjectReader objectReader = getRepository(change).newObjectReader();
+        TreeWalk treeWalk = new TreeWalk(getRepository(change), objectReader)) {
+      GitRepoFileFilter fileFilter = new GitRepoFileFilter(config, objectReader, tree);
+      treeWalk.addTree(tree);
+      // Only the directory itself is descended into: its subtrees are skipped unopened
+      treeWalk.setRecursive(false);
+      treeWalk.setFilter(fileFilter.getTreeFilter(getDirsTreeFilter(Set.of(dir))));
 
-        while (treeWalk.next()) {
-          String path = treeWalk.getPathString();
-          if (!matchesExtensionList(path, enabledFileExtensions)) continue;
-          int lastSlashIndex = path.lastIndexOf('/');
-          String dirPath = (lastSlashIndex != -1) ? path.substring(0, lastSlashIndex) : "";
-          String content = getContent(reader, treeWalk);
-
-          dirFilesMap
-              .computeIfAbsent(dirPath, k -> new ArrayList<>())
-              .add(new FileEntry(path, content, fileSize));
-          log.debug("Repo File loaded: {}", path);
+      while (treeWalk.next()) {
+        String path = treeWalk.getPathString();
+        if (treeWalk.isSubtree()) {
+          if (dir.equals(path) || dir.startsWith(path + "/")) {
+            treeWalk.enterSubtree();
+          }
+          continue;
         }
+        if (!fileFilter.isIncluded(path) || !dir.equals(getDirName(path))) continue;
+        ObjectId objectId = treeWalk.getObjectId(0);
+        long size = objectReader.getObjectSize(objectId, Constants.OBJ_BLOB);
+        if (!fileFilter.isWithinSizeLimit(size, path)) continue;
+        dirBlobs.add(new RepoBlob(path, objectId, size));
+        log.debug("Repo File listed: {}", path);
       }
     }
-    return dirFilesMap;
+    return dirBlobs;
+  }
+
+  private synchronized Repository getRepository(GerritChange change) throws IOException {
+    String changeProjectName = change.getProjectName();
+    if (repository != null && !changeProjectName.equals(projectName)) {
+      close();
+    }
+    if (repository == null) {
+      repository = openRepository(change);
+      projectName = changeProjectName;
+    }
+    return repository;
   }
 
   private Repository openRepository(GerritChange change) throws IOException {
     log.debug("Opening repository for change: {}", change.getFullChangeId());
+    if (repositoryManager != null) {
+      return repositoryManager.openRepository(Project.nameKey(change.getProjectName()));
+    }
+    // Outside of the Gerrit server, the repository is opened from the filesystem
     String repoPath = String.format(REPO_PATTERN, change.getProjectName());
     log.debug("Opening repository at path: {}", repoPath);
     FileRepositoryBuilder builder = new FileRepositoryBuilder();
@@ -144,30 +377,43 @@ public class GitRepoFiles {
         .build();
   }
 
-  private RevTree getMasterRevTree(Repository repository) throws IOException {
-    ObjectId lastCommitId = repository.resolve(Constants.R_HEADS + "master");
-    try (RevWalk revWalk = new RevWalk(repository)) {
-      return revWalk.parseCommit(lastCommitId).getTree();
-    } catch (NullPointerException e) {
-      log.warn("Error retrieving Master Rev Tree for ID `{}`", lastCommitId, e);
-      throw new IOException(e);
+  private synchronized RevCommit getMasterCommit(GerritChange change) throws IOException {
+    Repository changeRepository = getRepository(change);
+    if (masterCommit == null) {
+      ObjectId lastCommitId = changeRepository.resolve(Constants.R_HEADS + "master");
+      if (lastCommitId == null) {
+        return null;
+      }
+      try (RevWalk revWalk = new RevWalk(changeRepository)) {
+        masterCommit = revWalk.parseCommit(lastCommitId);
+      }
+      log.debug("Master branch of project {} resolved to {}", projectName, masterCommit.getName());
+    }
+    return masterCommit;
+  }
+
+  private RevTree getMasterRevTree(GerritChange change) throws IOException {
+    RevCommit commit = getMasterCommit(change);
+    if (commit == null) {
+      log.warn("Error retrieving Master Rev Tree for project `{}`", change.getProjectName());
+      throw new IOException("Master branch not found");
     }
+    return commit.getTree();
   }
 
-  private String readFileContent(ObjectReader reader, RevTree tree, String path)
+  private String readFileContent(ObjectReader objectReader, RevTree tree, String path)
       throws IOException {
-    try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, tree)) {
+    try (TreeWalk treeWalk = TreeWalk.forPath(objectReader, path, tree)) {
       if (treeWalk != null) {
-        return getContent(reader, treeWalk);
+        return getContent(objectReader, treeWalk);
       }
       return null;
     }
   }
 
-  private String getContent(ObjectReader reader, TreeWalk treeWalk) throws IOException {
+  private String getContent(ObjectReader objectReader, TreeWalk treeWalk) throws IOException {
     ObjectId objectId = treeWalk.getObjectId(0);
-    byte[] bytes = reader.open(objectId).getBytes();
-    fileSize = bytes.length;
+    byte[] bytes = objectReader.open(objectId).getBytes();
 
     return new String(bytes, StandardCharsets.UTF_8);
   }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoChunk;
+import lombok.NonNull;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+
+/**
+ * Request body streaming the contents of a repository chunk straight from the object database.
+ * The body can be written more than once, so that requests remain retryable.
+ */
+public class RepoChunkRequestBody extends RequestBody {
+  private static final MediaType MEDIA_TYPE_JSON = MediaType.get("application/json");
+
+  private final GitRepoFiles gitRepoFiles;
+  private final GerritChange change;
+  private final RepoChunk repoChunk;
+
+  public RepoChunkRequestBody(GitRepoFiles gitRepoFiles, GerritChange change, RepoChunk repoChunk) {
+    this.gitRepoFiles = gitRepoFiles;
+    this.change = change;
+    this.repoChunk = repoChunk;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return MEDIA_TYPE_JSON;
+  }
+
+  @Override
+  public void writeTo(@NonNull BufferedSink sink) throws IOException {
+    gitRepoFiles.writeRepoChunk(change, repoChunk, sink.outputStream());
+  }
+}
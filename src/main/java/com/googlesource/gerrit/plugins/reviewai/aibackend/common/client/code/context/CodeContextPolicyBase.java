@@ -33,7 +33,8 @@ public abstract class CodeContextPolicyBase extends ClientBase implements ICodeC
   public enum CodeContextPolicies {
     NONE,
     ON_DEMAND,
-    UPLOAD_ALL
+    UPLOAD_ALL,
+    RETRIEVAL
   }
 
   public CodeContextPolicyBase(Configuration config) {
@@ -59,6 +60,11 @@ public abstract class CodeContextPolicyBase extends ClientBase implements ICodeC
     log.debug("Vector Store removal skipped with the current code context policy");
   }
 
+  public boolean syncVectorStore() throws AiConnectionFailException {
+    log.debug("Vector Store syncing skipped with the current code context policy");
+    return false;
+  }
+
   public void updateAssistantTools(
       OpenAiAssistantTools openAiAssistantTools, String vectorStoreId) {
     log.debug("Assistant Tools updating skipped with the current code context policy");
@@ -71,4 +77,9 @@ public abstract class CodeContextPolicyBase extends ClientBase implements ICodeC
   public void addCodeContextPolicyAwareAssistantRule(List<String> rules) {
     log.debug("Adding Assistant Rules skipped with the current code context policy");
   }
+
+  public void addCodeContextPolicyAwareReviewMessage(
+      List<String> messageComponents, String patchSet) {
+    log.debug("Adding Review Message context skipped with the current code context policy");
+  }
 }
@@ -18,28 +18,56 @@ package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.co
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextPrefetcher;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 
-import static com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.prompt.AiPromptReview.DEFAULT_AI_ASSISTANT_INSTRUCTIONS_ON_DEMAND_REQUEST;
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.PromptCatalog.getPromptValue;
 
 @Slf4j
 public class CodeContextPolicyOnDemand extends CodeContextPolicyBase implements ICodeContextPolicy {
+  protected final GerritChange change;
+  protected final GitRepoFiles gitRepoFiles;
 
   @VisibleForTesting
+  public CodeContextPolicyOnDemand(Configuration config) {
+    this(config, null, null);
+  }
+
   @Inject
   public CodeContextPolicyOnDemand(
-      Configuration config) {
+      Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
     super(config);
+    this.change = change;
+    this.gitRepoFiles = gitRepoFiles;
     log.debug("CodeContextPolicyOnDemand initialized");
   }
 
   @Override
   public void addCodeContextPolicyAwareAssistantRule(List<String> rules) {
-    rules.add(DEFAULT_AI_ASSISTANT_INSTRUCTIONS_ON_DEMAND_REQUEST);
+    rules.add(
+        getPromptValue(
+            "promptsOpenAiReview", "DEFAULT_AI_ASSISTANT_INSTRUCTIONS_ON_DEMAND_REQUEST"));
     log.debug("Added Assistant Rules for On-Demand code context policy");
   }
+
+  @Override
+  public void addCodeContextPolicyAwareReviewMessage(
+      List<String> messageComponents, String patchSet) {
+    if (gitRepoFiles == null || !config.getCodeContextOnDemandPrefetch()) return;
+    String prefetchedCodeContext =
+        new CodeContextPrefetcher(config, change, gitRepoFiles).prefetchCodeContext(patchSet);
+    if (prefetchedCodeContext != null) {
+      messageComponents.add(
+          String.format(
+              getPromptValue("promptsOpenAi", "DEFAULT_AI_MESSAGE_PREFETCHED_CONTEXT"),
+              prefetchedCodeContext));
+      log.debug("Added prefetched code context to Review Message");
+    }
+  }
 }
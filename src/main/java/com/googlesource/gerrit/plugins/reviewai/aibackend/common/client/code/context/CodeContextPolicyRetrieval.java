@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context;
+
+import com.google.inject.Inject;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.CodeRetriever;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.PromptCatalog.getPromptValue;
+
+@Slf4j
+public class CodeContextPolicyRetrieval extends CodeContextPolicyBase implements ICodeContextPolicy {
+  private final GerritChange change;
+  private final GitRepoFiles gitRepoFiles;
+
+  public enum RetrievalIndexTypes {
+    VECTOR,
+    LEXICAL
+  }
+
+  @Inject
+  public CodeContextPolicyRetrieval(
+      Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+    super(config);
+    this.change = change;
+    this.gitRepoFiles = gitRepoFiles;
+    log.debug("CodeContextPolicyRetrieval initialized");
+  }
+
+  @Override
+  public void addCodeContextPolicyAwareAssistantInstructions(List<String> instructions) {
+    // Only the code retrieved for the Patch Set is provided, not the full codebase
+    instructions.add(
+        getPromptValue("promptsOpenAi", "DEFAULT_AI_ASSISTANT_INSTRUCTIONS_NO_FILE_CONTEXT"));
+    log.debug("Added Assistant Instructions for `Retrieval` code context policy");
+  }
+
+  @Override
+  public void addCodeContextPolicyAwareReviewMessage(
+      List<String> messageComponents, String patchSet) {
+    String retrievedCodeContext =
+        new CodeRetriever(config, change, gitRepoFiles).retrieveCodeContext(patchSet);
+    if (retrievedCodeContext != null) {
+      messageComponents.add(
+          String.format(
+              getPromptValue("promptsOpenAi", "DEFAULT_AI_MESSAGE_RETRIEVED_CONTEXT"),
+              retrievedCodeContext));
+      log.debug("Added retrieved code context to Review Message");
+    }
+  }
+}
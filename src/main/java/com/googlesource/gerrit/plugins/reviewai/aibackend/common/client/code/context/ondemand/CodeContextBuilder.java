@@ -16,6 +16,7 @@
 
 package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.CodeContextOnDemandLocatorException;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ondemand.IEntityLocator;
@@ -28,18 +29,40 @@ import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.cont
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CodeLocatorFactory.getEntityLocator;
 import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
 
 @Slf4j
 public class CodeContextBuilder extends ClientBase {
-  private static final String CONTEXT_NOT_PROVIDED = "CONTEXT NOT PROVIDED";
+  public static final String CONTEXT_NOT_PROVIDED = "CONTEXT NOT PROVIDED";
+
+  private static final int SHARED_EXECUTOR_THREADS =
+      Math.max(4, Runtime.getRuntime().availableProcessors());
+  private static final ExecutorService sharedExecutor =
+      Executors.newFixedThreadPool(
+          SHARED_EXECUTOR_THREADS,
+          new ThreadFactoryBuilder()
+              .setNameFormat("reviewai-code-context-%d")
+              .setDaemon(true)
+              .build());
 
   private final GerritChange change;
   private final GitRepoFiles gitRepoFiles;
 
+  // A helper only runs if its executor thread claims it before the calling thread is done
+  private record Helper(AtomicBoolean started, CompletableFuture<Void> future) {}
+
   public CodeContextBuilder(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
     super(config);
     this.change = change;
@@ -48,34 +71,127 @@ public class CodeContextBuilder extends ClientBase {
 
   public String buildCodeContext(GetContextContent getContextContent) {
     log.debug("Building code context for {}", getContextContent);
+    CodeContextPrefetchStats.recordContextRequest(change);
     List<GetContextItem> replies = getContextContent.getReplies();
     if (replies == null || replies.isEmpty()) {
       return CONTEXT_NOT_PROVIDED;
     }
-    List<GetContextOutputItem> getContextOutput = new ArrayList<>();
-    for (GetContextItem getContextItem : replies) {
+    return getGson().toJson(resolveCodeContext(replies));
+  }
+
+  public List<GetContextOutputItem> resolveCodeContext(List<GetContextItem> getContextItems) {
+    // Files and patterns are shared by the locators of the request, which resolve concurrently
+    CodeContextCache codeContextCache = new CodeContextCache();
+    List<Supplier<GetContextOutputItem>> resolutions = new ArrayList<>();
+    for (GetContextItem getContextItem : getContextItems) {
       IEntityLocator entityLocator;
       try {
-        entityLocator = getEntityLocator(getContextItem, config, change, gitRepoFiles);
+        entityLocator =
+            getEntityLocator(getContextItem, config, change, gitRepoFiles, codeContextCache);
       } catch (CodeContextOnDemandLocatorException e) {
         continue;
       }
-      String definition = entityLocator.findDefinition(getContextItem);
-      if (definition == null) {
-        log.warn(
-            "Unable to find definition for `{}`", getContextItem.getContextRequiredEntity());
-        definition = CONTEXT_NOT_PROVIDED;
+      resolutions.add(() -> resolveContextItem(entityLocator, getContextItem));
+    }
+    return resolveAll(resolutions);
+  }
+
+  /**
+   * Resolves the items with up to the configured number of workers: the calling thread and helpers
+   * from the executor shared by all the tasks. Since the calling thread resolves items as well, the
+   * request progresses even when the shared executor is busy with other requests. The git reads of
+   * the workers are not serialized, as each one is done with its own object reader. Once the request
+   * is over, the helpers not started yet are cancelled rather than waited for.
+   */
+  private List<GetContextOutputItem> resolveAll(List<Supplier<GetContextOutputItem>> resolutions) {
+    int concurrency =
+        Math.max(1, Math.min(config.getCodeContextOnDemandMaxConcurrency(), resolutions.size()));
+    if (concurrency == 1) {
+      return resolutions.stream().map(Supplier::get).toList();
+    }
+    log.debug("Resolving {} context items with {} workers", resolutions.size(), concurrency);
+    GetContextOutputItem[] results = new GetContextOutputItem[resolutions.size()];
+    AtomicInteger nextIndex = new AtomicInteger();
+    Runnable worker =
+        () -> {
+          int index;
+          while ((index = nextIndex.getAndIncrement()) < results.length) {
+            try {
+              results[index] = resolutions.get(index).get();
+            } catch (RuntimeException e) {
+              // No further item is claimed by the other workers
+              nextIndex.set(results.length);
+              throw e;
+            }
+          }
+        };
+    List<Helper> helpers = new ArrayList<>();
+    try {
+      for (int i = 1; i < concurrency; i++) {
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<Void> future =
+            CompletableFuture.runAsync(
+                () -> {
+                  if (started.compareAndSet(false, true)) {
+                    worker.run();
+                  }
+                },
+                sharedExecutor);
+        helpers.add(new Helper(started, future));
       }
-      GetContextOutputItem getContextOutputItem =
-          GetContextOutputItem.builder()
-              .requestType(getContextItem.getRequestType())
-              .entityCategory(getContextItem.getEntityCategory())
-              .contextRequiredEntity(getContextItem.getContextRequiredEntity())
-              .definition(definition)
-              .build();
-      log.debug("Added code context: {}", getContextOutputItem);
-      getContextOutput.add(getContextOutputItem);
+    } catch (RejectedExecutionException e) {
+      log.debug("Shared executor unavailable: resolving context items on the calling thread");
+    }
+    try {
+      worker.run();
+    } finally {
+      // Once the calling thread is done, the helpers still queued have no item left to resolve
+      for (Helper helper : helpers) {
+        if (helper.started().compareAndSet(false, true)) {
+          helper.future().cancel(false);
+        }
+      }
+    }
+    for (Helper helper : helpers) {
+      if (!helper.future().isCancelled()) {
+        join(helper.future());
+      }
+    }
+    // Results are returned in the order of the requested items
+    return Arrays.asList(results);
+  }
+
+  public static void shutdown() {
+    log.debug("Shutting down the code context executor");
+    sharedExecutor.shutdownNow();
+  }
+
+  private void join(CompletableFuture<Void> future) {
+    try {
+      future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+
+  private GetContextOutputItem resolveContextItem(
+      IEntityLocator entityLocator, GetContextItem getContextItem) {
+    String definition = entityLocator.findDefinition(getContextItem);
+    if (definition == null) {
+      log.warn("Unable to find definition for `{}`", getContextItem.getContextRequiredEntity());
+      definition = CONTEXT_NOT_PROVIDED;
     }
-    return getGson().toJson(getContextOutput);
+    GetContextOutputItem getContextOutputItem =
+        GetContextOutputItem.builder()
+            .requestType(getContextItem.getRequestType())
+            .entityCategory(getContextItem.getEntityCategory())
+            .contextRequiredEntity(getContextItem.getContextRequiredEntity())
+            .definition(definition)
+            .build();
+    log.debug("Added code context: {}", getContextOutputItem);
+    return getContextOutputItem;
   }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoBlob;
+
+import java.io.FileNotFoundException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Cache shared by the locators resolving the items of a single get-context request, which may run
+ * concurrently. It holds the contents of the files read, the listings of the directories loaded
+ * with the blobs of their files, and the compiled search patterns. The blobs of the listed files
+ * are only read when a locator opens one of them.
+ *
+ * <p>Files and directories are loaded from the repository outside of any map lock: only the
+ * callers requesting the entry being loaded wait for it.
+ */
+public class CodeContextCache {
+  private final Cache<String, Optional<String>> fileContents = CacheBuilder.newBuilder().build();
+  private final Cache<String, Set<String>> dirFiles = CacheBuilder.newBuilder().build();
+  private final Map<String, RepoBlob> fileBlobs = new ConcurrentHashMap<>();
+  private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+  public interface FileLoader {
+    String load(String filename) throws FileNotFoundException;
+  }
+
+  public String getFileContent(String filename, FileLoader fileLoader)
+      throws FileNotFoundException {
+    Optional<String> content =
+        load(
+            fileContents,
+            filename,
+            () -> {
+              try {
+                return Optional.of(fileLoader.load(filename));
+              } catch (FileNotFoundException e) {
+                return Optional.empty();
+              }
+            });
+    return content.orElseThrow(() -> new FileNotFoundException("File not found: " + filename));
+  }
+
+  public RepoBlob getFileBlob(String filename) {
+    return fileBlobs.get(filename);
+  }
+
+  public void putFileBlob(RepoBlob repoBlob) {
+    fileBlobs.putIfAbsent(repoBlob.getPath(), repoBlob);
+  }
+
+  public Set<String> getFilesInDir(String dirname, Function<String, Set<String>> dirLoader) {
+    return load(dirFiles, dirname, () -> dirLoader.apply(dirname));
+  }
+
+  public Pattern getPattern(String regex, int flags) {
+    return patterns.computeIfAbsent(flags + ":" + regex, k -> Pattern.compile(regex, flags));
+  }
+
+  private static <V> V load(Cache<String, V> cache, String key, Callable<V> loader) {
+    try {
+      return cache.get(key, loader);
+    } catch (UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to load " + key, e.getCause());
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plugin-wide counters of the code context prefetched into review prompts and of the `get_context`
+ * requests that the model still issues afterward, exposed through the plugin metrics.
+ */
+public class CodeContextPrefetchStats {
+  private static final int MAX_TRACKED_REVIEWS = 1024;
+
+  private static final AtomicLong prefetchedReviews = new AtomicLong();
+  private static final AtomicLong prefetchedEntities = new AtomicLong();
+  private static final AtomicLong contextRequests = new AtomicLong();
+  private static final AtomicLong followUpReviews = new AtomicLong();
+
+  // Reviews served with prefetched context for which the model has not requested context yet. They
+  // are keyed by the change of their task, compared by identity, so that concurrent reviews of the
+  // same change are told apart and released along with their task.
+  private static final Cache<GerritChange, Boolean> pendingReviews =
+      CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_TRACKED_REVIEWS).build();
+
+  public static void recordPrefetch(GerritChange change, int entityCount) {
+    prefetchedReviews.incrementAndGet();
+    prefetchedEntities.addAndGet(entityCount);
+    pendingReviews.put(change, true);
+  }
+
+  public static void recordContextRequest(GerritChange change) {
+    contextRequests.incrementAndGet();
+    if (pendingReviews.asMap().remove(change) != null) {
+      followUpReviews.incrementAndGet();
+    }
+  }
+
+  public static long getPrefetchedReviews() {
+    return prefetchedReviews.get();
+  }
+
+  public static long getPrefetchedEntities() {
+    return prefetchedEntities.get();
+  }
+
+  public static long getContextRequests() {
+    return contextRequests.get();
+  }
+
+  public static long getFollowUpReviews() {
+    return followUpReviews.get();
+  }
+}
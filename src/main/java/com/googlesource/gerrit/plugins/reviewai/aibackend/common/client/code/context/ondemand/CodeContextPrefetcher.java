@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CodeLocatorFactory;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.GetContextItem;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.GetContextOutputItem;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextBuilder.CONTEXT_NOT_PROVIDED;
+import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
+import static com.googlesource.gerrit.plugins.reviewai.utils.ModuleUtils.MODULE_SEPARATOR;
+
+/**
+ * Resolves ahead of the review the callables invoked by the lines added in the Patch Set, so that
+ * their definitions can be provided with the review request instead of through a `get_context`
+ * round-trip. The most referenced callables are resolved first, within a token budget.
+ */
+@Slf4j
+public class CodeContextPrefetcher extends ClientBase {
+  private static final String DIFF_NEW_FILE_PREFIX = "+++ ";
+  private static final String DIFF_NEW_FILE_PATH_PREFIX = "b/";
+  private static final String DIFF_ADDED_LINE_PREFIX = "+";
+  private static final String REQUEST_TYPE_DEFINITION = "definition";
+  private static final int CHARS_PER_TOKEN = 4;
+
+  private static final Pattern CALL_PATTERN =
+      Pattern.compile("(?:\\b(\\w+)\\s*\\.\\s*)?\\b([A-Za-z_]\\w*)\\s*\\(");
+  // A name preceded by a type, a modifier or a declaration keyword is being declared
+  private static final Pattern DECLARATION_PREFIX_PATTERN = Pattern.compile("(\\w+|[>\\]*])\\s+$");
+  private static final Set<String> NON_CALLABLE_NAMES =
+      Set.of(
+          "if", "elif", "for", "foreach", "while", "switch", "catch", "with", "return", "sizeof",
+          "synchronized", "super", "this", "assert", "lambda", "not", "and", "or", "in");
+  private static final Set<String> CALL_PRECEDING_KEYWORDS =
+      Set.of(
+          "return", "await", "yield", "else", "throw", "raise", "case", "in", "not", "and", "or",
+          "assert", "is");
+
+  private final GerritChange change;
+  private final GitRepoFiles gitRepoFiles;
+
+  @AllArgsConstructor
+  private static class Candidate {
+    private final String filename;
+    private final String entity;
+    private final String codeSnippet;
+    private int references;
+  }
+
+  public CodeContextPrefetcher(
+      Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+    super(config);
+    this.change = change;
+    this.gitRepoFiles = gitRepoFiles;
+  }
+
+  /** Returns the prefetched definitions as a JSON array, or null when none was resolved. */
+  public String prefetchCodeContext(String patchSet) {
+    if (patchSet == null || patchSet.isEmpty()) return null;
+    List<GetContextItem> getContextItems = getTopCandidates(extractCandidates(patchSet));
+    if (getContextItems.isEmpty()) return null;
+    log.debug("Prefetching code context for {} entities", getContextItems.size());
+    List<GetContextOutputItem> resolvedItems;
+    try {
+      resolvedItems =
+          new CodeContextBuilder(config, change, gitRepoFiles).resolveCodeContext(getContextItems);
+    } catch (RuntimeException e) {
+      // Prefetching is an optimization: the model can still request the context on demand
+      log.warn("Failed to prefetch code context", e);
+      return null;
+    }
+    List<GetContextOutputItem> prefetchedItems = selectWithinBudget(resolvedItems);
+    if (prefetchedItems.isEmpty()) return null;
+    CodeContextPrefetchStats.recordPrefetch(change, prefetchedItems.size());
+    log.debug("Prefetched code context: {}", prefetchedItems);
+    return getGson().toJson(prefetchedItems);
+  }
+
+  private Collection<Candidate> extractCandidates(String patchSet) {
+    Map<String, Candidate> candidates = new LinkedHashMap<>();
+    Set<String> declaredNames = new HashSet<>();
+    String filename = null;
+    for (String line : patchSet.split("\n")) {
+      if (line.startsWith(DIFF_NEW_FILE_PREFIX)) {
+        String path = line.substring(DIFF_NEW_FILE_PREFIX.length()).trim();
+        filename =
+            path.startsWith(DIFF_NEW_FILE_PATH_PREFIX)
+                ? path.substring(DIFF_NEW_FILE_PATH_PREFIX.length())
+                : null;
+        if (filename != null && !CodeLocatorFactory.isLanguageSupported(filename)) {
+          filename = null;
+        }
+        continue;
+      }
+      if (filename == null || !line.startsWith(DIFF_ADDED_LINE_PREFIX)) continue;
+      String code = line.substring(DIFF_ADDED_LINE_PREFIX.length());
+      Matcher callMatcher = CALL_PATTERN.matcher(code);
+      while (callMatcher.find()) {
+        String qualifier = callMatcher.group(1);
+        String name = callMatcher.group(2);
+        if (NON_CALLABLE_NAMES.contains(name)) continue;
+        if (isDeclaration(code.substring(0, callMatcher.start()))) {
+          declaredNames.add(name);
+          continue;
+        }
+        String entity = qualifier != null ? qualifier + MODULE_SEPARATOR + name : name;
+        String finalFilename = filename;
+        candidates
+            .computeIfAbsent(
+                filename + ":" + entity, k -> new Candidate(finalFilename, entity, code.trim(), 0))
+            .references++;
+      }
+    }
+    // Callables declared in the Patch Set itself are already visible to the model
+    candidates.values().removeIf(candidate -> declaredNames.contains(getName(candidate.entity)));
+    return candidates.values();
+  }
+
+  private boolean isDeclaration(String codePrefix) {
+    Matcher prefixMatcher = DECLARATION_PREFIX_PATTERN.matcher(codePrefix);
+    return prefixMatcher.find() && !CALL_PRECEDING_KEYWORDS.contains(prefixMatcher.group(1));
+  }
+
+  private List<GetContextItem> getTopCandidates(Collection<Candidate> candidates) {
+    // The sort is stable, so that equally referenced candidates keep the Patch Set order
+    return candidates.stream()
+        .sorted(Comparator.comparingInt((Candidate candidate) -> candidate.references).reversed())
+        .limit(config.getCodeContextOnDemandPrefetchMaxItems())
+        .map(
+            candidate ->
+                GetContextItem.builder()
+                    .requestType(REQUEST_TYPE_DEFINITION)
+                    .entityCategory(CodeLocatorFactory.EntityCategory.Callable.name())
+                    .contextRequiredEntity(candidate.entity)
+                    .filename(candidate.filename)
+                    .codeSnippet(candidate.codeSnippet)
+                    .build())
+        .toList();
+  }
+
+  private List<GetContextOutputItem> selectWithinBudget(List<GetContextOutputItem> resolvedItems) {
+    List<GetContextOutputItem> selectedItems = new ArrayList<>();
+    Set<String> definitions = new HashSet<>();
+    int availableTokens = config.getCodeContextOnDemandPrefetchTokenBudget();
+    for (GetContextOutputItem resolvedItem : resolvedItems) {
+      String definition = resolvedItem.getDefinition();
+      if (CONTEXT_NOT_PROVIDED.equals(definition) || !definitions.add(definition)) continue;
+      int tokens = getGson().toJson(resolvedItem).length() / CHARS_PER_TOKEN + 1;
+      if (tokens > availableTokens) continue;
+      availableTokens -= tokens;
+      selectedItems.add(resolvedItem);
+    }
+    return selectedItems;
+  }
+
+  private static String getName(String entity) {
+    return entity.substring(entity.lastIndexOf(MODULE_SEPARATOR) + 1);
+  }
+}
@@ -20,46 +20,69 @@ import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.FileEntry;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoBlob;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.FileNotFoundException;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
 public class CodeFileFetcher extends ClientBase {
   private final GerritChange change;
   private final GitRepoFiles gitRepoFiles;
+  private final CodeContextCache codeContextCache;
 
   private String basePathRegEx = "";
-  private Map<String, String> preloadedFiles = new LinkedHashMap<>();
 
-  public CodeFileFetcher(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+  public CodeFileFetcher(
+      Configuration config,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      CodeContextCache codeContextCache) {
     super(config);
     this.change = change;
     this.gitRepoFiles = gitRepoFiles;
+    this.codeContextCache = codeContextCache;
     if (!config.getCodeContextOnDemandBasePath().isEmpty()) {
       basePathRegEx = "^" + config.getCodeContextOnDemandBasePath() + "/";
     }
   }
 
   public String getFileContent(String filename) throws FileNotFoundException {
-    if (preloadedFiles.containsKey(filename)) {
-      return preloadedFiles.get(filename);
-    }
+    return codeContextCache.getFileContent(filename, this::loadFileContent);
+  }
+
+  public String getRepoFilename(String filename) {
     if (!basePathRegEx.isEmpty()) {
-      filename = filename.replaceAll(basePathRegEx, "");
+      return filename.replaceAll(basePathRegEx, "");
     }
-    return gitRepoFiles.getFileContent(change, filename);
+    return filename;
   }
 
   public Set<String> getFilesInDir(String dirname) {
-    preloadedFiles =
-        gitRepoFiles.getDirFiles(config, change, dirname).stream()
-            .collect(Collectors.toMap(FileEntry::getPath, FileEntry::getContent));
-    return preloadedFiles.keySet();
+    return codeContextCache.getFilesInDir(dirname, this::loadFilesInDir);
+  }
+
+  private String loadFileContent(String filename) throws FileNotFoundException {
+    // Files listed with their directory are read straight from their blob, without a path lookup
+    RepoBlob repoBlob = codeContextCache.getFileBlob(filename);
+    if (repoBlob != null) {
+      return gitRepoFiles.getBlobContent(change, repoBlob.getObjectId());
+    }
+    return gitRepoFiles.getFileContent(change, getRepoFilename(filename));
+  }
+
+  private Set<String> loadFilesInDir(String dirname) {
+    Set<String> filenames = new LinkedHashSet<>();
+    List<RepoBlob> dirBlobs = gitRepoFiles.getDirFiles(config, change, dirname);
+    if (dirBlobs != null) {
+      for (RepoBlob repoBlob : dirBlobs) {
+        codeContextCache.putFileBlob(repoBlob);
+        filenames.add(repoBlob.getPath());
+      }
+    }
+    return filenames;
   }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.index;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.SymbolLocation;
+import lombok.Getter;
+
+import java.io.File;
+import java.util.*;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.removeExtension;
+import static com.googlesource.gerrit.plugins.reviewai.utils.ModuleUtils.MODULE_SEPARATOR;
+import static com.googlesource.gerrit.plugins.reviewai.utils.ModuleUtils.getSimpleName;
+
+/**
+ * Immutable index of the symbol definitions of a project at a given master commit. Definitions are
+ * looked up both by simple name and by name qualified with the base name of the defining file
+ * (e.g. `Foo.bar` for `bar` defined in `Foo.java`).
+ */
+public class SymbolIndex {
+  @Getter private final String commitId;
+
+  private final Map<String, List<SymbolLocation>> fileSymbols;
+  private final Map<String, List<SymbolLocation>> nameSymbols = new HashMap<>();
+
+  public SymbolIndex(String commitId, Map<String, List<SymbolLocation>> fileSymbols) {
+    this.commitId = commitId;
+    this.fileSymbols = Collections.unmodifiableMap(fileSymbols);
+    for (List<SymbolLocation> locations : fileSymbols.values()) {
+      for (SymbolLocation location : locations) {
+        nameSymbols.computeIfAbsent(location.getName(), k -> new ArrayList<>()).add(location);
+        nameSymbols
+            .computeIfAbsent(getQualifiedName(location), k -> new ArrayList<>())
+            .add(location);
+      }
+    }
+  }
+
+  public Map<String, List<SymbolLocation>> getFileSymbols() {
+    return fileSymbols;
+  }
+
+  public int size() {
+    return fileSymbols.values().stream().mapToInt(List::size).sum();
+  }
+
+  /**
+   * Returns a new index for the commit, where the symbols of the changed paths are replaced with
+   * those provided. Changed paths without symbols, such as deleted files, are dropped.
+   */
+  public SymbolIndex update(
+      String updatedCommitId,
+      Set<String> changedPaths,
+      Map<String, List<SymbolLocation>> changedFileSymbols) {
+    Map<String, List<SymbolLocation>> updatedFileSymbols = new HashMap<>(fileSymbols);
+    updatedFileSymbols.keySet().removeAll(changedPaths);
+    updatedFileSymbols.putAll(changedFileSymbols);
+    return new SymbolIndex(updatedCommitId, updatedFileSymbols);
+  }
+
+  /**
+   * Returns the candidate definitions of an entity in order of preference: definitions in the
+   * requesting file, definitions matching the qualifier of the entity and, as a last resort, the
+   * definition of the simple name if it is unique in the project.
+   */
+  public List<SymbolLocation> findDefinitions(String path, String entity, String name) {
+    Set<SymbolLocation> candidates = new LinkedHashSet<>();
+    for (SymbolLocation location : fileSymbols.getOrDefault(path, List.of())) {
+      if (location.getName().equals(name)) {
+        candidates.add(location);
+      }
+    }
+    String qualifier = getQualifier(entity);
+    if (qualifier != null) {
+      candidates.addAll(
+          nameSymbols.getOrDefault(qualifier + MODULE_SEPARATOR + name, List.of()));
+    }
+    List<SymbolLocation> nameLocations = nameSymbols.getOrDefault(name, List.of());
+    if (nameLocations.size() == 1) {
+      candidates.addAll(nameLocations);
+    }
+    return new ArrayList<>(candidates);
+  }
+
+  private String getQualifier(String entity) {
+    int lastDotIndex = entity.lastIndexOf(MODULE_SEPARATOR);
+    if (lastDotIndex <= 0) {
+      return null;
+    }
+    return getSimpleName(entity.substring(0, lastDotIndex));
+  }
+
+  private static String getQualifiedName(SymbolLocation location) {
+    String fileBaseName = removeExtension(new File(location.getPath()).getName());
+    return fileBaseName + MODULE_SEPARATOR + location.getName();
+  }
+}
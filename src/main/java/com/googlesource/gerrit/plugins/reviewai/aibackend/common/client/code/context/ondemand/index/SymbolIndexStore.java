@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.index;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.SymbolLocation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.sanitizeFilename;
+
+/**
+ * Keeps the symbol indexes of the recently used projects in memory and persists them in the plugin
+ * data directory as compact binary files, which are read through a memory mapping and decoded
+ * into the heap index when loaded again after a restart or an eviction. The stored locations are
+ * character offsets in the source files, not byte ranges of the index file.
+ */
+@Slf4j
+public class SymbolIndexStore {
+  private static final String INDEX_DIR = "symbolIndex";
+  private static final String INDEX_SUFFIX = ".idx";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int INDEX_MAGIC = 0x52534958;
+  private static final int INDEX_VERSION = 1;
+  // Cached indexes are weighted by their symbol count, bounding the heap they hold
+  private static final long MAX_CACHED_SYMBOLS = 2_000_000;
+
+  private static final Cache<String, Optional<SymbolIndex>> indexes =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_CACHED_SYMBOLS)
+          .weigher(
+              (String projectName, Optional<SymbolIndex> symbolIndex) ->
+                  Math.max(1, symbolIndex.map(SymbolIndex::size).orElse(0)))
+          .build();
+  private static final Map<String, Object> updateLocks = new ConcurrentHashMap<>();
+
+  // Set at plugin start, as the index is accessed by locators created outside of the injectors;
+  // without a data path, indexes are only kept in memory
+  private static volatile Path pluginDataPath;
+
+  public static SymbolIndex getIndex(String projectName) {
+    try {
+      return indexes
+          .get(projectName, () -> Optional.ofNullable(loadIndex(projectName)))
+          .orElse(null);
+    } catch (ExecutionException e) {
+      log.warn("Failed to get symbol index of project {}", projectName, e);
+      return null;
+    }
+  }
+
+  /** Returns the lock serializing the updates of the index of the project. */
+  public static Object getUpdateLock(String projectName) {
+    return updateLocks.computeIfAbsent(projectName, k -> new Object());
+  }
+
+  public static void saveIndex(String projectName, SymbolIndex symbolIndex) {
+    indexes.put(projectName, Optional.of(symbolIndex));
+    Path indexPath = getIndexPath(projectName);
+    if (indexPath == null) return;
+    try {
+      writeIndex(indexPath, symbolIndex);
+      log.debug("Symbol index of project {} saved to {}", projectName, indexPath);
+    } catch (IOException e) {
+      log.warn("Failed to save symbol index of project {}", projectName, e);
+    }
+  }
+
+  private static SymbolIndex loadIndex(String projectName) {
+    Path indexPath = getIndexPath(projectName);
+    if (indexPath == null || !Files.isRegularFile(indexPath)) return null;
+    try {
+      SymbolIndex symbolIndex = readIndex(indexPath);
+      log.debug(
+          "Symbol index of project {} loaded with {} symbols at commit {}",
+          projectName,
+          symbolIndex.size(),
+          symbolIndex.getCommitId());
+      return symbolIndex;
+    } catch (IOException | RuntimeException e) {
+      // A corrupted or outdated index is discarded and rebuilt on the next update
+      log.warn("Failed to load symbol index of project {}", projectName, e);
+      return null;
+    }
+  }
+
+  public static void setPluginDataPath(Path path) {
+    pluginDataPath = path;
+  }
+
+  private static Path getIndexPath(String projectName) {
+    if (pluginDataPath == null) return null;
+    return pluginDataPath.resolve(INDEX_DIR).resolve(sanitizeFilename(projectName) + INDEX_SUFFIX);
+  }
+
+  private static void writeIndex(Path indexPath, SymbolIndex symbolIndex) throws IOException {
+    Files.createDirectories(indexPath.getParent());
+    Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + TEMP_SUFFIX);
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+      out.writeInt(INDEX_MAGIC);
+      out.writeInt(INDEX_VERSION);
+      writeString(out, symbolIndex.getCommitId());
+      Map<String, List<SymbolLocation>> fileSymbols = symbolIndex.getFileSymbols();
+      out.writeInt(fileSymbols.size());
+      for (Map.Entry<String, List<SymbolLocation>> entry : fileSymbols.entrySet()) {
+        writeString(out, entry.getKey());
+        out.writeInt(entry.getValue().size());
+        for (SymbolLocation location : entry.getValue()) {
+          writeString(out, location.getName());
+          out.writeInt(location.getStart());
+          out.writeInt(location.getEnd());
+        }
+      }
+    }
+    // The index is replaced atomically, so that a concurrent load never sees a partial file
+    Files.move(
+        tempPath,
+        indexPath,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static SymbolIndex readIndex(Path indexPath) throws IOException {
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION) {
+        throw new IOException("Unsupported symbol index format: " + indexPath);
+      }
+      String commitId = readString(buffer);
+      int fileCount = buffer.getInt();
+      Map<String, List<SymbolLocation>> fileSymbols = new HashMap<>(fileCount * 2);
+      for (int i = 0; i < fileCount; i++) {
+        String path = readString(buffer);
+        int symbolCount = buffer.getInt();
+        List<SymbolLocation> locations = new ArrayList<>(symbolCount);
+        for (int j = 0; j < symbolCount; j++) {
+          locations.add(
+              new SymbolLocation(readString(buffer), path, buffer.getInt(), buffer.getInt()));
+        }
+        fileSymbols.put(path, locations);
+      }
+      return new SymbolIndex(commitId, fileSymbols);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated symbol index: " + indexPath, e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
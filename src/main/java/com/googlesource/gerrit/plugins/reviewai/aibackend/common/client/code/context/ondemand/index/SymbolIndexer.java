@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.index;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextCache;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CallableLocatorBase;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CodeLocatorFactory;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.GetContextItem;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.SymbolLocation;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.CodeContextOnDemandLocatorException;
+import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ondemand.IEntityLocator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CallableLocatorBase.SYMBOL_GROUP;
+import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.getExtension;
+
+@Slf4j
+public class SymbolIndexer extends ClientBase {
+  private final GerritChange change;
+  private final GitRepoFiles gitRepoFiles;
+  private final CodeContextCache codeContextCache = new CodeContextCache();
+  private final Map<String, Optional<Pattern>> definitionPatterns = new HashMap<>();
+
+  public SymbolIndexer(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+    super(config);
+    this.change = change;
+    this.gitRepoFiles = gitRepoFiles;
+  }
+
+  /**
+   * Brings the symbol index of the project up to date with the master branch. Only the files
+   * changed since the indexed commit are parsed again; the index is built from scratch when
+   * missing or when the indexed commit cannot be diffed anymore.
+   *
+   * <p>The updates of the same project are serialized, and an index already at a later commit
+   * than the master branch seen by the task is left untouched.
+   */
+  public void updateIndex() {
+    String projectName = change.getProjectName();
+    String masterCommitId = gitRepoFiles.getMasterCommitId(change);
+    if (masterCommitId == null) {
+      log.debug("No master branch to index for project {}", projectName);
+      return;
+    }
+    synchronized (SymbolIndexStore.getUpdateLock(projectName)) {
+      updateIndex(projectName, masterCommitId);
+    }
+  }
+
+  private void updateIndex(String projectName, String masterCommitId) {
+    SymbolIndex symbolIndex = SymbolIndexStore.getIndex(projectName);
+    if (symbolIndex != null && masterCommitId.equals(symbolIndex.getCommitId())) {
+      log.debug("Symbol index of project {} already at commit {}", projectName, masterCommitId);
+      return;
+    }
+    if (symbolIndex != null
+        && gitRepoFiles.isAncestor(change, masterCommitId, symbolIndex.getCommitId())) {
+      log.debug(
+          "Symbol index of project {} already at later commit {}",
+          projectName,
+          symbolIndex.getCommitId());
+      return;
+    }
+    Set<String> changedPaths = null;
+    if (symbolIndex != null) {
+      try {
+        changedPaths = gitRepoFiles.getChangedFiles(config, change, symbolIndex.getCommitId());
+      } catch (RuntimeException e) {
+        log.warn("Rebuilding symbol index of project {} from scratch", projectName, e);
+      }
+    }
+    Map<String, List<SymbolLocation>> fileSymbols = new HashMap<>();
+    gitRepoFiles.visitFiles(
+        config,
+        change,
+        changedPaths,
+        (repoBlob, content) -> {
+          List<SymbolLocation> locations = extractSymbols(repoBlob.getPath(), content);
+          if (!locations.isEmpty()) {
+            fileSymbols.put(repoBlob.getPath(), locations);
+          }
+        });
+    if (changedPaths != null) {
+      symbolIndex = symbolIndex.update(masterCommitId, changedPaths, fileSymbols);
+    } else {
+      symbolIndex = new SymbolIndex(masterCommitId, fileSymbols);
+    }
+    log.debug(
+        "Symbol index of project {} updated to commit {} with {} symbols, {} files parsed",
+        projectName,
+        masterCommitId,
+        symbolIndex.size(),
+        fileSymbols.size());
+    SymbolIndexStore.saveIndex(projectName, symbolIndex);
+  }
+
+  private List<SymbolLocation> extractSymbols(String path, String content) {
+    Optional<Pattern> definitionPattern = getDefinitionPattern(path);
+    if (definitionPattern.isEmpty()) return List.of();
+    List<SymbolLocation> locations = new ArrayList<>();
+    Matcher matcher = definitionPattern.get().matcher(content);
+    while (matcher.find()) {
+      locations.add(
+          new SymbolLocation(matcher.group(SYMBOL_GROUP), path, matcher.start(), matcher.end()));
+    }
+    return locations;
+  }
+
+  private Optional<Pattern> getDefinitionPattern(String path) {
+    if (!CodeLocatorFactory.isLanguageSupported(path)) return Optional.empty();
+    return definitionPatterns.computeIfAbsent(
+        getExtension(path), extension -> loadDefinitionPattern(path));
+  }
+
+  private Optional<Pattern> loadDefinitionPattern(String path) {
+    GetContextItem getContextItem =
+        GetContextItem.builder()
+            .filename(path)
+            .entityCategory(CodeLocatorFactory.EntityCategory.Callable.name())
+            .build();
+    try {
+      IEntityLocator entityLocator =
+          CodeLocatorFactory.getEntityLocator(
+              getContextItem, config, change, gitRepoFiles, codeContextCache);
+      if (entityLocator instanceof CallableLocatorBase callableLocator) {
+        return Optional.of(callableLocator.getDefinitionPattern());
+      }
+    } catch (CodeContextOnDemandLocatorException e) {
+      log.debug("No callable locator available for file {}", path);
+    }
+    return Optional.empty();
+  }
+}
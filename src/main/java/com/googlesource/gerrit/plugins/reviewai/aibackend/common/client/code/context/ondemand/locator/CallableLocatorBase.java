@@ -22,7 +22,11 @@ import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBa
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.GetContextItem;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextCache;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeFileFetcher;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.index.SymbolIndex;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.index.SymbolIndexStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.SymbolLocation;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.set.ListOrderedSet;
 
@@ -39,10 +43,14 @@ import static com.googlesource.gerrit.plugins.reviewai.utils.StringUtils.cutStri
 
 @Slf4j
 public abstract class CallableLocatorBase extends ClientBase implements IEntityLocator {
+  public static final String SYMBOL_GROUP = "symbol";
+
   protected static final String DOT_NOTATION_REGEX = "[\\w.]+";
   private static final int LOG_MAX_CONTENT_SIZE = 256;
 
   protected final ListOrderedSet<String> importModules = new ListOrderedSet<>();
+  protected final GerritChange change;
+  protected final CodeContextCache codeContextCache;
   protected final CodeFileFetcher codeFileFetcher;
 
   protected Pattern importPattern;
@@ -52,17 +60,27 @@ public abstract class CallableLocatorBase extends ClientBase implements IEntityL
   private int importModulesPointer = 0;
   private Set<String> visitedFiles;
 
-  public CallableLocatorBase(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+  public CallableLocatorBase(
+      Configuration config,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      CodeContextCache codeContextCache) {
     super(config);
     log.debug("Initializing FunctionLocatorBase");
-    codeFileFetcher = new CodeFileFetcher(config, change, gitRepoFiles);
+    this.change = change;
+    this.codeContextCache = codeContextCache;
+    codeFileFetcher = new CodeFileFetcher(config, change, gitRepoFiles, codeContextCache);
   }
 
   public String findDefinition(GetContextItem getContextItem) {
     log.debug("Finding function definition for {}", getContextItem);
     visitedFiles = new HashSet<>();
     String filename = getContextItem.getFilename();
-    String functionName = getSimpleName(getContextItem.getContextRequiredEntity());
+    String entity = getContextItem.getContextRequiredEntity();
+    String functionName = getSimpleName(entity);
+    String indexedDefinition = findIndexedDefinition(filename, entity, functionName);
+    if (indexedDefinition != null) return indexedDefinition;
+
     rootFileDir = getDirName(filename);
     log.debug("Root file dir: {}", rootFileDir);
     beforeSearchingFunction();
@@ -70,7 +88,16 @@ public abstract class CallableLocatorBase extends ClientBase implements IEntityL
     return findFunctionInFile(filename, functionName);
   }
 
-  protected abstract String getFunctionRegex(String functionName);
+  /** Returns the pattern matching any function definition, with its name in the symbol group. */
+  public Pattern getDefinitionPattern() {
+    return getPattern(getFunctionRegex("(?<" + SYMBOL_GROUP + ">\\w+)"));
+  }
+
+  protected abstract String getFunctionRegex(String functionNameRegex);
+
+  protected Pattern getPattern(String regex) {
+    return codeContextCache.getPattern(regex, Pattern.MULTILINE);
+  }
 
   protected abstract void parseImportStatements(String content);
 
@@ -109,6 +136,39 @@ public abstract class CallableLocatorBase extends ClientBase implements IEntityL
     return null;
   }
 
+  private String findIndexedDefinition(String filename, String entity, String functionName) {
+    if (!config.getCodeContextOnDemandSymbolIndex()) return null;
+    SymbolIndex symbolIndex = SymbolIndexStore.getIndex(change.getProjectName());
+    if (symbolIndex == null) return null;
+    String repoFilename = codeFileFetcher.getRepoFilename(filename);
+    List<SymbolLocation> locations =
+        symbolIndex.findDefinitions(repoFilename, entity, functionName);
+    log.debug("Indexed definitions found for `{}`: {}", entity, locations);
+    // Indexed locations are hints, validated against the current content of the files
+    Pattern functionPattern = getFunctionPattern(functionName);
+    for (SymbolLocation location : locations) {
+      String content;
+      try {
+        content = codeFileFetcher.getFileContent(location.getPath());
+      } catch (FileNotFoundException e) {
+        continue;
+      }
+      if (location.getEnd() > content.length()) continue;
+      Matcher functionMatcher =
+          functionPattern.matcher(content).region(location.getStart(), location.getEnd());
+      if (functionMatcher.lookingAt()) {
+        String functionDefinition = functionMatcher.group(0).trim();
+        log.debug("Found indexed function definition: {}", functionDefinition);
+        return functionDefinition;
+      }
+    }
+    return null;
+  }
+
+  private Pattern getFunctionPattern(String functionName) {
+    return getPattern(getFunctionRegex(Pattern.quote(functionName)));
+  }
+
   private String findImportedFunctionDefinition(String functionName, String content) {
     parseImportStatements(content);
 
@@ -136,8 +196,7 @@ public abstract class CallableLocatorBase extends ClientBase implements IEntityL
         cutString(content, LOG_MAX_CONTENT_SIZE));
 
     // Search the file for the function definition
-    Pattern functionPattern = Pattern.compile(getFunctionRegex(functionName), Pattern.MULTILINE);
-    Matcher functionMatcher = functionPattern.matcher(content);
+    Matcher functionMatcher = getFunctionPattern(functionName).matcher(content);
     if (functionMatcher.find()) {
       String functionDefinition = functionMatcher.group(0).trim();
       log.debug("Found function definition: {}", functionDefinition);
@@ -20,6 +20,7 @@ import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ondemand.IEntityLocator;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextCache;
 import com.googlesource.gerrit.plugins.reviewai.utils.FileUtils;
 import lombok.extern.slf4j.Slf4j;
 
@@ -29,8 +30,12 @@ import java.util.stream.Collectors;
 
 @Slf4j
 public abstract class CallableLocatorJVM extends CallableLocatorBase implements IEntityLocator {
-  public CallableLocatorJVM(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
-    super(config, change, gitRepoFiles);
+  public CallableLocatorJVM(
+      Configuration config,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      CodeContextCache codeContextCache) {
+    super(config, change, gitRepoFiles, codeContextCache);
     log.debug("Initializing JVM CallableLocator");
   }
 
@@ -22,10 +22,13 @@ import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.clie
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.GetContextItem;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextCache;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -51,66 +54,94 @@ public class CodeLocatorFactory {
           "c", "c",
           "h", "c");
 
-  private static List<String> classNameComponents;
+  // Locator constructors resolved once from the naming convention
+  // `<package>.language.<language>.<Category>Locator`, instead of on every request
+  private static final Map<String, Constructor<? extends IEntityLocator>> LOCATOR_REGISTRY =
+      buildLocatorRegistry();
 
   public static IEntityLocator getEntityLocator(
       GetContextItem getContextItem,
       Configuration config,
       GerritChange change,
-      GitRepoFiles gitRepoFiles)
+      GitRepoFiles gitRepoFiles,
+      CodeContextCache codeContextCache)
       throws CodeContextOnDemandLocatorException {
     log.debug("Getting Entity Locator for context item {}", getContextItem);
-    IEntityLocator entityLocator;
-    classNameComponents =
-        new ArrayList<>(List.of(CodeLocatorFactory.class.getPackage().getName(), LANGUAGE_PACKAGE));
-    addProgrammingLanguage(getContextItem);
-    addLocatorTypeClass(getContextItem);
-    String className = joinComponents(classNameComponents);
-    log.debug("Entity locator class name found: {}", className);
+    String language = getProgrammingLanguage(getContextItem);
+    EntityCategory entityCategory = getEntityCategory(getContextItem);
+    Constructor<? extends IEntityLocator> locatorConstructor =
+        LOCATOR_REGISTRY.get(getRegistryKey(language, entityCategory));
+    if (locatorConstructor == null) {
+      log.warn("Entity locator class not found for Get-Context Item: {}", getContextItem);
+      throw new CodeContextOnDemandLocatorException();
+    }
     try {
       log.debug("Getting Instance of Entity Locator");
-      @SuppressWarnings("unchecked")
-      Class<IEntityLocator> clazz = (Class<IEntityLocator>) Class.forName(className);
-      log.debug("Class found: {}", clazz);
-      entityLocator =
-          clazz
-              .getDeclaredConstructor(Configuration.class, GerritChange.class, GitRepoFiles.class)
-              .newInstance(config, change, gitRepoFiles);
-    } catch (ClassNotFoundException e) {
-      log.warn("Entity locator class not found for Get-Context Item: {}", getContextItem);
-      throw new CodeContextOnDemandLocatorException(e);
-    } catch (InvocationTargetException
-        | InstantiationException
-        | IllegalAccessException
-        | NoSuchMethodException e) {
-      log.error("Error instantiating class: {}", className, e);
+      return locatorConstructor.newInstance(config, change, gitRepoFiles, codeContextCache);
+    } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
+      log.error("Error instantiating class: {}", locatorConstructor.getDeclaringClass(), e);
       throw new CodeContextOnDemandLocatorException(e);
     }
-    return entityLocator;
   }
 
-  private static void addProgrammingLanguage(GetContextItem getContextItem)
+  public static boolean isLanguageSupported(String filename) {
+    return MAP_EXTENSION.containsKey(getExtension(filename));
+  }
+
+  private static Map<String, Constructor<? extends IEntityLocator>> buildLocatorRegistry() {
+    Map<String, Constructor<? extends IEntityLocator>> registry = new HashMap<>();
+    for (String language : new HashSet<>(MAP_EXTENSION.values())) {
+      for (EntityCategory entityCategory : EntityCategory.values()) {
+        String className =
+            joinComponents(
+                List.of(
+                    CodeLocatorFactory.class.getPackage().getName(),
+                    LANGUAGE_PACKAGE,
+                    language,
+                    entityCategory + "Locator"));
+        try {
+          Class<? extends IEntityLocator> clazz =
+              Class.forName(className).asSubclass(IEntityLocator.class);
+          registry.put(
+              getRegistryKey(language, entityCategory),
+              clazz.getDeclaredConstructor(
+                  Configuration.class,
+                  GerritChange.class,
+                  GitRepoFiles.class,
+                  CodeContextCache.class));
+          log.debug("Entity locator class registered: {}", className);
+        } catch (ClassNotFoundException e) {
+          log.debug("Entity locator class not available: {}", className);
+        } catch (NoSuchMethodException e) {
+          log.error("Entity locator class without expected constructor: {}", className, e);
+        }
+      }
+    }
+    return Map.copyOf(registry);
+  }
+
+  private static String getRegistryKey(String language, EntityCategory entityCategory) {
+    return joinComponents(List.of(language, entityCategory.name()));
+  }
+
+  private static String getProgrammingLanguage(GetContextItem getContextItem)
       throws CodeContextOnDemandLocatorException {
     String language = getCodeLocatorLanguage(getContextItem);
     if (language == null) {
       log.warn("No language supported for file {}", getContextItem.getFilename());
       throw new CodeContextOnDemandLocatorException();
     }
-    classNameComponents.add(language);
+    return language;
   }
 
-  private static void addLocatorTypeClass(GetContextItem getContextItem)
+  private static EntityCategory getEntityCategory(GetContextItem getContextItem)
       throws CodeContextOnDemandLocatorException {
-    EntityCategory entityCategory;
     try {
-      entityCategory =
-          EntityCategory.valueOf(
-              convertSnakeToPascalCase(getContextItem.getEntityCategory()));
+      return EntityCategory.valueOf(convertSnakeToPascalCase(getContextItem.getEntityCategory()));
     } catch (IllegalArgumentException e) {
       log.warn("Invalid entity category: {}", getContextItem.getEntityCategory());
       throw new CodeContextOnDemandLocatorException();
     }
-    classNameComponents.add(entityCategory + "Locator");
   }
 
   private static String getCodeLocatorLanguage(GetContextItem getContextItem)
@@ -20,13 +20,13 @@ import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ondemand.IEntityLocator;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextCache;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CallableLocatorBase;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashSet;
 import java.util.Set;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Slf4j
 public class CallableLocator extends CallableLocatorBase implements IEntityLocator {
@@ -35,18 +35,22 @@ public class CallableLocator extends CallableLocatorBase implements IEntityLocat
 
   private final Set<String> includeFiles = new HashSet<>();
 
-  public CallableLocator(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
-    super(config, change, gitRepoFiles);
+  public CallableLocator(
+      Configuration config,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      CodeContextCache codeContextCache) {
+    super(config, change, gitRepoFiles, codeContextCache);
     log.debug("Initializing CallableLocator for C language");
     languageModuleExtensions = new String[] {C_SOURCE_EXTENSION, C_HEADER_EXTENSION};
-    importPattern = Pattern.compile("^\\s*#include\\s+[\"<](.*?)[\">]", Pattern.MULTILINE);
+    importPattern = getPattern("^\\s*#include\\s+[\"<](.*?)[\">]");
   }
 
   @Override
-  protected String getFunctionRegex(String functionName) {
+  protected String getFunctionRegex(String functionNameRegex) {
     return "^\\s*(?:[\\w\\*\\s]+)?\\s+"
         + // Return type
-        Pattern.quote(functionName)
+        functionNameRegex
         + "\\s*\\([^;]*\\)"; // Parameters
   }
 
@@ -20,26 +20,28 @@ import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ondemand.IEntityLocator;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextCache;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CallableLocatorJVM;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.regex.Pattern;
-
 @Slf4j
 public class CallableLocator extends CallableLocatorJVM implements IEntityLocator {
   private static final String JAVA_MODULE_EXTENSION = ".java";
 
-  public CallableLocator(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
-    super(config, change, gitRepoFiles);
+  public CallableLocator(
+      Configuration config,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      CodeContextCache codeContextCache) {
+    super(config, change, gitRepoFiles, codeContextCache);
     log.debug("Initializing CallableLocator for Java projects");
     languageModuleExtensions = new String[] {JAVA_MODULE_EXTENSION};
     importPattern =
-        Pattern.compile(
-            String.format("^import\\s+(?:static\\s+)?(%s)", DOT_NOTATION_REGEX), Pattern.MULTILINE);
+        getPattern(String.format("^import\\s+(?:static\\s+)?(%s)", DOT_NOTATION_REGEX));
   }
 
   @Override
-  protected String getFunctionRegex(String functionName) {
+  protected String getFunctionRegex(String functionNameRegex) {
     return "^\\s*(?:@\\w+(?:\\(.*?\\))?\\s*)*"
         + // Optional annotations
         "(?:(?:public|protected|private|static|final|abstract|synchronized|native|strictfp)\\s+)*"
@@ -48,7 +50,7 @@ public class CallableLocator extends CallableLocatorJVM implements IEntityLocato
         + // Optional type parameters
         "\\S+\\s+"
         + // Return type
-        Pattern.quote(functionName)
+        functionNameRegex
         + // Method name
         "\\s*\\(.*?\\)"
         + // Parameters
@@ -20,11 +20,11 @@ import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ondemand.IEntityLocator;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextCache;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CallableLocatorJVM;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Set;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,23 +33,26 @@ public class CallableLocator extends CallableLocatorJVM implements IEntityLocato
   private static final String ALTERNATIVE_BASE_PATH = "app/src/main/kotlin/";
   private static final String NON_MODIFIABLE_BASE_PATH = "app/src/";
 
-  public CallableLocator(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
-    super(config, change, gitRepoFiles);
+  public CallableLocator(
+      Configuration config,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      CodeContextCache codeContextCache) {
+    super(config, change, gitRepoFiles, codeContextCache);
     log.debug("Initializing CallableLocator for Kotlin projects");
     languageModuleExtensions = new String[] {KOTLIN_MODULE_EXTENSION};
-    importPattern =
-        Pattern.compile(String.format("^import\\s+(%s)", DOT_NOTATION_REGEX), Pattern.MULTILINE);
+    importPattern = getPattern(String.format("^import\\s+(%s)", DOT_NOTATION_REGEX));
   }
 
   @Override
-  protected String getFunctionRegex(String functionName) {
+  protected String getFunctionRegex(String functionNameRegex) {
     return "^\\s*(?:@\\w+(?:\\(.*?\\))?\\s*)*"
         + // Optional annotations
         "(?:\\w+\\s+)*"
         + // Optional modifiers
         "fun\\s+"
         + // 'fun' keyword
-        Pattern.quote(functionName)
+        functionNameRegex
         + // Function name
         "\\s*\\(.*?\\)"
         + // Parameters
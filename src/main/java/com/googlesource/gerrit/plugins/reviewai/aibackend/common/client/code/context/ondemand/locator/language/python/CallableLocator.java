@@ -20,13 +20,13 @@ import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ondemand.IEntityLocator;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextCache;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.locator.CallableLocatorBase;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static com.googlesource.gerrit.plugins.reviewai.utils.TextUtils.ITEM_COMMA_DELIMITED_REGEX;
 
@@ -36,22 +36,25 @@ public class CallableLocator extends CallableLocatorBase implements IEntityLocat
 
   private final Map<String, String> fromModuleMap = new HashMap<>();
 
-  public CallableLocator(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
-    super(config, change, gitRepoFiles);
+  public CallableLocator(
+      Configuration config,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      CodeContextCache codeContextCache) {
+    super(config, change, gitRepoFiles, codeContextCache);
     log.debug("Initializing CallableLocator for Python projects");
     languageModuleExtensions = new String[] {PYTHON_MODULE_EXTENSION};
     importPattern =
-        Pattern.compile(
+        getPattern(
             String.format(
                 "^(?:from\\s+(%1$s)\\s+import\\s+(\\*|\\w+(?:%2$s\\w+)*)|import\\s+(%1$s(?:%2$s%1$s))*)",
-                DOT_NOTATION_REGEX, ITEM_COMMA_DELIMITED_REGEX),
-            Pattern.MULTILINE);
+                DOT_NOTATION_REGEX, ITEM_COMMA_DELIMITED_REGEX));
   }
 
   @Override
-  protected String getFunctionRegex(String functionName) {
+  protected String getFunctionRegex(String functionNameRegex) {
     return "^\\s*(?:async\\s+)?def\\s+"
-        + Pattern.quote(functionName)
+        + functionNameRegex
         + "\\s*"
         + "(?:\\[[^]]+\\]\\s*)?"
         + // Type Parameter List
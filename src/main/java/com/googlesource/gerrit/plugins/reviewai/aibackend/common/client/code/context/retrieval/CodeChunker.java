@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.CodeChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits files into overlapping windows of lines, small enough to be embedded as a whole, so that
+ * code at the boundary of a window is still found together with its surroundings.
+ */
+public class CodeChunker {
+  private static final int CHUNK_LINES = 30;
+  private static final int CHUNK_OVERLAP_LINES = 5;
+
+  public static List<CodeChunk> chunk(String path, String content) {
+    List<CodeChunk> chunks = new ArrayList<>();
+    String[] lines = content.split("\n", -1);
+    int stride = CHUNK_LINES - CHUNK_OVERLAP_LINES;
+    for (int start = 0; start < lines.length; start += stride) {
+      int end = Math.min(start + CHUNK_LINES, lines.length);
+      String chunkContent = String.join("\n", List.of(lines).subList(start, end));
+      if (!chunkContent.isBlank()) {
+        chunks.add(new CodeChunk(path, start + 1, end, chunkContent));
+      }
+      if (end == lines.length) break;
+    }
+    return chunks;
+  }
+
+  /** Returns the text embedded for the chunk, where the path hints at the role of the code. */
+  public static String getEmbeddingText(CodeChunk chunk) {
+    return chunk.getPath() + "\n" + chunk.getContent();
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2q.AllMiniLmL6V2QuantizedEmbeddingModel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embeds code and patches with a model running in-process, so that neither indexing nor retrieval
+ * require network access. The model is loaded on first use and shared by all the tasks.
+ */
+@Slf4j
+public class CodeEmbedder {
+  private static final int EMBEDDING_BATCH_SIZE = 64;
+
+  private static volatile EmbeddingModel embeddingModel;
+
+  public static int getDimensions() {
+    return getEmbeddingModel().dimension();
+  }
+
+  public static float[] embed(String text) {
+    return normalize(getEmbeddingModel().embed(text).content());
+  }
+
+  /** Embeds the texts in batches, to bound the memory taken by the model inputs. */
+  public static List<float[]> embedAll(List<String> texts) {
+    List<float[]> vectors = new ArrayList<>(texts.size());
+    for (int start = 0; start < texts.size(); start += EMBEDDING_BATCH_SIZE) {
+      List<TextSegment> segments =
+          texts.subList(start, Math.min(start + EMBEDDING_BATCH_SIZE, texts.size())).stream()
+              .map(TextSegment::from)
+              .toList();
+      for (Embedding embedding : getEmbeddingModel().embedAll(segments).content()) {
+        vectors.add(normalize(embedding));
+      }
+    }
+    return vectors;
+  }
+
+  private static EmbeddingModel getEmbeddingModel() {
+    if (embeddingModel == null) {
+      synchronized (CodeEmbedder.class) {
+        if (embeddingModel == null) {
+          log.debug("Loading code embedding model");
+          embeddingModel = new AllMiniLmL6V2QuantizedEmbeddingModel();
+        }
+      }
+    }
+    return embeddingModel;
+  }
+
+  // The graph compares unit vectors, whose cosine similarity is their dot product
+  private static float[] normalize(Embedding embedding) {
+    float[] vector = embedding.vector();
+    double norm = 0;
+    for (float value : vector) {
+      norm += value * value;
+    }
+    if (norm == 0) return vector;
+    float scale = (float) (1 / Math.sqrt(norm));
+    float[] normalized = new float[vector.length];
+    for (int i = 0; i < vector.length; i++) {
+      normalized[i] = vector[i] * scale;
+    }
+    return normalized;
+  }
+}
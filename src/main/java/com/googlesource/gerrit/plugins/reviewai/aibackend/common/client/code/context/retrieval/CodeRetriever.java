@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index.RetrievalIndex;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index.RetrievalIndexStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index.RetrievalIndexer;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.IdentifierTokenizer;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndex;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndex.Hit;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndexStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndexer;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.CodeChunk;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.RetrievedSnippet;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.ScoredCodeChunk;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.FileNotFoundException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyRetrieval.RetrievalIndexTypes;
+import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
+
+/**
+ * Retrieves from the index of the project the code most similar to the hunks of the Patch Set,
+ * within a token budget. Similarity is given either by the embeddings of the code or by the BM25
+ * score of the identifiers it shares with the hunks, depending on the index type configured. The
+ * indexed lines replaced by the hunks themselves are left out, as the Patch Set already shows them.
+ */
+@Slf4j
+public class CodeRetriever extends ClientBase {
+  private static final String DIFF_FILE_HEADER_PREFIX = "diff ";
+  private static final String DIFF_OLD_FILE_PREFIX = "--- ";
+  private static final String DIFF_NEW_FILE_PREFIX = "+++ ";
+  private static final String DIFF_OLD_FILE_PATH_PREFIX = "a/";
+  private static final Pattern HUNK_HEADER_PATTERN =
+      Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+\\d+(?:,\\d+)? @@");
+  // The embedding model only considers the beginning of longer texts
+  private static final int MAX_QUERY_CHARS = 2000;
+  private static final int CHARS_PER_TOKEN = 4;
+  // Keeps the lexical queries of large hunks to their most frequent identifiers
+  private static final int MAX_QUERY_TERMS = 64;
+
+  private final GerritChange change;
+  private final GitRepoFiles gitRepoFiles;
+
+  @AllArgsConstructor
+  private static class Hunk {
+    private final String path;
+    private final int oldStartLine;
+    private final int oldEndLine;
+    private final StringBuilder text;
+  }
+
+  public CodeRetriever(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+    super(config);
+    this.change = change;
+    this.gitRepoFiles = gitRepoFiles;
+  }
+
+  /** Returns the retrieved snippets as a JSON array, or null when none was retrieved. */
+  public String retrieveCodeContext(String patchSet) {
+    if (patchSet == null || patchSet.isEmpty()) return null;
+    List<Hunk> hunks = extractHunks(patchSet);
+    if (hunks.isEmpty()) return null;
+    List<RetrievedSnippet> snippets;
+    try {
+      List<ScoredCodeChunk> scoredChunks =
+          config.getCodeContextRetrievalIndex() == RetrievalIndexTypes.LEXICAL
+              ? searchLexicalIndex(hunks)
+              : searchVectorIndex(hunks);
+      if (scoredChunks == null) return null;
+      snippets = selectWithinBudget(scoredChunks);
+    } catch (RuntimeException e) {
+      // Retrieval is an optimization: the review goes on without the additional context
+      log.warn("Failed to retrieve code context", e);
+      return null;
+    }
+    if (snippets.isEmpty()) return null;
+    log.debug("Retrieved code context: {}", snippets);
+    return getGson().toJson(snippets);
+  }
+
+  private List<Hunk> extractHunks(String patchSet) {
+    List<Hunk> hunks = new ArrayList<>();
+    String path = null;
+    Hunk hunk = null;
+    String[] lines = patchSet.split("\n");
+    for (int i = 0; i < lines.length; i++) {
+      String line = lines[i];
+      // The header lines of the next file, e.g. `diff --git` and `index`, end the current hunk
+      if (line.startsWith(DIFF_FILE_HEADER_PREFIX)) {
+        hunk = null;
+        continue;
+      }
+      // A removed line starting with "-- " is only taken for a file header when followed by one
+      if (line.startsWith(DIFF_OLD_FILE_PREFIX)
+          && i + 1 < lines.length
+          && lines[i + 1].startsWith(DIFF_NEW_FILE_PREFIX)) {
+        String oldPath = line.substring(DIFF_OLD_FILE_PREFIX.length()).trim();
+        path =
+            oldPath.startsWith(DIFF_OLD_FILE_PATH_PREFIX)
+                ? oldPath.substring(DIFF_OLD_FILE_PATH_PREFIX.length())
+                : null;
+        hunk = null;
+        i++;
+        continue;
+      }
+      Matcher hunkMatcher = HUNK_HEADER_PATTERN.matcher(line);
+      if (hunkMatcher.find()) {
+        int oldStartLine = Integer.parseInt(hunkMatcher.group(1));
+        int oldLineCount =
+            hunkMatcher.group(2) != null ? Integer.parseInt(hunkMatcher.group(2)) : 1;
+        hunk = new Hunk(path, oldStartLine, oldStartLine + oldLineCount - 1, new StringBuilder());
+        hunks.add(hunk);
+        continue;
+      }
+      if (hunk != null && isHunkLine(line) && hunk.text.length() < MAX_QUERY_CHARS) {
+        hunk.text.append(line.substring(1)).append("\n");
+      }
+    }
+    hunks.removeIf(h -> h.text.toString().isBlank());
+    return hunks;
+  }
+
+  // Context, added and removed lines, as opposed to headers and "\ No newline at end of file"
+  private static boolean isHunkLine(String line) {
+    return line.startsWith(" ") || line.startsWith("+") || line.startsWith("-");
+  }
+
+  private List<ScoredCodeChunk> searchVectorIndex(List<Hunk> hunks) {
+    RetrievalIndex retrievalIndex = RetrievalIndexStore.getIndex(change.getProjectName());
+    if (retrievalIndex == null) {
+      // The index is built in the background and then updated on merge
+      IndexBuildExecutor.scheduleBuild(
+          "retrieval",
+          change,
+          gitRepoFiles,
+          repoFiles -> new RetrievalIndexer(config, change, repoFiles).updateIndex());
+      return null;
+    }
+    int maxSnippets = config.getCodeContextRetrievalMaxSnippets();
+    List<float[]> queries =
+        CodeEmbedder.embedAll(
+            hunks.stream().map(h -> (h.path != null ? h.path + "\n" : "") + h.text).toList());
+    List<List<ScoredCodeChunk>> hunkResults = new ArrayList<>();
+    for (float[] query : queries) {
+      hunkResults.add(retrievalIndex.search(query, maxSnippets));
+    }
+    return mergeHunkResults(hunkResults, hunks);
+  }
+
+  private List<ScoredCodeChunk> searchLexicalIndex(List<Hunk> hunks) {
+    LexicalIndex lexicalIndex = LexicalIndexStore.getIndex(change.getProjectName());
+    if (lexicalIndex == null) {
+      // The index is built in the background and then updated on merge
+      IndexBuildExecutor.scheduleBuild(
+          "lexical",
+          change,
+          gitRepoFiles,
+          repoFiles -> new LexicalIndexer(config, change, repoFiles).updateIndex());
+      return null;
+    }
+    int maxSnippets = config.getCodeContextRetrievalMaxSnippets();
+    // The chunks are read back from their blobs, which several hits often share
+    Map<ObjectId, String[]> blobLines = new HashMap<>();
+    List<List<ScoredCodeChunk>> hunkResults = new ArrayList<>();
+    for (Hunk hunk : hunks) {
+      List<ScoredCodeChunk> hunkResult = new ArrayList<>();
+      for (Hit hit : lexicalIndex.search(getQueryTerms(hunk), maxSnippets)) {
+        String[] lines = blobLines.computeIfAbsent(hit.blobId(), this::readBlobLines);
+        if (lines == null) continue;
+        int startLine = Math.max(1, hit.startLine());
+        int endLine = Math.min(lines.length, hit.endLine());
+        if (startLine > endLine) continue;
+        String content =
+            String.join("\n", Arrays.asList(lines).subList(startLine - 1, endLine)) + "\n";
+        hunkResult.add(
+            new ScoredCodeChunk(
+                new CodeChunk(hit.path(), startLine, endLine, content), hit.score()));
+      }
+      hunkResults.add(hunkResult);
+    }
+    return mergeHunkResults(hunkResults, hunks);
+  }
+
+  private List<String> getQueryTerms(Hunk hunk) {
+    Map<String, Integer> termFrequencies = new HashMap<>();
+    for (String term : IdentifierTokenizer.tokenize(hunk.text.toString())) {
+      termFrequencies.merge(term, 1, Integer::sum);
+    }
+    return termFrequencies.entrySet().stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+        .limit(MAX_QUERY_TERMS)
+        .map(Map.Entry::getKey)
+        .toList();
+  }
+
+  private String[] readBlobLines(ObjectId blobId) {
+    try {
+      return gitRepoFiles.getBlobContent(change, blobId).split("\n", -1);
+    } catch (FileNotFoundException e) {
+      // The blob can be missing when the index is ahead of the repository it was built from
+      log.debug("Indexed blob {} not found", blobId.name());
+      return null;
+    }
+  }
+
+  private List<ScoredCodeChunk> mergeHunkResults(
+      List<List<ScoredCodeChunk>> hunkResults, List<Hunk> hunks) {
+    // Each chunk keeps the best score with any of the hunks
+    Map<CodeChunk, ScoredCodeChunk> bestChunks = new HashMap<>();
+    for (List<ScoredCodeChunk> hunkResult : hunkResults) {
+      for (ScoredCodeChunk scoredChunk : hunkResult) {
+        if (isReplacedBy(scoredChunk.getChunk(), hunks)) continue;
+        bestChunks.merge(
+            scoredChunk.getChunk(),
+            scoredChunk,
+            (a, b) -> a.getScore() >= b.getScore() ? a : b);
+      }
+    }
+    return bestChunks.values().stream()
+        .sorted(Comparator.comparingDouble(ScoredCodeChunk::getScore).reversed())
+        .limit(config.getCodeContextRetrievalMaxSnippets())
+        .toList();
+  }
+
+  private boolean isReplacedBy(CodeChunk chunk, List<Hunk> hunks) {
+    for (Hunk hunk : hunks) {
+      if (chunk.getPath().equals(hunk.path)
+          && chunk.getStartLine() <= hunk.oldEndLine
+          && chunk.getEndLine() >= hunk.oldStartLine) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<RetrievedSnippet> selectWithinBudget(List<ScoredCodeChunk> scoredChunks) {
+    List<RetrievedSnippet> snippets = new ArrayList<>();
+    int availableTokens = config.getCodeContextRetrievalTokenBudget();
+    for (ScoredCodeChunk scoredChunk : scoredChunks) {
+      CodeChunk chunk = scoredChunk.getChunk();
+      RetrievedSnippet snippet =
+          new RetrievedSnippet(
+              chunk.getPath(),
+              chunk.getStartLine() + "-" + chunk.getEndLine(),
+              chunk.getContent());
+      int tokens = getGson().toJson(snippet).length() / CHARS_PER_TOKEN + 1;
+      if (tokens > availableTokens) continue;
+      availableTokens -= tokens;
+      snippets.add(snippet);
+    }
+    log.debug("Selected {} of {} snippets retrieved", snippets.size(), scoredChunks.size());
+    return snippets;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Builds the indexes of the projects in the background, one at a time, so that the reviews and
+ * merges finding no index are not blocked for the time it takes to process the whole repository:
+ * they go on without the index until it is published.
+ */
+@Slf4j
+public class IndexBuildExecutor {
+  private static final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder()
+              .setNameFormat("reviewai-index-build-%d")
+              .setDaemon(true)
+              .build());
+  private static final Set<String> pendingBuilds = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Schedules the build of the index of the change project, unless one is already pending. A build
+   * scheduled while another is running is not merged into it, as the running one may have read the
+   * repository already. The build reads the repository with a new instance of the {@link
+   * GitRepoFiles} of the task, as the state of the task is released when the task completes.
+   */
+  public static void scheduleBuild(
+      String indexType,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      Consumer<GitRepoFiles> build) {
+    String buildKey = indexType + ":" + change.getProjectName();
+    if (!pendingBuilds.add(buildKey)) {
+      log.debug("Build of {} index already pending", buildKey);
+      return;
+    }
+    log.info("Scheduling build of {} index", buildKey);
+    try {
+      executor.execute(
+          () -> {
+            pendingBuilds.remove(buildKey);
+            try (GitRepoFiles buildRepoFiles = gitRepoFiles.newInstance()) {
+              build.accept(buildRepoFiles);
+              log.info("Build of {} index completed", buildKey);
+            } catch (RuntimeException e) {
+              log.warn("Build of {} index failed", buildKey, e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      pendingBuilds.remove(buildKey);
+      log.debug("Index build executor unavailable: build of {} index skipped", buildKey);
+    }
+  }
+
+  public static void shutdown() {
+    log.debug("Shutting down the index build executor");
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Hierarchical Navigable Small World graph for the approximate nearest neighbor search of unit
+ * vectors by cosine similarity. Nodes are only appended: removed nodes are marked as deleted, so
+ * that they are still traversed while searching but never returned. The graph is not thread-safe,
+ * updates must be synchronized with the searches by the caller.
+ */
+public class HnswGraph {
+  private static final int DEFAULT_MAX_CONNECTIONS = 16;
+  private static final int DEFAULT_EF_CONSTRUCTION = 100;
+  private static final long LEVEL_SEED = 42;
+  private static final Comparator<SearchResult> BY_SIMILARITY =
+      Comparator.comparingDouble(SearchResult::similarity);
+
+  private final int dimensions;
+  private final int maxConnections;
+  private final int efConstruction;
+  private final double levelMultiplier;
+  private final Random random = new Random(LEVEL_SEED);
+
+  private final List<float[]> vectors = new ArrayList<>();
+  // Neighbors of each node at each of its levels, from level 0 up
+  private final List<int[][]> neighbors = new ArrayList<>();
+  private final BitSet deleted = new BitSet();
+  private int deletedCount;
+  private int entryPoint = -1;
+  private int maxLevel = -1;
+
+  public record SearchResult(int node, float similarity) {}
+
+  public HnswGraph(int dimensions) {
+    this(dimensions, DEFAULT_MAX_CONNECTIONS, DEFAULT_EF_CONSTRUCTION);
+  }
+
+  public HnswGraph(int dimensions, int maxConnections, int efConstruction) {
+    this.dimensions = dimensions;
+    this.maxConnections = maxConnections;
+    this.efConstruction = efConstruction;
+    this.levelMultiplier = 1 / Math.log(maxConnections);
+  }
+
+  public int getDimensions() {
+    return dimensions;
+  }
+
+  public int getNodeCount() {
+    return vectors.size();
+  }
+
+  public int getDeletedCount() {
+    return deletedCount;
+  }
+
+  public float[] getVector(int node) {
+    return vectors.get(node);
+  }
+
+  public boolean isDeleted(int node) {
+    return deleted.get(node);
+  }
+
+  /** Inserts the unit vector and returns its node, numbered in order of insertion. */
+  public int add(float[] vector) {
+    if (vector.length != dimensions) {
+      throw new IllegalArgumentException(
+          "Vector of " + vector.length + " dimensions added to a graph of " + dimensions);
+    }
+    int node = vectors.size();
+    int level = getRandomLevel();
+    int[][] nodeNeighbors = new int[level + 1][];
+    Arrays.fill(nodeNeighbors, new int[0]);
+    vectors.add(vector);
+    neighbors.add(nodeNeighbors);
+    if (entryPoint < 0) {
+      entryPoint = node;
+      maxLevel = level;
+      return node;
+    }
+    int current = entryPoint;
+    for (int l = maxLevel; l > level; l--) {
+      current = searchLayer(vector, current, 1, l).get(0).node();
+    }
+    for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+      List<SearchResult> candidates = searchLayer(vector, current, efConstruction, l);
+      nodeNeighbors[l] = selectNeighbors(candidates, getMaxConnections(l));
+      for (int neighbor : nodeNeighbors[l]) {
+        connect(neighbor, node, l);
+      }
+      current = candidates.get(0).node();
+    }
+    if (level > maxLevel) {
+      entryPoint = node;
+      maxLevel = level;
+    }
+    return node;
+  }
+
+  public void remove(int node) {
+    if (!deleted.get(node)) {
+      deleted.set(node);
+      deletedCount++;
+    }
+  }
+
+  /** Returns up to k nodes that are not deleted, from the most similar to the query. */
+  public List<SearchResult> search(float[] query, int k, int ef) {
+    if (entryPoint < 0 || k <= 0) return List.of();
+    int current = entryPoint;
+    for (int l = maxLevel; l > 0; l--) {
+      current = searchLayer(query, current, 1, l).get(0).node();
+    }
+    // The search is widened by the share of deleted nodes, which are filtered out of the results
+    int liveCount = Math.max(1, vectors.size() - deletedCount);
+    int width = (int) Math.min(vectors.size(), (long) Math.max(ef, k) * vectors.size() / liveCount);
+    List<SearchResult> results = new ArrayList<>(k);
+    for (SearchResult result : searchLayer(query, current, width, 0)) {
+      if (deleted.get(result.node())) continue;
+      results.add(result);
+      if (results.size() == k) break;
+    }
+    return results;
+  }
+
+  public void writeTo(DataOutputStream out) throws IOException {
+    out.writeInt(dimensions);
+    out.writeInt(maxConnections);
+    out.writeInt(efConstruction);
+    out.writeInt(entryPoint);
+    out.writeInt(maxLevel);
+    out.writeInt(vectors.size());
+    for (int node = 0; node < vectors.size(); node++) {
+      out.writeBoolean(deleted.get(node));
+      for (float value : vectors.get(node)) {
+        out.writeFloat(value);
+      }
+      int[][] nodeNeighbors = neighbors.get(node);
+      out.writeInt(nodeNeighbors.length);
+      for (int[] levelNeighbors : nodeNeighbors) {
+        out.writeInt(levelNeighbors.length);
+        for (int neighbor : levelNeighbors) {
+          out.writeInt(neighbor);
+        }
+      }
+    }
+  }
+
+  public static HnswGraph readFrom(ByteBuffer buffer) {
+    HnswGraph graph = new HnswGraph(buffer.getInt(), buffer.getInt(), buffer.getInt());
+    graph.entryPoint = buffer.getInt();
+    graph.maxLevel = buffer.getInt();
+    int nodeCount = buffer.getInt();
+    for (int node = 0; node < nodeCount; node++) {
+      if (buffer.get() != 0) {
+        graph.remove(node);
+      }
+      float[] vector = new float[graph.dimensions];
+      buffer.asFloatBuffer().get(vector);
+      buffer.position(buffer.position() + vector.length * Float.BYTES);
+      graph.vectors.add(vector);
+      int[][] nodeNeighbors = new int[buffer.getInt()][];
+      for (int l = 0; l < nodeNeighbors.length; l++) {
+        nodeNeighbors[l] = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(nodeNeighbors[l]);
+        buffer.position(buffer.position() + nodeNeighbors[l].length * Integer.BYTES);
+      }
+      graph.neighbors.add(nodeNeighbors);
+    }
+    return graph;
+  }
+
+  /** Greedy best-first search of a level, returning up to ef nodes from the most similar. */
+  private List<SearchResult> searchLayer(float[] query, int entry, int ef, int level) {
+    BitSet visited = new BitSet(vectors.size());
+    visited.set(entry);
+    SearchResult entryResult = new SearchResult(entry, similarity(query, vectors.get(entry)));
+    PriorityQueue<SearchResult> candidates = new PriorityQueue<>(BY_SIMILARITY.reversed());
+    PriorityQueue<SearchResult> results = new PriorityQueue<>(BY_SIMILARITY);
+    candidates.add(entryResult);
+    results.add(entryResult);
+    while (!candidates.isEmpty()) {
+      SearchResult candidate = candidates.poll();
+      if (results.size() >= ef && candidate.similarity() < results.peek().similarity()) break;
+      for (int neighbor : neighbors.get(candidate.node())[level]) {
+        if (visited.get(neighbor)) continue;
+        visited.set(neighbor);
+        float neighborSimilarity = similarity(query, vectors.get(neighbor));
+        if (results.size() < ef || neighborSimilarity > results.peek().similarity()) {
+          SearchResult result = new SearchResult(neighbor, neighborSimilarity);
+          candidates.add(result);
+          results.add(result);
+          if (results.size() > ef) {
+            results.poll();
+          }
+        }
+      }
+    }
+    List<SearchResult> sortedResults = new ArrayList<>(results);
+    sortedResults.sort(BY_SIMILARITY.reversed());
+    return sortedResults;
+  }
+
+  /**
+   * Selects the neighbors among the candidates sorted by similarity, preferring those closer to the
+   * node than to the neighbors already selected, so that the links spread in all directions. The
+   * remaining slots are filled with the closest candidates discarded.
+   */
+  private int[] selectNeighbors(List<SearchResult> candidates, int max) {
+    List<Integer> selected = new ArrayList<>(max);
+    List<Integer> discarded = new ArrayList<>();
+    for (SearchResult candidate : candidates) {
+      if (selected.size() >= max) break;
+      float[] candidateVector = vectors.get(candidate.node());
+      boolean diverse = true;
+      for (int selectedNode : selected) {
+        if (similarity(candidateVector, vectors.get(selectedNode)) > candidate.similarity()) {
+          diverse = false;
+          break;
+        }
+      }
+      (diverse ? selected : discarded).add(candidate.node());
+    }
+    for (int i = 0; i < discarded.size() && selected.size() < max; i++) {
+      selected.add(discarded.get(i));
+    }
+    return selected.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private void connect(int node, int neighbor, int level) {
+    int[] current = neighbors.get(node)[level];
+    int max = getMaxConnections(level);
+    if (current.length < max) {
+      int[] extended = Arrays.copyOf(current, current.length + 1);
+      extended[current.length] = neighbor;
+      neighbors.get(node)[level] = extended;
+      return;
+    }
+    float[] vector = vectors.get(node);
+    List<SearchResult> candidates = new ArrayList<>(current.length + 1);
+    for (int currentNeighbor : current) {
+      candidates.add(
+          new SearchResult(currentNeighbor, similarity(vector, vectors.get(currentNeighbor))));
+    }
+    candidates.add(new SearchResult(neighbor, similarity(vector, vectors.get(neighbor))));
+    candidates.sort(BY_SIMILARITY.reversed());
+    neighbors.get(node)[level] = selectNeighbors(candidates, max);
+  }
+
+  private int getMaxConnections(int level) {
+    return level == 0 ? 2 * maxConnections : maxConnections;
+  }
+
+  private int getRandomLevel() {
+    return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+  }
+
+  private static float similarity(float[] a, float[] b) {
+    float dotProduct = 0;
+    for (int i = 0; i < a.length; i++) {
+      dotProduct += a[i] * b[i];
+    }
+    return dotProduct;
+  }
+}
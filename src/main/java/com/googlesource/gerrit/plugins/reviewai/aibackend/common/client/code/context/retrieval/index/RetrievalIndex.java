@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index.HnswGraph.SearchResult;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.CodeChunk;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.ScoredCodeChunk;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of the code chunks of a project at a given master commit, searched by the similarity of
+ * their embeddings. Updates replace the chunks of the changed files in place under a write lock,
+ * so that reviews can keep searching the index while it is updated. The compaction of the graph,
+ * which rebuilds it entirely, runs outside of the lock and only the swap of the compacted graph
+ * blocks the searches.
+ */
+@Slf4j
+public class RetrievalIndex {
+  private static final int EF_SEARCH = 64;
+  // The graph is rebuilt without the deleted nodes once they outnumber the live ones
+  private static final double MAX_DELETED_RATIO = 0.5;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private String commitId;
+  private HnswGraph graph;
+  // Chunk of each node of the graph, null for the deleted nodes
+  private List<CodeChunk> chunks;
+  private Map<String, List<Integer>> pathNodes;
+
+  public RetrievalIndex(String commitId, HnswGraph graph, List<CodeChunk> chunks) {
+    this.commitId = commitId;
+    this.graph = graph;
+    this.chunks = chunks;
+    this.pathNodes = getPathNodes(chunks);
+  }
+
+  public static RetrievalIndex build(
+      String commitId, int dimensions, List<CodeChunk> chunks, List<float[]> embeddings) {
+    HnswGraph graph = new HnswGraph(dimensions);
+    for (float[] embedding : embeddings) {
+      graph.add(embedding);
+    }
+    return new RetrievalIndex(commitId, graph, new ArrayList<>(chunks));
+  }
+
+  public String getCommitId() {
+    lock.readLock().lock();
+    try {
+      return commitId;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int getDimensions() {
+    return graph.getDimensions();
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return graph.getNodeCount() - graph.getDeletedCount();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Returns up to k chunks, scored by their cosine similarity with the query. */
+  public List<ScoredCodeChunk> search(float[] query, int k) {
+    lock.readLock().lock();
+    try {
+      List<ScoredCodeChunk> matches = new ArrayList<>();
+      for (SearchResult result : graph.search(query, k, EF_SEARCH)) {
+        matches.add(new ScoredCodeChunk(chunks.get(result.node()), result.similarity()));
+      }
+      return matches;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Moves the index to the commit, replacing the chunks of the changed paths with those provided.
+   * Changed paths without chunks, such as deleted files, are dropped. Updates are serialized, so
+   * that the compaction reads a graph modified by no one else.
+   */
+  public synchronized void update(
+      String updatedCommitId,
+      Set<String> changedPaths,
+      List<CodeChunk> changedChunks,
+      List<float[]> changedEmbeddings) {
+    boolean compactionNeeded;
+    lock.writeLock().lock();
+    try {
+      for (String path : changedPaths) {
+        for (int node : pathNodes.getOrDefault(path, List.of())) {
+          graph.remove(node);
+          chunks.set(node, null);
+        }
+      }
+      for (int i = 0; i < changedChunks.size(); i++) {
+        graph.add(changedEmbeddings.get(i));
+        chunks.add(changedChunks.get(i));
+      }
+      compactionNeeded = graph.getDeletedCount() > graph.getNodeCount() * MAX_DELETED_RATIO;
+      pathNodes = getPathNodes(chunks);
+      commitId = updatedCommitId;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (compactionNeeded) {
+      compact();
+    }
+  }
+
+  HnswGraph getGraph() {
+    return graph;
+  }
+
+  List<CodeChunk> getChunks() {
+    return chunks;
+  }
+
+  // Only called by `update`: the searches read the current graph concurrently with the compaction
+  private void compact() {
+    log.debug("Compacting retrieval index with {} deleted nodes", graph.getDeletedCount());
+    HnswGraph compactedGraph = new HnswGraph(graph.getDimensions());
+    List<CodeChunk> compactedChunks = new ArrayList<>();
+    for (int node = 0; node < graph.getNodeCount(); node++) {
+      if (graph.isDeleted(node)) continue;
+      compactedGraph.add(graph.getVector(node));
+      compactedChunks.add(chunks.get(node));
+    }
+    Map<String, List<Integer>> compactedPathNodes = getPathNodes(compactedChunks);
+    lock.writeLock().lock();
+    try {
+      graph = compactedGraph;
+      chunks = compactedChunks;
+      pathNodes = compactedPathNodes;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static Map<String, List<Integer>> getPathNodes(List<CodeChunk> chunks) {
+    Map<String, List<Integer>> pathNodes = new HashMap<>();
+    for (int node = 0; node < chunks.size(); node++) {
+      CodeChunk chunk = chunks.get(node);
+      if (chunk != null) {
+        pathNodes.computeIfAbsent(chunk.getPath(), k -> new ArrayList<>()).add(node);
+      }
+    }
+    return pathNodes;
+  }
+}
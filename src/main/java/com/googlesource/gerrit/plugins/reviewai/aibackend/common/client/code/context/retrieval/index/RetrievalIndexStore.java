@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.CodeChunk;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.sanitizeFilename;
+
+/**
+ * Keeps the retrieval indexes of the recently used projects in memory and persists them in the
+ * plugin data directory, with the vectors and the links of the graph, so that they are not computed
+ * again after a restart or an eviction.
+ */
+@Slf4j
+public class RetrievalIndexStore {
+  private static final String INDEX_DIR = "retrievalIndex";
+  private static final String INDEX_SUFFIX = ".idx";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int INDEX_MAGIC = 0x52524958;
+  private static final int INDEX_VERSION = 1;
+  // Cached indexes are weighted by their chunk count, bounding the heap they hold
+  private static final long MAX_CACHED_CHUNKS = 500_000;
+
+  private static final Cache<String, Optional<RetrievalIndex>> indexes =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_CACHED_CHUNKS)
+          .weigher(
+              (String projectName, Optional<RetrievalIndex> retrievalIndex) ->
+                  Math.max(1, retrievalIndex.map(RetrievalIndex::size).orElse(0)))
+          .build();
+  private static final Map<String, Object> updateLocks = new ConcurrentHashMap<>();
+
+  // Set at plugin start, as the index is accessed by policies created outside of the injectors;
+  // without a data path, indexes are only kept in memory
+  private static volatile Path pluginDataPath;
+
+  public static RetrievalIndex getIndex(String projectName) {
+    try {
+      return indexes
+          .get(projectName, () -> Optional.ofNullable(loadIndex(projectName)))
+          .orElse(null);
+    } catch (ExecutionException e) {
+      log.warn("Failed to get retrieval index of project {}", projectName, e);
+      return null;
+    }
+  }
+
+  /** Returns the lock serializing the updates of the index of the project. */
+  public static Object getUpdateLock(String projectName) {
+    return updateLocks.computeIfAbsent(projectName, k -> new Object());
+  }
+
+  public static void saveIndex(String projectName, RetrievalIndex retrievalIndex) {
+    indexes.put(projectName, Optional.of(retrievalIndex));
+    Path indexPath = getIndexPath(projectName);
+    if (indexPath == null) return;
+    try {
+      writeIndex(indexPath, retrievalIndex);
+      log.debug("Retrieval index of project {} saved to {}", projectName, indexPath);
+    } catch (IOException e) {
+      log.warn("Failed to save retrieval index of project {}", projectName, e);
+    }
+  }
+
+  private static RetrievalIndex loadIndex(String projectName) {
+    Path indexPath = getIndexPath(projectName);
+    if (indexPath == null || !Files.isRegularFile(indexPath)) return null;
+    try {
+      RetrievalIndex retrievalIndex = readIndex(indexPath);
+      log.debug(
+          "Retrieval index of project {} loaded with {} chunks at commit {}",
+          projectName,
+          retrievalIndex.size(),
+          retrievalIndex.getCommitId());
+      return retrievalIndex;
+    } catch (IOException | RuntimeException e) {
+      // A corrupted or outdated index is discarded and rebuilt on the next update
+      log.warn("Failed to load retrieval index of project {}", projectName, e);
+      return null;
+    }
+  }
+
+  public static void setPluginDataPath(Path path) {
+    pluginDataPath = path;
+  }
+
+  private static Path getIndexPath(String projectName) {
+    if (pluginDataPath == null) return null;
+    return pluginDataPath.resolve(INDEX_DIR).resolve(sanitizeFilename(projectName) + INDEX_SUFFIX);
+  }
+
+  private static void writeIndex(Path indexPath, RetrievalIndex retrievalIndex)
+      throws IOException {
+    Files.createDirectories(indexPath.getParent());
+    Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + TEMP_SUFFIX);
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+      out.writeInt(INDEX_MAGIC);
+      out.writeInt(INDEX_VERSION);
+      writeString(out, retrievalIndex.getCommitId());
+      List<CodeChunk> chunks = retrievalIndex.getChunks();
+      out.writeInt(chunks.size());
+      for (CodeChunk chunk : chunks) {
+        out.writeBoolean(chunk != null);
+        if (chunk == null) continue;
+        writeString(out, chunk.getPath());
+        out.writeInt(chunk.getStartLine());
+        out.writeInt(chunk.getEndLine());
+        writeString(out, chunk.getContent());
+      }
+      retrievalIndex.getGraph().writeTo(out);
+    }
+    // The index is replaced atomically, so that a concurrent load never sees a partial file
+    Files.move(
+        tempPath,
+        indexPath,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static RetrievalIndex readIndex(Path indexPath) throws IOException {
+    try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION) {
+        throw new IOException("Unsupported retrieval index format: " + indexPath);
+      }
+      String commitId = readString(buffer);
+      int chunkCount = buffer.getInt();
+      List<CodeChunk> chunks = new ArrayList<>(chunkCount);
+      for (int i = 0; i < chunkCount; i++) {
+        if (buffer.get() == 0) {
+          chunks.add(null);
+          continue;
+        }
+        chunks.add(
+            new CodeChunk(
+                readString(buffer), buffer.getInt(), buffer.getInt(), readString(buffer)));
+      }
+      HnswGraph graph = HnswGraph.readFrom(buffer);
+      if (graph.getNodeCount() != chunkCount) {
+        throw new IOException("Inconsistent retrieval index: " + indexPath);
+      }
+      return new RetrievalIndex(commitId, graph, chunks);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated retrieval index: " + indexPath, e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.CodeChunker;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.CodeEmbedder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.CodeChunk;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+public class RetrievalIndexer extends ClientBase {
+  private final GerritChange change;
+  private final GitRepoFiles gitRepoFiles;
+
+  public RetrievalIndexer(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+    super(config);
+    this.change = change;
+    this.gitRepoFiles = gitRepoFiles;
+  }
+
+  /**
+   * Brings the retrieval index of the project up to date with the master branch and returns it.
+   * Only the files changed since the indexed commit are chunked and embedded again; the index is
+   * built from scratch when missing or when the indexed commit cannot be diffed anymore.
+   */
+  public RetrievalIndex updateIndex() {
+    String projectName = change.getProjectName();
+    synchronized (RetrievalIndexStore.getUpdateLock(projectName)) {
+      RetrievalIndex retrievalIndex = RetrievalIndexStore.getIndex(projectName);
+      String masterCommitId = gitRepoFiles.getMasterCommitId(change);
+      if (masterCommitId == null) {
+        log.debug("No master branch to index for project {}", projectName);
+        return retrievalIndex;
+      }
+      if (retrievalIndex != null && masterCommitId.equals(retrievalIndex.getCommitId())) {
+        log.debug(
+            "Retrieval index of project {} already at commit {}", projectName, masterCommitId);
+        return retrievalIndex;
+      }
+      Set<String> changedPaths = null;
+      // An index built with a different embedding model cannot be updated
+      if (retrievalIndex != null
+          && retrievalIndex.getDimensions() == CodeEmbedder.getDimensions()) {
+        try {
+          changedPaths =
+              gitRepoFiles.getChangedFiles(config, change, retrievalIndex.getCommitId());
+        } catch (RuntimeException e) {
+          log.warn("Rebuilding retrieval index of project {} from scratch", projectName, e);
+        }
+      }
+      List<CodeChunk> chunks = new ArrayList<>();
+      gitRepoFiles.visitFiles(
+          config,
+          change,
+          changedPaths,
+          (repoBlob, content) -> chunks.addAll(CodeChunker.chunk(repoBlob.getPath(), content)));
+      List<float[]> embeddings =
+          CodeEmbedder.embedAll(chunks.stream().map(CodeChunker::getEmbeddingText).toList());
+      if (changedPaths != null) {
+        retrievalIndex.update(masterCommitId, changedPaths, chunks, embeddings);
+      } else {
+        retrievalIndex =
+            RetrievalIndex.build(
+                masterCommitId, CodeEmbedder.getDimensions(), chunks, embeddings);
+      }
+      log.debug(
+          "Retrieval index of project {} updated to commit {} with {} chunks, {} chunks embedded",
+          projectName,
+          masterCommitId,
+          retrievalIndex.size(),
+          chunks.size());
+      RetrievalIndexStore.saveIndex(projectName, retrievalIndex);
+      return retrievalIndex;
+    }
+  }
+}
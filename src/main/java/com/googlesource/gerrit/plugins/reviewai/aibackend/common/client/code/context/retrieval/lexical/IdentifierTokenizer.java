@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits code into the lowercase terms of its identifiers. Each identifier yields its full name and
+ * the words of its camelCase and snake_case parts, so that `getUserName` also matches `user_name`.
+ */
+public class IdentifierTokenizer {
+  private static final int MIN_TERM_LENGTH = 2;
+  private static final Pattern IDENTIFIER_PATTERN = Pattern.compile("[\\p{L}_][\\p{L}\\p{N}_]*");
+  private static final Pattern WORD_BOUNDARY_PATTERN =
+      Pattern.compile(
+          "_+|(?<=\\p{Ll})(?=\\p{Lu})|(?<=\\p{Lu})(?=\\p{Lu}\\p{Ll})|(?<=\\p{L})(?=\\p{N})");
+
+  public static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    Matcher identifierMatcher = IDENTIFIER_PATTERN.matcher(text);
+    while (identifierMatcher.find()) {
+      String identifier = identifierMatcher.group();
+      addTerm(terms, identifier);
+      String[] words = WORD_BOUNDARY_PATTERN.split(identifier);
+      if (words.length > 1) {
+        for (String word : words) {
+          addTerm(terms, word);
+        }
+      }
+    }
+    return terms;
+  }
+
+  private static void addTerm(List<String> terms, String term) {
+    if (term.length() >= MIN_TERM_LENGTH) {
+      terms.add(term.toLowerCase(Locale.ROOT));
+    }
+  }
+}
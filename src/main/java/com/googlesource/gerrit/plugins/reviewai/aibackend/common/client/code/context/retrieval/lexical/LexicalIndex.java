@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical;
+
+import lombok.Getter;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.*;
+
+/**
+ * Index of the code chunks of a project at a given master commit, ranked with BM25 against the
+ * terms of a query. It is made of immutable segments: an update adds the segments of the changed
+ * files and marks their chunks in the older segments as deleted.
+ *
+ * <p>The searches in progress are tracked, so that the segment files of an index replaced by an
+ * update are only deleted once the index is retired and no longer searched.
+ */
+public class LexicalIndex {
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  @Getter private final String commitId;
+  @Getter private final List<Segment> segments;
+  // Generation of the next segment created, which names its file
+  @Getter private final int nextGeneration;
+
+  private int activeSearches;
+  private Runnable retirementAction;
+  private boolean retired;
+
+  public record Hit(String path, ObjectId blobId, int startLine, int endLine, float score) {}
+
+  /** Segment of the index, with the files whose chunks it holds that have since changed. */
+  public static class Segment {
+    @Getter private final LexicalSegment lexicalSegment;
+    @Getter private final Set<String> deletedPaths;
+    @Getter private final int deletedDocCount;
+
+    private final Map<String, Integer> pathIds = new HashMap<>();
+    private final BitSet deletedDocs = new BitSet();
+
+    public Segment(LexicalSegment lexicalSegment, Set<String> deletedPaths) {
+      this.lexicalSegment = lexicalSegment;
+      this.deletedPaths = Collections.unmodifiableSet(deletedPaths);
+      for (int pathId = 0; pathId < lexicalSegment.getPathCount(); pathId++) {
+        pathIds.put(lexicalSegment.getPath(pathId), pathId);
+      }
+      Set<Integer> deletedPathIds = new HashSet<>();
+      for (String path : deletedPaths) {
+        Integer pathId = pathIds.get(path);
+        if (pathId != null) {
+          deletedPathIds.add(pathId);
+        }
+      }
+      for (int doc = 0; doc < lexicalSegment.getDocCount(); doc++) {
+        if (deletedPathIds.contains(lexicalSegment.getDocPathId(doc))) {
+          deletedDocs.set(doc);
+        }
+      }
+      deletedDocCount = deletedDocs.cardinality();
+    }
+
+    public boolean isDeleted(int doc) {
+      return deletedDocs.get(doc);
+    }
+
+    public int getLiveDocCount() {
+      return lexicalSegment.getDocCount() - deletedDocCount;
+    }
+
+    private Segment withDeletedPaths(Set<String> changedPaths) {
+      Set<String> updatedDeletedPaths = new HashSet<>(deletedPaths);
+      for (String path : changedPaths) {
+        if (pathIds.containsKey(path)) {
+          updatedDeletedPaths.add(path);
+        }
+      }
+      return new Segment(lexicalSegment, updatedDeletedPaths);
+    }
+  }
+
+  public LexicalIndex(String commitId, List<Segment> segments, int nextGeneration) {
+    this.commitId = commitId;
+    this.segments = List.copyOf(segments);
+    this.nextGeneration = nextGeneration;
+  }
+
+  public int size() {
+    return segments.stream().mapToInt(Segment::getLiveDocCount).sum();
+  }
+
+  /**
+   * Returns a new index for the commit, where the chunks of the changed paths are replaced with
+   * those of the segments provided.
+   */
+  public LexicalIndex update(
+      String updatedCommitId,
+      Set<String> changedPaths,
+      List<LexicalSegment> changedSegments,
+      int updatedNextGeneration) {
+    List<Segment> updatedSegments = new ArrayList<>();
+    for (Segment segment : segments) {
+      updatedSegments.add(segment.withDeletedPaths(changedPaths));
+    }
+    for (LexicalSegment changedSegment : changedSegments) {
+      updatedSegments.add(new Segment(changedSegment, Set.of()));
+    }
+    return new LexicalIndex(updatedCommitId, updatedSegments, updatedNextGeneration);
+  }
+
+  /**
+   * Returns up to k chunks ranked by their BM25 score for the terms. Collection statistics include
+   * the deleted chunks until their segments are merged, which only slightly skews the scores.
+   */
+  public List<Hit> search(Collection<String> terms, int k) {
+    beginSearch();
+    try {
+      return searchSegments(terms, k);
+    } finally {
+      endSearch();
+    }
+  }
+
+  /**
+   * Marks the index as replaced: the action, which releases its resources, is run once the
+   * searches in progress complete.
+   */
+  public void retire(Runnable action) {
+    synchronized (this) {
+      retired = true;
+      if (activeSearches > 0) {
+        retirementAction = action;
+        return;
+      }
+    }
+    action.run();
+  }
+
+  private synchronized void beginSearch() {
+    activeSearches++;
+  }
+
+  private void endSearch() {
+    Runnable action;
+    synchronized (this) {
+      activeSearches--;
+      if (!retired || activeSearches > 0 || retirementAction == null) return;
+      action = retirementAction;
+      retirementAction = null;
+    }
+    action.run();
+  }
+
+  private List<Hit> searchSegments(Collection<String> terms, int k) {
+    long docCount = 0;
+    long totalLength = 0;
+    for (Segment segment : segments) {
+      docCount += segment.getLexicalSegment().getDocCount();
+      totalLength += segment.getLexicalSegment().getTotalLength();
+    }
+    if (docCount == 0 || k <= 0) return List.of();
+    double averageLength = Math.max(1, (double) totalLength / docCount);
+
+    List<Map<Integer, Double>> segmentScores = new ArrayList<>();
+    for (int i = 0; i < segments.size(); i++) {
+      segmentScores.add(new HashMap<>());
+    }
+    for (String term : new LinkedHashSet<>(terms)) {
+      int[] termIndexes = new int[segments.size()];
+      long docFrequency = 0;
+      for (int i = 0; i < segments.size(); i++) {
+        termIndexes[i] = segments.get(i).getLexicalSegment().findTerm(term);
+        if (termIndexes[i] >= 0) {
+          docFrequency += segments.get(i).getLexicalSegment().getDocFrequency(termIndexes[i]);
+        }
+      }
+      if (docFrequency == 0) continue;
+      double idf = Math.log(1 + (docCount - docFrequency + 0.5) / (docFrequency + 0.5));
+      for (int i = 0; i < segments.size(); i++) {
+        if (termIndexes[i] < 0) continue;
+        Segment segment = segments.get(i);
+        LexicalSegment lexicalSegment = segment.getLexicalSegment();
+        Map<Integer, Double> scores = segmentScores.get(i);
+        lexicalSegment.forEachPosting(
+            termIndexes[i],
+            (doc, termFrequency) -> {
+              if (segment.isDeleted(doc)) return;
+              double lengthNorm =
+                  1 - B + B * lexicalSegment.getDocLength(doc) / averageLength;
+              double score = idf * termFrequency * (K1 + 1) / (termFrequency + K1 * lengthNorm);
+              scores.merge(doc, score, Double::sum);
+            });
+      }
+    }
+    return getTopHits(segmentScores, k);
+  }
+
+  private List<Hit> getTopHits(List<Map<Integer, Double>> segmentScores, int k) {
+    // Min-heap of segment, document and score, holding the best k documents
+    PriorityQueue<double[]> topDocs = new PriorityQueue<>(Comparator.comparingDouble(d -> d[2]));
+    for (int i = 0; i < segmentScores.size(); i++) {
+      for (Map.Entry<Integer, Double> entry : segmentScores.get(i).entrySet()) {
+        if (topDocs.size() < k || entry.getValue() > topDocs.peek()[2]) {
+          topDocs.add(new double[] {i, entry.getKey(), entry.getValue()});
+          if (topDocs.size() > k) {
+            topDocs.poll();
+          }
+        }
+      }
+    }
+    List<Hit> hits = new ArrayList<>(topDocs.size());
+    while (!topDocs.isEmpty()) {
+      double[] topDoc = topDocs.poll();
+      LexicalSegment lexicalSegment = segments.get((int) topDoc[0]).getLexicalSegment();
+      int doc = (int) topDoc[1];
+      int pathId = lexicalSegment.getDocPathId(doc);
+      hits.add(
+          new Hit(
+              lexicalSegment.getPath(pathId),
+              lexicalSegment.getBlobId(pathId),
+              lexicalSegment.getDocStartLine(doc),
+              lexicalSegment.getDocEndLine(doc),
+              (float) topDoc[2]));
+    }
+    Collections.reverse(hits);
+    return hits;
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndex.Segment;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.sanitizeFilename;
+
+/**
+ * Keeps the lexical index of each project in memory and persists it in the plugin data directory,
+ * as one file per segment and a manifest listing the segments with their deleted paths. Segment
+ * files are written once and memory-mapped, so that queries read the postings in place.
+ */
+@Slf4j
+public class LexicalIndexStore {
+  private static final String INDEX_DIR = "lexicalIndex";
+  private static final String MANIFEST_FILENAME = "manifest";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int MANIFEST_MAGIC = 0x524c584d;
+  private static final int MANIFEST_VERSION = 1;
+
+  private static final Map<String, LexicalIndex> indexes = new ConcurrentHashMap<>();
+  private static final Map<String, Object> updateLocks = new ConcurrentHashMap<>();
+
+  // Set at plugin start, as the index is accessed by policies created outside of the injectors;
+  // without a data path, indexes are only kept in memory
+  private static volatile Path pluginDataPath;
+
+  public static LexicalIndex getIndex(String projectName) {
+    return indexes.computeIfAbsent(
+        projectName,
+        k -> {
+          LexicalIndex lexicalIndex = loadIndex(k);
+          // Before the first load no segment file is mapped, so leftover ones can be deleted
+          if (lexicalIndex != null) {
+            deleteUnlistedSegments(k, getSegmentNames(lexicalIndex));
+          }
+          return lexicalIndex;
+        });
+  }
+
+  /** Returns the lock serializing the updates of the index of the project. */
+  public static Object getUpdateLock(String projectName) {
+    return updateLocks.computeIfAbsent(projectName, k -> new Object());
+  }
+
+  public static String getSegmentName(int generation) {
+    return String.format("%08d", generation);
+  }
+
+  /**
+   * Persists the new segments and the manifest of the index, then replaces the index in memory
+   * with its memory-mapped copy. The segment files of the replaced index that are no longer listed
+   * in the manifest are deleted once the searches of the replaced index complete.
+   */
+  public static void saveIndex(String projectName, LexicalIndex lexicalIndex) {
+    LexicalIndex previousIndex = indexes.put(projectName, lexicalIndex);
+    Path indexDir = getIndexDir(projectName);
+    if (indexDir == null) return;
+    try {
+      Files.createDirectories(indexDir);
+      for (Segment segment : lexicalIndex.getSegments()) {
+        // Segments already mapped from their file are left untouched
+        if (!segment.getLexicalSegment().isMapped()) {
+          writeSegment(
+              indexDir.resolve(segment.getLexicalSegment().getName() + SEGMENT_SUFFIX),
+              segment.getLexicalSegment());
+        }
+      }
+      writeManifest(indexDir.resolve(MANIFEST_FILENAME), lexicalIndex);
+      log.debug("Lexical index of project {} saved to {}", projectName, indexDir);
+    } catch (IOException e) {
+      log.warn("Failed to save lexical index of project {}", projectName, e);
+      return;
+    }
+    LexicalIndex mappedIndex = loadIndex(projectName);
+    if (mappedIndex != null) {
+      indexes.put(projectName, mappedIndex);
+    }
+    if (previousIndex != null) {
+      previousIndex.retire(() -> deleteRetiredSegments(projectName, previousIndex));
+    }
+  }
+
+  private static void deleteRetiredSegments(String projectName, LexicalIndex retiredIndex) {
+    LexicalIndex currentIndex = indexes.get(projectName);
+    Set<String> listedSegmentNames =
+        currentIndex != null ? getSegmentNames(currentIndex) : Set.of();
+    Set<String> retiredSegmentNames = getSegmentNames(retiredIndex);
+    retiredSegmentNames.removeAll(listedSegmentNames);
+    Path indexDir = getIndexDir(projectName);
+    for (String segmentName : retiredSegmentNames) {
+      try {
+        Files.deleteIfExists(indexDir.resolve(segmentName + SEGMENT_SUFFIX));
+      } catch (IOException e) {
+        // Left to be deleted when the index is loaded again
+        log.debug("Failed to delete retired lexical index segment {}", segmentName, e);
+      }
+    }
+  }
+
+  private static Set<String> getSegmentNames(LexicalIndex lexicalIndex) {
+    Set<String> segmentNames = new HashSet<>();
+    for (Segment segment : lexicalIndex.getSegments()) {
+      segmentNames.add(segment.getLexicalSegment().getName());
+    }
+    return segmentNames;
+  }
+
+  private static LexicalIndex loadIndex(String projectName) {
+    Path indexDir = getIndexDir(projectName);
+    if (indexDir == null || !Files.isRegularFile(indexDir.resolve(MANIFEST_FILENAME))) return null;
+    try {
+      LexicalIndex lexicalIndex = readIndex(indexDir);
+      log.debug(
+          "Lexical index of project {} loaded with {} chunks in {} segments at commit {}",
+          projectName,
+          lexicalIndex.size(),
+          lexicalIndex.getSegments().size(),
+          lexicalIndex.getCommitId());
+      return lexicalIndex;
+    } catch (IOException | RuntimeException e) {
+      // A corrupted or outdated index is discarded and rebuilt on the next update
+      log.warn("Failed to load lexical index of project {}", projectName, e);
+      return null;
+    }
+  }
+
+  public static void setPluginDataPath(Path path) {
+    pluginDataPath = path;
+  }
+
+  private static Path getIndexDir(String projectName) {
+    if (pluginDataPath == null) return null;
+    return pluginDataPath.resolve(INDEX_DIR).resolve(sanitizeFilename(projectName));
+  }
+
+  private static void writeSegment(Path segmentPath, LexicalSegment lexicalSegment)
+      throws IOException {
+    Path tempPath = segmentPath.resolveSibling(segmentPath.getFileName() + TEMP_SUFFIX);
+    try (FileChannel channel =
+        FileChannel.open(
+            tempPath,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      ByteBuffer bytes = lexicalSegment.getBytes();
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+    }
+    moveAtomically(tempPath, segmentPath);
+  }
+
+  private static void writeManifest(Path manifestPath, LexicalIndex lexicalIndex)
+      throws IOException {
+    Path tempPath = manifestPath.resolveSibling(manifestPath.getFileName() + TEMP_SUFFIX);
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+      out.writeInt(MANIFEST_MAGIC);
+      out.writeInt(MANIFEST_VERSION);
+      writeString(out, lexicalIndex.getCommitId());
+      out.writeInt(lexicalIndex.getNextGeneration());
+      out.writeInt(lexicalIndex.getSegments().size());
+      for (Segment segment : lexicalIndex.getSegments()) {
+        writeString(out, segment.getLexicalSegment().getName());
+        out.writeInt(segment.getDeletedPaths().size());
+        for (String deletedPath : segment.getDeletedPaths()) {
+          writeString(out, deletedPath);
+        }
+      }
+    }
+    // The manifest is replaced atomically, so that it only ever lists complete segments
+    moveAtomically(tempPath, manifestPath);
+  }
+
+  private static LexicalIndex readIndex(Path indexDir) throws IOException {
+    ByteBuffer manifest = ByteBuffer.wrap(Files.readAllBytes(indexDir.resolve(MANIFEST_FILENAME)));
+    try {
+      if (manifest.getInt() != MANIFEST_MAGIC || manifest.getInt() != MANIFEST_VERSION) {
+        throw new IOException("Unsupported lexical index format: " + indexDir);
+      }
+      String commitId = readString(manifest);
+      int nextGeneration = manifest.getInt();
+      int segmentCount = manifest.getInt();
+      List<Segment> segments = new ArrayList<>(segmentCount);
+      for (int i = 0; i < segmentCount; i++) {
+        String segmentName = readString(manifest);
+        int deletedPathCount = manifest.getInt();
+        Set<String> deletedPaths = new HashSet<>(deletedPathCount * 2);
+        for (int j = 0; j < deletedPathCount; j++) {
+          deletedPaths.add(readString(manifest));
+        }
+        segments.add(new Segment(mapSegment(indexDir, segmentName), deletedPaths));
+      }
+      return new LexicalIndex(commitId, segments, nextGeneration);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated lexical index manifest: " + indexDir, e);
+    }
+  }
+
+  private static LexicalSegment mapSegment(Path indexDir, String segmentName) throws IOException {
+    Path segmentPath = indexDir.resolve(segmentName + SEGMENT_SUFFIX);
+    try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+      // The mapping stays valid once the channel is closed
+      return new LexicalSegment(
+          segmentName, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  private static void deleteUnlistedSegments(String projectName, Set<String> segmentNames) {
+    try (DirectoryStream<Path> segmentPaths =
+        Files.newDirectoryStream(getIndexDir(projectName), "*" + SEGMENT_SUFFIX)) {
+      for (Path segmentPath : segmentPaths) {
+        String segmentFilename = segmentPath.getFileName().toString();
+        String segmentName =
+            segmentFilename.substring(0, segmentFilename.length() - SEGMENT_SUFFIX.length());
+        if (!segmentNames.contains(segmentName)) {
+          Files.deleteIfExists(segmentPath);
+        }
+      }
+    } catch (IOException e) {
+      log.debug("Failed to delete unlisted segments of project {}", projectName, e);
+    }
+  }
+
+  private static void moveAtomically(Path source, Path target) throws IOException {
+    Files.move(
+        source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.CodeChunker;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndex.Segment;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoBlob;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.retrieval.CodeChunk;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndexStore.getSegmentName;
+
+@Slf4j
+public class LexicalIndexer extends ClientBase {
+  // Bounds the memory taken to build a segment and the size of its file
+  private static final int MAX_SEGMENT_DOCS = 200_000;
+  // Beyond this count, the smallest segments are merged so that each term is looked up fewer times
+  private static final int MAX_SEGMENTS = 8;
+  // Segments with more deleted chunks than this ratio are rewritten without them
+  private static final double MAX_DELETED_RATIO = 0.5;
+
+  private final GerritChange change;
+  private final GitRepoFiles gitRepoFiles;
+
+  private final List<LexicalSegment> builtSegments = new ArrayList<>();
+  private LexicalSegmentWriter segmentWriter;
+  private int generation;
+
+  public LexicalIndexer(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+    super(config);
+    this.change = change;
+    this.gitRepoFiles = gitRepoFiles;
+  }
+
+  /**
+   * Brings the lexical index of the project up to date with the master branch and returns it.
+   * Only the files changed since the indexed commit are tokenized again, into new segments; the
+   * index is built from scratch when missing or when the indexed commit cannot be diffed anymore.
+   */
+  public LexicalIndex updateIndex() {
+    String projectName = change.getProjectName();
+    synchronized (LexicalIndexStore.getUpdateLock(projectName)) {
+      LexicalIndex lexicalIndex = LexicalIndexStore.getIndex(projectName);
+      String masterCommitId = gitRepoFiles.getMasterCommitId(change);
+      if (masterCommitId == null) {
+        log.debug("No master branch to index for project {}", projectName);
+        return lexicalIndex;
+      }
+      if (lexicalIndex != null && masterCommitId.equals(lexicalIndex.getCommitId())) {
+        log.debug("Lexical index of project {} already at commit {}", projectName, masterCommitId);
+        return lexicalIndex;
+      }
+      Set<String> changedPaths = null;
+      if (lexicalIndex != null) {
+        try {
+          changedPaths = gitRepoFiles.getChangedFiles(config, change, lexicalIndex.getCommitId());
+        } catch (RuntimeException e) {
+          log.warn("Rebuilding lexical index of project {} from scratch", projectName, e);
+        }
+      }
+      // Generations keep increasing on rebuilds, so that no segment file of the replaced index is
+      // overwritten while it may still be searched
+      generation = lexicalIndex != null ? lexicalIndex.getNextGeneration() : 0;
+      segmentWriter = new LexicalSegmentWriter();
+      gitRepoFiles.visitFiles(config, change, changedPaths, this::addFile);
+      flushSegment();
+      if (changedPaths != null) {
+        lexicalIndex = lexicalIndex.update(masterCommitId, changedPaths, builtSegments, generation);
+      } else {
+        lexicalIndex =
+            new LexicalIndex(
+                masterCommitId,
+                builtSegments.stream().map(segment -> new Segment(segment, Set.of())).toList(),
+                generation);
+      }
+      lexicalIndex = mergeSegments(lexicalIndex);
+      log.debug(
+          "Lexical index of project {} updated to commit {} with {} chunks in {} segments",
+          projectName,
+          masterCommitId,
+          lexicalIndex.size(),
+          lexicalIndex.getSegments().size());
+      LexicalIndexStore.saveIndex(projectName, lexicalIndex);
+      return LexicalIndexStore.getIndex(projectName);
+    }
+  }
+
+  private void addFile(RepoBlob repoBlob, String content) {
+    List<CodeChunk> chunks = CodeChunker.chunk(repoBlob.getPath(), content);
+    if (chunks.isEmpty()) return;
+    if (segmentWriter.getDocCount() + chunks.size() > MAX_SEGMENT_DOCS) {
+      flushSegment();
+    }
+    int pathId = segmentWriter.addPath(repoBlob.getPath(), repoBlob.getObjectId());
+    for (CodeChunk chunk : chunks) {
+      segmentWriter.addDocument(
+          pathId,
+          chunk.getStartLine(),
+          chunk.getEndLine(),
+          IdentifierTokenizer.tokenize(chunk.getContent()));
+    }
+  }
+
+  private void flushSegment() {
+    if (segmentWriter.getDocCount() == 0) return;
+    builtSegments.add(segmentWriter.toSegment(getSegmentName(generation++)));
+    segmentWriter = new LexicalSegmentWriter();
+  }
+
+  /**
+   * Rewrites the segments with too many deleted chunks, then merges the smallest segments as long
+   * as there are too many of them and the merged segment stays within the size limit.
+   */
+  private LexicalIndex mergeSegments(LexicalIndex lexicalIndex) {
+    List<Segment> segments = new ArrayList<>(lexicalIndex.getSegments());
+    int mergeGeneration = lexicalIndex.getNextGeneration();
+    boolean merged = false;
+    for (int i = 0; i < segments.size(); i++) {
+      Segment segment = segments.get(i);
+      if (segment.getDeletedDocCount()
+          > segment.getLexicalSegment().getDocCount() * MAX_DELETED_RATIO) {
+        segments.set(i, mergeSegmentList(List.of(segment), getSegmentName(mergeGeneration++)));
+        merged = true;
+      }
+    }
+    segments.removeIf(segment -> segment.getLexicalSegment().getDocCount() == 0);
+    while (segments.size() > MAX_SEGMENTS) {
+      segments.sort(Comparator.comparingInt(Segment::getLiveDocCount));
+      List<Segment> smallest = List.of(segments.get(0), segments.get(1));
+      if (smallest.get(0).getLiveDocCount() + smallest.get(1).getLiveDocCount()
+          > MAX_SEGMENT_DOCS) {
+        break;
+      }
+      segments.removeAll(smallest);
+      segments.add(mergeSegmentList(smallest, getSegmentName(mergeGeneration++)));
+      merged = true;
+    }
+    if (!merged) return lexicalIndex;
+    log.debug("Lexical index segments merged into {} segments", segments.size());
+    return new LexicalIndex(lexicalIndex.getCommitId(), segments, mergeGeneration);
+  }
+
+  private Segment mergeSegmentList(List<Segment> segments, String name) {
+    LexicalSegmentWriter mergedWriter = new LexicalSegmentWriter();
+    for (Segment segment : segments) {
+      LexicalSegment lexicalSegment = segment.getLexicalSegment();
+      int[] pathIdMap = new int[lexicalSegment.getPathCount()];
+      Arrays.fill(pathIdMap, -1);
+      int[] docMap = new int[lexicalSegment.getDocCount()];
+      Arrays.fill(docMap, -1);
+      for (int doc = 0; doc < lexicalSegment.getDocCount(); doc++) {
+        if (segment.isDeleted(doc)) continue;
+        int pathId = lexicalSegment.getDocPathId(doc);
+        if (pathIdMap[pathId] < 0) {
+          pathIdMap[pathId] =
+              mergedWriter.addPath(
+                  lexicalSegment.getPath(pathId), lexicalSegment.getBlobId(pathId));
+        }
+        docMap[doc] =
+            mergedWriter.addDocument(
+                pathIdMap[pathId],
+                lexicalSegment.getDocStartLine(doc),
+                lexicalSegment.getDocEndLine(doc),
+                lexicalSegment.getDocLength(doc));
+      }
+      // Documents are renumbered in the same order, so that postings stay sorted
+      for (int termIndex = 0; termIndex < lexicalSegment.getTermCount(); termIndex++) {
+        String term = lexicalSegment.getTerm(termIndex);
+        lexicalSegment.forEachPosting(
+            termIndex,
+            (doc, termFrequency) -> {
+              if (docMap[doc] >= 0) {
+                mergedWriter.addPosting(term, docMap[doc], termFrequency);
+              }
+            });
+      }
+    }
+    return new Segment(mergedWriter.toSegment(name), Set.of());
+  }
+}
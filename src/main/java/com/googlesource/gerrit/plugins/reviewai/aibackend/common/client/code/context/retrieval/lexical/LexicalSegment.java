@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical;
+
+import lombok.Getter;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable inverted index of the chunks of a set of files, read in place from its buffer, which
+ * is memory-mapped from the segment file once persisted. Documents keep the blob of their file and
+ * their line range instead of their contents. Terms are sorted by their UTF-8 bytes, so that they
+ * are found by binary search without loading the dictionary.
+ */
+public class LexicalSegment {
+  static final int SEGMENT_MAGIC = 0x524c5853;
+  static final int SEGMENT_VERSION = 1;
+  // Magic, version, counts of documents, paths and terms, total length and section offsets
+  static final int HEADER_BYTES = 5 * Integer.BYTES + Long.BYTES + 5 * Integer.BYTES;
+  // Path id, start line, end line and length in terms of each document
+  static final int DOC_ENTRY_BYTES = 4 * Integer.BYTES;
+  // String offset and blob id of each path
+  static final int PATH_ENTRY_BYTES = Integer.BYTES + Constants.OBJECT_ID_LENGTH;
+  // String offset, postings offset and document frequency of each term
+  static final int TERM_ENTRY_BYTES = 3 * Integer.BYTES;
+
+  @Getter private final String name;
+  @Getter private final int docCount;
+  @Getter private final int pathCount;
+  @Getter private final int termCount;
+  @Getter private final long totalLength;
+
+  private final ByteBuffer buffer;
+  private final int docTableOffset;
+  private final int pathTableOffset;
+  private final int termTableOffset;
+  private final int postingsOffset;
+  private final int stringsOffset;
+
+  public interface PostingConsumer {
+    void accept(int doc, int termFrequency);
+  }
+
+  public LexicalSegment(String name, ByteBuffer buffer) {
+    this.name = name;
+    this.buffer = buffer;
+    if (buffer.getInt(0) != SEGMENT_MAGIC || buffer.getInt(Integer.BYTES) != SEGMENT_VERSION) {
+      throw new IllegalArgumentException("Unsupported lexical segment format: " + name);
+    }
+    int position = 2 * Integer.BYTES;
+    docCount = buffer.getInt(position);
+    pathCount = buffer.getInt(position += Integer.BYTES);
+    termCount = buffer.getInt(position += Integer.BYTES);
+    totalLength = buffer.getLong(position += Integer.BYTES);
+    docTableOffset = buffer.getInt(position += Long.BYTES);
+    pathTableOffset = buffer.getInt(position += Integer.BYTES);
+    termTableOffset = buffer.getInt(position += Integer.BYTES);
+    postingsOffset = buffer.getInt(position += Integer.BYTES);
+    stringsOffset = buffer.getInt(position + Integer.BYTES);
+  }
+
+  public boolean isMapped() {
+    return buffer instanceof MappedByteBuffer;
+  }
+
+  /** Returns a read-only view of the whole segment, for persisting it. */
+  public ByteBuffer getBytes() {
+    return buffer.asReadOnlyBuffer().position(0).limit(buffer.capacity());
+  }
+
+  public int getDocPathId(int doc) {
+    return buffer.getInt(docTableOffset + doc * DOC_ENTRY_BYTES);
+  }
+
+  public int getDocStartLine(int doc) {
+    return buffer.getInt(docTableOffset + doc * DOC_ENTRY_BYTES + Integer.BYTES);
+  }
+
+  public int getDocEndLine(int doc) {
+    return buffer.getInt(docTableOffset + doc * DOC_ENTRY_BYTES + 2 * Integer.BYTES);
+  }
+
+  public int getDocLength(int doc) {
+    return buffer.getInt(docTableOffset + doc * DOC_ENTRY_BYTES + 3 * Integer.BYTES);
+  }
+
+  public String getPath(int pathId) {
+    return new String(
+        readStringBytes(buffer.getInt(pathTableOffset + pathId * PATH_ENTRY_BYTES)),
+        StandardCharsets.UTF_8);
+  }
+
+  public ObjectId getBlobId(int pathId) {
+    byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+    buffer.get(pathTableOffset + pathId * PATH_ENTRY_BYTES + Integer.BYTES, rawId);
+    return ObjectId.fromRaw(rawId);
+  }
+
+  public String getTerm(int termIndex) {
+    return new String(
+        readStringBytes(buffer.getInt(termTableOffset + termIndex * TERM_ENTRY_BYTES)),
+        StandardCharsets.UTF_8);
+  }
+
+  public int getDocFrequency(int termIndex) {
+    return buffer.getInt(termTableOffset + termIndex * TERM_ENTRY_BYTES + 2 * Integer.BYTES);
+  }
+
+  /** Returns the index of the term in the dictionary, or -1 when missing. */
+  public int findTerm(String term) {
+    byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = termCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      byte[] middleBytes =
+          readStringBytes(buffer.getInt(termTableOffset + middle * TERM_ENTRY_BYTES));
+      int comparison = Arrays.compareUnsigned(middleBytes, termBytes);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /** Passes the documents containing the term to the consumer, in increasing order. */
+  public void forEachPosting(int termIndex, PostingConsumer consumer) {
+    int termEntryOffset = termTableOffset + termIndex * TERM_ENTRY_BYTES;
+    int position = postingsOffset + buffer.getInt(termEntryOffset + Integer.BYTES);
+    int docFrequency = getDocFrequency(termIndex);
+    for (int i = 0; i < docFrequency; i++, position += 2 * Integer.BYTES) {
+      consumer.accept(buffer.getInt(position), buffer.getInt(position + Integer.BYTES));
+    }
+  }
+
+  private byte[] readStringBytes(int stringOffset) {
+    int position = stringsOffset + stringOffset;
+    byte[] bytes = new byte[buffer.getInt(position)];
+    buffer.get(position + Integer.BYTES, bytes);
+    return bytes;
+  }
+}
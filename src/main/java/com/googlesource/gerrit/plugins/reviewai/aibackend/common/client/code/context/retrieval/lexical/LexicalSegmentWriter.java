@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalSegment.*;
+
+/**
+ * Accumulates the documents and postings of a segment in memory and serializes them in the layout
+ * read by {@link LexicalSegment}. Documents are numbered in order of addition, and the postings of
+ * each term must be added in increasing document order.
+ */
+public class LexicalSegmentWriter {
+  private final List<String> paths = new ArrayList<>();
+  private final List<ObjectId> blobIds = new ArrayList<>();
+  private final List<int[]> docs = new ArrayList<>();
+  private final Map<String, Postings> termPostings = new HashMap<>();
+  private long totalLength;
+
+  // Pairs of document and term frequency
+  private static class Postings {
+    private int[] entries = new int[4];
+    private int size;
+
+    private void add(int doc, int termFrequency) {
+      if (size + 2 > entries.length) {
+        entries = Arrays.copyOf(entries, entries.length * 2);
+      }
+      entries[size++] = doc;
+      entries[size++] = termFrequency;
+    }
+  }
+
+  public int getDocCount() {
+    return docs.size();
+  }
+
+  public int addPath(String path, ObjectId blobId) {
+    paths.add(path);
+    blobIds.add(blobId);
+    return paths.size() - 1;
+  }
+
+  public int addDocument(int pathId, int startLine, int endLine, int length) {
+    docs.add(new int[] {pathId, startLine, endLine, length});
+    totalLength += length;
+    return docs.size() - 1;
+  }
+
+  /** Adds a document with the postings of its terms. */
+  public int addDocument(int pathId, int startLine, int endLine, List<String> terms) {
+    int doc = addDocument(pathId, startLine, endLine, terms.size());
+    Map<String, Integer> termFrequencies = new HashMap<>();
+    for (String term : terms) {
+      termFrequencies.merge(term, 1, Integer::sum);
+    }
+    termFrequencies.forEach((term, termFrequency) -> addPosting(term, doc, termFrequency));
+    return doc;
+  }
+
+  public void addPosting(String term, int doc, int termFrequency) {
+    termPostings.computeIfAbsent(term, k -> new Postings()).add(doc, termFrequency);
+  }
+
+  public LexicalSegment toSegment(String name) {
+    return new LexicalSegment(name, ByteBuffer.wrap(toByteArray()));
+  }
+
+  private byte[] toByteArray() {
+    try {
+      ByteArrayOutputStream strings = new ByteArrayOutputStream();
+      DataOutputStream stringsOut = new DataOutputStream(strings);
+      int[] pathStringOffsets = new int[paths.size()];
+      for (int i = 0; i < paths.size(); i++) {
+        byte[] path = paths.get(i).getBytes(StandardCharsets.UTF_8);
+        pathStringOffsets[i] = writeString(stringsOut, path);
+      }
+      List<byte[]> terms = new ArrayList<>(termPostings.size());
+      for (String term : termPostings.keySet()) {
+        terms.add(term.getBytes(StandardCharsets.UTF_8));
+      }
+      terms.sort(Arrays::compareUnsigned);
+
+      long postingsBytes = 0;
+      for (Postings postings : termPostings.values()) {
+        postingsBytes += (long) postings.size * Integer.BYTES;
+      }
+      long docTableOffset = HEADER_BYTES;
+      long pathTableOffset = docTableOffset + (long) docs.size() * DOC_ENTRY_BYTES;
+      long termTableOffset = pathTableOffset + (long) paths.size() * PATH_ENTRY_BYTES;
+      long postingsOffset = termTableOffset + (long) terms.size() * TERM_ENTRY_BYTES;
+      long stringsOffset = postingsOffset + postingsBytes;
+      // Terms strings are appended after the paths strings
+      long segmentBytes = stringsOffset + strings.size();
+      for (byte[] term : terms) {
+        segmentBytes += Integer.BYTES + term.length;
+      }
+      if (segmentBytes > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Lexical segment too large: " + segmentBytes + " bytes");
+      }
+
+      ByteArrayOutputStream segment = new ByteArrayOutputStream((int) segmentBytes);
+      DataOutputStream out = new DataOutputStream(segment);
+      out.writeInt(SEGMENT_MAGIC);
+      out.writeInt(SEGMENT_VERSION);
+      out.writeInt(docs.size());
+      out.writeInt(paths.size());
+      out.writeInt(terms.size());
+      out.writeLong(totalLength);
+      out.writeInt((int) docTableOffset);
+      out.writeInt((int) pathTableOffset);
+      out.writeInt((int) termTableOffset);
+      out.writeInt((int) postingsOffset);
+      out.writeInt((int) stringsOffset);
+      for (int[] doc : docs) {
+        for (int value : doc) {
+          out.writeInt(value);
+        }
+      }
+      byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+      for (int i = 0; i < paths.size(); i++) {
+        out.writeInt(pathStringOffsets[i]);
+        blobIds.get(i).copyRawTo(rawId, 0);
+        out.write(rawId);
+      }
+      int postingsPosition = 0;
+      for (byte[] term : terms) {
+        Postings postings = termPostings.get(new String(term, StandardCharsets.UTF_8));
+        out.writeInt(writeString(stringsOut, term));
+        out.writeInt(postingsPosition);
+        out.writeInt(postings.size / 2);
+        postingsPosition += postings.size * Integer.BYTES;
+      }
+      for (byte[] term : terms) {
+        Postings postings = termPostings.get(new String(term, StandardCharsets.UTF_8));
+        for (int i = 0; i < postings.size; i++) {
+          out.writeInt(postings.entries[i]);
+        }
+      }
+      strings.writeTo(out);
+      out.flush();
+      return segment.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static int writeString(DataOutputStream out, byte[] bytes) throws IOException {
+    int offset = out.size();
+    out.writeInt(bytes.length);
+    out.write(bytes);
+    return offset;
+  }
+}
@@ -137,8 +137,7 @@ public class ClientCommandExecutor extends ClientCommandBase {
       return;
     }
     OpenAiVectorStoreHandler openAiVectorStoreHandler =
-        new OpenAiVectorStoreHandler(
-            config, change, gitRepoFiles, pluginDataHandlerProvider.getProjectScope());
+        new OpenAiVectorStoreHandler(config, change, gitRepoFiles, pluginDataHandlerProvider);
     try {
       openAiVectorStoreHandler.generateVectorStore();
     } catch (Exception OpenAiConnectionFailException) {
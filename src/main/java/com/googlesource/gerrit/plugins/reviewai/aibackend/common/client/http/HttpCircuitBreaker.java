@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http;
+
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiCircuitOpenException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.TimeUtils.getCurrentMillis;
+
+/**
+ * Circuit breaker shared by all the requests sent to the same AI endpoint.
+ *
+ * <p>The outcomes of the last {@value #WINDOW_SIZE} requests are recorded: when the failure rate
+ * exceeds the configured threshold the circuit opens and requests fail fast for the configured
+ * duration. A single probe request is then let through (half-open state): its success closes the
+ * circuit, its failure opens it again.
+ *
+ * <p>Each permission is bound to the generation of the state it was granted in, which changes on
+ * every transition. Results of requests granted in an earlier generation are ignored, so that only
+ * the probe can settle the half-open state.
+ */
+@Slf4j
+public class HttpCircuitBreaker {
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private static final int WINDOW_SIZE = 20;
+  private static final int MIN_CALLS = 5;
+
+  private static final Map<String, HttpCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+  private final String endpoint;
+  private final boolean[] outcomes = new boolean[WINDOW_SIZE];
+
+  @Getter private volatile State state = State.CLOSED;
+  private double failureRateThreshold;
+  private long openDuration;
+  private int calls;
+  private int failures;
+  private int position;
+  private long openedAt;
+  private long generation;
+  private boolean probeInFlight;
+
+  private HttpCircuitBreaker(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  public static HttpCircuitBreaker getInstance(
+      String endpoint, double failureRateThreshold, int openDuration) {
+    HttpCircuitBreaker breaker = breakers.computeIfAbsent(endpoint, HttpCircuitBreaker::new);
+    breaker.setThresholds(failureRateThreshold, openDuration);
+    return breaker;
+  }
+
+  public static long countInState(State state) {
+    return breakers.values().stream().filter(b -> b.getState() == state).count();
+  }
+
+  /**
+   * Grants a request permission to go through the circuit.
+   *
+   * @return the permit to pass to {@link #recordResult} once the request completes
+   */
+  public synchronized long acquirePermission() throws AiCircuitOpenException {
+    switch (state) {
+      case CLOSED -> {
+        return generation;
+      }
+      case OPEN -> {
+        if (getRemainingOpenMillis() > 0) {
+          log.debug("Circuit open for {}: failing fast", endpoint);
+          throw new AiCircuitOpenException(endpoint);
+        }
+        transitionTo(State.HALF_OPEN);
+      }
+      case HALF_OPEN -> {
+        if (probeInFlight) {
+          log.debug("Circuit half-open for {}: probe already in flight", endpoint);
+          throw new AiCircuitOpenException(endpoint);
+        }
+      }
+    }
+    probeInFlight = true;
+    log.debug("Circuit half-open for {}: sending probe request", endpoint);
+    return generation;
+  }
+
+  public synchronized void recordResult(long permit, boolean success) {
+    if (permit != generation) {
+      log.debug("Ignoring result of request granted before the last transition for {}", endpoint);
+      return;
+    }
+    if (state == State.HALF_OPEN) {
+      probeInFlight = false;
+      if (success) {
+        resetWindow();
+        transitionTo(State.CLOSED);
+      } else {
+        open();
+      }
+      return;
+    }
+    if (state == State.OPEN) {
+      return;
+    }
+    if (calls == WINDOW_SIZE && !outcomes[position]) {
+      failures--;
+    }
+    outcomes[position] = success;
+    position = (position + 1) % WINDOW_SIZE;
+    calls = Math.min(calls + 1, WINDOW_SIZE);
+    if (!success) {
+      failures++;
+    }
+    if (calls >= MIN_CALLS && (double) failures / calls > failureRateThreshold) {
+      log.warn("Failure rate {}/{} exceeded for {}", failures, calls, endpoint);
+      open();
+    }
+  }
+
+  public synchronized boolean isProbeInFlight() {
+    return probeInFlight;
+  }
+
+  public synchronized long getRemainingOpenMillis() {
+    return state == State.CLOSED ? 0 : Math.max(openedAt + openDuration - getCurrentMillis(), 0);
+  }
+
+  private synchronized void setThresholds(double failureRateThreshold, int openDuration) {
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDuration = openDuration * 1000L;
+  }
+
+  private void open() {
+    openedAt = getCurrentMillis();
+    transitionTo(State.OPEN);
+  }
+
+  private void resetWindow() {
+    calls = 0;
+    failures = 0;
+    position = 0;
+  }
+
+  private void transitionTo(State newState) {
+    log.info("Circuit breaker for {} moving from {} to {}", endpoint, state, newState);
+    state = newState;
+    generation++;
+  }
+}
@@ -18,39 +18,57 @@ package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http;
 
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFailException;
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiResourceNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
 import java.io.IOException;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
 
 @Slf4j
 public class HttpClient {
+  private static final int HTTP_NOT_FOUND = 404;
+
   private final OkHttpClient client;
+  private final HttpCircuitBreaker circuitBreaker;
   private final String bearer;
   private final String domain;
 
   public HttpClient(Configuration config) {
     this.bearer = config.getAiToken();
     this.domain = config.getAiDomain();
-    int connectionTimeout = config.getAiConnectionTimeout();
+    int maxRequestsPerHost = config.getAiConnectionMaxRequestsPerHost();
     HttpRetryInterceptor httpRetryInterceptor =
         new HttpRetryInterceptor(
-            config.getAiConnectionMaxRetryAttempts(), config.getAiConnectionRetryInterval());
+            config.getAiConnectionMaxRetryAttempts(),
+            config.getAiConnectionRetryInterval(),
+            HttpRateLimiter.getInstance(domain, bearer, maxRequestsPerHost));
+    // The derived client shares connection pool and dispatcher with the other endpoint clients, while
+    // the requests in flight to the domain are capped by the rate limiter
     this.client =
-        new OkHttpClient.Builder()
+        HttpTransportRegistry.getTransport(domain, config.getAiConnectionTimeout())
+            .newBuilder()
             .addInterceptor(httpRetryInterceptor)
-            .connectTimeout(connectionTimeout, TimeUnit.SECONDS)
-            .readTimeout(connectionTimeout, TimeUnit.SECONDS)
-            .writeTimeout(connectionTimeout, TimeUnit.SECONDS)
             .build();
+    this.circuitBreaker =
+        HttpCircuitBreaker.getInstance(
+            domain,
+            config.getAiCircuitBreakerFailureRateThreshold(),
+            config.getAiCircuitBreakerOpenDuration());
   }
 
   public String execute(Request request) throws AiConnectionFailException {
+    long permit = circuitBreaker.acquirePermission();
+    boolean upstreamAvailable = false;
     try (Response response = client.newCall(request).execute()) {
+      // Responses not rejected by the retry interceptor show that the upstream is reachable
+      upstreamAvailable = true;
+      if (response.code() == HTTP_NOT_FOUND) {
+        log.debug("HTTP resource not found for request URL: {}", request.url());
+        throw new AiResourceNotFoundException(request.url().toString());
+      }
       if (!response.isSuccessful()) {
         log.error("HTTP request failed with status code: {}", response.code());
         throw new IOException("Unexpected code " + response);
@@ -66,6 +84,8 @@ public class HttpClient {
     } catch (IOException e) {
       log.error("HTTP request execution failed for request URL: {}", request.url(), e);
       throw new AiConnectionFailException(e);
+    } finally {
+      circuitBreaker.recordResult(permit, upstreamAvailable);
     }
     return null;
   }
@@ -74,9 +94,7 @@ public class HttpClient {
       String uri, RequestBody body, Map<String, String> additionalHeaders) {
     // If body is null, a GET request is initiated. Otherwise, a POST request is sent with the
     // specified body.
-    uri = domain + uri;
-    Request.Builder builder =
-        new Request.Builder().url(uri).header("Authorization", "Bearer " + bearer);
+    Request.Builder builder = createRequestBuilder(uri, additionalHeaders);
 
     if (body != null) {
       builder.post(body);
@@ -85,15 +103,14 @@ public class HttpClient {
       builder.get();
       log.debug("Creating GET request for URI: {}", uri);
     }
-    if (additionalHeaders != null) {
-      for (Map.Entry<String, String> header : additionalHeaders.entrySet()) {
-        builder.header(header.getKey(), header.getValue());
-        log.debug("Added header {} : {}", header.getKey(), header.getValue());
-      }
-    }
     return builder.build();
   }
 
+  public Request createDeleteRequest(String uri, Map<String, String> additionalHeaders) {
+    log.debug("Creating DELETE request for URI: {}", uri);
+    return createRequestBuilder(uri, additionalHeaders).delete().build();
+  }
+
   public Request createRequestFromJson(
       String uri, Object requestObject, Map<String, String> additionalHeaders) {
     if (requestObject != null) {
@@ -111,4 +128,16 @@ public class HttpClient {
   public Request createRequestFromJson(String uri, Object requestObject) {
     return createRequestFromJson(uri, requestObject, null);
   }
+
+  private Request.Builder createRequestBuilder(String uri, Map<String, String> additionalHeaders) {
+    Request.Builder builder =
+        new Request.Builder().url(domain + uri).header("Authorization", "Bearer " + bearer);
+    if (additionalHeaders != null) {
+      for (Map.Entry<String, String> header : additionalHeaders.entrySet()) {
+        builder.header(header.getKey(), header.getValue());
+        log.debug("Added header {} : {}", header.getKey(), header.getValue());
+      }
+    }
+    return builder;
+  }
 }
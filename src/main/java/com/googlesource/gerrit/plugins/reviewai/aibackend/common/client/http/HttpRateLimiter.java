@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http;
+
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import okhttp3.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.TimeUtils.getCurrentMillis;
+
+/**
+ * Client-side limiter shared by all the requests sent to the same AI domain with the same token and
+ * concurrency limit, so that projects configured with different limits do not override each other.
+ *
+ * <p>It combines a token bucket, seeded from the `x-ratelimit-*` headers returned by the provider,
+ * with an AIMD (additive increase, multiplicative decrease) concurrency limit: the number of
+ * requests in flight grows slowly while latency stays close to the best observed one, and is
+ * halved whenever the provider answers with 429. A `Retry-After` received with a 429 pauses all
+ * the callers, so that they do not retry in lockstep.
+ */
+@Slf4j
+public class HttpRateLimiter {
+  public static final int HTTP_TOO_MANY_REQUESTS = 429;
+  public static final int NO_RESPONSE = -1;
+
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_REDIRECT = 300;
+
+  private static final String HEADER_LIMIT_REQUESTS = "x-ratelimit-limit-requests";
+  private static final String HEADER_REMAINING_REQUESTS = "x-ratelimit-remaining-requests";
+  private static final String HEADER_RESET_REQUESTS = "x-ratelimit-reset-requests";
+  private static final String HEADER_RETRY_AFTER = "Retry-After";
+  private static final String HEADER_RETRY_AFTER_MS = "retry-after-ms";
+  private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+
+  private static final int MIN_CONCURRENCY = 1;
+  private static final double DECREASE_FACTOR = 0.5;
+  private static final double LATENCY_TOLERANCE = 2.0;
+  private static final double LATENCY_SMOOTHING = 0.2;
+  private static final long MAX_TOKEN_WAIT = 1000;
+  private static final long MAX_RETRY_AFTER = 120000;
+
+  private static final Map<LimiterKey, HttpRateLimiter> limiters = new ConcurrentHashMap<>();
+
+  private final String domain;
+
+  private final int maxConcurrency;
+  private double concurrencyLimit;
+  private int inFlight;
+  // Token bucket state: the bucket is disabled (negative tokens) until the provider reports limits
+  private double tokens = -1;
+  private double capacity;
+  private double refillPerMilli;
+  private long lastRefill;
+  private double minLatency = Double.MAX_VALUE;
+  private double avgLatency;
+  private long blockedUntil;
+
+  private record LimiterKey(String domain, String tokenHash, int maxConcurrency) {}
+
+  private HttpRateLimiter(String domain, int maxConcurrency) {
+    this.domain = domain;
+    this.maxConcurrency = Math.max(MIN_CONCURRENCY, maxConcurrency);
+    concurrencyLimit = this.maxConcurrency;
+    log.debug("Rate limiter for {} initialized with concurrency {}", domain, concurrencyLimit);
+  }
+
+  public static HttpRateLimiter getInstance(String domain, String token, int maxConcurrency) {
+    // The provider limits are bound to the API key, which is only kept as a hash
+    String tokenHash =
+        token != null ? Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString() : null;
+    return limiters.computeIfAbsent(
+        new LimiterKey(domain, tokenHash, maxConcurrency),
+        k -> new HttpRateLimiter(domain, maxConcurrency));
+  }
+
+  public static long getRetryAfterMillis(Response response) {
+    return getRetryAfterMillis(response.headers());
+  }
+
+  public static long getRetryAfterMillis(Headers headers) {
+    String retryAfterMs = headers.get(HEADER_RETRY_AFTER_MS);
+    if (retryAfterMs != null) {
+      try {
+        return Math.min(Long.parseLong(retryAfterMs.trim()), MAX_RETRY_AFTER);
+      } catch (NumberFormatException e) {
+        log.debug("Invalid {} header: {}", HEADER_RETRY_AFTER_MS, retryAfterMs);
+      }
+    }
+    String retryAfter = headers.get(HEADER_RETRY_AFTER);
+    if (retryAfter == null) {
+      return -1;
+    }
+    try {
+      return Math.min(Long.parseLong(retryAfter.trim()) * 1000, MAX_RETRY_AFTER);
+    } catch (NumberFormatException e) {
+      Date retryDate = headers.getDate(HEADER_RETRY_AFTER);
+      if (retryDate != null) {
+        return Math.min(Math.max(retryDate.getTime() - getCurrentMillis(), 0), MAX_RETRY_AFTER);
+      }
+      log.debug("Invalid {} header: {}", HEADER_RETRY_AFTER, retryAfter);
+    }
+    return -1;
+  }
+
+  public synchronized void acquire() throws InterruptedException {
+    while (true) {
+      long now = getCurrentMillis();
+      refill(now);
+      long waitMillis;
+      if (now < blockedUntil) {
+        waitMillis = blockedUntil - now;
+      } else if (tokens >= 0 && tokens < 1) {
+        // The bucket is only enabled with a known refill rate, see `updateBucket`
+        waitMillis = Math.min((long) Math.ceil((1 - tokens) / refillPerMilli), MAX_TOKEN_WAIT);
+      } else if (inFlight >= (int) concurrencyLimit) {
+        // Woken up by `release`
+        waitMillis = 0;
+      } else {
+        inFlight++;
+        if (tokens >= 1) {
+          tokens--;
+        }
+        return;
+      }
+      log.debug(
+          "Request to {} throttled (in flight: {}, wait: {} ms)", domain, inFlight, waitMillis);
+      wait(waitMillis);
+    }
+  }
+
+  public void release(Response response, long latency) {
+    if (response == null) {
+      release(NO_RESPONSE, null, latency);
+    } else {
+      release(response.code(), response.headers(), latency);
+    }
+  }
+
+  /**
+   * Releases the slot of a completed request. Requests failed without a response are released with
+   * {@link #NO_RESPONSE} and no headers.
+   */
+  public synchronized void release(int statusCode, Headers headers, long latency) {
+    inFlight = Math.max(inFlight - 1, 0);
+    if (headers != null) {
+      updateBucket(headers);
+    }
+    if (statusCode == HTTP_TOO_MANY_REQUESTS) {
+      onRateLimited(headers != null ? getRetryAfterMillis(headers) : -1);
+    } else if (statusCode >= HTTP_OK && statusCode < HTTP_REDIRECT) {
+      onSuccess(latency);
+    }
+    notifyAll();
+  }
+
+  public synchronized double getConcurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  private void onRateLimited(long retryAfter) {
+    concurrencyLimit = Math.max(MIN_CONCURRENCY, concurrencyLimit * DECREASE_FACTOR);
+    if (retryAfter > 0) {
+      blockedUntil = Math.max(blockedUntil, getCurrentMillis() + retryAfter);
+    }
+    log.debug(
+        "Rate limited by {}: concurrency decreased to {}, retry after {} ms",
+        domain,
+        concurrencyLimit,
+        retryAfter);
+  }
+
+  private void onSuccess(long latency) {
+    minLatency = Math.min(minLatency, latency);
+    avgLatency =
+        avgLatency == 0 ? latency : avgLatency + LATENCY_SMOOTHING * (latency - avgLatency);
+    if (avgLatency <= minLatency * LATENCY_TOLERANCE) {
+      // Additive increase by one request per round of `concurrencyLimit` completed requests
+      concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+    }
+  }
+
+  private void updateBucket(Headers headers) {
+    String limit = headers.get(HEADER_LIMIT_REQUESTS);
+    String remaining = headers.get(HEADER_REMAINING_REQUESTS);
+    if (limit == null || remaining == null) {
+      return;
+    }
+    try {
+      capacity = Double.parseDouble(limit);
+      tokens = Math.min(Double.parseDouble(remaining), capacity);
+    } catch (NumberFormatException e) {
+      log.debug("Invalid rate limit headers from {}: {}/{}", domain, remaining, limit);
+      return;
+    }
+    long resetMillis = parseDuration(headers.get(HEADER_RESET_REQUESTS));
+    refillPerMilli = resetMillis > 0 ? (capacity - tokens) / resetMillis : 0;
+    if (refillPerMilli <= 0) {
+      // Without a refill rate an empty bucket would never be refilled and block all the callers:
+      // the bucket is disabled until the next response, leaving the throttling to 429 responses
+      log.debug("Rate limit bucket for {} disabled: no refill rate available", domain);
+      tokens = -1;
+      return;
+    }
+    lastRefill = getCurrentMillis();
+    log.debug(
+        "Rate limit bucket for {} updated: {}/{} tokens, refill {} per ms",
+        domain,
+        tokens,
+        capacity,
+        refillPerMilli);
+  }
+
+  private void refill(long now) {
+    if (tokens < 0 || refillPerMilli <= 0) {
+      return;
+    }
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMilli);
+    lastRefill = now;
+  }
+
+  // Parses durations in the format used by the rate limit headers, e.g. "1s", "6m0s", "20ms"
+  private static long parseDuration(String duration) {
+    if (duration == null) {
+      return 0;
+    }
+    double millis = 0;
+    Matcher matcher = DURATION_PATTERN.matcher(duration);
+    while (matcher.find()) {
+      double value = Double.parseDouble(matcher.group(1));
+      millis +=
+          switch (matcher.group(2)) {
+            case "ms" -> value;
+            case "s" -> value * 1000;
+            case "m" -> value * 60000;
+            default -> value * 3600000;
+          };
+    }
+    return (long) millis;
+  }
+}
@@ -23,53 +23,112 @@ import okhttp3.Request;
 import okhttp3.Response;
 
 import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpRateLimiter.HTTP_TOO_MANY_REQUESTS;
+import static com.googlesource.gerrit.plugins.reviewai.utils.TimeUtils.getCurrentMillis;
 
 @Slf4j
 public class HttpRetryInterceptor implements Interceptor {
+  private static final int HTTP_REQUEST_TIMEOUT = 408;
+  private static final int HTTP_CONFLICT = 409;
+  private static final int HTTP_SERVER_ERROR = 500;
+  private static final long MAX_BACKOFF = 60000;
+
   private final int maxRetries;
   private final long retryInterval;
+  private final HttpRateLimiter rateLimiter;
 
-  public HttpRetryInterceptor(int maxRetries, long retryInterval) {
+  public HttpRetryInterceptor(int maxRetries, long retryInterval, HttpRateLimiter rateLimiter) {
     this.maxRetries = maxRetries;
     this.retryInterval = retryInterval * 1000;
+    this.rateLimiter = rateLimiter;
   }
 
   @Override
   public @NonNull Response intercept(Chain chain) throws IOException {
     Request request = chain.request();
-    Response response = null;
+    Integer lastStatusCode = null;
     int retryIndex = 1;
 
     while (true) {
-      try {
-        response = chain.proceed(request);
-        if (response.isSuccessful()) {
+      long retryDelay;
+      Response response = proceed(chain, request);
+      if (response != null) {
+        if (response.isSuccessful() || !isRetryable(response.code())) {
           return response;
-        } else {
-          log.error(
-              "Retry because HTTP status code is not 200. The status code is: {}", response.code());
-          response.close();
         }
-      } catch (IOException | IllegalStateException e) {
-        log.error("Retry failed with exception: {}", e.getMessage());
+        lastStatusCode = response.code();
+        log.error(
+            "Retry because HTTP status code is not 200. The status code is: {}", lastStatusCode);
+        retryDelay =
+            lastStatusCode == HTTP_TOO_MANY_REQUESTS
+                ? HttpRateLimiter.getRetryAfterMillis(response)
+                : -1;
+        response.close();
+      } else {
+        retryDelay = -1;
       }
 
       if (retryIndex >= maxRetries) {
         break;
       }
-      try {
-        Thread.sleep(retryInterval);
-      } catch (InterruptedException ie) {
-        Thread.currentThread().interrupt();
-        throw new IOException("Retry interrupted", ie);
-      }
+      sleep(retryDelay >= 0 ? retryDelay + getJitter(retryInterval / 10) : getBackoff(retryIndex));
       retryIndex++;
     }
 
-    if (response == null) {
+    if (lastStatusCode == null) {
       throw new IOException("Connection timed out");
     } else {
-      throw new IOException("Unexpected response code " + response.code());
+      throw new IOException("Unexpected response code " + lastStatusCode);
+    }
+  }
+
+  private Response proceed(Chain chain, Request request) throws IOException {
+    try {
+      rateLimiter.acquire();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Rate limiter wait interrupted", ie);
+    }
+    Response response = null;
+    long start = getCurrentMillis();
+    try {
+      response = chain.proceed(request);
+    } catch (IOException | IllegalStateException e) {
+      log.error("Retry failed with exception: {}", e.getMessage());
+    } finally {
+      rateLimiter.release(response, getCurrentMillis() - start);
+    }
+    return response;
+  }
+
+  // Other client errors, such as 400, 401 or 404, would fail again: they are returned at once, so
+  // that the caller can tell them apart, e.g. a resource not found from a connection failure
+  private boolean isRetryable(int statusCode) {
+    return statusCode == HTTP_TOO_MANY_REQUESTS
+        || statusCode == HTTP_REQUEST_TIMEOUT
+        || statusCode == HTTP_CONFLICT
+        || statusCode >= HTTP_SERVER_ERROR;
+  }
+
+  // Exponential backoff with "equal jitter": half of the delay is fixed, half is random
+  private long getBackoff(int retryIndex) {
+    long delay = Math.min(retryInterval << Math.min(retryIndex - 1, 16), MAX_BACKOFF);
+    return delay / 2 + getJitter(delay / 2);
+  }
+
+  private long getJitter(long bound) {
+    return bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0;
+  }
+
+  private void sleep(long millis) throws IOException {
+    log.debug("Retrying in {} ms", millis);
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Retry interrupted", ie);
     }
   }
 }
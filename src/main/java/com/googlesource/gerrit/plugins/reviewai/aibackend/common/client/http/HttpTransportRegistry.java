@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plugin-wide registry of the OkHttp transports used to reach the AI endpoints.
+ *
+ * <p>All the clients share the same {@link ConnectionPool} and {@link Dispatcher}, so that TLS
+ * sessions and HTTP/2 connections established by one endpoint client are reused by the others. A
+ * base client is kept for each (domain, timeout) profile; per-request differences such as
+ * interceptors are layered on top through {@link OkHttpClient#newBuilder()}, which preserves the
+ * shared pool and dispatcher.
+ *
+ * <p>The dispatcher limits only the asynchronous calls, while the endpoint clients execute their
+ * requests synchronously: the number of concurrent requests sent to the same host is therefore
+ * enforced by the per-domain {@link HttpRateLimiter} rather than by the dispatcher.
+ */
+@Slf4j
+public class HttpTransportRegistry {
+  private static final int MAX_IDLE_CONNECTIONS = 10;
+  private static final long KEEP_ALIVE_DURATION_MINUTES = 5;
+  private static final List<Protocol> PROTOCOLS = List.of(Protocol.HTTP_2, Protocol.HTTP_1_1);
+
+  private static final ConnectionPool connectionPool =
+      new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION_MINUTES, TimeUnit.MINUTES);
+  private static final Dispatcher dispatcher = new Dispatcher();
+  private static final Map<TransportProfile, OkHttpClient> transports = new ConcurrentHashMap<>();
+
+  private record TransportProfile(String domain, int timeout) {}
+
+  public static OkHttpClient getTransport(String domain, int timeout) {
+    return transports.computeIfAbsent(
+        new TransportProfile(domain, timeout), HttpTransportRegistry::createTransport);
+  }
+
+  public static void warmUp(String domain, int timeout) {
+    OkHttpClient transport = getTransport(domain, timeout);
+    Request request;
+    try {
+      request = new Request.Builder().url(domain).head().build();
+    } catch (IllegalArgumentException e) {
+      log.warn("Invalid domain `{}`: skipping connection warm-up", domain);
+      return;
+    }
+    log.debug("Warming up connection to {}", domain);
+    transport
+        .newCall(request)
+        .enqueue(
+            new Callback() {
+              @Override
+              public void onResponse(@NonNull Call call, @NonNull Response response) {
+                log.debug("Connection to {} warmed up with status {}", domain, response.code());
+                response.close();
+              }
+
+              @Override
+              public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                log.debug("Connection warm-up to {} failed: {}", domain, e.getMessage());
+              }
+            });
+  }
+
+  public static void shutdown() {
+    log.debug("Shutting down the HTTP transports");
+    dispatcher.cancelAll();
+    dispatcher.executorService().shutdown();
+    connectionPool.evictAll();
+    transports.clear();
+  }
+
+  private static OkHttpClient createTransport(TransportProfile profile) {
+    log.debug("Creating HTTP transport for {}", profile);
+    return new OkHttpClient.Builder()
+        .connectionPool(connectionPool)
+        .dispatcher(dispatcher)
+        .protocols(PROTOCOLS)
+        .connectTimeout(profile.timeout(), TimeUnit.SECONDS)
+        .readTimeout(profile.timeout(), TimeUnit.SECONDS)
+        .writeTimeout(profile.timeout(), TimeUnit.SECONDS)
+        .build();
+  }
+}
@@ -18,6 +18,7 @@ package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt;
 
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.localization.Localizer;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai.AiHistoryMessage;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai.AiRequestMessage;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.gerrit.GerritComment;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.ChangeSetData;
@@ -28,6 +29,7 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -75,6 +77,37 @@ public class AiHistory extends AiComment {
     return retrieveHistory(commentProperty, false);
   }
 
+  /**
+   * Retrieves the patch set messages followed by the inline comments, skipping the ones that have
+   * already been retrieved so that only the new messages are cleaned. Messages are returned
+   * unfiltered, with the metadata needed to filter them at a later time.
+   */
+  public List<AiHistoryMessage> retrieveNewMessages(Predicate<GerritComment> isRetrieved) {
+    List<AiHistoryMessage> newMessages = new ArrayList<>();
+    Set<String> addedIds = new HashSet<>();
+    for (GerritComment patchSetComment : patchSetComments) {
+      if (patchSetComment.isAutogenerated()) {
+        continue;
+      }
+      addNewMessage(
+          newMessages,
+          addedIds,
+          getPatchSetLevelMessage(patchSetComment),
+          Settings.GERRIT_PATCH_SET_FILENAME,
+          isRetrieved);
+    }
+    List<GerritComment> inlineComments = new ArrayList<>(commentMap.values());
+    sortByDateUpdated(inlineComments);
+    for (GerritComment comment : inlineComments) {
+      if (comment.isPatchSetComment()) {
+        continue;
+      }
+      addNewMessage(newMessages, addedIds, comment, getThreadId(comment), isRetrieved);
+    }
+    log.debug("New messages retrieved: {}", newMessages.size());
+    return newMessages;
+  }
+
   private List<GerritComment> retrievePatchSetComments(GerritClientData gerritClientData) {
     List<GerritComment> detailComments = gerritClientData.getDetailComments();
     // Normalize detailComments by setting the `update` field to match `date`
@@ -83,12 +116,12 @@ public class AiHistory extends AiComment {
     List<GerritComment> patchSetComments =
         Stream.concat(patchSetCommentMap.values().stream(), detailComments.stream())
             .collect(Collectors.toList());
-    sortPatchSetComments(patchSetComments);
+    sortByDateUpdated(patchSetComments);
     log.debug("Patch set comments sorted by update datetime: {}", patchSetComments);
     return patchSetComments;
   }
 
-  private void sortPatchSetComments(List<GerritComment> patchSetComments) {
+  private void sortByDateUpdated(List<GerritComment> comments) {
     Comparator<GerritComment> byDateUpdated =
         (GerritComment o1, GerritComment o2) -> {
           String dateTime1 = o1.getUpdated();
@@ -99,7 +132,7 @@ public class AiHistory extends AiComment {
 
           return dateTime1.compareTo(dateTime2);
         };
-    patchSetComments.sort(byDateUpdated);
+    comments.sort(byDateUpdated);
   }
 
   private String getRoleFromComment(GerritComment currentComment) {
@@ -130,18 +163,55 @@ public class AiHistory extends AiComment {
       if (patchSetComment.isAutogenerated()) {
         continue;
       }
-      if (!isFromAssistant(patchSetComment)) {
-        GerritComment patchSetLevelMessage = patchSetCommentMap.get(patchSetComment.getId());
-        if (patchSetLevelMessage != null) {
-          patchSetComment = patchSetLevelMessage;
-        }
-      }
-      addMessageToHistory(messageHistory, patchSetComment);
+      addMessageToHistory(messageHistory, getPatchSetLevelMessage(patchSetComment));
     }
     log.debug("Final patch set message history: {}", messageHistory);
     return messageHistory;
   }
 
+  private GerritComment getPatchSetLevelMessage(GerritComment patchSetComment) {
+    if (!isFromAssistant(patchSetComment)) {
+      GerritComment patchSetLevelMessage = patchSetCommentMap.get(patchSetComment.getId());
+      if (patchSetLevelMessage != null) {
+        return patchSetLevelMessage;
+      }
+    }
+    return patchSetComment;
+  }
+
+  private String getThreadId(GerritComment comment) {
+    while (comment.getInReplyTo() != null && commentMap.containsKey(comment.getInReplyTo())) {
+      comment = commentMap.get(comment.getInReplyTo());
+    }
+    return comment.getId();
+  }
+
+  private void addNewMessage(
+      List<AiHistoryMessage> newMessages,
+      Set<String> addedIds,
+      GerritComment comment,
+      String threadId,
+      Predicate<GerritComment> isRetrieved) {
+    if (comment.getId() != null && !addedIds.add(comment.getId()) || isRetrieved.test(comment)) {
+      return;
+    }
+    String messageContent = getCleanedMessage(comment);
+    if (messagesExcludedFromHistory.contains(messageContent)) {
+      messageContent = "";
+    }
+    newMessages.add(
+        AiHistoryMessage.builder()
+            .id(comment.getId())
+            .threadId(threadId)
+            .role(getRoleFromComment(comment))
+            .content(messageContent)
+            .updated(comment.getUpdated())
+            .resolved(comment.isResolved())
+            .patchSet(comment.getOneBasedPatchSet())
+            .patchSetComment(comment.isPatchSetComment())
+            .build());
+  }
+
   private boolean isInactiveComment(GerritComment comment) {
     boolean isInactive =
         config.getIgnoreResolvedAiComments() && isFromAssistant(comment) && comment.isResolved()
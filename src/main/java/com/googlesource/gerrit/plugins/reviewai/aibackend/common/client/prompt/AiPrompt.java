@@ -16,19 +16,16 @@
 
 package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt;
 
-import com.google.gson.reflect.TypeToken;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
-import com.googlesource.gerrit.plugins.reviewai.utils.FileUtils;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
 import static com.googlesource.gerrit.plugins.reviewai.utils.TextUtils.*;
 
 @Slf4j
@@ -52,20 +49,35 @@ public class AiPrompt {
   public static final List<String> REQUEST_REPLY_ATTRIBUTES =
       new ArrayList<>(Arrays.asList(ATTRIBUTE_REPLY, ATTRIBUTE_ID, ATTRIBUTE_CHANGE_ID));
 
-  // Prompt constants loaded from JSON file
-  public static String DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS;
-  public static String DEFAULT_AI_REVIEW_PROMPT_DIRECTIVES;
-  public static String DEFAULT_AI_PROMPT_FORCE_JSON_FORMAT;
-  public static String DEFAULT_AI_REPLIES_PROMPT_SPECS;
-  public static String DEFAULT_AI_REPLIES_PROMPT_INLINE;
-  public static String DEFAULT_AI_REPLIES_PROMPT_ENFORCE_RESPONSE_CHECK;
-  public static String DEFAULT_AI_REQUEST_PROMPT_DIFF;
-  public static String DEFAULT_AI_REQUEST_PROMPT_REQUESTS;
-  public static String DEFAULT_AI_REVIEW_PROMPT_COMMIT_MESSAGES;
-  public static String DEFAULT_AI_REVIEW_PROMPT_INSTRUCTIONS_COMMIT_MESSAGES;
-  public static String DEFAULT_AI_RELEVANCE_RULES;
-  public static String DEFAULT_AI_HOW_TO_FIND_COMMIT_MESSAGE;
-  public static Map<String, String> DEFAULT_AI_REPLIES_ATTRIBUTES;
+  // Prompt constants loaded from JSON file. They are instance fields because a later prompt file
+  // of a subclass may override the value of an earlier one (e.g. the system prompt).
+  public String DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS;
+  public String DEFAULT_AI_REVIEW_PROMPT_DIRECTIVES;
+  public String DEFAULT_AI_PROMPT_FORCE_JSON_FORMAT;
+  public String DEFAULT_AI_REPLIES_PROMPT_SPECS;
+  public String DEFAULT_AI_REPLIES_PROMPT_INLINE;
+  public String DEFAULT_AI_REPLIES_PROMPT_ENFORCE_RESPONSE_CHECK;
+  public String DEFAULT_AI_REQUEST_PROMPT_DIFF;
+  public String DEFAULT_AI_REQUEST_PROMPT_REQUESTS;
+  public String DEFAULT_AI_REVIEW_PROMPT_COMMIT_MESSAGES;
+  public String DEFAULT_AI_REVIEW_PROMPT_INSTRUCTIONS_COMMIT_MESSAGES;
+  public String DEFAULT_AI_RELEVANCE_RULES;
+  public String DEFAULT_AI_HOW_TO_FIND_COMMIT_MESSAGE;
+  public Map<String, String> DEFAULT_AI_REPLIES_ATTRIBUTES;
+
+  private static final int MAX_RENDERED_INSTRUCTIONS = 64;
+
+  // Patch set review instructions rendered for the prompt and config values they depend on
+  private static final Cache<PatchSetInstructionsKey, String> RENDERED_INSTRUCTIONS =
+      CacheBuilder.newBuilder().maximumSize(MAX_RENDERED_INSTRUCTIONS).build();
+
+  private record PatchSetInstructionsKey(
+      String repliesPromptSpecs,
+      Map<String, String> repliesAttributes,
+      boolean scoreEnabled,
+      int minScore,
+      int maxScore,
+      String relevanceRules) {}
 
   protected final Configuration config;
 
@@ -83,7 +95,7 @@ public class AiPrompt {
     log.debug("AiPrompt initialized with isCommentEvent: {}", isCommentEvent);
   }
 
-  public static String getReviewPromptCommitMessages() {
+  public String getReviewPromptCommitMessages() {
     log.debug("Constructing review prompt for commit messages.");
     return joinWithSpace(
         new ArrayList<>(
@@ -94,39 +106,37 @@ public class AiPrompt {
                 DEFAULT_AI_REVIEW_PROMPT_INSTRUCTIONS_COMMIT_MESSAGES)));
   }
 
-  public static Map<String, Object> getJsonPromptValues(String promptFilename) {
-    String promptFile = String.format("config/%s.json", promptFilename);
-    try (InputStreamReader reader = FileUtils.getInputStreamReader(promptFile)) {
-      return getGson().fromJson(reader, new TypeToken<Map<String, Object>>() {}.getType());
-    } catch (IOException e) {
-      log.error("Failed to load prompts from file: {}", promptFilename, e);
-      throw new RuntimeException("Failed to load prompts", e);
-    }
-  }
-
+  /**
+   * Assigns the values of the prompt file to the fields of this prompt. The constructors load the
+   * base file first, then the backend and subclass files, whose values take precedence. The files
+   * are parsed only once by the {@link PromptCatalog}.
+   */
   protected void loadDefaultPrompts(String promptFilename) {
     Class<? extends AiPrompt> me = this.getClass();
-    Map<String, Object> values = getJsonPromptValues(promptFilename);
+    Map<String, Object> values = PromptCatalog.getPromptValues(promptFilename);
     for (Map.Entry<String, Object> entry : values.entrySet()) {
       try {
         Field field = me.getField(entry.getKey());
-        field.setAccessible(true);
-        field.set(null, entry.getValue());
+        field.set(this, entry.getValue());
         log.debug("Loaded prompt attribute: {} with value: {}", entry.getKey(), entry.getValue());
       } catch (NoSuchFieldException | IllegalAccessException e) {
         log.error("Error setting prompt '{}'", entry.getKey(), e);
         throw new RuntimeException("Error setting prompt field", e);
       }
     }
-    // Keep the given order of attributes
-    DEFAULT_AI_REPLIES_ATTRIBUTES = new LinkedHashMap<>(DEFAULT_AI_REPLIES_ATTRIBUTES);
   }
 
-  protected static String buildFieldSpecifications(List<String> filterFields) {
+  protected String buildFieldSpecifications(List<String> filterFields) {
+    return buildFieldSpecifications(
+        DEFAULT_AI_REPLIES_PROMPT_SPECS, DEFAULT_AI_REPLIES_ATTRIBUTES, filterFields);
+  }
+
+  private static String buildFieldSpecifications(
+      String repliesPromptSpecs, Map<String, String> repliesAttributes, List<String> filterFields) {
     log.debug("Building field specifications for filter fields: {}", filterFields);
     Set<String> orderedFilterFields = new LinkedHashSet<>(filterFields);
     Map<String, String> attributes =
-        DEFAULT_AI_REPLIES_ATTRIBUTES.entrySet().stream()
+        repliesAttributes.entrySet().stream()
             .filter(entry -> orderedFilterFields.contains(entry.getKey()))
             .collect(
                 Collectors.toMap(
@@ -140,21 +150,24 @@ public class AiPrompt {
             .collect(Collectors.toList());
 
     return String.format(
-        DEFAULT_AI_REPLIES_PROMPT_SPECS,
+        repliesPromptSpecs,
         joinWithComma(attributes.keySet()),
         joinWithSemicolon(fieldDescription));
   }
 
   public String getPatchSetReviewPromptInstructions() {
     log.debug("Getting patch set review prompt instructions.");
-    List<String> attributes = new ArrayList<>(PATCH_SET_REVIEW_REPLY_ATTRIBUTES);
-    if (config.isVotingEnabled() || config.getFilterNegativeComments()) {
-      updateScoreDescription();
-    } else {
-      attributes.remove(ATTRIBUTE_SCORE);
-    }
-    updateRelevanceDescription();
-    return buildFieldSpecifications(attributes);
+    PatchSetInstructionsKey key =
+        new PatchSetInstructionsKey(
+            DEFAULT_AI_REPLIES_PROMPT_SPECS,
+            DEFAULT_AI_REPLIES_ATTRIBUTES,
+            config.isVotingEnabled() || config.getFilterNegativeComments(),
+            config.getVotingMinScore(),
+            config.getVotingMaxScore(),
+            config.getString(Configuration.KEY_AI_RELEVANCE_RULES, DEFAULT_AI_RELEVANCE_RULES));
+    return RENDERED_INSTRUCTIONS
+        .asMap()
+        .computeIfAbsent(key, AiPrompt::renderPatchSetInstructions);
   }
 
   public String getPatchSetReviewPrompt() {
@@ -162,26 +175,30 @@ public class AiPrompt {
     return getPatchSetReviewPromptInstructions() + SPACE + DEFAULT_AI_REPLIES_PROMPT_INLINE;
   }
 
-  private void updateScoreDescription() {
-    log.debug("Updating score description.");
-    String scoreDescription = DEFAULT_AI_REPLIES_ATTRIBUTES.get(ATTRIBUTE_SCORE);
-    if (scoreDescription.contains("%d")) {
-      scoreDescription =
-          String.format(scoreDescription, config.getVotingMinScore(), config.getVotingMaxScore());
-      DEFAULT_AI_REPLIES_ATTRIBUTES.put(ATTRIBUTE_SCORE, scoreDescription);
-      log.debug("Updated score description to: {}", scoreDescription);
+  private static String renderPatchSetInstructions(PatchSetInstructionsKey key) {
+    log.debug("Rendering patch set review prompt instructions for {}", key);
+    // The shared defaults are never modified: the config-specific descriptions go into a copy
+    Map<String, String> repliesAttributes = new LinkedHashMap<>(key.repliesAttributes());
+    List<String> attributes = new ArrayList<>(PATCH_SET_REVIEW_REPLY_ATTRIBUTES);
+    if (key.scoreEnabled()) {
+      repliesAttributes.computeIfPresent(
+          ATTRIBUTE_SCORE,
+          (name, description) -> formatScoreDescription(description, key));
+    } else {
+      attributes.remove(ATTRIBUTE_SCORE);
     }
+    repliesAttributes.computeIfPresent(
+        ATTRIBUTE_RELEVANCE,
+        (name, description) ->
+            description.contains("%s")
+                ? String.format(description, key.relevanceRules())
+                : description);
+    return buildFieldSpecifications(key.repliesPromptSpecs(), repliesAttributes, attributes);
   }
 
-  private void updateRelevanceDescription() {
-    log.debug("Updating relevance description.");
-    String relevanceDescription = DEFAULT_AI_REPLIES_ATTRIBUTES.get(ATTRIBUTE_RELEVANCE);
-    if (relevanceDescription.contains("%s")) {
-      String defaultAiRelevanceRules =
-          config.getString(Configuration.KEY_AI_RELEVANCE_RULES, DEFAULT_AI_RELEVANCE_RULES);
-      relevanceDescription = String.format(relevanceDescription, defaultAiRelevanceRules);
-      DEFAULT_AI_REPLIES_ATTRIBUTES.put(ATTRIBUTE_RELEVANCE, relevanceDescription);
-      log.debug("Updated relevance description to: {}", relevanceDescription);
-    }
+  private static String formatScoreDescription(String description, PatchSetInstructionsKey key) {
+    return description.contains("%d")
+        ? String.format(description, key.minScore(), key.maxScore())
+        : description;
   }
 }
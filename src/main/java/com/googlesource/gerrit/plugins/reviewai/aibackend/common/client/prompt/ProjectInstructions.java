@@ -21,31 +21,22 @@ import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.FileNotFoundException;
-import java.util.List;
 
 @Slf4j
 public class ProjectInstructions {
   private static final String PROJECT_INSTRUCTIONS_FILENAME = ".gerrit/ai-instructions.md";
 
-  private final GitRepoFiles gitRepoFiles = new GitRepoFiles();
   private final GerritChange change;
+  private final GitRepoFiles gitRepoFiles;
 
-  public ProjectInstructions(GerritChange change) {
+  public ProjectInstructions(GerritChange change, GitRepoFiles gitRepoFiles) {
     log.debug("Initializing ProjectInstructions with change: {}", change.getFullChangeId());
     this.change = change;
+    this.gitRepoFiles = gitRepoFiles;
   }
 
-  public void addProjectInstructions(List<String> instructions) {
-    log.debug("Adding project instructions");
-    String content = getProjectInstructions();
-    log.debug("Retrieved project instructions: {}", content);
-    if (content != null && !content.isEmpty()) {
-      instructions.add(content);
-      log.debug("Added project instructions from {}", PROJECT_INSTRUCTIONS_FILENAME);
-    }
-  }
-
-  private String getProjectInstructions() {
+  /** Returns the instructions found at the root of the repository, or null if there are none. */
+  public String getProjectInstructions() {
     log.debug("Retrieving project instructions from {}", PROJECT_INSTRUCTIONS_FILENAME);
     try {
       String content = gitRepoFiles.getFileContent(this.change, PROJECT_INSTRUCTIONS_FILENAME);
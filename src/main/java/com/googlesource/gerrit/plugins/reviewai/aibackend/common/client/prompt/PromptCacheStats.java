@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plugin-wide counters of the input tokens that the AI providers report as served from their prompt
+ * cache, exposed through the plugin metrics. Only the responses whose usage includes a cached-token
+ * count are recorded, so that the hit rate is not diluted by providers that do not report it.
+ */
+public class PromptCacheStats {
+  private static final AtomicLong requests = new AtomicLong();
+  private static final AtomicLong prefixHits = new AtomicLong();
+  private static final AtomicLong inputTokens = new AtomicLong();
+  private static final AtomicLong cachedTokens = new AtomicLong();
+
+  public static void recordUsage(int requestInputTokens, int requestCachedTokens) {
+    requests.incrementAndGet();
+    if (requestCachedTokens > 0) {
+      prefixHits.incrementAndGet();
+    }
+    inputTokens.addAndGet(requestInputTokens);
+    cachedTokens.addAndGet(requestCachedTokens);
+  }
+
+  public static long getRequests() {
+    return requests.get();
+  }
+
+  public static long getPrefixHits() {
+    return prefixHits.get();
+  }
+
+  public static long getInputTokens() {
+    return inputTokens.get();
+  }
+
+  public static long getCachedTokens() {
+    return cachedTokens.get();
+  }
+
+  public static long getPrefixHitRatePercent() {
+    long requestCount = requests.get();
+    return requestCount == 0 ? 0 : prefixHits.get() * 100 / requestCount;
+  }
+
+  public static long getCachedTokensPercent() {
+    long inputTokenCount = inputTokens.get();
+    return inputTokenCount == 0 ? 0 : cachedTokens.get() * 100 / inputTokenCount;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt;
+
+import com.google.gson.reflect.TypeToken;
+import com.googlesource.gerrit.plugins.reviewai.utils.FileUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
+
+/**
+ * Plugin-wide catalog of the default prompts shipped in {@code config/<name>.json}.
+ *
+ * <p>Each prompt file is parsed once and kept as a deeply unmodifiable map, so the values can be
+ * shared by concurrent review tasks without copying.
+ */
+@Slf4j
+public final class PromptCatalog {
+  public static final List<String> PROMPT_FILES =
+      List.of(
+          "prompts",
+          "promptsOpenAi",
+          "promptsOpenAiReview",
+          "promptsOpenAiReviewCommitMessage",
+          "promptsOpenAiRequests");
+
+  private static final String PROMPT_FILE_FORMAT = "config/%s.json";
+
+  private static final Map<String, Map<String, Object>> PROMPTS = new ConcurrentHashMap<>();
+
+  private PromptCatalog() {}
+
+  public static void preload() {
+    PROMPT_FILES.forEach(PromptCatalog::getPromptValues);
+    log.debug("Prompt catalog loaded with {} prompt files", PROMPTS.size());
+  }
+
+  public static Map<String, Object> getPromptValues(String promptFilename) {
+    return PROMPTS.computeIfAbsent(promptFilename, PromptCatalog::parsePromptFile);
+  }
+
+  public static String getPromptValue(String promptFilename, String key) {
+    Object value = getPromptValues(promptFilename).get(key);
+    return value == null ? null : value.toString();
+  }
+
+  private static Map<String, Object> parsePromptFile(String promptFilename) {
+    String promptFile = String.format(PROMPT_FILE_FORMAT, promptFilename);
+    try (InputStreamReader reader = FileUtils.getInputStreamReader(promptFile)) {
+      Map<String, Object> values =
+          getGson().fromJson(reader, new TypeToken<Map<String, Object>>() {}.getType());
+      log.debug("Parsed prompt file {} with {} entries", promptFile, values.size());
+      return toUnmodifiableMap(values);
+    } catch (IOException e) {
+      log.error("Failed to load prompts from file: {}", promptFilename, e);
+      throw new RuntimeException("Failed to load prompts", e);
+    }
+  }
+
+  private static Map<String, Object> toUnmodifiableMap(Map<?, ?> values) {
+    // Keep the given order of the entries, which is relevant for the reply attributes
+    Map<String, Object> copy = new LinkedHashMap<>();
+    values.forEach((key, value) -> copy.put(String.valueOf(key), toUnmodifiable(value)));
+    return Collections.unmodifiableMap(copy);
+  }
+
+  private static Object toUnmodifiable(Object value) {
+    if (value instanceof Map<?, ?> map) {
+      return toUnmodifiableMap(map);
+    }
+    if (value instanceof List<?> list) {
+      List<Object> copy = new ArrayList<>(list.size());
+      list.forEach(item -> copy.add(toUnmodifiable(item)));
+      return Collections.unmodifiableList(copy);
+    }
+    return value;
+  }
+}
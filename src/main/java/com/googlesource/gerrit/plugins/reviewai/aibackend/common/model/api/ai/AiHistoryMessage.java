@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AiHistoryMessage {
+  // Id of the Gerrit comment or message the history message is taken from
+  private String id;
+  // Id of the first comment of the thread, or the patch set filename for patch set messages
+  private String threadId;
+  private String role;
+  // Empty if the message is excluded from the history
+  private String content;
+  private String updated;
+  private boolean resolved;
+  private int patchSet;
+  private boolean patchSetComment;
+}
@@ -16,13 +16,14 @@
 
 package com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git;
 
-import lombok.Data;
 import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.eclipse.jgit.lib.ObjectId;
 
 @Data
 @AllArgsConstructor
-public class FileEntry {
+public class RepoBlob {
   private String path;
-  private String content;
+  private ObjectId objectId;
   private long size;
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RepoChunk {
+  private final List<String> dirs = new ArrayList<>();
+  private final List<RepoBlob> blobs = new ArrayList<>();
+  private long size;
+
+  public void addBlob(String dir, RepoBlob repoBlob) {
+    if (!dirs.contains(dir)) {
+      dirs.add(dir);
+    }
+    blobs.add(repoBlob);
+    size += repoBlob.getSize();
+  }
+
+  public boolean isEmpty() {
+    return blobs.isEmpty();
+  }
+}
@@ -42,6 +42,8 @@ public class ChangeSetData {
   private Boolean hideOpenAiReview = false;
   private Boolean hideDynamicConfigMessage = false;
   private String reviewSystemMessage;
+  // Read from the repository once per task, as it is added to every prompt built by the task
+  private String projectInstructions;
 
   public Boolean shouldHideOpenAiReview() {
     return hideOpenAiReview && !forcedReview;
@@ -21,27 +21,31 @@ import com.google.inject.Singleton;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.ai.AiClientBase;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritClient;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyBase.CodeContextPolicies;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.AiHistory;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.AiPromptFactory;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai.AiResponseContent;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.ChangeSetData;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.GerritClientData;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.memory.CachedTokenWindowChatMemory;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.memory.PluginChatHistory;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.memory.PluginChatMemoryStore;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.messages.LangChainChatMessages;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.LangChainProvider;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.LangChainProviderFactory;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.StoredMessage;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.LangChainChatModelCache;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandlerProvider;
 import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFailException;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.api.ai.IAiClient;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
-import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.langchain.provider.ILangChainProvider;
 import com.googlesource.gerrit.plugins.reviewai.localization.Localizer;
 import com.googlesource.gerrit.plugins.reviewai.settings.Settings.LangChainProviders;
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
-import dev.langchain4j.memory.ChatMemory;
-import dev.langchain4j.memory.chat.TokenWindowChatMemory;
+import dev.langchain4j.model.TokenCountEstimator;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.request.ResponseFormat;
 import java.util.List;
@@ -58,9 +62,9 @@ public class LangChainClient extends AiClientBase implements IAiClient {
   private static final String GET_CONTEXT_TOOL_RESOURCE = "config/getContextTool.json";
 
   private final ICodeContextPolicy codeContextPolicy;
-  private final LangChainTokenEstimatorProvider tokenEstimatorProvider;
   private final GerritClient gerritClient;
   private final Localizer localizer;
+  private final PluginDataHandlerProvider pluginDataHandlerProvider;
   // Field exposed only for test usage
   private final ResponseFormat structuredResponseFormat;
   private final LangChainToolExecutor toolExecutor;
@@ -72,12 +76,14 @@ public class LangChainClient extends AiClientBase implements IAiClient {
       Configuration config,
       ICodeContextPolicy codeContextPolicy,
       GerritClient gerritClient,
-      Localizer localizer) {
+      Localizer localizer,
+      PluginDataHandlerProvider pluginDataHandlerProvider,
+      GitRepoFiles gitRepoFiles) {
     super(config);
     this.codeContextPolicy = codeContextPolicy;
-    this.tokenEstimatorProvider = new LangChainTokenEstimatorProvider(config);
     this.gerritClient = gerritClient;
     this.localizer = localizer;
+    this.pluginDataHandlerProvider = pluginDataHandlerProvider;
     this.structuredResponseFormat =
         new LangChainStructuredResponseFactory(FORMAT_REPLIES_SCHEMA_RESOURCE)
             .loadStructuredResponseFormat();
@@ -86,7 +92,8 @@ public class LangChainClient extends AiClientBase implements IAiClient {
       contextTool =
           new LangChainToolSpecificationFactory(GET_CONTEXT_TOOL_RESOURCE).loadToolSpecification();
     }
-    this.toolExecutor = new LangChainToolExecutor(config, structuredResponseFormat, contextTool);
+    this.toolExecutor =
+        new LangChainToolExecutor(config, structuredResponseFormat, contextTool, gitRepoFiles);
     log.debug("Initialized LangChainClient");
   }
 
@@ -102,20 +109,27 @@ public class LangChainClient extends AiClientBase implements IAiClient {
       log.info("LangChain system instructions for {}: {}", memoryId, systemInstructions);
       log.info("LangChain user prompt for {} patchSet {}: {}", memoryId, patchSet, userMessage);
 
-      ChatMemory memory =
-          TokenWindowChatMemory.builder()
-              .id(memoryId)
-              .maxTokens(config.getLcMaxMemoryTokens(), tokenEstimatorProvider.get())
-              .build();
+      TokenCountEstimator tokenCountEstimator = LangChainTokenEstimatorRegistry.get(config);
+      CachedTokenWindowChatMemory memory =
+          new CachedTokenWindowChatMemory(
+              memoryId, config.getLcMaxMemoryTokens(), tokenCountEstimator);
 
       memory.add(LangChainChatMessages.systemMessage(systemInstructions));
 
+      // Only the Gerrit messages posted since the previous turn are cleaned and counted
       GerritClientData gerritClientData = gerritClient.getClientData(change);
       AiHistory aiHistory = new AiHistory(config, changeSetData, gerritClientData, localizer);
-      List<ChatMessage> history = LangChainChatMessages.build(aiHistory, gerritClientData, change);
-      for (ChatMessage message : history) {
-        memory.add(message);
-      }
+      PluginChatHistory chatHistory =
+          new PluginChatHistory(
+              config,
+              new PluginChatMemoryStore(pluginDataHandlerProvider.getChangeScope()),
+              tokenCountEstimator);
+      List<StoredMessage> history = chatHistory.update(memoryId, aiHistory);
+      chatHistory.addTo(
+          memory,
+          history,
+          !change.getIsCommentEvent(),
+          gerritClientData.getOneBasedRevisionBase());
 
       memory.add(LangChainChatMessages.userMessage(userMessage));
       requestBody = userMessage; // exposed for tests/inspection
@@ -126,8 +140,7 @@ public class LangChainClient extends AiClientBase implements IAiClient {
               : Double.parseDouble(config.getAiReviewTemperature());
 
       LangChainProviders providerType = config.getLcProvider();
-      ILangChainProvider provider = LangChainProviderFactory.get(providerType);
-      LangChainProvider providerModel = provider.buildChatModel(config, temperature);
+      LangChainProvider providerModel = LangChainChatModelCache.get(config, temperature);
       ChatModel model = providerModel.getModel();
 
       log.info(
@@ -26,6 +26,9 @@ import dev.langchain4j.model.chat.request.json.JsonSchemaElement;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -33,9 +36,18 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 class LangChainStructuredResponseFactory {
 
+  // Schema resources are parsed once per path; the resulting LangChain objects are immutable
+  private static final Map<String, Optional<ResponseFormat>> FORMATS = new ConcurrentHashMap<>();
+
   private final String schemaResourcePath;
 
   ResponseFormat loadStructuredResponseFormat() {
+    return FORMATS
+        .computeIfAbsent(schemaResourcePath, path -> Optional.ofNullable(parse()))
+        .orElse(null);
+  }
+
+  private ResponseFormat parse() {
     try (InputStream inputStream =
         LangChainStructuredResponseFactory.class
             .getClassLoader()
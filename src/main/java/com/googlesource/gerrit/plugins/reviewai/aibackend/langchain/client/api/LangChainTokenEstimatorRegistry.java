@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.client.api;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.messages.LangChainMessageTextExtractor;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.LangChainProviderFactory;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.langchain.provider.ILangChainProvider;
+import com.googlesource.gerrit.plugins.reviewai.settings.Settings.LangChainProviders;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Plugin-wide registry of the LangChain token estimators, shared by the tasks of all the events.
+ *
+ * <p>An estimator is initialized in the background for each (provider, model), at plugin start for
+ * the global configuration or when first requested otherwise, and is wrapped so that the counts of
+ * repeated texts, such as the system instructions, are memoized.
+ */
+@Slf4j
+public class LangChainTokenEstimatorRegistry {
+  private static final long TOKEN_ESTIMATOR_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(5);
+  private static final TokenCountEstimator APPROXIMATE_ESTIMATOR =
+      new ApproximateTokenCountEstimator();
+  // Memoized counts are weighted by their token count, bounding the memory held by the keys
+  private static final long MAX_MEMOIZED_TOKENS = 2_000_000;
+
+  private static final Map<EstimatorKey, CompletableFuture<TokenCountEstimator>> estimators =
+      new ConcurrentHashMap<>();
+  private static final AtomicLong lastInitTimeMs = new AtomicLong();
+  private static final AtomicLong cacheHits = new AtomicLong();
+  private static final AtomicLong cacheMisses = new AtomicLong();
+
+  private record EstimatorKey(LangChainProviders provider, String model) {}
+
+  public static void warmUp(Configuration config) {
+    getInitialization(config);
+  }
+
+  /**
+   * Returns the estimator of the configured provider and model. If its initialization does not
+   * complete in time, the approximate estimator is returned while the initialization goes on.
+   */
+  public static TokenCountEstimator get(Configuration config) {
+    CompletableFuture<TokenCountEstimator> initialization = getInitialization(config);
+    try {
+      return initialization.get(TOKEN_ESTIMATOR_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      log.warn(
+          "{} token estimator for model {} not initialized yet. Using approximate estimator.",
+          config.getLcProvider(),
+          config.getAiModel());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      log.warn("Failed to initialize token estimator. Using approximate estimator.", e.getCause());
+    }
+    return APPROXIMATE_ESTIMATOR;
+  }
+
+  public static void shutdown() {
+    log.debug("Releasing the LangChain token estimators");
+    estimators.clear();
+  }
+
+  public static long getLastInitTimeMs() {
+    return lastInitTimeMs.get();
+  }
+
+  public static long getCacheHits() {
+    return cacheHits.get();
+  }
+
+  public static long getCacheMisses() {
+    return cacheMisses.get();
+  }
+
+  private static CompletableFuture<TokenCountEstimator> getInitialization(Configuration config) {
+    EstimatorKey key = new EstimatorKey(config.getLcProvider(), config.getAiModel());
+    return estimators.computeIfAbsent(
+        key, k -> CompletableFuture.supplyAsync(() -> createEstimator(k, config)));
+  }
+
+  private static TokenCountEstimator createEstimator(EstimatorKey key, Configuration config) {
+    long start = System.nanoTime();
+    TokenCountEstimator estimator;
+    try {
+      log.info("Initializing {} token estimator for model {}", key.provider(), key.model());
+      ILangChainProvider adapter = LangChainProviderFactory.get(key.provider());
+      estimator = adapter.createTokenEstimator(config).orElse(APPROXIMATE_ESTIMATOR);
+    } catch (RuntimeException e) {
+      log.warn(
+          "Failed to initialize {} token estimator for model {}. Using approximate estimator.",
+          key.provider(),
+          key.model(),
+          e);
+      estimator = APPROXIMATE_ESTIMATOR;
+    }
+    long initTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    lastInitTimeMs.set(initTimeMs);
+    log.info(
+        "Initialized {} token estimator for model {} in {} ms",
+        key.provider(),
+        key.model(),
+        initTimeMs);
+    return new MemoizingTokenCountEstimator(estimator);
+  }
+
+  private static final class MemoizingTokenCountEstimator implements TokenCountEstimator {
+    private final TokenCountEstimator delegate;
+    private final Cache<String, Integer> textTokenCounts = newTokenCountCache();
+    private final Cache<ChatMessage, Integer> messageTokenCounts = newTokenCountCache();
+
+    private MemoizingTokenCountEstimator(TokenCountEstimator delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int estimateTokenCountInText(String text) {
+      if (text == null || text.isEmpty()) {
+        return 0;
+      }
+      return getTokenCount(textTokenCounts, text, delegate::estimateTokenCountInText);
+    }
+
+    @Override
+    public int estimateTokenCountInMessage(ChatMessage message) {
+      if (message == null) {
+        return 0;
+      }
+      return getTokenCount(messageTokenCounts, message, delegate::estimateTokenCountInMessage);
+    }
+
+    @Override
+    public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+      int total = 0;
+      if (messages == null) {
+        return 0;
+      }
+      for (ChatMessage message : messages) {
+        total += estimateTokenCountInMessage(message);
+      }
+      return total;
+    }
+
+    private static <K> int getTokenCount(
+        Cache<K, Integer> tokenCounts, K key, ToIntFunction<K> estimate) {
+      Integer tokenCount = tokenCounts.getIfPresent(key);
+      if (tokenCount != null) {
+        cacheHits.incrementAndGet();
+        return tokenCount;
+      }
+      cacheMisses.incrementAndGet();
+      tokenCount = estimate.applyAsInt(key);
+      tokenCounts.put(key, tokenCount);
+      return tokenCount;
+    }
+
+    private static <K> Cache<K, Integer> newTokenCountCache() {
+      return CacheBuilder.newBuilder()
+          .maximumWeight(MAX_MEMOIZED_TOKENS)
+          .<K, Integer>weigher((key, tokenCount) -> Math.max(1, tokenCount))
+          .build();
+    }
+  }
+
+  private static final class ApproximateTokenCountEstimator implements TokenCountEstimator {
+    @Override
+    public int estimateTokenCountInText(String text) {
+      if (text == null || text.isEmpty()) {
+        return 0;
+      }
+      return Math.max(1, text.length() / 4);
+    }
+
+    @Override
+    public int estimateTokenCountInMessage(ChatMessage message) {
+      if (message == null) {
+        return 0;
+      }
+      return estimateTokenCountInText(LangChainMessageTextExtractor.extractText(message)) + 4;
+    }
+
+    @Override
+    public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+      int total = 0;
+      if (messages == null) {
+        return 0;
+      }
+      for (ChatMessage message : messages) {
+        total += estimateTokenCountInMessage(message);
+      }
+      return total;
+    }
+  }
+}
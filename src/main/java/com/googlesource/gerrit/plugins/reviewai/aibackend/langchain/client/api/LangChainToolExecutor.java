@@ -19,6 +19,7 @@ package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.client.api;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextBuilder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.PromptCacheStats;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.GetContextContent;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils;
@@ -34,6 +35,8 @@ import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.chat.request.ResponseFormat;
 import dev.langchain4j.model.chat.request.ToolChoice;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
 import java.util.List;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
@@ -49,10 +52,13 @@ class LangChainToolExecutor {
   private final Configuration config;
   private final ResponseFormat structuredResponseFormat;
   private final ToolSpecification getContextTool;
+  // The repository state is shared by all the tool requests of the task
+  private final GitRepoFiles gitRepoFiles;
 
   AiMessage execute(ChatModel model, GerritChange change, ChatMemory memory) {
     ChatRequest initialRequest = buildChatRequest(memory.messages());
     ChatResponse response = model.chat(initialRequest);
+    recordPromptCacheUsage(response);
     AiMessage aiMessage = response != null ? response.aiMessage() : null;
 
     int iteration = 0;
@@ -70,12 +76,30 @@ class LangChainToolExecutor {
         memory.add(ToolExecutionResultMessage.from(request, output));
       }
       response = model.chat(buildChatRequest(memory.messages()));
+      recordPromptCacheUsage(response);
       aiMessage = response != null ? response.aiMessage() : null;
     }
 
     return aiMessage;
   }
 
+  private void recordPromptCacheUsage(ChatResponse response) {
+    TokenUsage tokenUsage = response != null ? response.tokenUsage() : null;
+    // The OpenAI-compatible providers (OpenAI and Moonshot) report the cached prompt tokens, while
+    // the Gemini usage is exposed by LangChain without its cached-content count
+    if (!(tokenUsage instanceof OpenAiTokenUsage openAiTokenUsage)
+        || openAiTokenUsage.inputTokenCount() == null
+        || openAiTokenUsage.inputTokensDetails() == null
+        || openAiTokenUsage.inputTokensDetails().cachedTokens() == null) {
+      log.debug("No cached-token usage reported: {}", tokenUsage);
+      return;
+    }
+    int inputTokens = openAiTokenUsage.inputTokenCount();
+    int cachedTokens = openAiTokenUsage.inputTokensDetails().cachedTokens();
+    PromptCacheStats.recordUsage(inputTokens, cachedTokens);
+    log.debug("Prompt cache served {} of {} input tokens", cachedTokens, inputTokens);
+  }
+
   private ChatRequest buildChatRequest(List<ChatMessage> messages) {
     ChatRequest.Builder requestBuilder = ChatRequest.builder().messages(messages);
 
@@ -127,7 +151,7 @@ class LangChainToolExecutor {
         return "";
       }
       CodeContextBuilder codeContextBuilder =
-          new CodeContextBuilder(config, change, new GitRepoFiles());
+          new CodeContextBuilder(config, change, gitRepoFiles);
       return codeContextBuilder.buildCodeContext(getContextContent);
     } catch (Exception e) {
       log.warn("Error executing tool request {}", toolName, e);
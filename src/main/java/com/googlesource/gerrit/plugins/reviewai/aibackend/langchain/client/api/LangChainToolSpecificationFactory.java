@@ -24,6 +24,9 @@ import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,9 +34,19 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 class LangChainToolSpecificationFactory {
 
+  // Tool specifications are immutable, so each resource is parsed once and then shared
+  private static final Map<String, Optional<ToolSpecification>> SPECIFICATIONS =
+      new ConcurrentHashMap<>();
+
   private final String schemaResourcePath;
 
   ToolSpecification loadToolSpecification() {
+    return SPECIFICATIONS
+        .computeIfAbsent(schemaResourcePath, path -> Optional.ofNullable(parse()))
+        .orElse(null);
+  }
+
+  private ToolSpecification parse() {
     try (InputStream inputStream =
         LangChainToolSpecificationFactory.class
             .getClassLoader()
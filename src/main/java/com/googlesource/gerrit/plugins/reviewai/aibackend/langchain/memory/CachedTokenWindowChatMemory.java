@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.memory;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.TokenCountEstimator;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Token window chat memory that keeps the token count of each message, so that messages are
+ * counted once when added instead of the whole window being counted again at every addition. As
+ * with `TokenWindowChatMemory`, the system message is always retained and the oldest messages are
+ * evicted when the window overflows.
+ */
+@Slf4j
+public class CachedTokenWindowChatMemory implements ChatMemory {
+  private final Object id;
+  private final int maxTokens;
+  private final TokenCountEstimator tokenCountEstimator;
+  private final List<ChatMessage> messages = new ArrayList<>();
+  private final List<Integer> messageTokenCounts = new ArrayList<>();
+
+  @Getter private int tokenCount;
+
+  public CachedTokenWindowChatMemory(
+      Object id, int maxTokens, TokenCountEstimator tokenCountEstimator) {
+    this.id = id;
+    this.maxTokens = maxTokens;
+    this.tokenCountEstimator = tokenCountEstimator;
+  }
+
+  @Override
+  public Object id() {
+    return id;
+  }
+
+  @Override
+  public void add(ChatMessage message) {
+    add(message, tokenCountEstimator.estimateTokenCountInMessage(message));
+  }
+
+  public void add(ChatMessage message, int messageTokenCount) {
+    if (message instanceof SystemMessage) {
+      if (!messages.isEmpty() && messages.get(0) instanceof SystemMessage) {
+        if (messages.get(0).equals(message)) {
+          return;
+        }
+        remove(0);
+      }
+      messages.add(0, message);
+      messageTokenCounts.add(0, messageTokenCount);
+    } else {
+      messages.add(message);
+      messageTokenCounts.add(messageTokenCount);
+    }
+    tokenCount += messageTokenCount;
+    ensureCapacity();
+  }
+
+  @Override
+  public List<ChatMessage> messages() {
+    return new ArrayList<>(messages);
+  }
+
+  @Override
+  public void clear() {
+    messages.clear();
+    messageTokenCounts.clear();
+    tokenCount = 0;
+  }
+
+  private void ensureCapacity() {
+    while (tokenCount > maxTokens) {
+      int evictionIndex = messages.get(0) instanceof SystemMessage ? 1 : 0;
+      if (evictionIndex >= messages.size()) {
+        return;
+      }
+      ChatMessage evicted = remove(evictionIndex);
+      log.debug("Evicted message from chat memory {}: {}", id, evicted);
+      // Tool results cannot be sent without the AI message that requested them
+      if (evicted instanceof AiMessage aiMessage && aiMessage.hasToolExecutionRequests()) {
+        while (evictionIndex < messages.size()
+            && messages.get(evictionIndex) instanceof ToolExecutionResultMessage) {
+          remove(evictionIndex);
+        }
+      }
+    }
+  }
+
+  private ChatMessage remove(int index) {
+    tokenCount -= messageTokenCounts.remove(index);
+    return messages.remove(index);
+  }
+}
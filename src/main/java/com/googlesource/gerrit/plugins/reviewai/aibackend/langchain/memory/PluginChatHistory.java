@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.memory;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.AiHistory;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai.AiHistoryMessage;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.gerrit.GerritComment;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.StoredMessage;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.settings.Settings;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conversation history of a change kept in the LangChain memory store. The Gerrit messages are
+ * cleaned and their tokens counted once, when they are first seen, and only the messages posted
+ * since the previous turn are appended to the store. When the stored history outgrows the memory
+ * window, the oldest messages are compacted away.
+ */
+@Slf4j
+public class PluginChatHistory {
+  private final Configuration config;
+  private final PluginChatMemoryStore memoryStore;
+  private final TokenCountEstimator tokenCountEstimator;
+
+  public PluginChatHistory(
+      Configuration config,
+      PluginChatMemoryStore memoryStore,
+      TokenCountEstimator tokenCountEstimator) {
+    this.config = config;
+    this.memoryStore = memoryStore;
+    this.tokenCountEstimator = tokenCountEstimator;
+  }
+
+  /** Stores the messages of the change that are new since the previous turn. */
+  public List<StoredMessage> update(Object memoryId, AiHistory aiHistory) {
+    List<StoredMessage> storedMessages = memoryStore.getStoredMessages(memoryId);
+    Set<String> storedIds = new HashSet<>();
+    for (StoredMessage storedMessage : storedMessages) {
+      storedIds.add(storedMessage.getSourceId());
+    }
+    String compactedBefore = memoryStore.getCompactedBefore(memoryId);
+
+    List<AiHistoryMessage> newMessages =
+        aiHistory.retrieveNewMessages(
+            comment ->
+                storedIds.contains(comment.getId()) || isCompacted(comment, compactedBefore));
+    for (AiHistoryMessage newMessage : newMessages) {
+      StoredMessage storedMessage = toStoredMessage(newMessage);
+      memoryStore.appendStoredMessage(memoryId, storedMessage);
+      storedMessages.add(storedMessage);
+    }
+    log.debug("Stored {} new history messages for {}", newMessages.size(), memoryId);
+
+    if (getTokenCount(storedMessages) > config.getLcMaxMemoryTokens()) {
+      storedMessages = compact(memoryId, storedMessages);
+    }
+    return storedMessages;
+  }
+
+  /**
+   * Adds the stored messages to the memory with their cached token counts, patch set messages
+   * first and then the inline threads. Inactive messages are filtered out of the patch set history
+   * and, if `filterInactive` is set, out of the inline threads as well.
+   */
+  public void addTo(
+      CachedTokenWindowChatMemory memory,
+      List<StoredMessage> storedMessages,
+      boolean filterInactive,
+      int revisionBase) {
+    Map<String, List<StoredMessage>> threads = new LinkedHashMap<>();
+    threads.put(Settings.GERRIT_PATCH_SET_FILENAME, new ArrayList<>());
+    for (StoredMessage storedMessage : storedMessages) {
+      threads
+          .computeIfAbsent(storedMessage.getThreadId(), k -> new ArrayList<>())
+          .add(storedMessage);
+    }
+    Set<String> addedTexts = new HashSet<>();
+    for (Map.Entry<String, List<StoredMessage>> thread : threads.entrySet()) {
+      boolean filterThread =
+          filterInactive || Settings.GERRIT_PATCH_SET_FILENAME.equals(thread.getKey());
+      for (StoredMessage storedMessage : thread.getValue()) {
+        String text = storedMessage.getText();
+        if (text == null
+            || text.isBlank()
+            || filterThread && isInactive(storedMessage, revisionBase)
+            || !addedTexts.add(text)) {
+          continue;
+        }
+        ChatMessage message = PluginChatMemoryStore.toChatMessage(storedMessage);
+        memory.add(message, storedMessage.getTokenCount());
+      }
+    }
+  }
+
+  private StoredMessage toStoredMessage(AiHistoryMessage historyMessage) {
+    StoredMessage.MessageType messageType =
+        Settings.OPENAI_ROLE_ASSISTANT.equals(historyMessage.getRole())
+            ? StoredMessage.MessageType.AI
+            : StoredMessage.MessageType.USER;
+    StoredMessage storedMessage = new StoredMessage(messageType, historyMessage.getContent());
+    storedMessage.setSourceId(historyMessage.getId());
+    storedMessage.setThreadId(historyMessage.getThreadId());
+    storedMessage.setUpdated(historyMessage.getUpdated());
+    storedMessage.setResolved(historyMessage.isResolved());
+    storedMessage.setPatchSet(historyMessage.getPatchSet());
+    storedMessage.setPatchSetComment(historyMessage.isPatchSetComment());
+    if (!historyMessage.getContent().isBlank()) {
+      storedMessage.setTokenCount(
+          tokenCountEstimator.estimateTokenCountInMessage(
+              PluginChatMemoryStore.toChatMessage(storedMessage)));
+    }
+    return storedMessage;
+  }
+
+  private boolean isInactive(StoredMessage storedMessage, int revisionBase) {
+    return config.getIgnoreResolvedAiComments()
+            && storedMessage.getMessageType() == StoredMessage.MessageType.AI
+            && storedMessage.isResolved()
+        || config.getIgnoreOutdatedInlineComments()
+            && storedMessage.getPatchSet() != revisionBase
+            && !storedMessage.isPatchSetComment();
+  }
+
+  private List<StoredMessage> compact(Object memoryId, List<StoredMessage> storedMessages) {
+    // Compacting down to half of the window leaves room for the next turns to be appended
+    int targetTokenCount = config.getLcMaxMemoryTokens() / 2;
+    int tokenCount = getTokenCount(storedMessages);
+    List<StoredMessage> byUpdate = new ArrayList<>(storedMessages);
+    byUpdate.removeIf(storedMessage -> storedMessage.getUpdated() == null);
+    byUpdate.sort(Comparator.comparing(StoredMessage::getUpdated));
+    String lastCompacted = null;
+    for (StoredMessage storedMessage : byUpdate) {
+      if (tokenCount <= targetTokenCount) {
+        break;
+      }
+      tokenCount -= storedMessage.getTokenCount();
+      lastCompacted = storedMessage.getUpdated();
+    }
+    if (lastCompacted == null) {
+      return storedMessages;
+    }
+    List<StoredMessage> retained = new ArrayList<>();
+    for (StoredMessage storedMessage : storedMessages) {
+      if (!isCompacted(storedMessage.getUpdated(), lastCompacted)) {
+        retained.add(storedMessage);
+      }
+    }
+    memoryStore.updateStoredMessages(memoryId, retained, lastCompacted);
+    return retained;
+  }
+
+  private static boolean isCompacted(GerritComment comment, String compactedBefore) {
+    return isCompacted(comment.getUpdated(), compactedBefore);
+  }
+
+  private static boolean isCompacted(String updated, String compactedBefore) {
+    return updated != null && compactedBefore != null && updated.compareTo(compactedBefore) <= 0;
+  }
+
+  private static int getTokenCount(List<StoredMessage> storedMessages) {
+    int tokenCount = 0;
+    for (StoredMessage storedMessage : storedMessages) {
+      tokenCount += storedMessage.getTokenCount();
+    }
+    return tokenCount;
+  }
+}
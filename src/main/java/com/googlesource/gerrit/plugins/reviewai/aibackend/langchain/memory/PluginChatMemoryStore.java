@@ -17,7 +17,6 @@
 package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.memory;
 
 import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.StoredMessage;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.StoredMessageList;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.messages.LangChainMessageTextExtractor;
 import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandler;
 import dev.langchain4j.data.message.AiMessage;
@@ -32,11 +31,10 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
-
 @Slf4j
 public class PluginChatMemoryStore implements ChatMemoryStore {
   private static final String KEY_MESSAGES_PREFIX = "lc_chat_memory_messages";
+  private static final String KEY_COMPACTED_BEFORE_PREFIX = "lc_chat_memory_compacted_before";
 
   private final PluginDataHandler pluginDataHandler;
 
@@ -46,27 +44,14 @@ public class PluginChatMemoryStore implements ChatMemoryStore {
 
   @Override
   public List<ChatMessage> getMessages(Object memoryId) {
-    String key = keyFor(memoryId);
-    try {
-      String json = pluginDataHandler.getValue(key);
-      if (json == null || json.isEmpty()) {
-        return new ArrayList<>();
-      }
-      StoredMessageList stored = getGson().fromJson(json, StoredMessageList.class);
-      if (stored == null || stored.getMessages() == null) {
-        return new ArrayList<>();
-      }
-      List<ChatMessage> result = new ArrayList<>();
-      for (StoredMessage m : stored.getMessages()) {
+    List<ChatMessage> result = new ArrayList<>();
+    for (StoredMessage m : getStoredMessages(memoryId)) {
+      if (m.getText() != null && !m.getText().isEmpty()) {
         result.add(toChatMessage(m));
       }
-      log.info(
-          "Loaded {} chat messages from LangChain memory store for {}", result.size(), memoryId);
-      return result;
-    } catch (Exception e) {
-      log.warn("Failed to get chat memory messages for {}; returning empty list", memoryId, e);
-      return new ArrayList<>();
     }
+    log.info("Loaded {} chat messages from LangChain memory store for {}", result.size(), memoryId);
+    return result;
   }
 
   @Override
@@ -79,7 +64,7 @@ public class PluginChatMemoryStore implements ChatMemoryStore {
           stored.add(fromChatMessage(m));
         }
       }
-      pluginDataHandler.setJsonValue(key, new StoredMessageList(stored));
+      pluginDataHandler.setJsonValue(key, stored);
       log.info(
           "Persisted {} chat messages into LangChain memory store for {}", stored.size(), memoryId);
     } catch (Exception e) {
@@ -91,13 +76,52 @@ public class PluginChatMemoryStore implements ChatMemoryStore {
   public void deleteMessages(Object memoryId) {
     log.info("Clearing LangChain memory store for {}", memoryId);
     pluginDataHandler.removeValue(keyFor(memoryId));
+    pluginDataHandler.removeValue(compactedBeforeKeyFor(memoryId));
+  }
+
+  public List<StoredMessage> getStoredMessages(Object memoryId) {
+    try {
+      List<StoredMessage> stored =
+          pluginDataHandler.getJsonArrayValue(keyFor(memoryId), StoredMessage.class);
+      return stored != null ? new ArrayList<>(stored) : new ArrayList<>();
+    } catch (Exception e) {
+      log.warn("Failed to get stored chat messages for {}; returning empty list", memoryId, e);
+      return new ArrayList<>();
+    }
+  }
+
+  /** Appends the message to the stored ones, writing only the new message to the data file. */
+  public void appendStoredMessage(Object memoryId, StoredMessage message) {
+    pluginDataHandler.appendJsonValue(keyFor(memoryId), message, StoredMessage.class);
+  }
+
+  /**
+   * Replaces the stored messages after the oldest ones have been compacted. The Gerrit messages
+   * updated up to `compactedBefore` are not stored again.
+   */
+  public void updateStoredMessages(
+      Object memoryId, List<StoredMessage> messages, String compactedBefore) {
+    pluginDataHandler.setJsonValue(keyFor(memoryId), messages);
+    if (compactedBefore != null) {
+      pluginDataHandler.setValue(compactedBeforeKeyFor(memoryId), compactedBefore);
+    }
+    log.info(
+        "Compacted LangChain memory store for {} to {} messages", memoryId, messages.size());
+  }
+
+  public String getCompactedBefore(Object memoryId) {
+    return pluginDataHandler.getValue(compactedBeforeKeyFor(memoryId));
   }
 
   private String keyFor(Object memoryId) {
     return String.format("%s_%s", KEY_MESSAGES_PREFIX, memoryId);
   }
 
-  private static ChatMessage toChatMessage(StoredMessage sm) {
+  private String compactedBeforeKeyFor(Object memoryId) {
+    return String.format("%s_%s", KEY_COMPACTED_BEFORE_PREFIX, memoryId);
+  }
+
+  static ChatMessage toChatMessage(StoredMessage sm) {
     StoredMessage.MessageType messageType = sm.getMessageType();
     String text = sm.getText();
     if (messageType == null) {
@@ -16,24 +16,12 @@
 
 package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.messages;
 
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.AiHistory;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.gerrit.GerritComment;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.CommentData;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.GerritClientData;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai.AiRequestMessage;
-import com.googlesource.gerrit.plugins.reviewai.settings.Settings;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Locale;
-import java.util.Set;
 
 public final class LangChainChatMessages {
   private LangChainChatMessages() {}
@@ -50,82 +38,6 @@ public final class LangChainChatMessages {
     return createMessage(AiMessage.class, text);
   }
 
-  public static List<ChatMessage> build(
-      AiHistory aiHistory, GerritClientData gerritClientData, GerritChange change) {
-    // Combine patch set history with inline threads.
-    List<ChatMessage> historyMessages = new ArrayList<>();
-
-    appendMessages(historyMessages, aiHistory.retrieveHistory(patchSetMarker(), true));
-
-    boolean filterInactive = !change.getIsCommentEvent();
-    Set<String> processedCommentIds = new LinkedHashSet<>();
-
-    CommentData commentData = gerritClientData.getCommentData();
-    if (commentData != null && commentData.getCommentProperties() != null) {
-      for (GerritComment comment : commentData.getCommentProperties()) {
-        addCommentThread(historyMessages, aiHistory, comment, filterInactive, processedCommentIds);
-      }
-    }
-
-    for (GerritComment comment : aiHistory.getCommentMap().values()) {
-      addCommentThread(historyMessages, aiHistory, comment, filterInactive, processedCommentIds);
-    }
-
-    return historyMessages;
-  }
-
-  private static void addCommentThread(
-      List<ChatMessage> historyMessages,
-      AiHistory aiHistory,
-      GerritComment comment,
-      boolean filterInactive,
-      Set<String> processedCommentIds) {
-    if (comment == null) {
-      return;
-    }
-    String id = comment.getId();
-    if (id != null && !processedCommentIds.add(id)) {
-      return;
-    }
-    appendMessages(historyMessages, aiHistory.retrieveHistory(comment, filterInactive));
-  }
-
-  private static void appendMessages(List<ChatMessage> messages, List<AiRequestMessage> source) {
-    // Render request messages into the native LangChain message hierarchy.
-    if (source == null) {
-      return;
-    }
-    for (AiRequestMessage message : source) {
-      if (message == null) {
-        continue;
-      }
-      String content = message.getContent();
-      if (content == null || content.isBlank()) {
-        continue;
-      }
-      messages.add(toChatMessage(message));
-    }
-  }
-
-  private static ChatMessage toChatMessage(AiRequestMessage message) {
-    String role = message.getRole();
-    String text = message.getContent();
-    if (role == null) {
-      return userMessage(text);
-    }
-    return switch (role.toLowerCase(Locale.ROOT)) {
-      case "system" -> systemMessage(text);
-      case "assistant" -> aiMessage(text);
-      default -> userMessage(text);
-    };
-  }
-
-  private static GerritComment patchSetMarker() {
-    GerritComment patchSetComment = new GerritComment();
-    patchSetComment.setFilename(Settings.GERRIT_PATCH_SET_FILENAME);
-    return patchSetComment;
-  }
-
   private static <T extends ChatMessage> T createMessage(Class<T> type, String text) {
     try {
       Method from = type.getMethod("from", String.class);
@@ -32,4 +32,18 @@ public class StoredMessage {
 
   private MessageType messageType;
   private String text;
+  // Fields set for the messages taken from the Gerrit change history
+  private String sourceId;
+  private String threadId;
+  private String updated;
+  private boolean resolved;
+  private int patchSet;
+  private boolean patchSetComment;
+  // Token count estimated when the message is stored
+  private int tokenCount;
+
+  public StoredMessage(MessageType messageType, String text) {
+    this.messageType = messageType;
+    this.text = text;
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.LangChainProvider;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.settings.Settings.LangChainProviders;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Plugin-wide cache of the LangChain chat models, so that the models and their HTTP clients are not
+ * built again for every request. Models are keyed by all the settings they are built from: when the
+ * configuration changes, a new model is built and the one of the former settings expires once it
+ * is no longer used.
+ */
+@Slf4j
+public class LangChainChatModelCache {
+  private static final int MAX_CACHED_MODELS = 32;
+  private static final Duration IDLE_MODEL_EXPIRY = Duration.ofHours(1);
+
+  private static final Cache<ChatModelKey, LangChainProvider> models =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_CACHED_MODELS)
+          .expireAfterAccess(IDLE_MODEL_EXPIRY)
+          .build();
+
+  // The token is only kept as a hash
+  private record ChatModelKey(
+      LangChainProviders provider,
+      String domain,
+      String model,
+      double temperature,
+      int timeout,
+      String tokenHash,
+      int maxRequestsPerHost,
+      double circuitBreakerFailureRateThreshold,
+      int circuitBreakerOpenDuration) {}
+
+  public static LangChainProvider get(Configuration config, double temperature) {
+    LangChainProviders provider = config.getLcProvider();
+    ChatModelKey key =
+        new ChatModelKey(
+            provider,
+            config.getAiDomain(),
+            config.getAiModel(),
+            temperature,
+            config.getAiConnectionTimeout(),
+            hashToken(config.getAiToken()),
+            config.getAiConnectionMaxRequestsPerHost(),
+            config.getAiCircuitBreakerFailureRateThreshold(),
+            config.getAiCircuitBreakerOpenDuration());
+    try {
+      return models.get(
+          key,
+          () -> {
+            log.debug("Building LangChain chat model for {} {}", provider, config.getAiModel());
+            return LangChainProviderFactory.get(provider).buildChatModel(config, temperature);
+          });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw new RuntimeException(
+          "Failed to build LangChain chat model for " + provider, e.getCause());
+    }
+  }
+
+  public static void invalidateAll() {
+    log.debug("Evicting the cached LangChain chat models");
+    models.invalidateAll();
+  }
+
+  private static String hashToken(String token) {
+    if (token == null) {
+      return null;
+    }
+    return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpCircuitBreaker;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpRateLimiter;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.HttpClientBuilderLoader;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * LangChain HTTP client builder that hands out a client shared by all the chat models with the same
+ * timeouts, instead of building a new client, with its own connection pool, for each model. The
+ * requests of each model go through the rate limiter and the circuit breaker of its configuration.
+ */
+@Slf4j
+public class SharedHttpClientBuilder implements HttpClientBuilder {
+  private static final Map<TimeoutProfile, HttpClient> clients = new ConcurrentHashMap<>();
+
+  private final Configuration config;
+
+  private Duration connectTimeout;
+  private Duration readTimeout;
+
+  private record TimeoutProfile(Duration connectTimeout, Duration readTimeout) {}
+
+  public SharedHttpClientBuilder(Configuration config) {
+    this.config = config;
+  }
+
+  @Override
+  public Duration connectTimeout() {
+    return connectTimeout;
+  }
+
+  @Override
+  public HttpClientBuilder connectTimeout(Duration connectTimeout) {
+    this.connectTimeout = connectTimeout;
+    return this;
+  }
+
+  @Override
+  public Duration readTimeout() {
+    return readTimeout;
+  }
+
+  @Override
+  public HttpClientBuilder readTimeout(Duration readTimeout) {
+    this.readTimeout = readTimeout;
+    return this;
+  }
+
+  @Override
+  public HttpClient build() {
+    HttpClient client =
+        clients.computeIfAbsent(
+            new TimeoutProfile(connectTimeout, readTimeout), SharedHttpClientBuilder::createClient);
+    String domain = config.getAiDomain();
+    return new ThrottledHttpClient(
+        client,
+        HttpRateLimiter.getInstance(
+            domain, config.getAiToken(), config.getAiConnectionMaxRequestsPerHost()),
+        HttpCircuitBreaker.getInstance(
+            domain,
+            config.getAiCircuitBreakerFailureRateThreshold(),
+            config.getAiCircuitBreakerOpenDuration()));
+  }
+
+  public static void shutdown() {
+    log.debug("Releasing the shared LangChain HTTP clients");
+    clients.clear();
+  }
+
+  private static HttpClient createClient(TimeoutProfile profile) {
+    log.debug("Creating LangChain HTTP client for {}", profile);
+    return HttpClientBuilderLoader.loadHttpClientBuilder()
+        .connectTimeout(profile.connectTimeout())
+        .readTimeout(profile.readTimeout())
+        .build();
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpCircuitBreaker;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpRateLimiter;
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiCircuitOpenException;
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import java.util.List;
+import java.util.Map;
+import okhttp3.Headers;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpRateLimiter.HTTP_TOO_MANY_REQUESTS;
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpRateLimiter.NO_RESPONSE;
+import static com.googlesource.gerrit.plugins.reviewai.utils.TimeUtils.getCurrentMillis;
+
+/**
+ * LangChain HTTP client sending the requests through the rate limiter and the circuit breaker of
+ * the AI domain, as the {@link
+ * com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpClient} does for the
+ * OpenAI backend. Streaming requests, not used by the plugin, are passed through.
+ */
+class ThrottledHttpClient implements HttpClient {
+  private static final int HTTP_REQUEST_TIMEOUT = 408;
+  private static final int HTTP_SERVER_ERROR = 500;
+
+  private final HttpClient delegate;
+  private final HttpRateLimiter rateLimiter;
+  private final HttpCircuitBreaker circuitBreaker;
+
+  ThrottledHttpClient(
+      HttpClient delegate, HttpRateLimiter rateLimiter, HttpCircuitBreaker circuitBreaker) {
+    this.delegate = delegate;
+    this.rateLimiter = rateLimiter;
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  @Override
+  public SuccessfulHttpResponse execute(HttpRequest request) {
+    try {
+      rateLimiter.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Rate limiter wait interrupted", e);
+    }
+    long permit;
+    try {
+      permit = circuitBreaker.acquirePermission();
+    } catch (AiCircuitOpenException e) {
+      rateLimiter.release(NO_RESPONSE, null, 0);
+      throw new RuntimeException(e);
+    }
+    int statusCode = NO_RESPONSE;
+    Headers headers = null;
+    long start = getCurrentMillis();
+    try {
+      SuccessfulHttpResponse response = delegate.execute(request);
+      statusCode = response.statusCode();
+      headers = toHeaders(response.headers());
+      return response;
+    } catch (HttpException e) {
+      statusCode = e.statusCode();
+      throw e;
+    } finally {
+      rateLimiter.release(statusCode, headers, getCurrentMillis() - start);
+      circuitBreaker.recordResult(permit, isUpstreamAvailable(statusCode));
+    }
+  }
+
+  @Override
+  public void execute(
+      HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+    delegate.execute(request, parser, listener);
+  }
+
+  // Error responses show that the upstream is reachable, unless they report its unavailability
+  private static boolean isUpstreamAvailable(int statusCode) {
+    return statusCode != NO_RESPONSE
+        && statusCode != HTTP_TOO_MANY_REQUESTS
+        && statusCode != HTTP_REQUEST_TIMEOUT
+        && statusCode < HTTP_SERVER_ERROR;
+  }
+
+  private static Headers toHeaders(Map<String, List<String>> responseHeaders) {
+    Headers.Builder builder = new Headers.Builder();
+    if (responseHeaders != null) {
+      responseHeaders.forEach(
+          (name, values) -> {
+            // The JDK client reports the pseudo-headers of HTTP/2 responses, rejected by OkHttp
+            if (name == null || name.startsWith(":")) {
+              return;
+            }
+            for (String value : values) {
+              builder.addUnsafeNonAscii(name, value);
+            }
+          });
+    }
+    return builder.build();
+  }
+}
@@ -20,7 +20,7 @@ import static com.googlesource.gerrit.plugins.reviewai.config.Configuration.GEMI
 import static com.googlesource.gerrit.plugins.reviewai.config.Configuration.OPENAI_DOMAIN;
 
 import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.LangChainProvider;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.FallbackTokenCountEstimator;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.SharedHttpClientBuilder;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.langchain.provider.ILangChainProvider;
 import dev.langchain4j.model.TokenCountEstimator;
@@ -51,13 +51,30 @@ public class GeminiLangChainProvider implements ILangChainProvider {
             .modelName(config.getAiModel())
             .temperature(temperature)
             .timeout(Duration.ofSeconds(config.getAiConnectionTimeout()))
+            .httpClientBuilder(new SharedHttpClientBuilder(config))
             .build();
 
     return new LangChainProvider(model, endpoint);
   }
 
+  /**
+   * Returns the offline estimator of the model. The remote Gemini estimator is only used, if
+   * enabled, to calibrate it once, during the background initialization of the estimator.
+   */
   @Override
   public Optional<TokenCountEstimator> createTokenEstimator(Configuration config) {
+    GeminiTokenCountEstimator estimator = new GeminiTokenCountEstimator();
+    if (config.getLcGeminiTokenCalibration()) {
+      try {
+        createRemoteTokenEstimator(config).ifPresent(estimator::calibrate);
+      } catch (RuntimeException e) {
+        log.warn("Gemini token calibration failed: {}", e.getMessage());
+      }
+    }
+    return Optional.of(estimator);
+  }
+
+  private Optional<TokenCountEstimator> createRemoteTokenEstimator(Configuration config) {
     if (Boolean.FALSE.equals(estimatorAvailable)) {
       return Optional.empty();
     }
@@ -74,33 +91,30 @@ public class GeminiLangChainProvider implements ILangChainProvider {
     } catch (ClassNotFoundException e) {
       estimatorAvailable = false;
       log.info(
-          "Google Gemini token estimator class not present on classpath. Falling back to approximate estimator.");
+          "Google Gemini token estimator class not present on classpath. Skipping calibration.");
       return Optional.empty();
     } catch (RuntimeException e) {
       estimatorAvailable = false;
-      log.warn(
-          "aiToken is not configured. Falling back to approximate token estimator: {}",
-          e.getMessage());
+      log.warn("aiToken is not configured. Skipping Gemini token calibration: {}", e.getMessage());
       return Optional.empty();
     } catch (InvocationTargetException e) {
       Throwable cause = e.getCause();
       if (cause instanceof IllegalArgumentException && isGeminiModel(model)) {
         log.info(
-            "Gemini model {} is not registered for token counting; using cl100k-based estimator.",
-            model);
-        log.debug("Gemini token estimator fallback due to {}", cause.getMessage(), cause);
-        return Optional.of(new FallbackTokenCountEstimator());
+            "Gemini model {} is not registered for token counting. Skipping calibration.", model);
+        log.debug("Gemini token calibration skipped due to {}", cause.getMessage(), cause);
+        return Optional.empty();
       }
       estimatorAvailable = false;
       log.warn(
-          "Google Gemini token estimator unavailable for model {}. Using approximate estimator.",
+          "Google Gemini token estimator unavailable for model {}. Skipping calibration.",
           model,
           cause == null ? e : cause);
       return Optional.empty();
     } catch (Throwable t) {
       estimatorAvailable = false;
       log.warn(
-          "Google Gemini token estimator unavailable for model {}. Using approximate estimator.",
+          "Google Gemini token estimator unavailable for model {}. Skipping calibration.",
           model,
           t);
       return Optional.empty();
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.gemini;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.FallbackTokenCountEstimator;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Offline token estimator for the Gemini models. Tokens are counted locally with the cl100k
+ * encoding and scaled by a ratio, which can be calibrated against the Gemini `countTokens` API
+ * while the estimator is initialized, outside the request path.
+ */
+@Slf4j
+public class GeminiTokenCountEstimator extends FallbackTokenCountEstimator {
+  private static final String CALIBRATION_SAMPLE =
+      """
+      Review the following change and reply to the comments of the reviewers.
+      The method `getChangeScope` returns the handler of the data file of the change, whose
+      name is sharded by the hash of the change key.
+
+      public PluginDataHandler getChangeScope(String changeKey) {
+        return get(defaultPluginDataPath.resolve(getChangeScopeFilename(changeKey)));
+      }
+      """;
+
+  // Set once calibrated, while estimates may be requested by other threads
+  private volatile double ratio = 1.0;
+
+  @Override
+  public int estimateTokenCountInText(String text) {
+    return scale(super.estimateTokenCountInText(text));
+  }
+
+  @Override
+  public int estimateTokenCountInMessage(ChatMessage message) {
+    return scale(super.estimateTokenCountInMessage(message));
+  }
+
+  @Override
+  public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+    int tokenCount = 0;
+    if (messages != null) {
+      for (ChatMessage message : messages) {
+        tokenCount += estimateTokenCountInMessage(message);
+      }
+    }
+    return tokenCount;
+  }
+
+  /** Sets the ratio between the tokens counted by the remote estimator and the local ones. */
+  public void calibrate(TokenCountEstimator remoteEstimator) {
+    int localTokenCount = super.estimateTokenCountInText(CALIBRATION_SAMPLE);
+    int remoteTokenCount = remoteEstimator.estimateTokenCountInText(CALIBRATION_SAMPLE);
+    if (localTokenCount <= 0 || remoteTokenCount <= 0) {
+      log.warn("Gemini token calibration skipped: sample counted as {}", remoteTokenCount);
+      return;
+    }
+    ratio = (double) remoteTokenCount / localTokenCount;
+    log.info("Gemini token estimator calibrated with ratio {}", ratio);
+  }
+
+  private int scale(int tokenCount) {
+    return (int) Math.ceil(tokenCount * ratio);
+  }
+}
@@ -21,6 +21,7 @@ import static com.googlesource.gerrit.plugins.reviewai.config.Configuration.OPEN
 
 import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.LangChainProvider;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.FallbackTokenCountEstimator;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.SharedHttpClientBuilder;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.langchain.provider.ILangChainProvider;
 import dev.langchain4j.model.TokenCountEstimator;
@@ -50,6 +51,7 @@ public class MoonshotLangChainProvider implements ILangChainProvider {
             .modelName(config.getAiModel())
             .temperature(temperature)
             .timeout(Duration.ofSeconds(config.getAiConnectionTimeout()))
+            .httpClientBuilder(new SharedHttpClientBuilder(config))
             .build();
 
     return new LangChainProvider(model, baseUrl);
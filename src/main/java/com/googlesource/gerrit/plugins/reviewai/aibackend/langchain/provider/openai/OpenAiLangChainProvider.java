@@ -17,6 +17,7 @@
 package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.openai;
 
 import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.LangChainProvider;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.SharedHttpClientBuilder;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.langchain.provider.ILangChainProvider;
 import dev.langchain4j.model.TokenCountEstimator;
@@ -43,6 +44,7 @@ public class OpenAiLangChainProvider implements ILangChainProvider {
             .modelName(config.getAiModel())
             .temperature(temperature)
             .timeout(Duration.ofSeconds(config.getAiConnectionTimeout()))
+            .httpClientBuilder(new SharedHttpClientBuilder(config))
             .build();
 
     return new LangChainProvider(model, baseUrl);
@@ -23,6 +23,10 @@ public class OpenAiUriResourceLocator {
     return VERSION_URI + "/files";
   }
 
+  public static String fileRetrieveUri(String fileId) {
+    return filesCreateUri() + "/" + fileId;
+  }
+
   public static String assistantCreateUri() {
     return VERSION_URI + "/assistants";
   }
@@ -75,4 +79,8 @@ public class OpenAiUriResourceLocator {
       String vectorStoreId, String vectorStoreFileBatchId) {
     return vectorStoreFileBatchCreateUri(vectorStoreId) + "/" + vectorStoreFileBatchId;
   }
+
+  public static String vectorStoreFileRetrieveUri(String vectorStoreId, String fileId) {
+    return vectorStoreCreateUri() + "/" + vectorStoreId + "/files/" + fileId;
+  }
 }
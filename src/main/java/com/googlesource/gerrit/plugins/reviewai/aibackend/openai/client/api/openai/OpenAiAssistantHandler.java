@@ -37,6 +37,7 @@ import static com.googlesource.gerrit.plugins.reviewai.utils.TimeUtils.now;
 @Slf4j
 public class OpenAiAssistantHandler extends ClientBase {
   private static final String ASSISTANT_ID_LOG = "assistantIdLog";
+  private static final int ASSISTANT_ID_LOG_MAX_ENTRIES = 50;
 
   private final GerritChange change;
   private final ICodeContextPolicy codeContextPolicy;
@@ -73,7 +74,8 @@ public class OpenAiAssistantHandler extends ClientBase {
     } else {
       log.info("Assistant found for the parameter configuration. Assistant ID: {}", assistantId);
     }
-    changeDataHandler.appendJsonValue(ASSISTANT_ID_LOG, now() + ": " + assistantId, String.class);
+    changeDataHandler.appendJsonValue(
+        ASSISTANT_ID_LOG, now() + ": " + assistantId, String.class, ASSISTANT_ID_LOG_MAX_ENTRIES);
 
     return assistantId;
   }
@@ -84,6 +86,19 @@ public class OpenAiAssistantHandler extends ClientBase {
     assistantsDataHandler.destroy();
   }
 
+  public void syncAssistantAndVectorIds() throws OperationNotSupportedException {
+    log.debug("Syncing Assistant and Vector Store IDs.");
+    try {
+      if (codeContextPolicy.syncVectorStore()) {
+        log.info("Vector Store synced: Assistants are kept");
+        return;
+      }
+    } catch (AiConnectionFailException | RuntimeException e) {
+      log.warn("Vector Store sync failed, falling back to rebuilding it", e);
+    }
+    flushAssistantAndVectorIds();
+  }
+
   private String calculateAssistantIdHashKey() {
     log.debug("Calculating hash key for assistant ID.");
     return HashUtils.hashData(
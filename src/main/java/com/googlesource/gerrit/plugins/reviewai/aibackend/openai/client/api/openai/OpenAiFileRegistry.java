@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai;
+
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandler;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataStore;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataStore.GroupCommit;
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFailException;
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiResourceNotFoundException;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.endpoint.OpenAiFile;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiFilesResponse;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiRegisteredFile;
+import com.googlesource.gerrit.plugins.reviewai.utils.HashUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
+
+/**
+ * Plugin-wide registry of the uploaded repository chunk files, keyed by the content key of the
+ * chunks. Chunks with identical contents, such as those of rebuilt Vector Stores or of forks and
+ * mirrors of the same repository, are uploaded once and their files reused by all Vector Stores.
+ *
+ * <p>The content keys are scoped by the AI domain and token, as the files are only visible to the
+ * account that uploaded them. Each registered file keeps the IDs of the Vector Stores using it:
+ * when the last one releases it, the file is removed from the registry and can be deleted. Each
+ * file is stored under its own key, so that a change only writes the files it affects.
+ */
+@Slf4j
+public class OpenAiFileRegistry extends ClientBase {
+  // Single key holding all the registered files in the earlier layout, split up on first use
+  private static final String KEY_REGISTERED_FILES = "registeredFiles";
+  private static final String KEY_REGISTERED_FILE_PREFIX = "registeredFile/";
+  private static final String DELETED_FILE_STATUS = "deleted";
+
+  // The registry is shared by all the projects, while its instances are created per task
+  private static final Object registryLock = new Object();
+
+  private final PluginDataHandler registryDataHandler;
+  private final String accountScope;
+  // Files found available during the lifetime of the registry, to avoid checking them repeatedly
+  private final Set<String> availableFileIds = new HashSet<>();
+
+  public OpenAiFileRegistry(Configuration config, PluginDataHandler registryDataHandler) {
+    super(config);
+    this.registryDataHandler = registryDataHandler;
+    accountScope = HashUtils.hashData(List.of(config.getAiDomain(), config.getAiToken()));
+    if (registryDataHandler != null) {
+      migrateRegisteredFiles();
+    }
+  }
+
+  /**
+   * Returns the ID of the file already uploaded with the given content key and records that the
+   * Vector Store uses it. The reference is taken in the same locked section as the final lookup,
+   * so that the file cannot be released by its last user and deleted in between.
+   *
+   * <p>The availability of the file is checked first: files reported as not found or deleted are
+   * removed from the registry, while errors leaving the availability unknown are propagated.
+   *
+   * @return the ID of the file, or null if the contents are to be uploaded
+   */
+  public String acquireFile(String contentKey, String vectorStoreId)
+      throws AiConnectionFailException {
+    if (registryDataHandler == null) return null;
+    String entryKey = getEntryKey(contentKey);
+    OpenAiRegisteredFile registeredFile = getRegisteredFile(entryKey);
+    if (registeredFile == null) {
+      return null;
+    }
+    String fileId = registeredFile.getFileId();
+    // The availability is checked outside the lock, as it may take a request
+    if (!isFileAvailable(fileId)) {
+      log.info("Registered file {} no longer available, removing it from the registry", fileId);
+      unregisterFile(entryKey, fileId);
+      return null;
+    }
+    synchronized (registryLock) {
+      registeredFile = getRegisteredFile(entryKey);
+      // The file may have been released by its last user in the meantime
+      if (registeredFile == null || !registeredFile.getFileId().equals(fileId)) {
+        log.debug("Registered file {} released before being acquired", fileId);
+        return null;
+      }
+      addReference(entryKey, registeredFile, vectorStoreId);
+    }
+    return fileId;
+  }
+
+  /**
+   * Registers the file uploaded with the given content key as used by the Vector Store. A file
+   * already registered for the same contents keeps its references: if it is a different one, the
+   * new file is left out of the registry and only used by the Vector Store.
+   */
+  public void registerFile(String contentKey, String fileId, String vectorStoreId) {
+    if (registryDataHandler == null) return;
+    String entryKey = getEntryKey(contentKey);
+    synchronized (registryLock) {
+      OpenAiRegisteredFile registeredFile = getRegisteredFile(entryKey);
+      if (registeredFile == null) {
+        registryDataHandler.setJsonValue(
+            entryKey, new OpenAiRegisteredFile(fileId, List.of(vectorStoreId)));
+      } else if (registeredFile.getFileId().equals(fileId)) {
+        addReference(entryKey, registeredFile, vectorStoreId);
+      } else {
+        log.debug(
+            "File {} uploaded concurrently with registered file {}",
+            fileId,
+            registeredFile.getFileId());
+        return;
+      }
+    }
+    availableFileIds.add(fileId);
+  }
+
+  /**
+   * Releases the given files from the Vector Store.
+   *
+   * @return the IDs of the files no longer used by any Vector Store, which are removed from the
+   *     registry and are to be deleted by the caller
+   */
+  public List<String> releaseFiles(String vectorStoreId, Collection<String> fileIds) {
+    if (registryDataHandler == null) {
+      // Files uploaded without a registry are never shared
+      return new ArrayList<>(fileIds);
+    }
+    Set<String> releasedFileIds = new HashSet<>(fileIds);
+    Set<String> sharedFileIds = new HashSet<>();
+    synchronized (registryLock) {
+      try (GroupCommit ignored = PluginDataStore.beginGroupCommit()) {
+        for (Map.Entry<String, OpenAiRegisteredFile> entry : getScopedFiles().entrySet()) {
+          OpenAiRegisteredFile registeredFile = entry.getValue();
+          if (!releasedFileIds.contains(registeredFile.getFileId())) continue;
+          boolean released = registeredFile.getVectorStoreIds().remove(vectorStoreId);
+          if (registeredFile.getVectorStoreIds().isEmpty()) {
+            registryDataHandler.removeValue(entry.getKey());
+          } else {
+            sharedFileIds.add(registeredFile.getFileId());
+            if (released) {
+              registryDataHandler.setJsonValue(entry.getKey(), registeredFile);
+            }
+          }
+        }
+      }
+    }
+    return fileIds.stream().filter(fileId -> !sharedFileIds.contains(fileId)).toList();
+  }
+
+  private void addReference(
+      String entryKey, OpenAiRegisteredFile registeredFile, String vectorStoreId) {
+    if (registeredFile.getVectorStoreIds().contains(vectorStoreId)) return;
+    registeredFile.getVectorStoreIds().add(vectorStoreId);
+    registryDataHandler.setJsonValue(entryKey, registeredFile);
+  }
+
+  private void unregisterFile(String entryKey, String fileId) {
+    synchronized (registryLock) {
+      OpenAiRegisteredFile registeredFile = getRegisteredFile(entryKey);
+      // The entry may have been replaced concurrently by a new upload
+      if (registeredFile != null && registeredFile.getFileId().equals(fileId)) {
+        registryDataHandler.removeValue(entryKey);
+      }
+    }
+  }
+
+  private void migrateRegisteredFiles() {
+    synchronized (registryLock) {
+      if (registryDataHandler.getValue(KEY_REGISTERED_FILES) == null) return;
+      Map<String, OpenAiRegisteredFile> registeredFiles =
+          registryDataHandler.getJsonObjectValue(KEY_REGISTERED_FILES, OpenAiRegisteredFile.class);
+      log.info("Splitting up {} registered files into separate keys", registeredFiles.size());
+      try (GroupCommit ignored = PluginDataStore.beginGroupCommit()) {
+        registeredFiles.forEach(
+            (scopedKey, registeredFile) ->
+                registryDataHandler.setJsonValue(
+                    KEY_REGISTERED_FILE_PREFIX + scopedKey, registeredFile));
+        registryDataHandler.removeValue(KEY_REGISTERED_FILES);
+      }
+    }
+  }
+
+  private boolean isFileAvailable(String fileId) throws AiConnectionFailException {
+    if (availableFileIds.contains(fileId)) {
+      return true;
+    }
+    try {
+      OpenAiFilesResponse openAiFilesResponse = new OpenAiFile(config).retrieveFile(fileId);
+      if (openAiFilesResponse == null) {
+        // The availability of the file is unknown: the upload is failed rather than repeated
+        throw new AiConnectionFailException("Empty response retrieving file " + fileId);
+      }
+      if (DELETED_FILE_STATUS.equals(openAiFilesResponse.getStatus())) {
+        return false;
+      }
+    } catch (AiResourceNotFoundException e) {
+      log.debug("Registered file {} not found", fileId);
+      return false;
+    }
+    availableFileIds.add(fileId);
+    return true;
+  }
+
+  private String getEntryKey(String contentKey) {
+    return getScopePrefix() + contentKey;
+  }
+
+  private String getScopePrefix() {
+    return KEY_REGISTERED_FILE_PREFIX + accountScope + "/";
+  }
+
+  private OpenAiRegisteredFile getRegisteredFile(String entryKey) {
+    return toRegisteredFile(registryDataHandler.getValue(entryKey));
+  }
+
+  private Map<String, OpenAiRegisteredFile> getScopedFiles() {
+    Map<String, OpenAiRegisteredFile> scopedFiles = new HashMap<>();
+    String scopePrefix = getScopePrefix();
+    registryDataHandler
+        .getAllValues()
+        .forEach(
+            (key, value) -> {
+              if (key.startsWith(scopePrefix)) {
+                scopedFiles.put(key, toRegisteredFile(value));
+              }
+            });
+    return scopedFiles;
+  }
+
+  private static OpenAiRegisteredFile toRegisteredFile(String value) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    OpenAiRegisteredFile registeredFile = getGson().fromJson(value, OpenAiRegisteredFile.class);
+    // The reference list is copied, as it is updated in place
+    registeredFile.setVectorStoreIds(
+        new ArrayList<>(
+            registeredFile.getVectorStoreIds() != null
+                ? registeredFile.getVectorStoreIds()
+                : List.of()));
+    return registeredFile;
+  }
+}
@@ -34,4 +34,8 @@ public class OpenAiHttpClient extends HttpClient {
   public Request createRequestFromJson(String uri, Object requestObject) {
     return createRequestFromJson(uri, requestObject, BETA_VERSION_HEADER);
   }
+
+  public Request createDeleteRequest(String uri) {
+    return createDeleteRequest(uri, BETA_VERSION_HEADER);
+  }
 }
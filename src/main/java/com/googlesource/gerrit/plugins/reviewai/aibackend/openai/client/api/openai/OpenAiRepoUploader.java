@@ -16,58 +16,213 @@
 
 package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandler;
 import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFailException;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.RepoChunkRequestBody;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.endpoint.OpenAiFile;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoChunk;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiFilesResponse;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiVectorStoreChunk;
+import com.googlesource.gerrit.plugins.reviewai.utils.HashUtils;
 import lombok.extern.slf4j.Slf4j;
 
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.createTempFileWithContent;
 import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.sanitizeFilename;
 
 @Slf4j
 public class OpenAiRepoUploader extends ClientBase {
-  private static final String FILENAME_PATTERN = "%s_%05d_";
+  private static final String FILENAME_PATTERN = "%s_%05d.json";
+  // Maps the content keys of the chunks already uploaded to their file IDs, so that an interrupted
+  // upload can be resumed without uploading them again
+  private static final String KEY_UPLOAD_PROGRESS = "vectorStoreUploadProgress";
+
+  private static final int SHARED_EXECUTOR_THREADS = 8;
+  private static final ExecutorService sharedExecutor =
+      Executors.newFixedThreadPool(
+          SHARED_EXECUTOR_THREADS,
+          new ThreadFactoryBuilder()
+              .setNameFormat("reviewai-repo-upload-%d")
+              .setDaemon(true)
+              .build());
 
   private final GerritChange change;
   private final GitRepoFiles gitRepoFiles;
+  private final PluginDataHandler projectDataHandler;
+  private final OpenAiFileRegistry openAiFileRegistry;
 
-  private String filenameBase;
-  private int filenameIndex;
+  private Map<String, String> uploadProgress;
 
-  public OpenAiRepoUploader(Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
+  public OpenAiRepoUploader(
+      Configuration config,
+      GerritChange change,
+      GitRepoFiles gitRepoFiles,
+      PluginDataHandler projectDataHandler,
+      OpenAiFileRegistry openAiFileRegistry) {
     super(config);
     this.change = change;
     this.gitRepoFiles = gitRepoFiles;
+    this.projectDataHandler = projectDataHandler;
+    this.openAiFileRegistry = openAiFileRegistry;
+  }
+
+  public List<OpenAiVectorStoreChunk> uploadRepoFiles(String vectorStoreId)
+      throws AiConnectionFailException {
+    return uploadRepoFiles(vectorStoreId, null);
   }
 
-  public List<String> uploadRepoFiles() throws AiConnectionFailException {
+  /**
+   * Uploads the repository files of the given directories, or of the whole repository if null, and
+   * records the files in the registry as used by the Vector Store.
+   */
+  public List<OpenAiVectorStoreChunk> uploadRepoFiles(String vectorStoreId, Set<String> dirs)
+      throws AiConnectionFailException {
     log.debug("Starting uploading repository files.");
-    List<String> repoFiles = gitRepoFiles.getGitRepoFilesAsJson(config, change);
-    List<String> filesIds = new ArrayList<>();
-    filenameBase = sanitizeFilename(change.getProjectName());
-    filenameIndex = 0;
-    for (String repoFile : repoFiles) {
-      Path repoPath = createTempFileWithContent(getIndexedFilename(), ".json", repoFile);
-      log.debug("Uploading repository file `{}`", repoPath);
-      OpenAiFile openAiFile = new OpenAiFile(config);
-      OpenAiFilesResponse openAiFilesResponse = openAiFile.uploadFile(repoPath);
-      filesIds.add(openAiFilesResponse.getId());
+    List<RepoChunk> repoChunks = gitRepoFiles.getGitRepoChunks(config, change, dirs);
+    String filterKey = gitRepoFiles.getFileFilterKey(config, change);
+    String filenameBase = sanitizeFilename(change.getProjectName());
+    Map<String, String> storedProgress =
+        projectDataHandler.getJsonObjectValue(KEY_UPLOAD_PROGRESS, String.class);
+    uploadProgress = storedProgress != null ? new HashMap<>(storedProgress) : new HashMap<>();
+
+    String[] fileIds = new String[repoChunks.size()];
+    AtomicInteger nextIndex = new AtomicInteger();
+    Callable<Void> worker =
+        () -> {
+          int index;
+          while ((index = nextIndex.getAndIncrement()) < fileIds.length) {
+            String filename = String.format(FILENAME_PATTERN, filenameBase, index + 1);
+            try {
+              fileIds[index] = uploadRepoChunk(vectorStoreId, filename, repoChunks.get(index));
+            } catch (AiConnectionFailException | RuntimeException e) {
+              // No further chunk is claimed by the other workers
+              nextIndex.set(fileIds.length);
+              throw e;
+            }
+          }
+          return null;
+        };
+    uploadAll(worker, Math.min(config.getAiUploadMaxConcurrency(), fileIds.length));
+
+    List<OpenAiVectorStoreChunk> vectorStoreChunks = new ArrayList<>();
+    for (int i = 0; i < fileIds.length; i++) {
+      vectorStoreChunks.add(
+          new OpenAiVectorStoreChunk(fileIds[i], repoChunks.get(i).getDirs(), filterKey));
     }
-    log.debug("IDs of the uploaded files: {}", filesIds);
+    log.debug("Uploaded chunks: {}", vectorStoreChunks);
+
+    return vectorStoreChunks;
+  }
 
-    return filesIds;
+  public static void shutdown() {
+    log.debug("Shutting down the repository upload executor");
+    sharedExecutor.shutdownNow();
   }
 
-  private String getIndexedFilename() {
-    filenameIndex++;
-    return String.format(FILENAME_PATTERN, filenameBase, filenameIndex);
+  public void clearUploadProgress() {
+    projectDataHandler.removeValue(KEY_UPLOAD_PROGRESS);
+  }
+
+  /** Returns the IDs of the files uploaded or reused so far, including those of resumed uploads. */
+  public synchronized List<String> getUploadedFileIds() {
+    return uploadProgress != null ? List.copyOf(uploadProgress.values()) : List.of();
+  }
+
+  private String uploadRepoChunk(String vectorStoreId, String filename, RepoChunk repoChunk)
+      throws AiConnectionFailException {
+    String contentKey = getContentKey(repoChunk);
+    String fileId = getUploadedFileId(contentKey);
+    if (fileId != null) {
+      log.debug("Repository file `{}` already uploaded with ID {}", filename, fileId);
+      openAiFileRegistry.registerFile(contentKey, fileId, vectorStoreId);
+      return fileId;
+    }
+    fileId = openAiFileRegistry.acquireFile(contentKey, vectorStoreId);
+    if (fileId != null) {
+      log.debug("Repository file `{}` reused from file registry with ID {}", filename, fileId);
+      recordUploadProgress(contentKey, fileId);
+      return fileId;
+    }
+    log.debug("Uploading repository file `{}`", filename);
+    OpenAiFile openAiFile = new OpenAiFile(config);
+    OpenAiFilesResponse openAiFilesResponse =
+        openAiFile.uploadFile(filename, new RepoChunkRequestBody(gitRepoFiles, change, repoChunk));
+    fileId = openAiFilesResponse.getId();
+    openAiFileRegistry.registerFile(contentKey, fileId, vectorStoreId);
+    recordUploadProgress(contentKey, fileId);
+
+    return fileId;
+  }
+
+  private String getContentKey(RepoChunk repoChunk) {
+    return HashUtils.hashData(
+        repoChunk.getBlobs().stream()
+            .map(blob -> blob.getPath() + ":" + blob.getObjectId().getName())
+            .sorted()
+            .toList());
+  }
+
+  private synchronized String getUploadedFileId(String contentKey) {
+    return uploadProgress.get(contentKey);
+  }
+
+  private synchronized void recordUploadProgress(String contentKey, String fileId) {
+    uploadProgress.put(contentKey, fileId);
+    projectDataHandler.setJsonValue(KEY_UPLOAD_PROGRESS, uploadProgress);
+  }
+
+  /**
+   * Runs the worker on the calling thread and on up to `concurrency - 1` helpers from the executor
+   * shared by all the uploads, so that an upload progresses even when the executor is busy with the
+   * other ones. The helpers still running are cancelled when the upload fails.
+   */
+  private void uploadAll(Callable<Void> worker, int concurrency) throws AiConnectionFailException {
+    List<Future<Void>> helpers = new ArrayList<>();
+    boolean completed = false;
+    try {
+      for (int i = 1; i < concurrency; i++) {
+        helpers.add(sharedExecutor.submit(worker));
+      }
+    } catch (RejectedExecutionException e) {
+      log.debug("Shared executor unavailable: uploading chunks on the calling thread");
+    }
+    try {
+      try {
+        worker.call();
+      } catch (AiConnectionFailException | RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new RuntimeException("Failed to upload repository file", e);
+      }
+      for (Future<Void> helper : helpers) {
+        getUploadResult(helper);
+      }
+      completed = true;
+    } finally {
+      if (!completed) {
+        helpers.forEach(helper -> helper.cancel(true));
+      }
+    }
+  }
+
+  private void getUploadResult(Future<Void> upload) throws AiConnectionFailException {
+    try {
+      upload.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AiConnectionFailException aiConnectionFailException) {
+        throw aiConnectionFailException;
+      }
+      throw new RuntimeException("Failed to upload repository file", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AiConnectionFailException(e);
+    }
   }
 }
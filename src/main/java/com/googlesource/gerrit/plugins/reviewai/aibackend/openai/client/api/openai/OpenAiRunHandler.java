@@ -19,6 +19,7 @@ package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.ope
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai.AiToolCall;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandlerProvider;
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiCircuitOpenException;
 import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFailException;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
@@ -87,6 +88,8 @@ public class OpenAiRunHandler extends OpenAiApiBase {
       log.debug("OpenAI Retrieve Run Steps request: {}", stepsRequest);
       try {
         stepResponse = getOpenAiResponse(stepsRequest, OpenAiListResponse.class);
+      } catch (AiCircuitOpenException e) {
+        throw e;
       } catch (AiConnectionFailException e) {
         exception = e;
         log.warn("Error retrieving run steps from OpenAI: {}", e.getMessage());
@@ -23,6 +23,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.jsonToClass;
 
@@ -36,6 +38,10 @@ public class OpenAiTools {
   private static final String FILENAME_TOOL_FORMAT = "config/%sTool.json";
   private static final String FILENAME_TOOL_CHOICE_FORMAT = "config/%sToolChoice.json";
 
+  // Tools are parsed once per function and shared: the returned objects must not be modified
+  private static final Map<String, OpenAiTool> TOOLS = new ConcurrentHashMap<>();
+  private static final Map<String, OpenAiToolChoice> TOOL_CHOICES = new ConcurrentHashMap<>();
+
   private final String functionName;
 
   public OpenAiTools(Functions function) {
@@ -43,6 +49,14 @@ public class OpenAiTools {
   }
 
   public OpenAiTool retrieveFunctionTool() {
+    return TOOLS.computeIfAbsent(functionName, OpenAiTools::loadFunctionTool);
+  }
+
+  public OpenAiToolChoice retrieveFunctionToolChoice() {
+    return TOOL_CHOICES.computeIfAbsent(functionName, OpenAiTools::loadFunctionToolChoice);
+  }
+
+  private static OpenAiTool loadFunctionTool(String functionName) {
     OpenAiTool tools;
     try (InputStreamReader reader =
         FileUtils.getInputStreamReader(String.format(FILENAME_TOOL_FORMAT, functionName))) {
@@ -54,7 +68,7 @@ public class OpenAiTools {
     return tools;
   }
 
-  public OpenAiToolChoice retrieveFunctionToolChoice() {
+  private static OpenAiToolChoice loadFunctionToolChoice(String functionName) {
     OpenAiToolChoice toolChoice;
     try (InputStreamReader reader =
         FileUtils.getInputStreamReader(String.format(FILENAME_TOOL_CHOICE_FORMAT, functionName))) {
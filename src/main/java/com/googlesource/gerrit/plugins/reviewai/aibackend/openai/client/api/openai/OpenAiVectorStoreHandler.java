@@ -18,18 +18,28 @@ package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.ope
 
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandler;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandlerProvider;
 import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFailException;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.ClientBase;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.OpenAiUriResourceLocator;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.endpoint.OpenAiFile;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.endpoint.OpenAiVectorStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.endpoint.OpenAiVectorStoreFile;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.endpoint.OpenAiVectorStoreFileBatch;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiResponse;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiRunResponse;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiVectorStoreChunk;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class OpenAiVectorStoreHandler extends ClientBase {
@@ -37,9 +47,16 @@ public class OpenAiVectorStoreHandler extends ClientBase {
   private static final String KEY_VECTOR_STORE_ID = "vectorStoreId";
   private static final String KEY_VECTOR_STORE_FILE_BATCH_ID = "vectorStoreFileBatchId";
   private static final String KEY_VECTOR_STORE_FILE_BATCH_STATUS = "vectorStoreFileBatchStatus";
+  private static final String KEY_VECTOR_STORE_INDEXED_COMMIT = "vectorStoreIndexedCommit";
+  private static final String KEY_VECTOR_STORE_CHUNKS = "vectorStoreChunks";
+  private static final String KEY_RETIRED_VECTOR_STORE_FILES = "retiredVectorStoreFiles";
+
+  private static final Map<String, Object> projectLocks = new ConcurrentHashMap<>();
 
   private final GerritChange change;
+  private final GitRepoFiles gitRepoFiles;
   private final PluginDataHandler projectDataHandler;
+  private final OpenAiFileRegistry openAiFileRegistry;
   private final OpenAiRepoUploader openAiRepoUploader;
   private final OpenAiPoller openAiPoller;
 
@@ -47,27 +64,116 @@ public class OpenAiVectorStoreHandler extends ClientBase {
       Configuration config,
       GerritChange change,
       GitRepoFiles gitRepoFiles,
-      PluginDataHandler projectDataHandler) {
+      PluginDataHandlerProvider pluginDataHandlerProvider) {
     super(config);
     this.change = change;
-    this.projectDataHandler = projectDataHandler;
-    openAiRepoUploader = new OpenAiRepoUploader(config, change, gitRepoFiles);
+    this.gitRepoFiles = gitRepoFiles;
+    projectDataHandler = pluginDataHandlerProvider.getProjectScope();
+    openAiFileRegistry =
+        new OpenAiFileRegistry(config, pluginDataHandlerProvider.getFileRegistry());
+    openAiRepoUploader =
+        new OpenAiRepoUploader(
+            config, change, gitRepoFiles, projectDataHandler, openAiFileRegistry);
     openAiPoller = new OpenAiPoller(config);
   }
 
   public String generateVectorStore() throws AiConnectionFailException {
     log.debug("Creating or retrieving vector store.");
-    String vectorStoreId = projectDataHandler.getValue(KEY_VECTOR_STORE_ID);
-    if (vectorStoreId == null) {
-      vectorStoreId = createVectorStore();
+    String vectorStoreId;
+    synchronized (getProjectLock()) {
+      vectorStoreId = projectDataHandler.getValue(KEY_VECTOR_STORE_ID);
+      if (vectorStoreId == null) {
+        vectorStoreId = createVectorStore();
+      }
     }
     return validateVectorStore(vectorStoreId);
   }
 
   public void removeVectorStoreId() {
+    synchronized (getProjectLock()) {
+      retireVectorStore();
+    }
     projectDataHandler.removeValue(KEY_VECTOR_STORE_ID);
     projectDataHandler.removeValue(KEY_VECTOR_STORE_FILE_BATCH_ID);
     projectDataHandler.removeValue(KEY_VECTOR_STORE_FILE_BATCH_STATUS);
+    projectDataHandler.removeValue(KEY_VECTOR_STORE_INDEXED_COMMIT);
+    projectDataHandler.removeValue(KEY_VECTOR_STORE_CHUNKS);
+  }
+
+  /**
+   * Brings the existing Vector Store up to date with the master branch by replacing only the chunk
+   * files that contain directories changed since the indexed commit. The Vector Store ID is kept,
+   * so that the assistants referring to it remain valid.
+   *
+   * <p>The syncs of the same project are serialized, as each one reads and rewrites the chunks of
+   * the index.
+   *
+   * @return false if no incremental index is available and the Vector Store needs to be rebuilt
+   */
+  public boolean syncVectorStore() throws AiConnectionFailException {
+    synchronized (getProjectLock()) {
+      return syncVectorStoreLocked();
+    }
+  }
+
+  private Object getProjectLock() {
+    return projectLocks.computeIfAbsent(change.getProjectName(), k -> new Object());
+  }
+
+  private boolean syncVectorStoreLocked() throws AiConnectionFailException {
+    String vectorStoreId = projectDataHandler.getValue(KEY_VECTOR_STORE_ID);
+    String indexedCommit = projectDataHandler.getValue(KEY_VECTOR_STORE_INDEXED_COMMIT);
+    List<OpenAiVectorStoreChunk> vectorStoreChunks =
+        projectDataHandler.getJsonArrayValue(KEY_VECTOR_STORE_CHUNKS, OpenAiVectorStoreChunk.class);
+    if (vectorStoreId == null || indexedCommit == null || vectorStoreChunks == null) {
+      log.info("No incremental index available for the Vector Store");
+      return false;
+    }
+    String masterCommit = gitRepoFiles.getMasterCommitId(change);
+    if (indexedCommit.equals(masterCommit)) {
+      log.debug("Vector Store already indexed at commit {}", masterCommit);
+      return true;
+    }
+    OpenAiVectorStoreSyncPlan syncPlan =
+        new OpenAiVectorStoreSyncPlan(
+            vectorStoreChunks,
+            gitRepoFiles.getChangedDirs(config, change, indexedCommit),
+            gitRepoFiles.getFileFilterKey(config, change));
+    List<OpenAiVectorStoreChunk> staleChunks = syncPlan.getStaleChunks();
+    log.info(
+        "Syncing Vector Store from commit {} to {}: {} stale chunks, rebuilt directories: {}",
+        indexedCommit,
+        masterCommit,
+        staleChunks.size(),
+        syncPlan.isFullRebuild() ? "all" : syncPlan.getRebuiltDirs());
+
+    List<OpenAiVectorStoreChunk> newChunks;
+    if (syncPlan.isFullRebuild()) {
+      newChunks = openAiRepoUploader.uploadRepoFiles(vectorStoreId);
+    } else if (syncPlan.getRebuiltDirs().isEmpty()) {
+      newChunks = List.of();
+    } else {
+      newChunks = openAiRepoUploader.uploadRepoFiles(vectorStoreId, syncPlan.getRebuiltDirs());
+    }
+    // New files are indexed before the stale ones are deleted to keep the Vector Store usable
+    if (!newChunks.isEmpty()) {
+      createVectorStoreFileBatch(vectorStoreId, getFileIds(newChunks));
+      openAiRepoUploader.clearUploadProgress();
+      if (!checkVectorStoreStatus(vectorStoreId)) {
+        throw new AiConnectionFailException("Error indexing the synced Vector Store files");
+      }
+    }
+    // Stale chunks rebuilt with unchanged contents are reused with the same files
+    Set<String> newFileIds = new HashSet<>(getFileIds(newChunks));
+    deleteVectorStoreFiles(
+        vectorStoreId,
+        staleChunks.stream().filter(chunk -> !newFileIds.contains(chunk.getFileId())).toList());
+
+    List<OpenAiVectorStoreChunk> updatedChunks = new ArrayList<>(syncPlan.getKeptChunks());
+    updatedChunks.addAll(newChunks);
+    updateVectorStoreIndex(masterCommit, updatedChunks);
+
+    return true;
   }
 
   private String createEmptyVectorStore() throws AiConnectionFailException {
@@ -75,7 +181,6 @@ public class OpenAiVectorStoreHandler extends ClientBase {
     OpenAiVectorStore vectorStore = new OpenAiVectorStore(config, change);
     OpenAiResponse createVectorStoreResponse = vectorStore.createVectorStore();
     String vectorStoreId = createVectorStoreResponse.getId();
-    projectDataHandler.setValue(KEY_VECTOR_STORE_ID, vectorStoreId);
     log.info("Empty Vector Store created with ID: {}", vectorStoreId);
 
     return vectorStoreId;
@@ -98,13 +203,92 @@ public class OpenAiVectorStoreHandler extends ClientBase {
 
   private String createVectorStore() throws AiConnectionFailException {
     log.debug("Creating new vector store.");
-    List<String> fileIds = openAiRepoUploader.uploadRepoFiles();
+    String indexedCommit = gitRepoFiles.getMasterCommitId(change);
+    // The Vector Store is created first, as the files are registered with the ID of their user
     String vectorStoreId = createEmptyVectorStore();
-    createVectorStoreFileBatch(vectorStoreId, fileIds);
+    List<OpenAiVectorStoreChunk> vectorStoreChunks;
+    try {
+      vectorStoreChunks = openAiRepoUploader.uploadRepoFiles(vectorStoreId);
+    } catch (AiConnectionFailException | RuntimeException e) {
+      // The files are kept for the upload to be resumed, but no longer held by the Vector Store
+      openAiFileRegistry.releaseFiles(vectorStoreId, openAiRepoUploader.getUploadedFileIds());
+      throw e;
+    }
+    projectDataHandler.setValue(KEY_VECTOR_STORE_ID, vectorStoreId);
+    createVectorStoreFileBatch(vectorStoreId, getFileIds(vectorStoreChunks));
+    updateVectorStoreIndex(indexedCommit, vectorStoreChunks);
+    openAiRepoUploader.clearUploadProgress();
+    // The files of the replaced Vector Stores are released once the new one references its own
+    releaseRetiredVectorStores();
 
     return vectorStoreId;
   }
 
+  private void deleteVectorStoreFiles(String vectorStoreId, List<OpenAiVectorStoreChunk> chunks) {
+    OpenAiVectorStoreFile vectorStoreFile = new OpenAiVectorStoreFile(config);
+    for (OpenAiVectorStoreChunk chunk : chunks) {
+      try {
+        vectorStoreFile.deleteVectorStoreFile(vectorStoreId, chunk.getFileId());
+      } catch (AiConnectionFailException e) {
+        log.warn("Error deleting stale Vector Store file {}", chunk.getFileId(), e);
+      }
+    }
+    deleteUnreferencedFiles(vectorStoreId, getFileIds(chunks));
+  }
+
+  // Registered files may be shared with other Vector Stores and are deleted with their last user
+  private void deleteUnreferencedFiles(String vectorStoreId, List<String> fileIds) {
+    OpenAiFile openAiFile = new OpenAiFile(config);
+    for (String fileId : openAiFileRegistry.releaseFiles(vectorStoreId, fileIds)) {
+      try {
+        log.debug("Deleting file {} no longer used by any Vector Store", fileId);
+        openAiFile.deleteFile(fileId);
+      } catch (AiConnectionFailException e) {
+        log.warn("Error deleting file {}", fileId, e);
+      }
+    }
+  }
+
+  private void retireVectorStore() {
+    String vectorStoreId = projectDataHandler.getValue(KEY_VECTOR_STORE_ID);
+    List<OpenAiVectorStoreChunk> vectorStoreChunks =
+        projectDataHandler.getJsonArrayValue(KEY_VECTOR_STORE_CHUNKS, OpenAiVectorStoreChunk.class);
+    if (vectorStoreId == null || vectorStoreChunks == null) return;
+    log.debug("Retiring Vector Store {}", vectorStoreId);
+    Map<String, String[]> retiredFiles = getRetiredVectorStoreFiles();
+    retiredFiles.put(vectorStoreId, getFileIds(vectorStoreChunks).toArray(new String[0]));
+    projectDataHandler.setJsonValue(KEY_RETIRED_VECTOR_STORE_FILES, retiredFiles);
+  }
+
+  private void releaseRetiredVectorStores() {
+    Map<String, String[]> retiredFiles = getRetiredVectorStoreFiles();
+    if (retiredFiles.isEmpty()) return;
+    retiredFiles.forEach(
+        (vectorStoreId, fileIds) -> {
+          log.debug("Releasing the files of retired Vector Store {}", vectorStoreId);
+          deleteUnreferencedFiles(vectorStoreId, List.of(fileIds));
+        });
+    projectDataHandler.removeValue(KEY_RETIRED_VECTOR_STORE_FILES);
+  }
+
+  private Map<String, String[]> getRetiredVectorStoreFiles() {
+    Map<String, String[]> retiredFiles =
+        projectDataHandler.getJsonObjectValue(KEY_RETIRED_VECTOR_STORE_FILES, String[].class);
+    return retiredFiles != null ? new HashMap<>(retiredFiles) : new HashMap<>();
+  }
+
+  private void updateVectorStoreIndex(
+      String indexedCommit, List<OpenAiVectorStoreChunk> vectorStoreChunks) {
+    projectDataHandler.setJsonValue(KEY_VECTOR_STORE_CHUNKS, vectorStoreChunks);
+    if (indexedCommit != null) {
+      projectDataHandler.setValue(KEY_VECTOR_STORE_INDEXED_COMMIT, indexedCommit);
+    }
+  }
+
+  private List<String> getFileIds(List<OpenAiVectorStoreChunk> vectorStoreChunks) {
+    return vectorStoreChunks.stream().map(OpenAiVectorStoreChunk::getFileId).toList();
+  }
+
   private boolean checkVectorStoreStatus(String vectorStoreId)
       throws AiConnectionFailException {
     String vectorStoreFileBatchStatus =
@@ -145,7 +329,10 @@ public class OpenAiVectorStoreHandler extends ClientBase {
       if (retries == MAX_VECTOR_STORE_GENERATION_RETRIES) {
         break;
       }
-      vectorStoreId = createVectorStore();
+      synchronized (getProjectLock()) {
+        retireVectorStore();
+        vectorStoreId = createVectorStore();
+      }
     }
     throw new AiConnectionFailException("Error calculating Vector Store");
   }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiVectorStoreChunk;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Selects the Vector Store chunks to rebuild for an incremental sync. A chunk is stale if any of
+ * its directories is rebuilt, and all the directories of a stale chunk are rebuilt in turn, until
+ * no further chunk is affected. A change of the file filter makes every chunk stale.
+ */
+@Getter
+public class OpenAiVectorStoreSyncPlan {
+  private final List<OpenAiVectorStoreChunk> staleChunks = new ArrayList<>();
+  private final List<OpenAiVectorStoreChunk> keptChunks = new ArrayList<>();
+  private final Set<String> rebuiltDirs;
+  private final boolean fullRebuild;
+
+  public OpenAiVectorStoreSyncPlan(
+      List<OpenAiVectorStoreChunk> chunks, Set<String> changedDirs, String filterKey) {
+    fullRebuild =
+        chunks.stream().anyMatch(chunk -> !Objects.equals(chunk.getFilterKey(), filterKey));
+    if (fullRebuild) {
+      staleChunks.addAll(chunks);
+      rebuiltDirs = null;
+      return;
+    }
+    rebuiltDirs = new LinkedHashSet<>(changedDirs);
+    keptChunks.addAll(chunks);
+    boolean expanded;
+    do {
+      expanded = false;
+      Iterator<OpenAiVectorStoreChunk> iterator = keptChunks.iterator();
+      while (iterator.hasNext()) {
+        OpenAiVectorStoreChunk chunk = iterator.next();
+        if (chunk.getDirs().stream().anyMatch(rebuiltDirs::contains)) {
+          iterator.remove();
+          staleChunks.add(chunk);
+          expanded |= rebuiltDirs.addAll(chunk.getDirs());
+        }
+      }
+    } while (expanded);
+  }
+}
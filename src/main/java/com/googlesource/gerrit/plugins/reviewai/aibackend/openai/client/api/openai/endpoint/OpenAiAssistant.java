@@ -17,7 +17,6 @@
 package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.endpoint;
 
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.AiPromptFactory;
-import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.prompt.AiPromptBase;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFailException;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
@@ -38,6 +37,7 @@ import java.util.List;
 
 @Slf4j
 public class OpenAiAssistant extends OpenAiApiBase {
+  private final String name;
   @Getter private final String description;
   @Getter private final String instructions;
   @Getter private final String model;
@@ -58,6 +58,7 @@ public class OpenAiAssistant extends OpenAiApiBase {
         AiPromptFactory.getAiPrompt(config, changeSetData, change, codeContextPolicy);
     OpenAiParameters openAiParameters = new OpenAiParameters(config, change.getIsCommentEvent());
     this.codeContextPolicy = codeContextPolicy;
+    name = aiPromptOpenAi.getDefaultAiAssistantName();
     description = aiPromptOpenAi.getDefaultAiAssistantDescription();
     instructions = aiPromptOpenAi.getDefaultAiAssistantInstructions();
     model = config.getAiModel();
@@ -83,7 +84,7 @@ public class OpenAiAssistant extends OpenAiApiBase {
 
     OpenAiCreateAssistantRequestBody requestBody =
         OpenAiCreateAssistantRequestBody.builder()
-            .name(AiPromptBase.DEFAULT_AI_ASSISTANT_NAME)
+            .name(name)
             .description(description)
             .instructions(instructions)
             .model(model)
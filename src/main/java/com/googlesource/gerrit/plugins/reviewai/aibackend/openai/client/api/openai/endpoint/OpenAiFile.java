@@ -21,12 +21,10 @@ import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFa
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.OpenAiUriResourceLocator;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.OpenAiApiBase;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiFilesResponse;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiResponse;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
-import java.io.File;
-import java.nio.file.Path;
-
 @Slf4j
 public class OpenAiFile extends OpenAiApiBase {
 
@@ -34,25 +32,38 @@ public class OpenAiFile extends OpenAiApiBase {
     super(config);
   }
 
-  public OpenAiFilesResponse uploadFile(Path repoPath) throws AiConnectionFailException {
-    Request request = createUploadFileRequest(repoPath);
+  public OpenAiFilesResponse uploadFile(String filename, RequestBody fileBody)
+      throws AiConnectionFailException {
+    Request request = createUploadFileRequest(filename, fileBody);
     log.debug("OpenAI Upload File request: {}", request);
 
     return getOpenAiResponse(request, OpenAiFilesResponse.class);
   }
 
-  private Request createUploadFileRequest(Path repoPath) {
+  public OpenAiFilesResponse retrieveFile(String fileId) throws AiConnectionFailException {
+    Request request =
+        httpClient.createRequestFromJson(OpenAiUriResourceLocator.fileRetrieveUri(fileId), null);
+    log.debug("OpenAI Retrieve File request: {}", request);
+
+    return getOpenAiResponse(request, OpenAiFilesResponse.class);
+  }
+
+  public OpenAiResponse deleteFile(String fileId) throws AiConnectionFailException {
+    Request request =
+        httpClient.createDeleteRequest(OpenAiUriResourceLocator.fileRetrieveUri(fileId));
+    log.debug("OpenAI Delete File request: {}", request);
+
+    return getOpenAiResponse(request, OpenAiResponse.class);
+  }
+
+  private Request createUploadFileRequest(String filename, RequestBody fileBody) {
     String uri = OpenAiUriResourceLocator.filesCreateUri();
     log.debug("OpenAI Upload File request URI: {}", uri);
-    File file = repoPath.toFile();
     RequestBody requestBody =
         new MultipartBody.Builder()
             .setType(MultipartBody.FORM)
             .addFormDataPart("purpose", "assistants")
-            .addFormDataPart(
-                "file",
-                file.getName(),
-                RequestBody.create(file, MediaType.parse("application/json")))
+            .addFormDataPart("file", filename, fileBody)
             .build();
 
     return httpClient.createRequest(uri, requestBody, null);
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.endpoint;
+
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiConnectionFailException;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.OpenAiUriResourceLocator;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.OpenAiApiBase;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiResponse;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+
+@Slf4j
+public class OpenAiVectorStoreFile extends OpenAiApiBase {
+
+  public OpenAiVectorStoreFile(Configuration config) {
+    super(config);
+  }
+
+  public OpenAiResponse deleteVectorStoreFile(String vectorStoreId, String fileId)
+      throws AiConnectionFailException {
+    String uri = OpenAiUriResourceLocator.vectorStoreFileRetrieveUri(vectorStoreId, fileId);
+    log.debug("OpenAI Delete Vector Store File request URI: {}", uri);
+    Request request = httpClient.createDeleteRequest(uri);
+
+    OpenAiResponse deleteVectorStoreFileResponse = getOpenAiResponse(request, OpenAiResponse.class);
+    log.info("Vector Store File deleted: {}", deleteVectorStoreFileResponse);
+
+    return deleteVectorStoreFileResponse;
+  }
+}
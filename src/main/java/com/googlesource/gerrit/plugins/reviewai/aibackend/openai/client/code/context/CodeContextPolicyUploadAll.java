@@ -34,8 +34,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
 
-import static com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.prompt.AiPromptBase.DEFAULT_AI_ASSISTANT_INSTRUCTIONS_FILE_CONTEXT;
-import static com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.prompt.AiPromptReview.DEFAULT_AI_ASSISTANT_INSTRUCTIONS_DONT_GUESS_CODE;
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.PromptCatalog.getPromptValue;
 
 @Slf4j
 public class CodeContextPolicyUploadAll extends CodeContextPolicyBase
@@ -55,8 +54,7 @@ public class CodeContextPolicyUploadAll extends CodeContextPolicyBase
     super(config);
     this.change = change;
     openAiVectorStoreHandler =
-        new OpenAiVectorStoreHandler(
-            config, change, gitRepoFiles, pluginDataHandlerProvider.getProjectScope());
+        new OpenAiVectorStoreHandler(config, change, gitRepoFiles, pluginDataHandlerProvider);
     log.debug("CodeContextPolicyUploadAll initialized");
   }
 
@@ -72,6 +70,12 @@ public class CodeContextPolicyUploadAll extends CodeContextPolicyBase
     log.debug("Vector Store removed");
   }
 
+  @Override
+  public boolean syncVectorStore() throws AiConnectionFailException {
+    log.debug("Syncing Vector Store");
+    return openAiVectorStoreHandler.syncVectorStore();
+  }
+
   @Override
   public void updateAssistantTools(
       OpenAiAssistantTools openAiAssistantTools, String vectorStoreId) {
@@ -85,13 +89,16 @@ public class CodeContextPolicyUploadAll extends CodeContextPolicyBase
   @Override
   public void addCodeContextPolicyAwareAssistantInstructions(List<String> instructions) {
     instructions.add(
-        String.format(DEFAULT_AI_ASSISTANT_INSTRUCTIONS_FILE_CONTEXT, change.getProjectName()));
+        String.format(
+            getPromptValue("promptsOpenAi", "DEFAULT_AI_ASSISTANT_INSTRUCTIONS_FILE_CONTEXT"),
+            change.getProjectName()));
     log.debug("Added Assistant Instructions for Upload-All code context policy");
   }
 
   @Override
   public void addCodeContextPolicyAwareAssistantRule(List<String> rules) {
-    rules.add(DEFAULT_AI_ASSISTANT_INSTRUCTIONS_DONT_GUESS_CODE);
+    rules.add(
+        getPromptValue("promptsOpenAiReview", "DEFAULT_AI_ASSISTANT_INSTRUCTIONS_DONT_GUESS_CODE"));
     log.debug("Added Assistant Rules for Upload-All code context policy");
   }
 }
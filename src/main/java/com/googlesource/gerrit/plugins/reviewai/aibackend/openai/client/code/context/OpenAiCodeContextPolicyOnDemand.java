@@ -33,18 +33,13 @@ import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class OpenAiCodeContextPolicyOnDemand extends CodeContextPolicyOnDemand implements ICodeContextPolicy {
-  private final GerritChange change;
-  private final GitRepoFiles gitRepoFiles;
-
   private OpenAiRunActionHandler openAiRunActionHandler;
 
   @VisibleForTesting
   @Inject
   public OpenAiCodeContextPolicyOnDemand(
       Configuration config, GerritChange change, GitRepoFiles gitRepoFiles) {
-    super(config);
-    this.change = change;
-    this.gitRepoFiles = gitRepoFiles;
+    super(config, change, gitRepoFiles);
     log.debug("OpenAiCodeContextPolicyOnDemand initialized");
   }
 
@@ -16,7 +16,6 @@
 
 package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.prompt;
 
-import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.ProjectInstructions;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.openai.client.prompt.IAiPrompt;
@@ -32,20 +31,21 @@ import static com.googlesource.gerrit.plugins.reviewai.utils.TextUtils.*;
 
 @Slf4j
 public abstract class AiPromptBase extends AiPrompt implements IAiPrompt {
-  public static String DEFAULT_AI_ASSISTANT_NAME;
-  public static String DEFAULT_AI_ASSISTANT_DESCRIPTION;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_FILE_CONTEXT;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_NO_FILE_CONTEXT;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_FORMAT;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES;
-  public static String DEFAULT_AI_MESSAGE_REQUEST_RESEND_FORMATTED;
-  public static String DEFAULT_AI_MESSAGE_REVIEW;
+  public String DEFAULT_AI_ASSISTANT_NAME;
+  public String DEFAULT_AI_ASSISTANT_DESCRIPTION;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_FILE_CONTEXT;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_NO_FILE_CONTEXT;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_FORMAT;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES;
+  public String DEFAULT_AI_MESSAGE_REQUEST_RESEND_FORMATTED;
+  public String DEFAULT_AI_MESSAGE_REVIEW;
+  public String DEFAULT_AI_MESSAGE_PREFETCHED_CONTEXT;
+  public String DEFAULT_AI_MESSAGE_RETRIEVED_CONTEXT;
 
   protected final ChangeSetData changeSetData;
   protected final GerritChange change;
 
   private final ICodeContextPolicy codeContextPolicy;
-  private final ProjectInstructions projectInstructions;
 
   public AiPromptBase(
       Configuration config,
@@ -57,11 +57,14 @@ public abstract class AiPromptBase extends AiPrompt implements IAiPrompt {
     this.change = change;
     this.codeContextPolicy = codeContextPolicy;
     this.isCommentEvent = change.getIsCommentEvent();
-    this.projectInstructions = new ProjectInstructions(change);
     loadDefaultPrompts("promptsOpenAi");
     log.debug("Initialized AiPromptBase with change ID: {}", change.getFullChangeId());
   }
 
+  public String getDefaultAiAssistantName() {
+    return DEFAULT_AI_ASSISTANT_NAME;
+  }
+
   public String getDefaultAiAssistantDescription() {
     String description = String.format(DEFAULT_AI_ASSISTANT_DESCRIPTION, change.getProjectName());
     log.debug("Generated AI Assistant Description: {}", description);
@@ -72,15 +75,23 @@ public abstract class AiPromptBase extends AiPrompt implements IAiPrompt {
 
   public abstract String getAiRequestDataPrompt();
 
+  public void addChangeSpecificInstructions(List<String> instructions) {
+    log.debug("No change-specific instructions for this prompt.");
+  }
+
   public String getDefaultAiAssistantInstructions() {
+    // The instructions are laid out from the most to the least stable ones (fixed instructions and
+    // directives, then project context, then change-specific details) so that consecutive requests
+    // share the longest possible prefix, which the AI providers serve from their prompt cache.
     List<String> instructions =
         new ArrayList<>(
             List.of(
                 config.getAiSystemPromptInstructions(DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS)
                     + DOT));
-    codeContextPolicy.addCodeContextPolicyAwareAssistantInstructions(instructions);
-    this.projectInstructions.addProjectInstructions(instructions);
     addAiAssistantInstructions(instructions);
+    codeContextPolicy.addCodeContextPolicyAwareAssistantInstructions(instructions);
+    addProjectInstructions(instructions);
+    addChangeSpecificInstructions(instructions);
     String compiledInstructions = joinWithSpace(instructions);
     log.debug("Compiled AI Assistant Instructions: {}", compiledInstructions);
     return compiledInstructions;
@@ -92,9 +103,20 @@ public abstract class AiPromptBase extends AiPrompt implements IAiPrompt {
       log.debug("Request User Prompt retrieved: {}", aiRequestDataPrompt);
       return aiRequestDataPrompt;
     } else {
-      String defaultMessage = String.format(DEFAULT_AI_MESSAGE_REVIEW, patchSet);
+      List<String> messageComponents =
+          new ArrayList<>(List.of(String.format(DEFAULT_AI_MESSAGE_REVIEW, patchSet)));
+      codeContextPolicy.addCodeContextPolicyAwareReviewMessage(messageComponents, patchSet);
+      String defaultMessage = joinWithDoubleNewLine(messageComponents);
       log.debug("Default Thread Review Message used: {}", defaultMessage);
       return defaultMessage;
     }
   }
+
+  private void addProjectInstructions(List<String> instructions) {
+    String projectInstructions = changeSetData.getProjectInstructions();
+    if (projectInstructions != null) {
+      instructions.add(projectInstructions);
+      log.debug("Added project instructions: {}", projectInstructions);
+    }
+  }
 }
@@ -30,7 +30,7 @@ import static com.googlesource.gerrit.plugins.reviewai.utils.TextUtils.joinWithS
 
 @Slf4j
 public class AiPromptRequests extends AiPromptBase implements IAiPrompt {
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REQUESTS;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REQUESTS;
 
   public AiPromptRequests(
       Configuration config,
@@ -47,10 +47,18 @@ public class AiPromptRequests extends AiPromptBase implements IAiPrompt {
     instructions.addAll(
         List.of(
             DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REQUESTS,
-            getCommentRequestPrompt(changeSetData.getCommentPropertiesSize())));
+            getCommentRequestPrompt()));
     log.debug("AI Assistant Instructions for requests added: {}", instructions);
   }
 
+  @Override
+  public void addChangeSpecificInstructions(List<String> instructions) {
+    int commentPropertiesSize = changeSetData.getCommentPropertiesSize();
+    instructions.add(
+        String.format(DEFAULT_AI_REPLIES_PROMPT_ENFORCE_RESPONSE_CHECK, commentPropertiesSize));
+    log.debug("Response check added for {} comment properties.", commentPropertiesSize);
+  }
+
   @Override
   public String getAiRequestDataPrompt() {
     if (changeSetData == null) {
@@ -62,18 +70,14 @@ public class AiPromptRequests extends AiPromptBase implements IAiPrompt {
     return requestDataPrompt;
   }
 
-  private String getCommentRequestPrompt(int commentPropertiesSize) {
-    log.debug(
-        "Constructing OpenAI comment request prompt for {} comment properties.",
-        commentPropertiesSize);
+  private String getCommentRequestPrompt() {
+    log.debug("Constructing OpenAI comment request prompt.");
     return joinWithSpace(
         new ArrayList<>(
             List.of(
                 buildFieldSpecifications(REQUEST_REPLY_ATTRIBUTES),
                 DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_FORMAT,
                 DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES,
-                DEFAULT_AI_REPLIES_PROMPT_INLINE,
-                String.format(
-                    DEFAULT_AI_REPLIES_PROMPT_ENFORCE_RESPONSE_CHECK, commentPropertiesSize))));
+                DEFAULT_AI_REPLIES_PROMPT_INLINE)));
   }
 }
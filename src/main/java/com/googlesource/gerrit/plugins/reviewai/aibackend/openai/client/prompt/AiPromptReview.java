@@ -34,13 +34,13 @@ import static com.googlesource.gerrit.plugins.reviewai.utils.TextUtils.*;
 public class AiPromptReview extends AiPromptBase implements IAiPrompt {
   private static final String RULE_NUMBER_PREFIX = "RULE #";
 
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REVIEW_TASKS;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REVIEW_RULES;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REVIEW_GUIDELINES;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_DONT_GUESS_CODE;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_ON_DEMAND_REQUEST;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_HISTORY;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_FOCUS_PATCH_SET;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REVIEW_TASKS;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REVIEW_RULES;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_REVIEW_GUIDELINES;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_DONT_GUESS_CODE;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_ON_DEMAND_REQUEST;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_HISTORY;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_FOCUS_PATCH_SET;
 
   private final ICodeContextPolicy codeContextPolicy;
 
@@ -31,8 +31,8 @@ import static com.googlesource.gerrit.plugins.reviewai.utils.TextUtils.joinWithN
 
 @Slf4j
 public class AiPromptReviewCommitMessage extends AiPromptReview implements IAiPrompt {
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_COMMIT_MESSAGES;
-  public static String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_COMMIT_MESSAGES_GUIDELINES;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_COMMIT_MESSAGES;
+  public String DEFAULT_AI_ASSISTANT_INSTRUCTIONS_COMMIT_MESSAGES_GUIDELINES;
 
   public AiPromptReviewCommitMessage(
       Configuration config,
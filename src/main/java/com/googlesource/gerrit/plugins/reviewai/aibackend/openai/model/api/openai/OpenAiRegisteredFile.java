@@ -14,17 +14,16 @@
  * limitations under the License.
  */
 
-package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model;
+package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
-import lombok.NoArgsConstructor;
 
 import java.util.List;
 
 @Data
-@NoArgsConstructor
 @AllArgsConstructor
-public class StoredMessageList {
-  private List<StoredMessage> messages;
+public class OpenAiRegisteredFile {
+  private String fileId;
+  private List<String> vectorStoreIds;
 }
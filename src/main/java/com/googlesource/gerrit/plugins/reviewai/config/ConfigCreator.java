@@ -82,10 +82,10 @@ public class ConfigCreator {
     // `PluginDataHandlerProvider` cannot be injected because `GerritChange` is not initialized at
     // this stage:
     // instead of using `PluginDataHandlerProvider.getChangeScope`,
-    // `PluginDataHandlerBaseProvider.get` is employed
+    // `PluginDataHandlerBaseProvider.getChangeScope` is employed
     Map<String, String> dynamicConfig =
         pluginDataHandlerBaseProvider
-            .get(changeKey.toString())
+            .getChangeScope(changeKey.toString())
             .getJsonObjectValue(KEY_DYNAMIC_CONFIG, String.class);
     if (dynamicConfig != null && !dynamicConfig.isEmpty()) {
       log.info("DynamicConfig found for change '{}': {}", changeKey, dynamicConfig);
@@ -105,6 +105,17 @@ public class ConfigCreator {
     return new Configuration(context, gerritApi, globalConfig, projectConfig, email, accountId);
   }
 
+  public Configuration createGlobalConfig() {
+    log.debug("Creating global configuration for plugin: {}", pluginName);
+    PluginConfig globalConfig = configFactory.getFromGerritConfig(pluginName);
+    PluginConfig projectConfig =
+        new PluginConfig.Update(pluginName, new Config(), Optional.empty()).asPluginConfig();
+    Optional<AccountState> aiAccount = getAccount(globalConfig);
+    String email = aiAccount.map(a -> a.account().preferredEmail()).orElse("");
+    Account.Id accountId = aiAccount.map(a -> a.account().id()).orElse(null);
+    return new Configuration(context, gerritApi, globalConfig, projectConfig, email, accountId);
+  }
+
   private Optional<AccountState> getAccount(PluginConfig globalConfig) {
     String aiUser = globalConfig.getString(Configuration.KEY_GERRIT_USERNAME);
     log.debug("Retrieving account for username: {}", aiUser);
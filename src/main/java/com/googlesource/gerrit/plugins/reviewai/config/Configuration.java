@@ -20,11 +20,12 @@ import com.google.gerrit.entities.Account;
 import com.google.gerrit.extensions.api.GerritApi;
 import com.google.gerrit.server.config.PluginConfig;
 import com.google.gerrit.server.util.OneOffRequestContext;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.PromptCatalog;
 
 import java.util.*;
 
-import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.AiPrompt.getJsonPromptValues;
 import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyBase.CodeContextPolicies;
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyRetrieval.RetrievalIndexTypes;
 import static com.googlesource.gerrit.plugins.reviewai.settings.Settings.AiBackends;
 import static com.googlesource.gerrit.plugins.reviewai.settings.Settings.LangChainProviders;
 
@@ -52,6 +53,14 @@ public class Configuration extends ConfigCore {
   private static final boolean DEFAULT_FULL_FILE_REVIEW = true;
   private static final String DEFAULT_CODE_CONTEXT_POLICY = "UPLOAD_ALL";
   private static final String DEFAULT_CODE_CONTEXT_ON_DEMAND_BASE_PATH = "";
+  private static final boolean DEFAULT_CODE_CONTEXT_ON_DEMAND_SYMBOL_INDEX = false;
+  private static final int DEFAULT_CODE_CONTEXT_ON_DEMAND_MAX_CONCURRENCY = 4;
+  private static final boolean DEFAULT_CODE_CONTEXT_ON_DEMAND_PREFETCH = false;
+  private static final int DEFAULT_CODE_CONTEXT_ON_DEMAND_PREFETCH_MAX_ITEMS = 10;
+  private static final int DEFAULT_CODE_CONTEXT_ON_DEMAND_PREFETCH_TOKEN_BUDGET = 2000;
+  private static final String DEFAULT_CODE_CONTEXT_RETRIEVAL_INDEX = "VECTOR";
+  private static final int DEFAULT_CODE_CONTEXT_RETRIEVAL_MAX_SNIPPETS = 8;
+  private static final int DEFAULT_CODE_CONTEXT_RETRIEVAL_TOKEN_BUDGET = 3000;
   private static final boolean DEFAULT_GLOBAL_ENABLE = false;
   private static final String DEFAULT_DISABLED_USERS = "";
   private static final String DEFAULT_ENABLED_USERS = ENABLED_USERS_ALL;
@@ -60,6 +69,9 @@ public class Configuration extends ConfigCore {
   private static final String DEFAULT_DISABLED_TOPIC_FILTER = "";
   private static final String DEFAULT_ENABLED_TOPIC_FILTER = ENABLED_TOPICS_ALL;
   private static final String DEFAULT_ENABLED_PROJECTS = "";
+  private static final int DEFAULT_CHANGE_DATA_RETENTION_DAYS = 0;
+  private static final String DEFAULT_IGNORED_REPO_FILES = "";
+  private static final int DEFAULT_MAX_REPO_FILE_SIZE_KB = 1024;
   private static final String DEFAULT_ENABLED_FILE_EXTENSIONS =
       String.join(
           ",",
@@ -87,10 +99,17 @@ public class Configuration extends ConfigCore {
   private static final int DEFAULT_AI_CONNECTION_TIMEOUT = 30;
   private static final int DEFAULT_AI_CONNECTION_RETRY_INTERVAL = 10;
   private static final int DEFAULT_AI_CONNECTION_MAX_RETRY_ATTEMPTS = 2;
+  private static final int DEFAULT_AI_CONNECTION_MAX_REQUESTS_PER_HOST = 5;
+  private static final double DEFAULT_AI_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = 0.5;
+  private static final int DEFAULT_AI_CIRCUIT_BREAKER_OPEN_DURATION = 60;
+  private static final boolean DEFAULT_AI_CIRCUIT_BREAKER_PARK_TASKS = false;
   private static final int DEFAULT_AI_POLLING_TIMEOUT = 180;
   private static final int DEFAULT_AI_POLLING_INTERVAL = 1000;
   private static final int DEFAULT_AI_UPLOADED_CHUNK_SIZE_MB = 5;
+  private static final double DEFAULT_AI_UPLOADED_CHUNK_FILL_RATIO = 0.9;
+  private static final int DEFAULT_AI_UPLOAD_MAX_CONCURRENCY = 4;
   private static final int DEFAULT_LC_MAX_MEMORY_TOKENS = 16384;
+  private static final boolean DEFAULT_LC_GEMINI_TOKEN_CALIBRATION = false;
   private static final boolean DEFAULT_ENABLE_MESSAGE_DEBUGGING = false;
   private static final List<String> DEFAULT_SELECTIVE_LOG_LEVEL_OVERRIDE = new ArrayList<>();
 
@@ -118,6 +137,20 @@ public class Configuration extends ConfigCore {
   private static final String KEY_FULL_FILE_REVIEW = "aiFullFileReview";
   private static final String KEY_CODE_CONTEXT_POLICY = "codeContextPolicy";
   private static final String KEY_CODE_CONTEXT_ON_DEMAND_BASE_PATH = "codeContextOnDemandBasePath";
+  private static final String KEY_CODE_CONTEXT_ON_DEMAND_SYMBOL_INDEX =
+      "codeContextOnDemandSymbolIndex";
+  private static final String KEY_CODE_CONTEXT_ON_DEMAND_MAX_CONCURRENCY =
+      "codeContextOnDemandMaxConcurrency";
+  private static final String KEY_CODE_CONTEXT_ON_DEMAND_PREFETCH = "codeContextOnDemandPrefetch";
+  private static final String KEY_CODE_CONTEXT_ON_DEMAND_PREFETCH_MAX_ITEMS =
+      "codeContextOnDemandPrefetchMaxItems";
+  private static final String KEY_CODE_CONTEXT_ON_DEMAND_PREFETCH_TOKEN_BUDGET =
+      "codeContextOnDemandPrefetchTokenBudget";
+  private static final String KEY_CODE_CONTEXT_RETRIEVAL_INDEX = "codeContextRetrievalIndex";
+  private static final String KEY_CODE_CONTEXT_RETRIEVAL_MAX_SNIPPETS =
+      "codeContextRetrievalMaxSnippets";
+  private static final String KEY_CODE_CONTEXT_RETRIEVAL_TOKEN_BUDGET =
+      "codeContextRetrievalTokenBudget";
   private static final String KEY_PROJECT_ENABLE = "isEnabled";
   private static final String KEY_GLOBAL_ENABLE = "globalEnable";
   private static final String KEY_DISABLED_USERS = "disabledUsers";
@@ -127,8 +160,11 @@ public class Configuration extends ConfigCore {
   private static final String KEY_DISABLED_TOPIC_FILTER = "disabledTopicFilter";
   private static final String KEY_ENABLED_TOPIC_FILTER = "enabledTopicFilter";
   private static final String KEY_ENABLED_PROJECTS = "enabledProjects";
+  private static final String KEY_CHANGE_DATA_RETENTION_DAYS = "changeDataRetentionDays";
   private static final String KEY_MAX_REVIEW_LINES = "maxReviewLines";
   private static final String KEY_ENABLED_FILE_EXTENSIONS = "enabledFileExtensions";
+  private static final String KEY_IGNORED_REPO_FILES = "ignoredRepoFiles";
+  private static final String KEY_MAX_REPO_FILE_SIZE_KB = "maxRepoFileSizeKb";
   private static final String KEY_ENABLED_VOTING = "enabledVoting";
   private static final String KEY_FILTER_NEGATIVE_COMMENTS = "filterNegativeComments";
   private static final String KEY_FILTER_COMMENTS_BELOW_SCORE = "filterCommentsBelowScore";
@@ -136,6 +172,7 @@ public class Configuration extends ConfigCore {
   private static final String KEY_FILTER_COMMENTS_RELEVANCE_THRESHOLD =
       "filterCommentsRelevanceThreshold";
   private static final String KEY_LC_MAX_MEMORY_TOKENS = "lcMaxMemoryTokens";
+  private static final String KEY_LC_GEMINI_TOKEN_CALIBRATION = "lcGeminiTokenCalibration";
   private static final String KEY_LC_PROVIDER = "lcProvider";
   private static final String KEY_INLINE_COMMENTS_AS_RESOLVED = "inlineCommentsAsResolved";
   private static final String KEY_PATCH_SET_COMMENTS_AS_RESOLVED = "patchSetCommentsAsResolved";
@@ -146,9 +183,17 @@ public class Configuration extends ConfigCore {
   private static final String KEY_AI_CONNECTION_TIMEOUT = "aiConnectionTimeout";
   private static final String KEY_AI_CONNECTION_RETRY_INTERVAL = "aiConnectionRetryInterval";
   private static final String KEY_AI_CONNECTION_MAX_RETRY_ATTEMPTS = "aiConnectionMaxRetryAttempts";
+  private static final String KEY_AI_CONNECTION_MAX_REQUESTS_PER_HOST =
+      "aiConnectionMaxRequestsPerHost";
+  private static final String KEY_AI_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD =
+      "aiCircuitBreakerFailureRateThreshold";
+  private static final String KEY_AI_CIRCUIT_BREAKER_OPEN_DURATION = "aiCircuitBreakerOpenDuration";
+  private static final String KEY_AI_CIRCUIT_BREAKER_PARK_TASKS = "aiCircuitBreakerParkTasks";
   private static final String KEY_AI_POLLING_TIMEOUT = "aiPollingTimeout";
   private static final String KEY_AI_POLLING_INTERVAL = "aiPollingInterval";
   private static final String KEY_AI_UPLOADED_CHUNK_SIZE_MB = "aiUploadedChunkSizeMb";
+  private static final String KEY_AI_UPLOADED_CHUNK_FILL_RATIO = "aiUploadedChunkFillRatio";
+  private static final String KEY_AI_UPLOAD_MAX_CONCURRENCY = "aiUploadMaxConcurrency";
   private static final String KEY_ENABLE_MESSAGE_DEBUGGING = "enableMessageDebugging";
 
   public Configuration(
@@ -205,9 +250,8 @@ public class Configuration extends ConfigCore {
   // displaying the configuration after a command request), they are retrieved from the prompt
   // files.
   public String getAiSystemPromptInstructions() {
-    Map<String, Object> systemPrompts = getJsonPromptValues("prompts");
     return getAiSystemPromptInstructions(
-        systemPrompts.get("DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS").toString());
+        PromptCatalog.getPromptValue("prompts", "DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS"));
   }
 
   public boolean getAiReviewPatchSet() {
@@ -239,6 +283,49 @@ public class Configuration extends ConfigCore {
         KEY_CODE_CONTEXT_ON_DEMAND_BASE_PATH, DEFAULT_CODE_CONTEXT_ON_DEMAND_BASE_PATH);
   }
 
+  public boolean getCodeContextOnDemandSymbolIndex() {
+    return getBoolean(
+        KEY_CODE_CONTEXT_ON_DEMAND_SYMBOL_INDEX, DEFAULT_CODE_CONTEXT_ON_DEMAND_SYMBOL_INDEX);
+  }
+
+  public int getCodeContextOnDemandMaxConcurrency() {
+    return getInt(
+        KEY_CODE_CONTEXT_ON_DEMAND_MAX_CONCURRENCY, DEFAULT_CODE_CONTEXT_ON_DEMAND_MAX_CONCURRENCY);
+  }
+
+  public boolean getCodeContextOnDemandPrefetch() {
+    return getBoolean(KEY_CODE_CONTEXT_ON_DEMAND_PREFETCH, DEFAULT_CODE_CONTEXT_ON_DEMAND_PREFETCH);
+  }
+
+  public int getCodeContextOnDemandPrefetchMaxItems() {
+    return getInt(
+        KEY_CODE_CONTEXT_ON_DEMAND_PREFETCH_MAX_ITEMS,
+        DEFAULT_CODE_CONTEXT_ON_DEMAND_PREFETCH_MAX_ITEMS);
+  }
+
+  public int getCodeContextOnDemandPrefetchTokenBudget() {
+    return getInt(
+        KEY_CODE_CONTEXT_ON_DEMAND_PREFETCH_TOKEN_BUDGET,
+        DEFAULT_CODE_CONTEXT_ON_DEMAND_PREFETCH_TOKEN_BUDGET);
+  }
+
+  public RetrievalIndexTypes getCodeContextRetrievalIndex() {
+    return getEnum(
+        KEY_CODE_CONTEXT_RETRIEVAL_INDEX,
+        DEFAULT_CODE_CONTEXT_RETRIEVAL_INDEX,
+        RetrievalIndexTypes.class);
+  }
+
+  public int getCodeContextRetrievalMaxSnippets() {
+    return getInt(
+        KEY_CODE_CONTEXT_RETRIEVAL_MAX_SNIPPETS, DEFAULT_CODE_CONTEXT_RETRIEVAL_MAX_SNIPPETS);
+  }
+
+  public int getCodeContextRetrievalTokenBudget() {
+    return getInt(
+        KEY_CODE_CONTEXT_RETRIEVAL_TOKEN_BUDGET, DEFAULT_CODE_CONTEXT_RETRIEVAL_TOKEN_BUDGET);
+  }
+
   public boolean isProjectEnable() {
     return projectConfig.getBoolean(KEY_PROJECT_ENABLE, DEFAULT_PROJECT_ENABLE);
   }
@@ -275,6 +362,11 @@ public class Configuration extends ConfigCore {
     return globalConfig.getString(KEY_ENABLED_PROJECTS, DEFAULT_ENABLED_PROJECTS);
   }
 
+  public int getChangeDataRetentionDays() {
+    return globalConfig.getInt(
+        KEY_CHANGE_DATA_RETENTION_DAYS, DEFAULT_CHANGE_DATA_RETENTION_DAYS);
+  }
+
   public int getMaxReviewLines() {
     return getInt(KEY_MAX_REVIEW_LINES, DEFAULT_MAX_REVIEW_LINES);
   }
@@ -284,6 +376,14 @@ public class Configuration extends ConfigCore {
         getString(KEY_ENABLED_FILE_EXTENSIONS, DEFAULT_ENABLED_FILE_EXTENSIONS));
   }
 
+  public List<String> getIgnoredRepoFiles() {
+    return splitConfig(getString(KEY_IGNORED_REPO_FILES, DEFAULT_IGNORED_REPO_FILES));
+  }
+
+  public int getMaxRepoFileSizeKb() {
+    return getInt(KEY_MAX_REPO_FILE_SIZE_KB, DEFAULT_MAX_REPO_FILE_SIZE_KB);
+  }
+
   public List<String> getDirective() {
     return splitListIntoItems(KEY_DIRECTIVES, DEFAULT_DIRECTIVES);
   }
@@ -357,6 +457,10 @@ public class Configuration extends ConfigCore {
     return getInt(KEY_LC_MAX_MEMORY_TOKENS, DEFAULT_LC_MAX_MEMORY_TOKENS);
   }
 
+  public boolean getLcGeminiTokenCalibration() {
+    return getBoolean(KEY_LC_GEMINI_TOKEN_CALIBRATION, DEFAULT_LC_GEMINI_TOKEN_CALIBRATION);
+  }
+
   public int getAiConnectionRetryInterval() {
     return getInt(KEY_AI_CONNECTION_RETRY_INTERVAL, DEFAULT_AI_CONNECTION_RETRY_INTERVAL);
   }
@@ -365,6 +469,25 @@ public class Configuration extends ConfigCore {
     return getInt(KEY_AI_CONNECTION_MAX_RETRY_ATTEMPTS, DEFAULT_AI_CONNECTION_MAX_RETRY_ATTEMPTS);
   }
 
+  public int getAiConnectionMaxRequestsPerHost() {
+    return getInt(
+        KEY_AI_CONNECTION_MAX_REQUESTS_PER_HOST, DEFAULT_AI_CONNECTION_MAX_REQUESTS_PER_HOST);
+  }
+
+  public double getAiCircuitBreakerFailureRateThreshold() {
+    return getDouble(
+        KEY_AI_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD,
+        DEFAULT_AI_CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD);
+  }
+
+  public int getAiCircuitBreakerOpenDuration() {
+    return getInt(KEY_AI_CIRCUIT_BREAKER_OPEN_DURATION, DEFAULT_AI_CIRCUIT_BREAKER_OPEN_DURATION);
+  }
+
+  public boolean getAiCircuitBreakerParkTasks() {
+    return getBoolean(KEY_AI_CIRCUIT_BREAKER_PARK_TASKS, DEFAULT_AI_CIRCUIT_BREAKER_PARK_TASKS);
+  }
+
   public int getAiPollingTimeout() {
     return getInt(KEY_AI_POLLING_TIMEOUT, DEFAULT_AI_POLLING_TIMEOUT);
   }
@@ -377,6 +500,14 @@ public class Configuration extends ConfigCore {
     return getInt(KEY_AI_UPLOADED_CHUNK_SIZE_MB, DEFAULT_AI_UPLOADED_CHUNK_SIZE_MB);
   }
 
+  public double getAiUploadedChunkFillRatio() {
+    return getDouble(KEY_AI_UPLOADED_CHUNK_FILL_RATIO, DEFAULT_AI_UPLOADED_CHUNK_FILL_RATIO);
+  }
+
+  public int getAiUploadMaxConcurrency() {
+    return getInt(KEY_AI_UPLOAD_MAX_CONCURRENCY, DEFAULT_AI_UPLOAD_MAX_CONCURRENCY);
+  }
+
   public boolean getEnableMessageDebugging() {
     return getBoolean(KEY_ENABLE_MESSAGE_DEBUGGING, DEFAULT_ENABLE_MESSAGE_DEBUGGING);
   }
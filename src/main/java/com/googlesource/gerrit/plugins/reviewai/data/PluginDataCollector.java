@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.data;
+
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.server.git.WorkQueue;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataStore.GroupCommit;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Removes the data of the changes a retention period after they are merged or abandoned. The
+ * closing time of each change is tracked in a scope of its own, so that each closed or restored
+ * change only writes a record of its key.
+ */
+@Singleton
+@Slf4j
+public class PluginDataCollector {
+  private static final String PATH_CLOSED_CHANGES = "closedChanges";
+  private static final Duration FIRST_COLLECTION_DELAY = Duration.ofMinutes(10);
+  private static final Duration COLLECTION_INTERVAL = Duration.ofHours(6);
+  // Change scope files of the flat layout, named after the change key
+  private static final Pattern FLAT_CHANGE_SCOPE_PATTERN =
+      Pattern.compile("(I[0-9a-f]{40})\\.data(?:\\.log)?");
+
+  private final Path pluginDataPath;
+  private final PluginDataHandlerBaseProvider pluginDataHandlerBaseProvider;
+  private final ScheduledExecutorService executor;
+
+  private Duration retention;
+  private ScheduledFuture<?> collection;
+
+  @Inject
+  PluginDataCollector(
+      @PluginData Path pluginDataPath,
+      PluginDataHandlerBaseProvider pluginDataHandlerBaseProvider,
+      WorkQueue workQueue) {
+    this.pluginDataPath = pluginDataPath;
+    this.pluginDataHandlerBaseProvider = pluginDataHandlerBaseProvider;
+    this.executor = workQueue.createQueue(1, "AI plugin data collector");
+  }
+
+  /**
+   * Queues the move of the change scopes of the flat layout into their shards, then schedules the
+   * collection of the closed changes, unless the retention is disabled.
+   */
+  public synchronized void start(int retentionDays) {
+    // Run on the queue of the collections, which therefore only start once it is complete
+    executor.execute(this::migrateFlatLayout);
+    if (retentionDays <= 0) {
+      log.debug("Collection of the change data disabled");
+      return;
+    }
+    retention = Duration.ofDays(retentionDays);
+    collection =
+        executor.scheduleWithFixedDelay(
+            this::collect,
+            FIRST_COLLECTION_DELAY.toMinutes(),
+            COLLECTION_INTERVAL.toMinutes(),
+            TimeUnit.MINUTES);
+    log.debug("Collection of the change data scheduled with a retention of {}", retention);
+  }
+
+  public synchronized void stop() {
+    if (collection != null) {
+      collection.cancel(false);
+      collection = null;
+    }
+  }
+
+  public void markChangeClosed(String changeKey) {
+    log.debug("Change {} closed: its data is kept until the retention expires", changeKey);
+    getClosedChanges().setValue(changeKey, String.valueOf(Instant.now().getEpochSecond()));
+  }
+
+  public void markChangeReopened(String changeKey) {
+    log.debug("Change {} reopened: its data is kept", changeKey);
+    getClosedChanges().removeValue(changeKey);
+  }
+
+  private void collect() {
+    try {
+      collectClosedChanges();
+    } catch (RuntimeException e) {
+      // Caught so that the next collections stay scheduled
+      log.error("Failed to collect the data of the closed changes", e);
+    }
+  }
+
+  private void collectClosedChanges() {
+    Instant expiry = Instant.now().minus(retention);
+    PluginDataHandler closedChanges = getClosedChanges();
+    int collected = 0;
+    try (GroupCommit ignored = PluginDataStore.beginGroupCommit()) {
+      for (Map.Entry<String, String> closedChange : closedChanges.getAllValues().entrySet()) {
+        String changeKey = closedChange.getKey();
+        try {
+          if (Instant.ofEpochSecond(Long.parseLong(closedChange.getValue())).isAfter(expiry)) {
+            continue;
+          }
+          pluginDataHandlerBaseProvider.deleteChangeScope(changeKey);
+          closedChanges.removeValue(changeKey);
+          collected++;
+        } catch (RuntimeException e) {
+          log.warn("Failed to collect the data of change {}", changeKey, e);
+        }
+      }
+    }
+    log.info("Collected the data of {} closed changes", collected);
+  }
+
+  private void migrateFlatLayout() {
+    // The data and log files of a change share its key
+    Set<String> changeKeys = new LinkedHashSet<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(pluginDataPath, "I*.data*")) {
+      for (Path flatFile : files) {
+        Matcher flatFileMatcher =
+            FLAT_CHANGE_SCOPE_PATTERN.matcher(flatFile.getFileName().toString());
+        if (flatFileMatcher.matches()) {
+          changeKeys.add(flatFileMatcher.group(1));
+        }
+      }
+    } catch (IOException e) {
+      log.error("Failed to list the plugin data files to migrate", e);
+      return;
+    }
+    int migrated = 0;
+    for (String changeKey : changeKeys) {
+      try {
+        if (pluginDataHandlerBaseProvider.migrateFlatChangeScope(changeKey)) {
+          migrated++;
+        } else {
+          log.warn("Flat plugin data of change {} conflicts with its sharded data", changeKey);
+        }
+      } catch (RuntimeException e) {
+        log.error("Failed to migrate the plugin data of change {}", changeKey, e);
+      }
+    }
+    if (migrated > 0) {
+      log.info("Migrated {} change data files to the sharded layout", migrated);
+    }
+  }
+
+  private PluginDataHandler getClosedChanges() {
+    return pluginDataHandlerBaseProvider.get(PATH_CLOSED_CHANGES);
+  }
+}
@@ -21,11 +21,10 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
 import java.lang.reflect.Type;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.*;
+import java.util.List;
+import java.util.Map;
 
 import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
 
@@ -33,34 +32,33 @@ import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
 @Slf4j
 public class PluginDataHandler {
   private final Path configFile;
-  private final Properties configProperties = new Properties();
+  private final PluginDataStore pluginDataStore;
 
   @Inject
   public PluginDataHandler(Path configFilePath) {
     this.configFile = configFilePath;
     try {
-      log.debug("Loading or creating properties file at: {}", configFilePath);
-      loadOrCreateProperties();
-    } catch (IOException e) {
-      log.error("Failed to load or create properties", e);
-      throw new RuntimeException(e);
+      log.debug("Loading or creating plugin data file at: {}", configFilePath);
+      pluginDataStore = PluginDataStore.open(configFilePath);
+    } catch (RuntimeException e) {
+      log.error("Failed to load or create plugin data", e);
+      throw e;
     }
   }
 
-  public synchronized void setValue(String key, String value) {
+  public void setValue(String key, String value) {
     log.debug("Setting value for key: {} with value: {}", key, value);
-    configProperties.setProperty(key, value);
-    storeProperties();
+    pluginDataStore.set(key, value);
   }
 
-  public synchronized void setJsonValue(String key, Object value) {
+  public void setJsonValue(String key, Object value) {
     log.debug("Setting JSON value for key: {}", key);
     setValue(key, getGson().toJson(value));
   }
 
   public String getValue(String key) {
     log.debug("Getting value for key: {}", key);
-    return configProperties.getProperty(key);
+    return pluginDataStore.get(key);
   }
 
   public <T> List<T> getJsonArrayValue(String key, Class<T> clazz) {
@@ -85,61 +83,44 @@ public class PluginDataHandler {
 
   public Map<String, String> getAllValues() {
     log.debug("Getting all properties");
-    Map<String, String> allProperties = new HashMap<>();
-    for (String key : configProperties.stringPropertyNames()) {
-      allProperties.put(key, configProperties.getProperty(key));
-    }
-    return allProperties;
+    return pluginDataStore.getAll();
   }
 
-  public synchronized <T> void appendJsonValue(String key, T value, Class<T> clazz) {
+  /**
+   * Appends the value to the JSON array stored under the key. Only the value is written, not the
+   * whole array.
+   */
+  public <T> void appendJsonValue(String key, T value, Class<T> clazz) {
     log.debug("Updating JSON value for key: {}", key);
-    List<T> jsonProperty = getJsonArrayValue(key, clazz);
-    if (jsonProperty == null) {
-      jsonProperty = new ArrayList<>();
+    pluginDataStore.appendToJsonArray(key, getGson().toJson(value, clazz));
+  }
+
+  /**
+   * Appends the value to the JSON array stored under the key, keeping the array from growing
+   * indefinitely: once it holds twice the maximum number of entries, only the latest maximum number
+   * are kept. The array is rewritten on trimming only.
+   */
+  public <T> void appendJsonValue(String key, T value, Class<T> clazz, int maxEntries) {
+    appendJsonValue(key, value, clazz);
+    List<T> entries = getJsonArrayValue(key, clazz);
+    if (entries.size() >= 2 * maxEntries) {
+      log.debug("Trimming JSON array of key {} to {} entries", key, maxEntries);
+      setJsonValue(key, entries.subList(entries.size() - maxEntries, entries.size()));
     }
-    jsonProperty.add(value);
-    setJsonValue(key, jsonProperty);
   }
 
-  public synchronized void removeValue(String key) {
+  public void removeValue(String key) {
     log.debug("Removing value for key: {}", key);
-    if (configProperties.containsKey(key)) {
-      configProperties.remove(key);
-      storeProperties();
-    }
+    pluginDataStore.remove(key);
   }
 
-  public synchronized void destroy() {
+  public void destroy() {
     log.debug("Destroying configuration file at: {}", configFile);
     try {
-      Files.deleteIfExists(configFile);
-    } catch (IOException e) {
+      pluginDataStore.destroy();
+    } catch (RuntimeException e) {
       log.error("Failed to delete the config file: " + configFile, e);
       throw new RuntimeException("Failed to delete the config file: " + configFile, e);
     }
   }
-
-  private void storeProperties() {
-    log.debug("Storing properties to file: {}", configFile);
-    try (var output = Files.newOutputStream(configFile)) {
-      configProperties.store(output, null);
-    } catch (IOException e) {
-      log.error("Failed to store properties", e);
-      throw new RuntimeException(e);
-    }
-  }
-
-  private void loadOrCreateProperties() throws IOException {
-    log.debug("Checking existence of the configuration file: {}", configFile);
-    if (Files.notExists(configFile)) {
-      log.debug("Configuration file not found, creating new one at: {}", configFile);
-      Files.createFile(configFile);
-    } else {
-      log.debug("Loading properties from file: {}", configFile);
-      try (var input = Files.newInputStream(configFile)) {
-        configProperties.load(input);
-      }
-    }
-  }
 }
@@ -16,18 +16,43 @@
 
 package com.googlesource.gerrit.plugins.reviewai.data;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.HashUtils.hashData;
 
 @Singleton
 @Slf4j
 public class PluginDataHandlerBaseProvider implements Provider<PluginDataHandler> {
   private static final String PATH_SUFFIX = ".data";
   private static final String PATH_GLOBAL = "global";
+  private static final String PATH_CHANGES = "changes";
+  // Hex digits of the hash of the change key naming its shard, for 256 shards
+  private static final int CHANGE_SHARD_LENGTH = 2;
+  private static final int MAX_CACHED_HANDLERS = 1000;
+  private static final Duration IDLE_HANDLER_EXPIRY = Duration.ofMinutes(30);
+  // Serializes the migrations of the flat layout run on load and by the data collector
+  private static final Object FLAT_MIGRATION_LOCK = new Object();
+
+  // Shared by the providers of all the events, so that the tasks on a scope share its values
+  private static final Cache<Path, PluginDataHandler> handlers =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_CACHED_HANDLERS)
+          .expireAfterAccess(IDLE_HANDLER_EXPIRY)
+          .build();
 
   private final Path defaultPluginDataPath;
 
@@ -40,8 +65,82 @@ public class PluginDataHandlerBaseProvider implements Provider<PluginDataHandler
         defaultPluginDataPath);
   }
 
+  /**
+   * Returns the handler of the scope file, loading it only if not used recently. Handlers of idle
+   * scopes are evicted and their values reloaded from disk when the scope is used again.
+   */
   public PluginDataHandler get(String path) {
-    return new PluginDataHandler(defaultPluginDataPath.resolve(path + PATH_SUFFIX));
+    return get(defaultPluginDataPath.resolve(path + PATH_SUFFIX));
+  }
+
+  /**
+   * Returns the handler of the change scope, whose file is sharded into subdirectories so that the
+   * data directory does not grow with the number of changes.
+   */
+  public PluginDataHandler getChangeScope(String changeKey) {
+    Path dataFile = defaultPluginDataPath.resolve(getChangeScopeFilename(changeKey));
+    // The files of the earlier flat layout not migrated yet are moved before the scope is loaded
+    return get(
+        dataFile,
+        () -> {
+          migrateFlatChangeScope(changeKey);
+          return new PluginDataHandler(dataFile);
+        });
+  }
+
+  /** Returns whether any data of the change is stored, without loading its scope. */
+  public boolean hasChangeScope(String changeKey) {
+    Path dataFile = defaultPluginDataPath.resolve(getChangeScopeFilename(changeKey));
+    return PluginDataStore.exists(dataFile)
+        || PluginDataStore.exists(getFlatChangeScopeFile(changeKey));
+  }
+
+  /**
+   * Moves the files of the change scope from the earlier flat layout into its shard. Returns false
+   * if some of them could not be moved because the sharded files already exist.
+   */
+  public boolean migrateFlatChangeScope(String changeKey) {
+    Path flatFile = getFlatChangeScopeFile(changeKey);
+    synchronized (FLAT_MIGRATION_LOCK) {
+      if (!PluginDataStore.exists(flatFile)) return true;
+      try {
+        boolean migrated =
+            PluginDataStore.move(
+                flatFile, defaultPluginDataPath.resolve(getChangeScopeFilename(changeKey)));
+        log.debug("Flat plugin data of change {} migrated: {}", changeKey, migrated);
+        return migrated;
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to migrate plugin data file " + flatFile, e);
+      }
+    }
+  }
+
+  public void deleteChangeScope(String changeKey) {
+    Path dataFile = defaultPluginDataPath.resolve(getChangeScopeFilename(changeKey));
+    handlers.invalidate(dataFile.toAbsolutePath().normalize());
+    PluginDataStore.delete(dataFile);
+    PluginDataStore.delete(getFlatChangeScopeFile(changeKey));
+  }
+
+  public static String getChangeScopeFilename(String changeKey) {
+    String shard = hashData(List.of(changeKey)).substring(0, CHANGE_SHARD_LENGTH);
+    return PATH_CHANGES + "/" + shard + "/" + changeKey + PATH_SUFFIX;
+  }
+
+  private Path getFlatChangeScopeFile(String changeKey) {
+    return defaultPluginDataPath.resolve(changeKey + PATH_SUFFIX);
+  }
+
+  private PluginDataHandler get(Path dataFile) {
+    return get(dataFile, () -> new PluginDataHandler(dataFile));
+  }
+
+  private PluginDataHandler get(Path dataFile, Callable<PluginDataHandler> loader) {
+    try {
+      return handlers.get(dataFile.toAbsolutePath().normalize(), loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw new RuntimeException("Failed to load plugin data file " + dataFile, e.getCause());
+    }
   }
 
   @Override
@@ -31,6 +31,7 @@ import static com.googlesource.gerrit.plugins.reviewai.utils.FileUtils.sanitizeF
 public class PluginDataHandlerProvider extends PluginDataHandlerBaseProvider
     implements Provider<PluginDataHandler> {
   private static final String PATH_ASSISTANTS = ".assistants";
+  private static final String PATH_FILE_REGISTRY = "fileRegistry";
 
   private final String projectName;
   private final String changeKey;
@@ -63,7 +64,12 @@ public class PluginDataHandlerProvider extends PluginDataHandlerBaseProvider
 
   public PluginDataHandler getChangeScope() {
     log.debug("Accessing PluginDataHandler for change scope: {}", changeKey);
-    return super.get(changeKey);
+    return super.getChangeScope(changeKey);
+  }
+
+  public PluginDataHandler getFileRegistry() {
+    log.debug("Accessing PluginDataHandler for file registry: {}", PATH_FILE_REGISTRY);
+    return super.get(PATH_FILE_REGISTRY);
   }
 
   public PluginDataHandler getAssistantsWorkspace() {
@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.data;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.Striped;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Storage engine of the plugin data files. The values are held in memory and persisted as a
+ * snapshot in properties format, followed by an append-only log of the changes made since. Each
+ * change appends a record of its own size to the log; once the log outgrows the snapshot, the
+ * values are compacted into a new snapshot, replaced atomically, and the log is started over.
+ *
+ * <p>Records written while a {@link GroupCommit} is open on the thread are appended together when
+ * it is closed, so that a task pays a single write for all its changes. Records carry a checksum:
+ * a log cut short by a crash is replayed up to its last complete record.
+ *
+ * <p>A single store is open per file, shared by all the handlers of the file. Reads of a file run
+ * concurrently, while changes hold the write lock of the file, taken from a fixed set of stripes.
+ */
+@Slf4j
+public class PluginDataStore {
+  private static final String LOG_SUFFIX = ".log";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final String SNAPSHOT_GENERATION_COMMENT = "generation ";
+  private static final int LOG_MAGIC = 0x52444c47;
+  private static final int LOG_VERSION = 1;
+  // Magic, version and generation of the log
+  private static final int LOG_HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES;
+  // Payload length and checksum of each record
+  private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+  // Logs smaller than this are not compacted, however small the snapshot
+  private static final long MIN_COMPACTION_LOG_BYTES = 256 * 1024;
+  // Pending records are written right away beyond this size, even within a group commit
+  private static final int MAX_PENDING_BYTES = 1024 * 1024;
+
+  private static final int LOCK_STRIPES = 64;
+
+  private static final byte OP_SET = 1;
+  private static final byte OP_REMOVE = 2;
+  private static final byte OP_APPEND = 3;
+
+  private static final ConcurrentMap<Path, PluginDataStore> openStores =
+      new MapMaker().weakValues().makeMap();
+  private static final ThreadLocal<GroupCommit> groupCommits = new ThreadLocal<>();
+  private static final Striped<ReadWriteLock> fileLocks = Striped.readWriteLock(LOCK_STRIPES);
+
+  private final Path snapshotFile;
+  private final Path logFile;
+  private final Lock readLock;
+  private final Lock writeLock;
+  private final Map<String, String> values = new HashMap<>();
+  private final ByteArrayOutputStream pendingRecords = new ByteArrayOutputStream();
+
+  // The snapshot holds all the records of the logs up to its generation
+  private long snapshotGeneration;
+  private long snapshotBytes;
+  private long logBytes;
+
+  /**
+   * Batches the records written by the thread until closed. Group commits can be nested: the
+   * records are written when the outermost one is closed.
+   */
+  public static class GroupCommit implements AutoCloseable {
+    private final Set<PluginDataStore> dirtyStores = new LinkedHashSet<>();
+    private int depth = 1;
+
+    @Override
+    public void close() {
+      if (--depth > 0) return;
+      groupCommits.remove();
+      for (PluginDataStore store : dirtyStores) {
+        try {
+          store.flush();
+        } catch (RuntimeException e) {
+          log.error("Failed to write the changes of {}", store.snapshotFile, e);
+        }
+      }
+    }
+  }
+
+  private PluginDataStore(Path snapshotFile) {
+    this.snapshotFile = snapshotFile;
+    logFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + LOG_SUFFIX);
+    ReadWriteLock fileLock = fileLocks.get(snapshotFile.toAbsolutePath().normalize());
+    readLock = fileLock.readLock();
+    writeLock = fileLock.writeLock();
+    writeLock.lock();
+    try {
+      load();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to load plugin data from " + snapshotFile, e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public static PluginDataStore open(Path snapshotFile) {
+    return openStores.computeIfAbsent(
+        snapshotFile.toAbsolutePath().normalize(), PluginDataStore::new);
+  }
+
+  /** Deletes the files of a store, which are not loaded if the store is not open. */
+  public static void delete(Path snapshotFile) {
+    PluginDataStore openStore = openStores.get(snapshotFile.toAbsolutePath().normalize());
+    if (openStore != null) {
+      openStore.destroy();
+      return;
+    }
+    Path logFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + LOG_SUFFIX);
+    Lock writeLock = fileLocks.get(snapshotFile.toAbsolutePath().normalize()).writeLock();
+    writeLock.lock();
+    try {
+      Files.deleteIfExists(logFile);
+      Files.deleteIfExists(snapshotFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to delete plugin data file " + snapshotFile, e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** Returns whether the store has any file, without loading it. */
+  public static boolean exists(Path snapshotFile) {
+    Path logFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + LOG_SUFFIX);
+    return Files.exists(snapshotFile) || Files.exists(logFile);
+  }
+
+  /**
+   * Moves the files of a store that is not open to another location. Files whose target already
+   * exists are left in place. Returns whether all the files of the store were moved.
+   */
+  public static boolean move(Path snapshotFile, Path targetSnapshotFile) throws IOException {
+    Path logFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + LOG_SUFFIX);
+    Path targetLogFile =
+        targetSnapshotFile.resolveSibling(targetSnapshotFile.getFileName() + LOG_SUFFIX);
+    Lock writeLock = fileLocks.get(targetSnapshotFile.toAbsolutePath().normalize()).writeLock();
+    writeLock.lock();
+    try {
+      Files.createDirectories(targetSnapshotFile.toAbsolutePath().getParent());
+      return moveIfAbsent(snapshotFile, targetSnapshotFile) & moveIfAbsent(logFile, targetLogFile);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** Loads the store from its files, as on restart, regardless of the stores already open. */
+  @VisibleForTesting
+  static PluginDataStore load(Path snapshotFile) {
+    return new PluginDataStore(snapshotFile);
+  }
+
+  public static GroupCommit beginGroupCommit() {
+    GroupCommit groupCommit = groupCommits.get();
+    if (groupCommit != null) {
+      groupCommit.depth++;
+      return groupCommit;
+    }
+    groupCommit = new GroupCommit();
+    groupCommits.set(groupCommit);
+    return groupCommit;
+  }
+
+  public String get(String key) {
+    readLock.lock();
+    try {
+      return values.get(key);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  public Map<String, String> getAll() {
+    readLock.lock();
+    try {
+      return new HashMap<>(values);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  public void set(String key, String value) {
+    writeLock.lock();
+    try {
+      values.put(key, value);
+      appendRecord(OP_SET, key, value);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public void remove(String key) {
+    writeLock.lock();
+    try {
+      if (values.remove(key) != null) {
+        appendRecord(OP_REMOVE, key, null);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** Appends an element, given in JSON, to the JSON array stored under the key. */
+  public void appendToJsonArray(String key, String elementJson) {
+    writeLock.lock();
+    try {
+      values.put(key, appendJsonElement(values.get(key), elementJson));
+      appendRecord(OP_APPEND, key, elementJson);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** Deletes the files of the store, whose values are cleared. */
+  public void destroy() {
+    writeLock.lock();
+    try {
+      values.clear();
+      pendingRecords.reset();
+      Files.deleteIfExists(logFile);
+      Files.deleteIfExists(snapshotFile);
+      snapshotGeneration = 0;
+      snapshotBytes = 0;
+      logBytes = 0;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to delete plugin data file " + snapshotFile, e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /** Writes the pending records to the log, compacting it if it has outgrown the snapshot. */
+  public void flush() {
+    writeLock.lock();
+    try {
+      writePendingRecords();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write plugin data to " + logFile, e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private void writePendingRecords() throws IOException {
+    if (pendingRecords.size() == 0) return;
+    if (logBytes == 0) {
+      writeLogHeader(logFile, snapshotGeneration + 1);
+      logBytes = LOG_HEADER_BYTES;
+    }
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+      ByteBuffer records = ByteBuffer.wrap(pendingRecords.toByteArray());
+      channel.position(logBytes);
+      while (records.hasRemaining()) {
+        channel.write(records);
+      }
+      channel.force(false);
+    }
+    log.debug("Appended {} bytes of records to {}", pendingRecords.size(), logFile);
+    logBytes += pendingRecords.size();
+    pendingRecords.reset();
+    if (logBytes > MIN_COMPACTION_LOG_BYTES && logBytes > snapshotBytes) {
+      compact();
+    }
+  }
+
+  private void appendRecord(byte op, String key, String value) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    byte[] valueBytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    ByteBuffer payload =
+        ByteBuffer.allocate(1 + 2 * Integer.BYTES + keyBytes.length + valueBytes.length);
+    payload.put(op).putInt(keyBytes.length).put(keyBytes);
+    payload.putInt(valueBytes.length).put(valueBytes);
+    CRC32 crc = new CRC32();
+    crc.update(payload.array());
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+    header.putInt(payload.capacity()).putInt((int) crc.getValue());
+    pendingRecords.writeBytes(header.array());
+    pendingRecords.writeBytes(payload.array());
+
+    GroupCommit groupCommit = groupCommits.get();
+    if (groupCommit != null && pendingRecords.size() <= MAX_PENDING_BYTES) {
+      groupCommit.dirtyStores.add(this);
+    } else {
+      flush();
+    }
+  }
+
+  private void compact() throws IOException {
+    log.debug("Compacting {} bytes of log into {}", logBytes, snapshotFile);
+    long logGeneration = snapshotGeneration + 1;
+    Properties properties = new Properties();
+    properties.putAll(values);
+    Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + TEMP_SUFFIX);
+    try (OutputStream output = Files.newOutputStream(tempFile)) {
+      properties.store(output, SNAPSHOT_GENERATION_COMMENT + logGeneration);
+    }
+    moveAtomically(tempFile, snapshotFile);
+    snapshotGeneration = logGeneration;
+    snapshotBytes = Files.size(snapshotFile);
+    // Until the log is started over, its records are skipped as already in the snapshot
+    Path tempLogFile = logFile.resolveSibling(logFile.getFileName() + TEMP_SUFFIX);
+    writeLogHeader(tempLogFile, snapshotGeneration + 1);
+    moveAtomically(tempLogFile, logFile);
+    logBytes = LOG_HEADER_BYTES;
+  }
+
+  private void load() throws IOException {
+    if (Files.notExists(snapshotFile)) {
+      log.debug("Plugin data file not found, creating new one at: {}", snapshotFile);
+      Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+      Files.createFile(snapshotFile);
+    } else {
+      Properties properties = new Properties();
+      try (BufferedReader reader =
+          Files.newBufferedReader(snapshotFile, StandardCharsets.ISO_8859_1)) {
+        String firstLine = reader.readLine();
+        if (firstLine != null && firstLine.startsWith("#" + SNAPSHOT_GENERATION_COMMENT)) {
+          snapshotGeneration =
+              Long.parseLong(
+                  firstLine.substring(SNAPSHOT_GENERATION_COMMENT.length() + 1).trim());
+        }
+      }
+      try (InputStream input = Files.newInputStream(snapshotFile)) {
+        properties.load(input);
+      }
+      for (String key : properties.stringPropertyNames()) {
+        values.put(key, properties.getProperty(key));
+      }
+    }
+    snapshotBytes = Files.size(snapshotFile);
+    if (Files.exists(logFile)) {
+      replayLog();
+    }
+  }
+
+  private void replayLog() throws IOException {
+    byte[] bytes = Files.readAllBytes(logFile);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    if (bytes.length < LOG_HEADER_BYTES
+        || buffer.getInt() != LOG_MAGIC
+        || buffer.getInt() != LOG_VERSION
+        || buffer.getLong() <= snapshotGeneration) {
+      // Left over by a compaction interrupted after the snapshot was replaced
+      log.debug("Discarding plugin data log {} already in the snapshot", logFile);
+      Files.delete(logFile);
+      return;
+    }
+    int records = 0;
+    while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+      int recordStart = buffer.position();
+      int payloadLength = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (payloadLength < 0 || payloadLength > buffer.remaining()) {
+        buffer.position(recordStart);
+        break;
+      }
+      CRC32 crc = new CRC32();
+      crc.update(bytes, buffer.position(), payloadLength);
+      if ((int) crc.getValue() != checksum) {
+        buffer.position(recordStart);
+        break;
+      }
+      applyRecord(buffer.slice(buffer.position(), payloadLength));
+      buffer.position(buffer.position() + payloadLength);
+      records++;
+    }
+    logBytes = buffer.position();
+    if (logBytes < bytes.length) {
+      log.warn(
+          "Truncating plugin data log {} after {} records, at the incomplete record at {}",
+          logFile,
+          records,
+          logBytes);
+      try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+        channel.truncate(logBytes);
+      }
+    }
+    log.debug("Replayed {} records of plugin data log {}", records, logFile);
+  }
+
+  private void applyRecord(ByteBuffer payload) {
+    byte op = payload.get();
+    byte[] keyBytes = new byte[payload.getInt()];
+    payload.get(keyBytes);
+    byte[] valueBytes = new byte[payload.getInt()];
+    payload.get(valueBytes);
+    String key = new String(keyBytes, StandardCharsets.UTF_8);
+    String value = new String(valueBytes, StandardCharsets.UTF_8);
+    switch (op) {
+      case OP_SET -> values.put(key, value);
+      case OP_REMOVE -> values.remove(key);
+      case OP_APPEND -> values.put(key, appendJsonElement(values.get(key), value));
+      default -> throw new IllegalStateException("Unknown plugin data record type: " + op);
+    }
+  }
+
+  private static String appendJsonElement(String arrayJson, String elementJson) {
+    if (arrayJson == null || arrayJson.isBlank()) {
+      return "[" + elementJson + "]";
+    }
+    String trimmedArrayJson = arrayJson.trim();
+    if (!trimmedArrayJson.startsWith("[") || !trimmedArrayJson.endsWith("]")) {
+      throw new IllegalStateException("Plugin data value is not a JSON array: " + arrayJson);
+    }
+    String elements = trimmedArrayJson.substring(1, trimmedArrayJson.length() - 1);
+    return elements.isBlank()
+        ? "[" + elementJson + "]"
+        : trimmedArrayJson.substring(0, trimmedArrayJson.length() - 1) + "," + elementJson + "]";
+  }
+
+  private static void writeLogHeader(Path path, long generation) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES);
+    header.putInt(LOG_MAGIC).putInt(LOG_VERSION).putLong(generation);
+    Files.write(path, header.array());
+  }
+
+  private static boolean moveIfAbsent(Path source, Path target) throws IOException {
+    if (Files.notExists(source)) return true;
+    if (Files.exists(target)) return false;
+    Files.move(source, target);
+    return true;
+  }
+
+  private static void moveAtomically(Path source, Path target) throws IOException {
+    try {
+      Files.move(
+          source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
@@ -33,9 +33,13 @@ public interface ICodeContextPolicy {
 
   void removeVectorStore() throws OperationNotSupportedException;
 
+  boolean syncVectorStore() throws AiConnectionFailException;
+
   void updateAssistantTools(OpenAiAssistantTools openAIAssistantTools, String vectorStoreId);
 
   void addCodeContextPolicyAwareAssistantInstructions(List<String> instructions);
 
   void addCodeContextPolicyAwareAssistantRule(List<String> rules);
+
+  void addCodeContextPolicyAwareReviewMessage(List<String> messageComponents, String patchSet);
 }
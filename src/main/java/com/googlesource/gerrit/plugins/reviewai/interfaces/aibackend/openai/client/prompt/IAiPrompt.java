@@ -21,6 +21,8 @@ import java.util.List;
 public interface IAiPrompt {
   void addAiAssistantInstructions(List<String> instructions);
 
+  String getDefaultAiAssistantName();
+
   String getDefaultAiAssistantDescription();
 
   String getDefaultAiAssistantInstructions();
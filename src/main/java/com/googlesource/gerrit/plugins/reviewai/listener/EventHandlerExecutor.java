@@ -23,16 +23,30 @@ import com.google.gerrit.server.git.WorkQueue;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.Injector;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpCircuitBreaker;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Singleton
 @Slf4j
 public class EventHandlerExecutor {
+  private static final long PROBE_POLLING_INTERVAL = 1000;
+  private static final long MAX_RELEASE_JITTER = 500;
+
   private final Injector injector;
   private final ScheduledExecutorService executor;
+  private final Map<String, Queue<Runnable>> parkedTasks = new HashMap<>();
+  private final Set<String> releasingDomains = new HashSet<>();
 
   @Inject
   EventHandlerExecutor(
@@ -52,7 +66,79 @@ public class EventHandlerExecutor {
     GerritEventContextModule contextModule = new GerritEventContextModule(config, event);
     EventHandlerTask task =
         injector.createChildInjector(contextModule).getInstance(EventHandlerTask.class);
+    HttpCircuitBreaker breaker = getParkingBreaker(config);
+    if (breaker != null && breaker.getState() != HttpCircuitBreaker.State.CLOSED) {
+      log.info("AI endpoint unavailable: task for event {} parked", event);
+      park(config.getAiDomain(), breaker, task);
+      return;
+    }
     executor.execute(task);
     log.debug("Task submitted to executor for event: {}", event);
   }
+
+  // Tasks that would fail fast against an open circuit are parked until the circuit is closed
+  private HttpCircuitBreaker getParkingBreaker(Configuration config) {
+    if (!config.getAiCircuitBreakerParkTasks()) {
+      return null;
+    }
+    return HttpCircuitBreaker.getInstance(
+        config.getAiDomain(),
+        config.getAiCircuitBreakerFailureRateThreshold(),
+        config.getAiCircuitBreakerOpenDuration());
+  }
+
+  private synchronized void park(String domain, HttpCircuitBreaker breaker, Runnable task) {
+    parkedTasks.computeIfAbsent(domain, d -> new ArrayDeque<>()).add(task);
+    if (releasingDomains.add(domain)) {
+      scheduleRelease(domain, breaker, breaker.getRemainingOpenMillis());
+    }
+  }
+
+  /**
+   * Releases the tasks parked for a domain according to the state of its circuit breaker.
+   *
+   * <p>While the circuit is open the release is rescheduled for when it expires. Since the
+   * half-open circuit lets a single probe through, the parked tasks are then run one at a time,
+   * each one acting as the probe for the next, until the circuit closes and all the remaining
+   * tasks are released together.
+   */
+  private synchronized void releaseParkedTasks(String domain, HttpCircuitBreaker breaker) {
+    Queue<Runnable> tasks = parkedTasks.get(domain);
+    if (tasks == null || tasks.isEmpty()) {
+      releasingDomains.remove(domain);
+      return;
+    }
+    if (breaker.getState() == HttpCircuitBreaker.State.CLOSED) {
+      log.info("AI endpoint {} available: releasing {} parked tasks", domain, tasks.size());
+      tasks.forEach(executor::execute);
+      tasks.clear();
+      releasingDomains.remove(domain);
+      return;
+    }
+    long remainingOpenMillis = breaker.getRemainingOpenMillis();
+    if (remainingOpenMillis > 0) {
+      scheduleRelease(domain, breaker, remainingOpenMillis);
+    } else if (breaker.isProbeInFlight()) {
+      scheduleRelease(domain, breaker, PROBE_POLLING_INTERVAL);
+    } else {
+      log.debug("Running parked task as probe for {}", domain);
+      Runnable probeTask = tasks.poll();
+      executor.execute(
+          () -> {
+            try {
+              probeTask.run();
+            } finally {
+              releaseParkedTasks(domain, breaker);
+            }
+          });
+    }
+  }
+
+  private void scheduleRelease(String domain, HttpCircuitBreaker breaker, long delay) {
+    // The jitter keeps the releases of different domains from firing in lockstep
+    long releaseDelay = delay + ThreadLocalRandom.current().nextLong(MAX_RELEASE_JITTER + 1);
+    log.debug("Parked tasks for {} released in {} ms", domain, releaseDelay);
+    executor.schedule(
+        () -> releaseParkedTasks(domain, breaker), releaseDelay, TimeUnit.MILLISECONDS);
+  }
 }
@@ -26,10 +26,14 @@ import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.reviewai.PatchSetReviewer;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
 import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandlerProvider;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataStore;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataStore.GroupCommit;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.listener.IEventHandlerType;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritClient;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.ProjectInstructions;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.ChangeSetData;
 import lombok.extern.slf4j.Slf4j;
 
@@ -71,6 +75,7 @@ public class EventHandlerTask implements Runnable {
   private final PatchSetReviewer reviewer;
   private final ICodeContextPolicy codeContextPolicy;
   private final PluginDataHandlerProvider pluginDataHandlerProvider;
+  private final GitRepoFiles gitRepoFiles;
 
   private SupportedEvents processing_event_type;
   private IEventHandlerType eventHandlerType;
@@ -83,7 +88,8 @@ public class EventHandlerTask implements Runnable {
       PatchSetReviewer reviewer,
       GerritClient gerritClient,
       ICodeContextPolicy codeContextPolicy,
-      PluginDataHandlerProvider pluginDataHandlerProvider) {
+      PluginDataHandlerProvider pluginDataHandlerProvider,
+      GitRepoFiles gitRepoFiles) {
     this.changeSetData = changeSetData;
     this.change = change;
     this.reviewer = reviewer;
@@ -91,6 +97,7 @@ public class EventHandlerTask implements Runnable {
     this.config = config;
     this.codeContextPolicy = codeContextPolicy;
     this.pluginDataHandlerProvider = pluginDataHandlerProvider;
+    this.gitRepoFiles = gitRepoFiles;
     log.debug("EventHandlerTask initialized for change ID: {}", change.getFullChangeId());
   }
 
@@ -103,6 +110,13 @@ public class EventHandlerTask implements Runnable {
 
   @VisibleForTesting
   public Result execute() {
+    // The plugin data changed while processing the event are written once, at the end
+    try (GroupCommit ignored = PluginDataStore.beginGroupCommit()) {
+      return processEvent();
+    }
+  }
+
+  private Result processEvent() {
     log.debug("Starting event processing for change ID: {}", change.getFullChangeId());
     if (!preProcessEvent()) {
       log.debug(
@@ -112,6 +126,8 @@ public class EventHandlerTask implements Runnable {
 
     try {
       log.info("Processing event for change ID:: {}", change.getFullChangeId());
+      changeSetData.setProjectInstructions(
+          new ProjectInstructions(change, gitRepoFiles).getProjectInstructions());
       eventHandlerType.processEvent();
       log.info("Finished processing event for change ID: {}", change.getFullChangeId());
     } catch (Exception e) {
@@ -120,6 +136,8 @@ public class EventHandlerTask implements Runnable {
         Thread.currentThread().interrupt();
       }
       return Result.FAILURE;
+    } finally {
+      gitRepoFiles.close();
     }
     return Result.OK;
   }
@@ -165,7 +183,12 @@ public class EventHandlerTask implements Runnable {
           new EventHandlerTypeCommentAdded(changeSetData, change, reviewer, gerritClient);
       case CHANGE_MERGED ->
           new EventHandlerTypeChangeMerged(
-              config, changeSetData, change, codeContextPolicy, pluginDataHandlerProvider);
+              config,
+              changeSetData,
+              change,
+              codeContextPolicy,
+              pluginDataHandlerProvider,
+              gitRepoFiles);
     };
   }
 
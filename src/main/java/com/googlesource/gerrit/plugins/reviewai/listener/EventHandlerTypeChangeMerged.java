@@ -22,10 +22,21 @@ import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.OperationNotSu
 import com.googlesource.gerrit.plugins.reviewai.interfaces.listener.IEventHandlerType;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyBase.CodeContextPolicies;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyRetrieval.RetrievalIndexTypes;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.index.SymbolIndexer;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.IndexBuildExecutor;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index.RetrievalIndexStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index.RetrievalIndexer;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndexStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndexer;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.ChangeSetData;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.OpenAiAssistantHandler;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.function.Consumer;
+
 @Slf4j
 public class EventHandlerTypeChangeMerged implements IEventHandlerType {
   private final Configuration config;
@@ -33,18 +44,21 @@ public class EventHandlerTypeChangeMerged implements IEventHandlerType {
   private final GerritChange change;
   private final ICodeContextPolicy codeContextPolicy;
   private final PluginDataHandlerProvider pluginDataHandlerProvider;
+  private final GitRepoFiles gitRepoFiles;
 
   EventHandlerTypeChangeMerged(
       Configuration config,
       ChangeSetData changeSetData,
       GerritChange change,
       ICodeContextPolicy codeContextPolicy,
-      PluginDataHandlerProvider pluginDataHandlerProvider) {
+      PluginDataHandlerProvider pluginDataHandlerProvider,
+      GitRepoFiles gitRepoFiles) {
     this.config = config;
     this.changeSetData = changeSetData;
     this.change = change;
     this.codeContextPolicy = codeContextPolicy;
     this.pluginDataHandlerProvider = pluginDataHandlerProvider;
+    this.gitRepoFiles = gitRepoFiles;
     log.debug(
         "Initialized EventHandlerTypeChangeMerged for change ID: {}", change.getFullChangeId());
   }
@@ -58,16 +72,61 @@ public class EventHandlerTypeChangeMerged implements IEventHandlerType {
   @Override
   public void processEvent() {
     log.debug("Starting processing event for change merged: {}", change.getFullChangeId());
+    updateSymbolIndex();
+    updateRetrievalIndex();
     OpenAiAssistantHandler openAiAssistantHandler =
         new OpenAiAssistantHandler(
             config, changeSetData, change, codeContextPolicy, pluginDataHandlerProvider);
     try {
-      openAiAssistantHandler.flushAssistantAndVectorIds();
+      openAiAssistantHandler.syncAssistantAndVectorIds();
     } catch (OperationNotSupportedException e) {
-      log.error("Exception while flushing assistant and vector ids", e);
+      log.error("Exception while syncing assistant and vector ids", e);
       return;
     }
     log.debug(
-        "Flushed assistant and Vector Store IDs for change merged: {}", change.getFullChangeId());
+        "Synced assistant and Vector Store IDs for change merged: {}", change.getFullChangeId());
+  }
+
+  private void updateSymbolIndex() {
+    if (config.getCodeContextPolicy() != CodeContextPolicies.ON_DEMAND
+        || !config.getCodeContextOnDemandSymbolIndex()) {
+      return;
+    }
+    // Definitions are still located by searching the files until the index is updated
+    IndexBuildExecutor.scheduleBuild(
+        "symbol",
+        change,
+        gitRepoFiles,
+        repoFiles -> new SymbolIndexer(config, change, repoFiles).updateIndex());
+  }
+
+  private void updateRetrievalIndex() {
+    if (config.getCodeContextPolicy() != CodeContextPolicies.RETRIEVAL) return;
+    try {
+      if (config.getCodeContextRetrievalIndex() == RetrievalIndexTypes.LEXICAL) {
+        updateIndex(
+            "lexical",
+            LexicalIndexStore.getIndex(change.getProjectName()) != null,
+            repoFiles -> new LexicalIndexer(config, change, repoFiles).updateIndex());
+      } else {
+        updateIndex(
+            "retrieval",
+            RetrievalIndexStore.getIndex(change.getProjectName()) != null,
+            repoFiles -> new RetrievalIndexer(config, change, repoFiles).updateIndex());
+      }
+    } catch (RuntimeException e) {
+      // The index still serves the previous commit until the next merge updates it
+      log.error("Exception while updating the retrieval index", e);
+    }
+  }
+
+  // Existing indexes are updated with the merged files, while missing ones are built in the
+  // background, as that takes processing the whole repository
+  private void updateIndex(String indexType, boolean indexExists, Consumer<GitRepoFiles> update) {
+    if (indexExists) {
+      update.accept(gitRepoFiles);
+    } else {
+      IndexBuildExecutor.scheduleBuild(indexType, change, gitRepoFiles, update);
+    }
   }
 }
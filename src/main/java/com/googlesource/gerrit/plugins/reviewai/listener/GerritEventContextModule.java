@@ -30,8 +30,10 @@ import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.clie
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.api.gerrit.IGerritClientPatchSet;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyNone;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyOnDemand;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.CodeContextPolicyRetrieval;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.code.context.CodeContextPolicyUploadAll;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.ChangeSetData;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.OpenAiClient;
@@ -74,6 +76,9 @@ public class GerritEventContextModule extends FactoryModule {
 
     bind(PluginDataHandler.class).toProvider(PluginDataHandlerProvider.class).in(Singleton.class);
     log.debug("PluginDataHandler bound to singleton provider");
+
+    // Shared by the whole task, so that the repository state is cached across accesses
+    bind(GitRepoFiles.class).in(SINGLETON);
   }
 
   private Class<? extends IAiClient> getAiClient() {
@@ -100,6 +105,7 @@ public class GerritEventContextModule extends FactoryModule {
               ? OpenAiCodeContextPolicyOnDemand.class
               : CodeContextPolicyOnDemand.class;
       case UPLOAD_ALL -> CodeContextPolicyUploadAll.class;
+      case RETRIEVAL -> CodeContextPolicyRetrieval.class;
     };
   }
 }
@@ -25,6 +25,7 @@ import com.google.gerrit.server.project.NoSuchProjectException;
 import com.google.inject.Inject;
 import com.googlesource.gerrit.plugins.reviewai.config.ConfigCreator;
 import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataCollector;
 import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandlerBaseProvider;
 import com.googlesource.gerrit.plugins.reviewai.logging.LoggingConfigurationDeployed;
 import lombok.extern.slf4j.Slf4j;
@@ -39,16 +40,19 @@ public class GerritListener implements EventListener {
   private final ConfigCreator configCreator;
   private final EventHandlerExecutor evenHandlerExecutor;
   private final PluginDataHandlerBaseProvider pluginDataHandlerBaseProvider;
+  private final PluginDataCollector pluginDataCollector;
 
   @Inject
   public GerritListener(
       ConfigCreator configCreator,
       EventHandlerExecutor evenHandlerExecutor,
       PluginDataHandlerBaseProvider pluginDataHandlerBaseProvider,
+      PluginDataCollector pluginDataCollector,
       @GerritInstanceId @Nullable String myInstanceId) {
     this.configCreator = configCreator;
     this.evenHandlerExecutor = evenHandlerExecutor;
     this.pluginDataHandlerBaseProvider = pluginDataHandlerBaseProvider;
+    this.pluginDataCollector = pluginDataCollector;
     this.myInstanceId = myInstanceId;
     log.debug("GerritListener initialized with instance ID: {}", myInstanceId);
   }
@@ -60,6 +64,7 @@ public class GerritListener implements EventListener {
       log.debug("Ignore event from another instance: {}", event.instanceId);
       return;
     }
+    trackChangeClosing(event);
     if (!EVENT_CLASS_MAP.containsValue(event.getClass())) {
       log.debug("The event {} is not managed by the plugin", event.getType());
       return;
@@ -81,4 +86,24 @@ public class GerritListener implements EventListener {
       log.error("Project not found: {}", projectNameKey, e);
     }
   }
+
+  private void trackChangeClosing(Event event) {
+    try {
+      if (!(event instanceof ChangeMergedEvent
+          || event instanceof ChangeAbandonedEvent
+          || event instanceof ChangeRestoredEvent)) {
+        return;
+      }
+      String changeKey = ((ChangeEvent) event).getChangeKey().toString();
+      // Only the changes with stored data are tracked, not every change of the server
+      if (!pluginDataHandlerBaseProvider.hasChangeScope(changeKey)) return;
+      if (event instanceof ChangeRestoredEvent) {
+        pluginDataCollector.markChangeReopened(changeKey);
+      } else {
+        pluginDataCollector.markChangeClosed(changeKey);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to track the closing of the change of event {}", event.getType(), e);
+    }
+  }
 }
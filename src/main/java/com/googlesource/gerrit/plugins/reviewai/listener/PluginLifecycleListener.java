@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.listener;
+
+import com.google.gerrit.extensions.annotations.PluginData;
+import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextBuilder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.index.SymbolIndexStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.IndexBuildExecutor;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index.RetrievalIndexStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndexStore;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpTransportRegistry;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.PromptCatalog;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.client.api.LangChainTokenEstimatorRegistry;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.LangChainChatModelCache;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.provider.SharedHttpClientBuilder;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.OpenAiRepoUploader;
+import com.googlesource.gerrit.plugins.reviewai.config.ConfigCreator;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataCollector;
+import com.googlesource.gerrit.plugins.reviewai.metrics.PluginMetrics;
+import com.googlesource.gerrit.plugins.reviewai.settings.Settings.AiBackends;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+
+@Singleton
+@Slf4j
+public class PluginLifecycleListener implements LifecycleListener {
+  private final ConfigCreator configCreator;
+  private final PluginDataCollector pluginDataCollector;
+  private final Path pluginDataPath;
+
+  // Injected to register the plugin metrics at startup
+  @SuppressWarnings("unused")
+  private final PluginMetrics pluginMetrics;
+
+  @Inject
+  PluginLifecycleListener(
+      ConfigCreator configCreator,
+      PluginDataCollector pluginDataCollector,
+      PluginMetrics pluginMetrics,
+      @PluginData Path pluginDataPath) {
+    this.configCreator = configCreator;
+    this.pluginDataCollector = pluginDataCollector;
+    this.pluginMetrics = pluginMetrics;
+    this.pluginDataPath = pluginDataPath;
+  }
+
+  @Override
+  public void start() {
+    log.debug("Starting plugin lifecycle");
+    // The index stores are static, as they are shared by the code context policies
+    SymbolIndexStore.setPluginDataPath(pluginDataPath);
+    RetrievalIndexStore.setPluginDataPath(pluginDataPath);
+    LexicalIndexStore.setPluginDataPath(pluginDataPath);
+    // The default prompts do not depend on the configuration and are parsed once per plugin load
+    PromptCatalog.preload();
+    Configuration config;
+    try {
+      config = configCreator.createGlobalConfig();
+    } catch (RuntimeException e) {
+      log.warn("Global configuration unavailable at startup: {}", e.getMessage());
+      // The data files are still migrated, while their collection waits for a valid configuration
+      pluginDataCollector.start(0);
+      return;
+    }
+    pluginDataCollector.start(config.getChangeDataRetentionDays());
+    try {
+      HttpTransportRegistry.warmUp(config.getAiDomain(), config.getAiConnectionTimeout());
+      if (config.getAiBackend() == AiBackends.LANGCHAIN) {
+        LangChainTokenEstimatorRegistry.warmUp(config);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Startup warm-up skipped: {}", e.getMessage());
+    }
+  }
+
+  @Override
+  public void stop() {
+    log.debug("Stopping plugin lifecycle");
+    HttpTransportRegistry.shutdown();
+    CodeContextBuilder.shutdown();
+    OpenAiRepoUploader.shutdown();
+    IndexBuildExecutor.shutdown();
+    LangChainChatModelCache.invalidateAll();
+    LangChainTokenEstimatorRegistry.shutdown();
+    SharedHttpClientBuilder.shutdown();
+    pluginDataCollector.stop();
+  }
+}
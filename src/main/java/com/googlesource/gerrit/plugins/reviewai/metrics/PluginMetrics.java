@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.metrics;
+
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.CodeContextPrefetchStats;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpCircuitBreaker;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.PromptCacheStats;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.client.api.LangChainTokenEstimatorRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpCircuitBreaker.State;
+
+@Singleton
+@Slf4j
+public class PluginMetrics {
+  @Inject
+  PluginMetrics(MetricMaker metricMaker) {
+    metricMaker.newCallbackMetric(
+        "http/circuit_breaker/open_endpoints",
+        Long.class,
+        new Description("Number of AI endpoints whose circuit breaker is open").setGauge(),
+        () -> HttpCircuitBreaker.countInState(State.OPEN));
+    metricMaker.newCallbackMetric(
+        "http/circuit_breaker/half_open_endpoints",
+        Long.class,
+        new Description("Number of AI endpoints whose circuit breaker is probing").setGauge(),
+        () -> HttpCircuitBreaker.countInState(State.HALF_OPEN));
+    metricMaker.newCallbackMetric(
+        "code_context/prefetch/reviews",
+        Long.class,
+        new Description("Number of reviews sent with prefetched code context").setCumulative(),
+        CodeContextPrefetchStats::getPrefetchedReviews);
+    metricMaker.newCallbackMetric(
+        "code_context/prefetch/entities",
+        Long.class,
+        new Description("Number of code entities prefetched into reviews").setCumulative(),
+        CodeContextPrefetchStats::getPrefetchedEntities);
+    metricMaker.newCallbackMetric(
+        "code_context/prefetch/follow_up_reviews",
+        Long.class,
+        new Description("Number of prefetched reviews that still requested code context")
+            .setCumulative(),
+        CodeContextPrefetchStats::getFollowUpReviews);
+    metricMaker.newCallbackMetric(
+        "code_context/get_context/requests",
+        Long.class,
+        new Description("Number of code context requests received from the AI").setCumulative(),
+        CodeContextPrefetchStats::getContextRequests);
+    metricMaker.newCallbackMetric(
+        "langchain/token_estimator/init_time_ms",
+        Long.class,
+        new Description("Time taken by the latest token estimator initialization")
+            .setGauge()
+            .setUnit(Description.Units.MILLISECONDS),
+        LangChainTokenEstimatorRegistry::getLastInitTimeMs);
+    metricMaker.newCallbackMetric(
+        "langchain/token_estimator/cache_hits",
+        Long.class,
+        new Description("Number of token counts served from the memoized counts").setCumulative(),
+        LangChainTokenEstimatorRegistry::getCacheHits);
+    metricMaker.newCallbackMetric(
+        "langchain/token_estimator/cache_misses",
+        Long.class,
+        new Description("Number of token counts computed by the token estimators")
+            .setCumulative(),
+        LangChainTokenEstimatorRegistry::getCacheMisses);
+    metricMaker.newCallbackMetric(
+        "prompt_cache/requests",
+        Long.class,
+        new Description("Number of AI responses reporting their cached prompt tokens")
+            .setCumulative(),
+        PromptCacheStats::getRequests);
+    metricMaker.newCallbackMetric(
+        "prompt_cache/prefix_hits",
+        Long.class,
+        new Description("Number of AI requests whose prompt prefix was served from the cache")
+            .setCumulative(),
+        PromptCacheStats::getPrefixHits);
+    metricMaker.newCallbackMetric(
+        "prompt_cache/input_tokens",
+        Long.class,
+        new Description("Number of prompt tokens sent in requests reporting cached tokens")
+            .setCumulative(),
+        PromptCacheStats::getInputTokens);
+    metricMaker.newCallbackMetric(
+        "prompt_cache/cached_tokens",
+        Long.class,
+        new Description("Number of prompt tokens served from the provider prompt cache")
+            .setCumulative(),
+        PromptCacheStats::getCachedTokens);
+    metricMaker.newCallbackMetric(
+        "prompt_cache/prefix_hit_rate",
+        Long.class,
+        new Description("Percentage of AI requests with a cached prompt prefix")
+            .setGauge()
+            .setUnit("percent"),
+        PromptCacheStats::getPrefixHitRatePercent);
+    metricMaker.newCallbackMetric(
+        "prompt_cache/cached_tokens_rate",
+        Long.class,
+        new Description("Percentage of prompt tokens served from the provider prompt cache")
+            .setGauge()
+            .setUnit("percent"),
+        PromptCacheStats::getCachedTokensPercent);
+    log.debug("Plugin metrics registered");
+  }
+}
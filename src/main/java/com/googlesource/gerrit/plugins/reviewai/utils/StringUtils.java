@@ -37,10 +37,6 @@ public class StringUtils {
     return body.replace("\"", "\\\"");
   }
 
-  public static String doubleBackslashDoubleQuotes(String body) {
-    return body.replace("\"", "\\\\\"");
-  }
-
   public static String deSlash(String target, String deSlashChars) {
     return target.replaceAll("\\\\([" + deSlashChars + "])", "$1");
   }
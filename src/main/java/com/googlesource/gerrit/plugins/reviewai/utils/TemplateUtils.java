@@ -16,12 +16,25 @@
 
 package com.googlesource.gerrit.plugins.reviewai.utils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 public class TemplateUtils extends StringUtils {
+  private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{%\\s*(.*?)\\s*%\\}");
+  private static final int MAX_COMPILED_TEMPLATES = 256;
+
+  // Compiled templates are looked up by template identity (weak keys compare with `==`)
+  private static final Cache<String, CompiledTemplate> COMPILED_TEMPLATES =
+      CacheBuilder.newBuilder().weakKeys().maximumSize(MAX_COMPILED_TEMPLATES).build();
+
   /**
    * TemplateUtils is a minimal utility class to provide additional functionality for rendering text
    * templates. It is specifically designed to handle the substitution of placeholders within a
@@ -35,17 +48,58 @@ public class TemplateUtils extends StringUtils {
      * map. Placeholders are identified even if they include spaces around the key names, enhancing
      * the method's robustness against format variations. The method ensures that double quotes in
      * the replacement values are escaped to prevent breaking string delimiters in generated code or
-     * outputs.
+     * outputs. Placeholders without a value in the map are left untouched.
      */
     log.debug("Starting template rendering");
-    String result = template;
-    for (Map.Entry<String, String> entry : values.entrySet()) {
-      String placeholder = "\\{%\\s*" + entry.getKey() + "\\s*%\\}";
-      String value = doubleBackslashDoubleQuotes(entry.getValue());
-      result = result.replaceAll(placeholder, value);
-      log.debug("Replaced '{}' with '{}'", placeholder, value);
-    }
+    String result =
+        COMPILED_TEMPLATES.asMap().computeIfAbsent(template, CompiledTemplate::new).render(values);
     log.debug("Completed rendering template");
     return result;
   }
+
+  /**
+   * A template split once into literal text and placeholder slots, so that rendering is a single
+   * pass over the segments.
+   */
+  private static class CompiledTemplate {
+    private final List<Segment> segments = new ArrayList<>();
+    private final int literalLength;
+
+    private record Segment(String text, String key) {}
+
+    CompiledTemplate(String template) {
+      Matcher matcher = PLACEHOLDER_PATTERN.matcher(template);
+      int position = 0;
+      int length = 0;
+      while (matcher.find()) {
+        if (matcher.start() > position) {
+          segments.add(new Segment(template.substring(position, matcher.start()), null));
+          length += matcher.start() - position;
+        }
+        segments.add(new Segment(matcher.group(), matcher.group(1)));
+        position = matcher.end();
+      }
+      if (position < template.length()) {
+        segments.add(new Segment(template.substring(position), null));
+        length += template.length() - position;
+      }
+      literalLength = length;
+      log.debug("Compiled template into {} segments", segments.size());
+    }
+
+    String render(Map<String, String> values) {
+      int capacity = literalLength;
+      for (Segment segment : segments) {
+        if (segment.key() != null) {
+          capacity += values.getOrDefault(segment.key(), segment.text()).length();
+        }
+      }
+      StringBuilder result = new StringBuilder(capacity);
+      for (Segment segment : segments) {
+        String value = segment.key() == null ? null : values.get(segment.key());
+        result.append(value == null ? segment.text() : backslashDoubleQuotes(value));
+      }
+      return result.toString();
+    }
+  }
 }
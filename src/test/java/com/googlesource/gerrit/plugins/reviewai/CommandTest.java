@@ -22,6 +22,7 @@ import com.google.gerrit.extensions.restapi.RestApiException;
 import com.google.gerrit.json.OutputFormat;
 import com.google.gson.Gson;
 import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandler;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandlerBaseProvider;
 import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandlerProvider;
 import com.googlesource.gerrit.plugins.reviewai.listener.EventHandlerTask;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.OpenAiReviewTestBase;
@@ -84,7 +85,9 @@ public class CommandTest extends OpenAiReviewTestBase {
 
   private PluginDataHandler getChangeDataHandler() {
     Path realChangeDataPath = tempFolder.getRoot().toPath().resolve(TestBase.CHANGE_ID + ".data");
-    when(mockPluginDataPath.resolve(TestBase.CHANGE_ID + ".data")).thenReturn(realChangeDataPath);
+    when(mockPluginDataPath.resolve(
+            PluginDataHandlerBaseProvider.getChangeScopeFilename(TestBase.CHANGE_ID.toString())))
+        .thenReturn(realChangeDataPath);
     PluginDataHandlerProvider provider =
         new PluginDataHandlerProvider(mockPluginDataPath, getGerritChange());
     PluginDataHandler changeHandler = provider.getChangeScope();
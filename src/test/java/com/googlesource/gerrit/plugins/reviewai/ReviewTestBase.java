@@ -34,6 +34,7 @@ import com.google.gerrit.server.config.PluginConfig;
 import com.google.gerrit.server.data.AccountAttribute;
 import com.google.gerrit.server.data.PatchSetAttribute;
 import com.google.gerrit.server.events.*;
+import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.gerrit.server.util.OneOffRequestContext;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -66,6 +67,7 @@ import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.con
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.code.context.CodeContextPolicyUploadAll;
 
 import lombok.NonNull;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
 import org.junit.Before;
 import org.junit.Rule;
 import org.mockito.ArgumentCaptor;
@@ -310,6 +312,7 @@ public class ReviewTestBase extends TestBase {
                     bind(PatchSetReviewer.class).toInstance(patchSetReviewer);
                     bind(PluginDataHandlerProvider.class).toInstance(pluginDataHandlerProvider);
                     bind(AccountCache.class).toInstance(mockAccountCache());
+                    bind(GitRepositoryManager.class).toInstance(mockRepositoryManager());
                   }
                 })
             .getInstance(EventHandlerTask.class);
@@ -418,6 +421,18 @@ public class ReviewTestBase extends TestBase {
     when(event.getChangeKey()).thenReturn(CHANGE_ID);
   }
 
+  private GitRepositoryManager mockRepositoryManager() {
+    GitRepositoryManager repositoryManager = mock(GitRepositoryManager.class);
+    try {
+      // The tests run without repositories, as no project files are read
+      when(repositoryManager.openRepository(any()))
+          .thenThrow(new RepositoryNotFoundException(PROJECT_NAME.get()));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return repositoryManager;
+  }
+
   private AccountCache mockAccountCache() {
     AccountCache accountCache = mock(AccountCache.class);
     Account account = Account.builder(Account.id(AI_USER_ACCOUNT_ID), Instant.now()).build();
@@ -438,7 +453,13 @@ public class ReviewTestBase extends TestBase {
                   config, getCodeContextPolicy(), pluginDataHandlerProvider)
               : new OpenAiClient(config, getCodeContextPolicy(), pluginDataHandlerProvider);
       case LANGCHAIN ->
-          new LangChainClient(config, getCodeContextPolicy(), gerritClient, localizer);
+          new LangChainClient(
+              config,
+              getCodeContextPolicy(),
+              gerritClient,
+              localizer,
+              pluginDataHandlerProvider,
+              gitRepoFiles);
     };
   }
 
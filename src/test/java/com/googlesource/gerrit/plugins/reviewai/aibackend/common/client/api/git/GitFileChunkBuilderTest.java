@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoBlob;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoChunk;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import java.util.List;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GitFileChunkBuilderTest {
+  private static final long KB = 1024;
+
+  private GitFileChunkBuilder gitFileChunkBuilder;
+
+  @Before
+  public void setUp() {
+    Configuration config = mock(Configuration.class);
+    when(config.getAiUploadedChunkSizeMb()).thenReturn(1);
+    when(config.getAiUploadedChunkFillRatio()).thenReturn(1.0);
+    gitFileChunkBuilder = new GitFileChunkBuilder(config);
+  }
+
+  @Test
+  public void shouldPackSmallDirectoriesIntoOneChunk() {
+    for (int i = 0; i < 100; i++) {
+      gitFileChunkBuilder.addFiles("dir" + i, List.of(blob("dir" + i + "/file", 5 * KB)));
+    }
+
+    List<RepoChunk> chunks = gitFileChunkBuilder.getChunks();
+
+    assertEquals(1, chunks.size());
+    assertEquals(100, chunks.get(0).getDirs().size());
+    assertEquals(100, gitFileChunkBuilder.getStats().getFileCount());
+  }
+
+  @Test
+  public void shouldFillChunksFirstFitDecreasing() {
+    gitFileChunkBuilder.addFiles("a", List.of(blob("a/file", 300 * KB)));
+    gitFileChunkBuilder.addFiles("b", List.of(blob("b/file", 700 * KB)));
+    gitFileChunkBuilder.addFiles("c", List.of(blob("c/file", 600 * KB)));
+    gitFileChunkBuilder.addFiles("d", List.of(blob("d/file", 400 * KB)));
+
+    List<RepoChunk> chunks = gitFileChunkBuilder.getChunks();
+
+    assertEquals(2, chunks.size());
+    assertEquals(List.of("b", "a"), chunks.get(0).getDirs());
+    assertEquals(List.of("c", "d"), chunks.get(1).getDirs());
+    assertTrue(gitFileChunkBuilder.getStats().getMinFillRatio() > 0.95);
+  }
+
+  @Test
+  public void shouldPreferChunksWithRelatedDirectories() {
+    gitFileChunkBuilder.addFiles("docs", List.of(blob("docs/file", 600 * KB)));
+    gitFileChunkBuilder.addFiles("src/main", List.of(blob("src/main/file", 500 * KB)));
+    gitFileChunkBuilder.addFiles("src/test", List.of(blob("src/test/file", 300 * KB)));
+
+    List<RepoChunk> chunks = gitFileChunkBuilder.getChunks();
+
+    assertEquals(2, chunks.size());
+    assertEquals(List.of("src/main", "src/test"), chunks.get(1).getDirs());
+  }
+
+  @Test
+  public void shouldSplitOversizedDirectoriesAndFiles() {
+    gitFileChunkBuilder.addFiles(
+        "big",
+        List.of(
+            blob("big/file1", 600 * KB),
+            blob("big/file2", 600 * KB),
+            blob("big/huge", 2 * 1024 * KB)));
+
+    List<RepoChunk> chunks = gitFileChunkBuilder.getChunks();
+
+    assertEquals(3, chunks.size());
+    assertTrue(chunks.stream().allMatch(chunk -> chunk.getBlobs().size() == 1));
+  }
+
+  private RepoBlob blob(String path, long size) {
+    return new RepoBlob(path, ObjectId.zeroId(), size);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.io.FileNotFoundException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class CodeContextCacheTest {
+
+  @Test
+  public void shouldLoadEachFileOnce() throws Exception {
+    CodeContextCache codeContextCache = new CodeContextCache();
+    AtomicInteger loads = new AtomicInteger();
+    CodeContextCache.FileLoader fileLoader =
+        filename -> {
+          loads.incrementAndGet();
+          return "content of " + filename;
+        };
+
+    assertEquals("content of a.py", codeContextCache.getFileContent("a.py", fileLoader));
+    assertEquals("content of a.py", codeContextCache.getFileContent("a.py", fileLoader));
+    assertEquals("content of b.py", codeContextCache.getFileContent("b.py", fileLoader));
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void shouldRememberMissingFiles() {
+    CodeContextCache codeContextCache = new CodeContextCache();
+    AtomicInteger loads = new AtomicInteger();
+    CodeContextCache.FileLoader fileLoader =
+        filename -> {
+          loads.incrementAndGet();
+          throw new FileNotFoundException(filename);
+        };
+
+    assertThrows(
+        FileNotFoundException.class, () -> codeContextCache.getFileContent("a.py", fileLoader));
+    assertThrows(
+        FileNotFoundException.class, () -> codeContextCache.getFileContent("a.py", fileLoader));
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void shouldPropagateLoadFailures() {
+    CodeContextCache codeContextCache = new CodeContextCache();
+    IllegalStateException failure = new IllegalStateException("repository unavailable");
+
+    IllegalStateException thrown =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                codeContextCache.getFilesInDir(
+                    "src",
+                    dirname -> {
+                      throw failure;
+                    }));
+
+    assertSame(failure, thrown);
+    assertEquals(
+        Set.of("src/a.py"), codeContextCache.getFilesInDir("src", dirname -> Set.of("src/a.py")));
+  }
+}
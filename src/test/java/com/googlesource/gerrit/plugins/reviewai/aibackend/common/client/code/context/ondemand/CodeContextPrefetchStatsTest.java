@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand;
+
+import static org.junit.Assert.assertEquals;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import org.junit.Test;
+
+public class CodeContextPrefetchStatsTest {
+  private static final String FULL_CHANGE_ID = "project~master~I0123";
+
+  @Test
+  public void shouldCountFollowUpOncePerPrefetchedReview() {
+    GerritChange change = new GerritChange(FULL_CHANGE_ID);
+    long prefetchedReviews = CodeContextPrefetchStats.getPrefetchedReviews();
+    long prefetchedEntities = CodeContextPrefetchStats.getPrefetchedEntities();
+    long contextRequests = CodeContextPrefetchStats.getContextRequests();
+    long followUpReviews = CodeContextPrefetchStats.getFollowUpReviews();
+
+    CodeContextPrefetchStats.recordPrefetch(change, 3);
+    CodeContextPrefetchStats.recordContextRequest(change);
+    CodeContextPrefetchStats.recordContextRequest(change);
+
+    assertEquals(prefetchedReviews + 1, CodeContextPrefetchStats.getPrefetchedReviews());
+    assertEquals(prefetchedEntities + 3, CodeContextPrefetchStats.getPrefetchedEntities());
+    assertEquals(contextRequests + 2, CodeContextPrefetchStats.getContextRequests());
+    assertEquals(followUpReviews + 1, CodeContextPrefetchStats.getFollowUpReviews());
+  }
+
+  @Test
+  public void shouldTellApartReviewsOfTheSameChange() {
+    GerritChange prefetchedReview = new GerritChange(FULL_CHANGE_ID);
+    GerritChange otherReview = new GerritChange(FULL_CHANGE_ID);
+    long followUpReviews = CodeContextPrefetchStats.getFollowUpReviews();
+
+    CodeContextPrefetchStats.recordPrefetch(prefetchedReview, 1);
+    CodeContextPrefetchStats.recordContextRequest(otherReview);
+    assertEquals(followUpReviews, CodeContextPrefetchStats.getFollowUpReviews());
+
+    CodeContextPrefetchStats.recordContextRequest(prefetchedReview);
+    assertEquals(followUpReviews + 1, CodeContextPrefetchStats.getFollowUpReviews());
+  }
+
+  @Test
+  public void shouldNotCountRequestsOfReviewsWithoutPrefetch() {
+    long followUpReviews = CodeContextPrefetchStats.getFollowUpReviews();
+
+    CodeContextPrefetchStats.recordContextRequest(new GerritChange(FULL_CHANGE_ID));
+
+    assertEquals(followUpReviews, CodeContextPrefetchStats.getFollowUpReviews());
+  }
+}
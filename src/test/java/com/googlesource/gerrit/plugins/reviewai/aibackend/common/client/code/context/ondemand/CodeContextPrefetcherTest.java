@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand;
+
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.git.GitRepoFiles;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CodeContextPrefetcherTest {
+  private GitRepoFiles gitRepoFiles;
+  private CodeContextPrefetcher prefetcher;
+
+  @Before
+  public void setUp() {
+    Configuration config = mock(Configuration.class);
+    when(config.getCodeContextOnDemandPrefetchMaxItems()).thenReturn(10);
+    when(config.getCodeContextOnDemandPrefetchTokenBudget()).thenReturn(2000);
+    gitRepoFiles = mock(GitRepoFiles.class);
+    prefetcher =
+        new CodeContextPrefetcher(config, new GerritChange("project~master~I0123"), gitRepoFiles);
+  }
+
+  @Test
+  public void shouldNotPrefetchWithoutPatchSet() {
+    assertNull(prefetcher.prefetchCodeContext(null));
+    assertNull(prefetcher.prefetchCodeContext(""));
+    verifyNoInteractions(gitRepoFiles);
+  }
+
+  @Test
+  public void shouldNotPrefetchCallsInUnsupportedFiles() {
+    String patchSet = String.join("\n", "+++ b/notes.txt", "+call(value)");
+
+    assertNull(prefetcher.prefetchCodeContext(patchSet));
+    verifyNoInteractions(gitRepoFiles);
+  }
+
+  @Test
+  public void shouldNotPrefetchCallablesDeclaredInPatchSet() {
+    String patchSet =
+        String.join(
+            "\n",
+            "+++ b/src/Main.java",
+            "+  private int compute(int value) {",
+            "+    return compute(value - 1);",
+            "+  }",
+            " unchanged(line);");
+
+    assertNull(prefetcher.prefetchCodeContext(patchSet));
+    verifyNoInteractions(gitRepoFiles);
+  }
+}
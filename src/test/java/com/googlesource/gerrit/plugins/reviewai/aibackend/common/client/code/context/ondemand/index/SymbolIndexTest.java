@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.ondemand.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.code.context.ondemand.SymbolLocation;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class SymbolIndexTest {
+  private static final SymbolLocation FOO_RUN = new SymbolLocation("run", "a/Foo.java", 0, 10);
+  private static final SymbolLocation BAR_RUN = new SymbolLocation("run", "b/Bar.java", 5, 20);
+  private static final SymbolLocation BAR_STOP = new SymbolLocation("stop", "b/Bar.java", 30, 40);
+
+  private final SymbolIndex symbolIndex =
+      new SymbolIndex(
+          "commit1",
+          Map.of("a/Foo.java", List.of(FOO_RUN), "b/Bar.java", List.of(BAR_RUN, BAR_STOP)));
+
+  @Test
+  public void shouldPreferDefinitionsInRequestingFile() {
+    assertEquals(List.of(BAR_RUN), symbolIndex.findDefinitions("b/Bar.java", "run", "run"));
+  }
+
+  @Test
+  public void shouldResolveQualifiedAndUniqueNames() {
+    assertEquals(List.of(FOO_RUN), symbolIndex.findDefinitions("c/Baz.java", "x.Foo.run", "run"));
+    assertEquals(List.of(BAR_STOP), symbolIndex.findDefinitions("c/Baz.java", "stop", "stop"));
+    assertTrue(symbolIndex.findDefinitions("c/Baz.java", "run", "run").isEmpty());
+  }
+
+  @Test
+  public void shouldReplaceSymbolsOfChangedFiles() {
+    SymbolLocation barHalt = new SymbolLocation("halt", "b/Bar.java", 0, 8);
+
+    SymbolIndex updatedIndex =
+        symbolIndex.update(
+            "commit2",
+            Set.of("a/Foo.java", "b/Bar.java"),
+            Map.of("b/Bar.java", List.of(barHalt)));
+
+    assertEquals("commit2", updatedIndex.getCommitId());
+    assertEquals(1, updatedIndex.size());
+    assertEquals(List.of(barHalt), updatedIndex.findDefinitions("c/Baz.java", "halt", "halt"));
+    assertTrue(updatedIndex.findDefinitions("c/Baz.java", "Foo.run", "run").isEmpty());
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.index.HnswGraph.SearchResult;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class HnswGraphTest {
+  private static final int DIMENSIONS = 16;
+  private static final int NODE_COUNT = 500;
+
+  private final Random random = new Random(7);
+
+  @Test
+  public void shouldFindNearestNeighbors() {
+    HnswGraph graph = new HnswGraph(DIMENSIONS);
+    List<float[]> vectors = addRandomVectors(graph);
+
+    int found = 0;
+    for (int i = 0; i < 50; i++) {
+      float[] query = getRandomUnitVector();
+      List<SearchResult> results = graph.search(query, 1, 32);
+      if (results.get(0).node() == getNearestNode(vectors, query)) {
+        found++;
+      }
+    }
+    assertTrue("Recall too low: " + found, found >= 45);
+  }
+
+  @Test
+  public void shouldSkipDeletedNodes() {
+    HnswGraph graph = new HnswGraph(DIMENSIONS);
+    List<float[]> vectors = addRandomVectors(graph);
+
+    graph.remove(10);
+    List<SearchResult> results = graph.search(vectors.get(10), 5, 32);
+
+    assertEquals(5, results.size());
+    assertFalse(results.stream().anyMatch(result -> result.node() == 10));
+    assertEquals(1, graph.getDeletedCount());
+  }
+
+  @Test
+  public void shouldRestoreSerializedGraph() throws IOException {
+    HnswGraph graph = new HnswGraph(DIMENSIONS);
+    List<float[]> vectors = addRandomVectors(graph);
+    graph.remove(3);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    graph.writeTo(new DataOutputStream(bytes));
+
+    HnswGraph restoredGraph = HnswGraph.readFrom(ByteBuffer.wrap(bytes.toByteArray()));
+
+    assertEquals(graph.getNodeCount(), restoredGraph.getNodeCount());
+    assertTrue(restoredGraph.isDeleted(3));
+    float[] query = vectors.get(42);
+    assertEquals(graph.search(query, 5, 32), restoredGraph.search(query, 5, 32));
+  }
+
+  private List<float[]> addRandomVectors(HnswGraph graph) {
+    List<float[]> vectors = new ArrayList<>();
+    for (int i = 0; i < NODE_COUNT; i++) {
+      float[] vector = getRandomUnitVector();
+      vectors.add(vector);
+      graph.add(vector);
+    }
+    return vectors;
+  }
+
+  private float[] getRandomUnitVector() {
+    float[] vector = new float[DIMENSIONS];
+    double norm = 0;
+    for (int i = 0; i < DIMENSIONS; i++) {
+      vector[i] = (float) random.nextGaussian();
+      norm += vector[i] * vector[i];
+    }
+    for (int i = 0; i < DIMENSIONS; i++) {
+      vector[i] /= (float) Math.sqrt(norm);
+    }
+    return vector;
+  }
+
+  private static int getNearestNode(List<float[]> vectors, float[] query) {
+    int nearestNode = -1;
+    float bestSimilarity = Float.NEGATIVE_INFINITY;
+    for (int node = 0; node < vectors.size(); node++) {
+      float similarity = 0;
+      for (int i = 0; i < DIMENSIONS; i++) {
+        similarity += vectors.get(node)[i] * query[i];
+      }
+      if (similarity > bestSimilarity) {
+        bestSimilarity = similarity;
+        nearestNode = node;
+      }
+    }
+    return nearestNode;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndex.Hit;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.code.context.retrieval.lexical.LexicalIndex.Segment;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+
+public class LexicalIndexTest {
+
+  @Test
+  public void shouldSplitIdentifiersIntoTerms() {
+    List<String> terms = IdentifierTokenizer.tokenize("user_name = getUserName(HTTPServer2);");
+
+    assertEquals(
+        List.of(
+            "user_name",
+            "user",
+            "name",
+            "getusername",
+            "get",
+            "user",
+            "name",
+            "httpserver2",
+            "http",
+            "server"),
+        terms);
+  }
+
+  @Test
+  public void shouldRankChunksSharingRarerTerms() {
+    LexicalIndex lexicalIndex =
+        new LexicalIndex("commit", List.of(new Segment(buildSegment("0"), Set.of())), 1);
+
+    List<Hit> hits = lexicalIndex.search(IdentifierTokenizer.tokenize("parseConfig(value)"), 2);
+
+    assertEquals(2, hits.size());
+    assertEquals("Config.java", hits.get(0).path());
+    assertEquals(11, hits.get(0).startLine());
+    assertTrue(hits.get(0).score() > hits.get(1).score());
+  }
+
+  @Test
+  public void shouldSkipChunksOfChangedPaths() {
+    LexicalIndex lexicalIndex =
+        new LexicalIndex("commit", List.of(new Segment(buildSegment("0"), Set.of())), 1);
+    LexicalSegmentWriter writer = new LexicalSegmentWriter();
+    int pathId = writer.addPath("Config.java", ObjectId.zeroId());
+    writer.addDocument(pathId, 1, 30, IdentifierTokenizer.tokenize("int loadDefaults()"));
+
+    LexicalIndex updatedIndex =
+        lexicalIndex.update("next", Set.of("Config.java"), List.of(writer.toSegment("1")), 2);
+    List<Hit> hits = updatedIndex.search(List.of("parse", "config"), 5);
+
+    assertEquals(2, updatedIndex.getSegments().size());
+    assertEquals(2, updatedIndex.size());
+    assertEquals(1, hits.size());
+    assertEquals("Main.java", hits.get(0).path());
+  }
+
+  @Test
+  public void shouldReadSerializedSegment() {
+    LexicalSegment segment = buildSegment("0");
+    ByteBuffer bytes = segment.getBytes();
+    byte[] copy = new byte[bytes.remaining()];
+    bytes.get(copy);
+
+    LexicalSegment restoredSegment = new LexicalSegment("0", ByteBuffer.wrap(copy));
+
+    assertEquals(segment.getDocCount(), restoredSegment.getDocCount());
+    assertEquals(segment.getTermCount(), restoredSegment.getTermCount());
+    assertEquals("Config.java", restoredSegment.getPath(1));
+    assertEquals(11, restoredSegment.getDocStartLine(2));
+    assertTrue(restoredSegment.findTerm("parseconfig") >= 0);
+    assertEquals(-1, restoredSegment.findTerm("missing"));
+  }
+
+  private LexicalSegment buildSegment(String name) {
+    LexicalSegmentWriter writer = new LexicalSegmentWriter();
+    int mainPathId = writer.addPath("Main.java", ObjectId.zeroId());
+    writer.addDocument(
+        mainPathId,
+        1,
+        30,
+        IdentifierTokenizer.tokenize("String value = parseConfig(args); run();"));
+    int configPathId = writer.addPath("Config.java", ObjectId.zeroId());
+    writer.addDocument(
+        configPathId, 1, 30, IdentifierTokenizer.tokenize("class Config { String value; }"));
+    writer.addDocument(
+        configPathId,
+        11,
+        40,
+        IdentifierTokenizer.tokenize("Config parseConfig(String value) { parse(value); }"));
+    return writer.toSegment(name);
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpCircuitBreaker.State;
+import com.googlesource.gerrit.plugins.reviewai.errors.exceptions.AiCircuitOpenException;
+import java.util.UUID;
+import org.junit.Test;
+
+public class HttpCircuitBreakerTest {
+  private static final double FAILURE_RATE_THRESHOLD = 0.5;
+  private static final int NO_OPEN_DURATION = 0;
+  private static final int LONG_OPEN_DURATION = 3600;
+
+  @Test
+  public void shouldStayClosedBelowMinimumCalls() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(LONG_OPEN_DURATION);
+
+    for (int i = 0; i < 4; i++) {
+      breaker.recordResult(breaker.acquirePermission(), false);
+    }
+
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void shouldOpenWhenFailureRateIsExceeded() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(LONG_OPEN_DURATION);
+
+    openByFailures(breaker);
+
+    assertEquals(State.OPEN, breaker.getState());
+    assertTrue(breaker.getRemainingOpenMillis() > 0);
+    assertThrows(AiCircuitOpenException.class, breaker::acquirePermission);
+  }
+
+  @Test
+  public void shouldStayClosedWithinFailureRate() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(LONG_OPEN_DURATION);
+
+    for (int i = 0; i < 10; i++) {
+      breaker.recordResult(breaker.acquirePermission(), i % 2 == 0);
+    }
+
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void shouldLetASingleProbeThroughWhenHalfOpen() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(NO_OPEN_DURATION);
+    openByFailures(breaker);
+
+    breaker.acquirePermission();
+
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    assertTrue(breaker.isProbeInFlight());
+    assertThrows(AiCircuitOpenException.class, breaker::acquirePermission);
+  }
+
+  @Test
+  public void shouldCloseOnProbeSuccess() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(NO_OPEN_DURATION);
+    openByFailures(breaker);
+
+    breaker.recordResult(breaker.acquirePermission(), true);
+
+    assertEquals(State.CLOSED, breaker.getState());
+    assertFalse(breaker.isProbeInFlight());
+    // The failures recorded before opening are not counted again
+    for (int i = 0; i < 4; i++) {
+      breaker.recordResult(breaker.acquirePermission(), false);
+    }
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void shouldReopenOnProbeFailure() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(NO_OPEN_DURATION);
+    openByFailures(breaker);
+
+    breaker.recordResult(breaker.acquirePermission(), false);
+
+    assertEquals(State.OPEN, breaker.getState());
+    assertFalse(breaker.isProbeInFlight());
+  }
+
+  @Test
+  public void shouldIgnoreSuccessOfRequestGrantedBeforeOpening() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(NO_OPEN_DURATION);
+    long slowPermit = breaker.acquirePermission();
+    openByFailures(breaker);
+    long probePermit = breaker.acquirePermission();
+
+    breaker.recordResult(slowPermit, true);
+
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    assertTrue(breaker.isProbeInFlight());
+
+    breaker.recordResult(probePermit, true);
+
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void shouldIgnoreFailureOfRequestGrantedBeforeOpening() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(NO_OPEN_DURATION);
+    long slowPermit = breaker.acquirePermission();
+    openByFailures(breaker);
+    long probePermit = breaker.acquirePermission();
+
+    breaker.recordResult(slowPermit, false);
+
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    assertTrue(breaker.isProbeInFlight());
+
+    breaker.recordResult(probePermit, false);
+
+    assertEquals(State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void shouldIgnoreResultOfPreviousProbe() throws Exception {
+    HttpCircuitBreaker breaker = newBreaker(NO_OPEN_DURATION);
+    openByFailures(breaker);
+    long firstProbe = breaker.acquirePermission();
+    breaker.recordResult(firstProbe, false);
+    long secondProbe = breaker.acquirePermission();
+
+    breaker.recordResult(firstProbe, true);
+
+    assertEquals(State.HALF_OPEN, breaker.getState());
+
+    breaker.recordResult(secondProbe, true);
+
+    assertEquals(State.CLOSED, breaker.getState());
+  }
+
+  private static HttpCircuitBreaker newBreaker(int openDuration) {
+    return HttpCircuitBreaker.getInstance(
+        "https://" + UUID.randomUUID() + ".example.com", FAILURE_RATE_THRESHOLD, openDuration);
+  }
+
+  private static void openByFailures(HttpCircuitBreaker breaker) throws Exception {
+    for (int i = 0; i < 5; i++) {
+      breaker.recordResult(breaker.acquirePermission(), false);
+    }
+  }
+}
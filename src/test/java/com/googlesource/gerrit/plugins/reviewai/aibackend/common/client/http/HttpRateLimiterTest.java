@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpRateLimiter.HTTP_TOO_MANY_REQUESTS;
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http.HttpRateLimiter.NO_RESPONSE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import okhttp3.Headers;
+import org.junit.Test;
+
+public class HttpRateLimiterTest {
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_BAD_REQUEST = 400;
+  private static final long LATENCY = 100;
+  private static final double DELTA = 0.001;
+
+  @Test
+  public void shouldShareLimiterOfSameConfiguration() {
+    String domain = newDomain();
+
+    assertSame(
+        HttpRateLimiter.getInstance(domain, "token", 4),
+        HttpRateLimiter.getInstance(domain, "token", 4));
+  }
+
+  @Test
+  public void shouldKeepLimitersOfDifferentConfigurationsApart() {
+    String domain = newDomain();
+    HttpRateLimiter limiter = HttpRateLimiter.getInstance(domain, "token", 4);
+
+    assertNotSame(limiter, HttpRateLimiter.getInstance(domain, "token", 8));
+    assertNotSame(limiter, HttpRateLimiter.getInstance(domain, "other-token", 4));
+    assertEquals(4, limiter.getConcurrencyLimit(), DELTA);
+  }
+
+  @Test
+  public void shouldHalveConcurrencyWhenRateLimited() throws Exception {
+    HttpRateLimiter limiter = HttpRateLimiter.getInstance(newDomain(), "token", 8);
+
+    complete(limiter, HTTP_TOO_MANY_REQUESTS, LATENCY);
+    assertEquals(4, limiter.getConcurrencyLimit(), DELTA);
+    complete(limiter, HTTP_TOO_MANY_REQUESTS, LATENCY);
+    complete(limiter, HTTP_TOO_MANY_REQUESTS, LATENCY);
+    complete(limiter, HTTP_TOO_MANY_REQUESTS, LATENCY);
+
+    assertEquals(1, limiter.getConcurrencyLimit(), DELTA);
+  }
+
+  @Test
+  public void shouldIncreaseConcurrencyByOnePerRoundOfSuccesses() throws Exception {
+    HttpRateLimiter limiter = HttpRateLimiter.getInstance(newDomain(), "token", 8);
+    complete(limiter, HTTP_TOO_MANY_REQUESTS, LATENCY);
+
+    for (int i = 0; i < 4; i++) {
+      complete(limiter, HTTP_OK, LATENCY);
+    }
+
+    // 4 + 1/4 + 1/4.25 + ...: a round of 4 requests increases the limit by about one
+    assertEquals(4.921, limiter.getConcurrencyLimit(), DELTA);
+  }
+
+  @Test
+  public void shouldNotIncreaseConcurrencyWhenLatencyGrows() throws Exception {
+    HttpRateLimiter limiter = HttpRateLimiter.getInstance(newDomain(), "token", 8);
+    complete(limiter, HTTP_TOO_MANY_REQUESTS, LATENCY);
+    complete(limiter, HTTP_OK, LATENCY);
+    double concurrencyLimit = limiter.getConcurrencyLimit();
+
+    complete(limiter, HTTP_OK, LATENCY * 100);
+    complete(limiter, HTTP_OK, LATENCY * 100);
+
+    assertEquals(concurrencyLimit, limiter.getConcurrencyLimit(), DELTA);
+  }
+
+  @Test
+  public void shouldNotExceedMaxConcurrency() throws Exception {
+    HttpRateLimiter limiter = HttpRateLimiter.getInstance(newDomain(), "token", 2);
+
+    for (int i = 0; i < 10; i++) {
+      complete(limiter, HTTP_OK, LATENCY);
+    }
+
+    assertEquals(2, limiter.getConcurrencyLimit(), DELTA);
+  }
+
+  @Test
+  public void shouldNotChangeConcurrencyOnOtherOutcomes() throws Exception {
+    HttpRateLimiter limiter = HttpRateLimiter.getInstance(newDomain(), "token", 8);
+    complete(limiter, HTTP_TOO_MANY_REQUESTS, LATENCY);
+
+    complete(limiter, HTTP_BAD_REQUEST, LATENCY);
+    complete(limiter, NO_RESPONSE, LATENCY);
+
+    assertEquals(4, limiter.getConcurrencyLimit(), DELTA);
+  }
+
+  @Test
+  public void shouldBlockRequestsOverConcurrencyLimit() throws Exception {
+    HttpRateLimiter limiter = HttpRateLimiter.getInstance(newDomain(), "token", 1);
+    limiter.acquire();
+
+    Thread waiting =
+        new Thread(
+            () -> {
+              try {
+                limiter.acquire();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    waiting.start();
+    waiting.join(200);
+    assertTrue(waiting.isAlive());
+
+    limiter.release(HTTP_OK, null, LATENCY);
+    waiting.join(5000);
+    assertFalse(waiting.isAlive());
+  }
+
+  @Test
+  public void shouldReadRetryAfterHeaders() {
+    assertEquals(
+        1500, HttpRateLimiter.getRetryAfterMillis(Headers.of("retry-after-ms", "1500")));
+    assertEquals(3000, HttpRateLimiter.getRetryAfterMillis(Headers.of("Retry-After", "3")));
+    assertEquals(-1, HttpRateLimiter.getRetryAfterMillis(Headers.of()));
+  }
+
+  private static void complete(HttpRateLimiter limiter, int statusCode, long latency)
+      throws InterruptedException {
+    limiter.acquire();
+    limiter.release(statusCode, null, latency);
+  }
+
+  private static String newDomain() {
+    return "https://" + UUID.randomUUID() + ".example.com";
+  }
+}
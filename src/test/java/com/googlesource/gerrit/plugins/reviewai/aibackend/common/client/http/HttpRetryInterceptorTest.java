@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.UUID;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HttpRetryInterceptorTest {
+  private static final int MAX_RETRIES = 3;
+  // No delay between the attempts
+  private static final long RETRY_INTERVAL = 0;
+
+  private Request request;
+  private Interceptor.Chain chain;
+  private HttpRetryInterceptor interceptor;
+
+  @Before
+  public void setUp() {
+    request = new Request.Builder().url("https://" + UUID.randomUUID() + ".example.com").build();
+    chain = mock(Interceptor.Chain.class);
+    when(chain.request()).thenReturn(request);
+    interceptor =
+        new HttpRetryInterceptor(
+            MAX_RETRIES,
+            RETRY_INTERVAL,
+            HttpRateLimiter.getInstance(request.url().toString(), "token", MAX_RETRIES));
+  }
+
+  @Test
+  public void shouldReturnSuccessfulResponseAtOnce() throws Exception {
+    when(chain.proceed(request)).thenReturn(response(200));
+
+    assertEquals(200, interceptor.intercept(chain).code());
+    verify(chain, times(1)).proceed(request);
+  }
+
+  @Test
+  public void shouldRetryRetryableStatusCodes() throws Exception {
+    for (int statusCode : new int[] {408, 409, 429, 500, 503}) {
+      setUp();
+      when(chain.proceed(request)).thenReturn(response(statusCode), response(200));
+
+      assertEquals(200, interceptor.intercept(chain).code());
+      verify(chain, times(2)).proceed(request);
+    }
+  }
+
+  @Test
+  public void shouldReturnOtherClientErrorsWithoutRetrying() throws Exception {
+    for (int statusCode : new int[] {400, 401, 403, 404}) {
+      setUp();
+      when(chain.proceed(request)).thenReturn(response(statusCode));
+
+      assertEquals(statusCode, interceptor.intercept(chain).code());
+      verify(chain, times(1)).proceed(request);
+    }
+  }
+
+  @Test
+  public void shouldRetryConnectionFailures() throws Exception {
+    when(chain.proceed(request)).thenThrow(new IOException("refused")).thenReturn(response(200));
+
+    assertEquals(200, interceptor.intercept(chain).code());
+    verify(chain, times(2)).proceed(request);
+  }
+
+  @Test
+  public void shouldFailAfterMaxRetries() throws Exception {
+    when(chain.proceed(request)).thenAnswer(invocation -> response(500));
+
+    IOException e = assertThrows(IOException.class, () -> interceptor.intercept(chain));
+
+    assertEquals("Unexpected response code 500", e.getMessage());
+    verify(chain, times(MAX_RETRIES)).proceed(request);
+  }
+
+  @Test
+  public void shouldReportTimeoutWhenNoResponseIsReceived() throws Exception {
+    when(chain.proceed(request)).thenThrow(new IOException("timeout"));
+
+    IOException e = assertThrows(IOException.class, () -> interceptor.intercept(chain));
+
+    assertEquals("Connection timed out", e.getMessage());
+    verify(chain, times(MAX_RETRIES)).proceed(request);
+  }
+
+  private Response response(int statusCode) {
+    return new Response.Builder()
+        .request(request)
+        .protocol(Protocol.HTTP_1_1)
+        .code(statusCode)
+        .message("status " + statusCode)
+        .body(ResponseBody.create("", null))
+        .build();
+  }
+}
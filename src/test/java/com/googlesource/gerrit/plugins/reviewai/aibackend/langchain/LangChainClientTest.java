@@ -33,7 +33,7 @@ public class LangChainClientTest {
 
   @Test
   public void shouldLoadStructuredResponseFormatFromSchemaResource() throws Exception {
-    LangChainClient client = new LangChainClient(null, null, null, null);
+    LangChainClient client = new LangChainClient(null, null, null, null, null, null);
 
     Field field = LangChainClient.class.getDeclaredField("structuredResponseFormat");
     field.setAccessible(true);
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.AiHistory;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai.AiHistoryMessage;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.gerrit.GerritComment;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.langchain.model.StoredMessage;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandler;
+import com.googlesource.gerrit.plugins.reviewai.settings.Settings;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.model.TokenCountEstimator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class PluginChatHistoryTest {
+  private static final String MEMORY_ID = "memoryId";
+  private static final int MESSAGE_TOKENS = 10;
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final List<GerritComment> comments = new ArrayList<>();
+  private final CountingTokenCountEstimator tokenCountEstimator =
+      new CountingTokenCountEstimator();
+  private AiHistory aiHistory;
+  private PluginChatHistory chatHistory;
+
+  @Before
+  public void setUp() {
+    Configuration config = Mockito.mock(Configuration.class);
+    when(config.getLcMaxMemoryTokens()).thenReturn(100);
+
+    aiHistory = Mockito.mock(AiHistory.class);
+    when(aiHistory.retrieveNewMessages(any()))
+        .thenAnswer(invocation -> retrieve(invocation.getArgument(0)));
+
+    PluginDataHandler pluginDataHandler =
+        new PluginDataHandler(tempFolder.getRoot().toPath().resolve("change.data"));
+    chatHistory =
+        new PluginChatHistory(
+            config, new PluginChatMemoryStore(pluginDataHandler), tokenCountEstimator);
+  }
+
+  @Test
+  public void shouldCountTokensOfNewMessagesOnly() {
+    addComments(0, 3);
+    chatHistory.update(MEMORY_ID, aiHistory);
+    addComments(3, 5);
+
+    List<StoredMessage> storedMessages = chatHistory.update(MEMORY_ID, aiHistory);
+
+    assertEquals(5, storedMessages.size());
+    assertEquals(5, tokenCountEstimator.count);
+  }
+
+  @Test
+  public void shouldCompactOldestMessagesWithoutStoringThemAgain() {
+    addComments(0, 11);
+
+    List<StoredMessage> storedMessages = chatHistory.update(MEMORY_ID, aiHistory);
+    List<StoredMessage> nextStoredMessages = chatHistory.update(MEMORY_ID, aiHistory);
+
+    assertEquals(5, storedMessages.size());
+    assertEquals("comment6", storedMessages.get(0).getSourceId());
+    assertEquals(storedMessages, nextStoredMessages);
+    assertEquals(11, tokenCountEstimator.count);
+  }
+
+  @Test
+  public void shouldAddStoredMessagesWithCachedTokenCounts() {
+    addComments(0, 3);
+    List<StoredMessage> storedMessages = chatHistory.update(MEMORY_ID, aiHistory);
+    CachedTokenWindowChatMemory memory =
+        new CachedTokenWindowChatMemory(MEMORY_ID, 25, tokenCountEstimator);
+    memory.add(SystemMessage.from("instructions"), 5);
+
+    chatHistory.addTo(memory, storedMessages, false, 1);
+
+    assertEquals(3, memory.messages().size());
+    assertEquals(25, memory.getTokenCount());
+    assertEquals(3, tokenCountEstimator.count);
+  }
+
+  private void addComments(int from, int to) {
+    for (int i = from; i < to; i++) {
+      GerritComment comment = new GerritComment();
+      comment.setId("comment" + i);
+      comment.setUpdated(String.format("2025-01-01 10:00:%02d.000000000", i));
+      comment.setMessage("message " + i);
+      comments.add(comment);
+    }
+  }
+
+  private List<AiHistoryMessage> retrieve(Predicate<GerritComment> isRetrieved) {
+    List<AiHistoryMessage> newMessages = new ArrayList<>();
+    for (GerritComment comment : comments) {
+      if (!isRetrieved.test(comment)) {
+        newMessages.add(
+            AiHistoryMessage.builder()
+                .id(comment.getId())
+                .threadId(comment.getId())
+                .role(Settings.OPENAI_ROLE_USER)
+                .content(comment.getMessage())
+                .updated(comment.getUpdated())
+                .patchSet(1)
+                .build());
+      }
+    }
+    return newMessages;
+  }
+
+  private static class CountingTokenCountEstimator implements TokenCountEstimator {
+    private int count;
+
+    @Override
+    public int estimateTokenCountInText(String text) {
+      return MESSAGE_TOKENS;
+    }
+
+    @Override
+    public int estimateTokenCountInMessage(ChatMessage message) {
+      count++;
+      return MESSAGE_TOKENS;
+    }
+
+    @Override
+    public int estimateTokenCountInMessages(Iterable<ChatMessage> messages) {
+      int tokenCount = 0;
+      for (ChatMessage message : messages) {
+        tokenCount += estimateTokenCountInMessage(message);
+      }
+      return tokenCount;
+    }
+  }
+}
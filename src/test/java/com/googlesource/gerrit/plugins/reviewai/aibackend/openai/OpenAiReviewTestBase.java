@@ -25,9 +25,12 @@ import com.google.gerrit.extensions.common.DiffInfo;
 import com.google.gerrit.extensions.restapi.BinaryResult;
 import com.google.gerrit.extensions.restapi.RestApiException;
 import com.google.gson.JsonArray;
+import com.google.gson.reflect.TypeToken;
 import com.googlesource.gerrit.plugins.reviewai.ReviewTestBase;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.AiPromptFactory;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.ai.AiResponseContent;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoBlob;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.api.git.RepoChunk;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.OpenAiUriResourceLocator;
 import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiListResponse;
 import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandler;
@@ -35,12 +38,14 @@ import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandlerProvider;
 import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.openai.client.prompt.IAiPrompt;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.entity.ContentType;
+import org.eclipse.jgit.lib.ObjectId;
 import org.mockito.ArgumentCaptor;
 import org.mockito.MockitoAnnotations;
 
 import java.io.ByteArrayInputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
 import static com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai.OpenAiPoller.COMPLETED_STATUS;
@@ -97,8 +102,15 @@ public class OpenAiReviewTestBase extends ReviewTestBase {
     super.setupMockRequests();
 
     // Mock the behavior of the Git Repository Manager
-    String repoJson = readTestFile(RESOURCE_OPENAI_PATH + "gitProjectFiles.json");
-    when(gitRepoFiles.getGitRepoFilesAsJson(any(), any())).thenReturn(List.of(repoJson));
+    Map<String, String> repoFiles =
+        readTestFileToType(
+            RESOURCE_OPENAI_PATH + "gitProjectFiles.json",
+            new TypeToken<Map<String, String>>() {}.getType());
+    RepoChunk repoChunk = new RepoChunk();
+    repoFiles.forEach(
+        (path, content) ->
+            repoChunk.addBlob("", new RepoBlob(path, ObjectId.zeroId(), content.length())));
+    when(gitRepoFiles.getGitRepoChunks(any(), any(), any())).thenReturn(List.of(repoChunk));
 
     // Mock the behavior of the OpenAI create-file request
     WireMock.stubFor(
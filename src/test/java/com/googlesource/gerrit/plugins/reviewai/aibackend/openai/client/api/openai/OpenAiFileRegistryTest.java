@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.GsonUtils.getGson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiRegisteredFile;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataHandler;
+import com.googlesource.gerrit.plugins.reviewai.utils.HashUtils;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OpenAiFileRegistryTest {
+  private static final String DOMAIN = "https://api.example.com";
+  private static final String TOKEN = "token";
+  private static final String CONTENT_KEY = "contentKey";
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private PluginDataHandler registryDataHandler;
+  private OpenAiFileRegistry registry;
+
+  @Before
+  public void setUp() {
+    registryDataHandler =
+        new PluginDataHandler(tempFolder.getRoot().toPath().resolve("fileRegistry.data"));
+    registry = newRegistry(TOKEN);
+  }
+
+  @Test
+  public void shouldNotAcquireUnregisteredFile() throws Exception {
+    assertNull(registry.acquireFile(CONTENT_KEY, "vs-1"));
+  }
+
+  @Test
+  public void shouldKeepAcquiredFileUntilLastUserReleasesIt() throws Exception {
+    registry.registerFile(CONTENT_KEY, "file-1", "vs-1");
+
+    assertEquals("file-1", registry.acquireFile(CONTENT_KEY, "vs-2"));
+    assertTrue(registry.releaseFiles("vs-1", List.of("file-1")).isEmpty());
+    assertEquals(List.of("file-1"), registry.releaseFiles("vs-2", List.of("file-1")));
+  }
+
+  @Test
+  public void shouldNotAcquireReleasedFile() throws Exception {
+    registry.registerFile(CONTENT_KEY, "file-1", "vs-1");
+
+    assertEquals(List.of("file-1"), registry.releaseFiles("vs-1", List.of("file-1")));
+    assertNull(registry.acquireFile(CONTENT_KEY, "vs-2"));
+  }
+
+  @Test
+  public void shouldMergeReferencesWhenRegisteringSameFileAgain() {
+    registry.registerFile(CONTENT_KEY, "file-1", "vs-1");
+    registry.registerFile(CONTENT_KEY, "file-1", "vs-2");
+
+    assertTrue(registry.releaseFiles("vs-1", List.of("file-1")).isEmpty());
+    assertEquals(List.of("file-1"), registry.releaseFiles("vs-2", List.of("file-1")));
+  }
+
+  @Test
+  public void shouldKeepRegisteredFileWhenSameContentsAreUploadedConcurrently() throws Exception {
+    registry.registerFile(CONTENT_KEY, "file-1", "vs-1");
+    registry.registerFile(CONTENT_KEY, "file-2", "vs-2");
+
+    // The file left out of the registry is only used by its Vector Store
+    assertEquals(List.of("file-2"), registry.releaseFiles("vs-2", List.of("file-2")));
+    assertEquals("file-1", registry.acquireFile(CONTENT_KEY, "vs-3"));
+    assertTrue(registry.releaseFiles("vs-1", List.of("file-1")).isEmpty());
+  }
+
+  @Test
+  public void shouldNotShareFilesAcrossAccounts() throws Exception {
+    registry.registerFile(CONTENT_KEY, "file-1", "vs-1");
+
+    assertNull(newRegistry("otherToken").acquireFile(CONTENT_KEY, "vs-2"));
+  }
+
+  @Test
+  public void shouldStoreEachFileUnderItsOwnKey() {
+    registry.registerFile("contentKey1", "file-1", "vs-1");
+    registry.registerFile("contentKey2", "file-2", "vs-1");
+
+    Map<String, String> values = registryDataHandler.getAllValues();
+    assertEquals(2, values.size());
+    assertTrue(values.values().stream().anyMatch(value -> value.contains("file-1")));
+    assertTrue(values.values().stream().anyMatch(value -> value.contains("file-2")));
+  }
+
+  @Test
+  public void shouldSplitUpRegisteredFilesOfEarlierLayout() {
+    String scopedKey = HashUtils.hashData(List.of(DOMAIN, TOKEN)) + "/" + CONTENT_KEY;
+    registryDataHandler.setValue(
+        "registeredFiles",
+        getGson()
+            .toJson(
+                Map.of(scopedKey, new OpenAiRegisteredFile("file-1", List.of("vs-1", "vs-2")))));
+
+    OpenAiFileRegistry migratedRegistry = newRegistry(TOKEN);
+
+    assertNull(registryDataHandler.getValue("registeredFiles"));
+    assertTrue(migratedRegistry.releaseFiles("vs-1", List.of("file-1")).isEmpty());
+    assertEquals(List.of("file-1"), migratedRegistry.releaseFiles("vs-2", List.of("file-1")));
+  }
+
+  private OpenAiFileRegistry newRegistry(String token) {
+    Configuration config = mock(Configuration.class);
+    when(config.getAiDomain()).thenReturn(DOMAIN);
+    when(config.getAiToken()).thenReturn(token);
+    return new OpenAiFileRegistry(config, registryDataHandler);
+  }
+}
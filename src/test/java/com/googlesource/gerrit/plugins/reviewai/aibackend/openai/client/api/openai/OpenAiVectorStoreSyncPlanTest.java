@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.api.openai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.openai.model.api.openai.OpenAiVectorStoreChunk;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class OpenAiVectorStoreSyncPlanTest {
+  private static final String FILTER_KEY = "filter";
+
+  @Test
+  public void shouldKeepChunksOfUnchangedDirs() {
+    OpenAiVectorStoreChunk changed = chunk("file-1", "src/a");
+    OpenAiVectorStoreChunk unchanged = chunk("file-2", "src/b");
+
+    OpenAiVectorStoreSyncPlan plan =
+        new OpenAiVectorStoreSyncPlan(List.of(changed, unchanged), Set.of("src/a"), FILTER_KEY);
+
+    assertFalse(plan.isFullRebuild());
+    assertEquals(List.of(changed), plan.getStaleChunks());
+    assertEquals(List.of(unchanged), plan.getKeptChunks());
+    assertEquals(Set.of("src/a"), plan.getRebuiltDirs());
+  }
+
+  @Test
+  public void shouldDropEveryChunkOfRebuiltDirs() {
+    // "src/b" is rebuilt with the first chunk, so the chunks sharing it are stale as well, even
+    // when they come before the chunk that brings it in
+    OpenAiVectorStoreChunk sharingC = chunk("file-1", "src/c", "src/d");
+    OpenAiVectorStoreChunk sharingB = chunk("file-2", "src/b", "src/c");
+    OpenAiVectorStoreChunk changed = chunk("file-3", "src/a", "src/b");
+    OpenAiVectorStoreChunk unrelated = chunk("file-4", "src/e");
+
+    OpenAiVectorStoreSyncPlan plan =
+        new OpenAiVectorStoreSyncPlan(
+            List.of(sharingC, sharingB, changed, unrelated), Set.of("src/a"), FILTER_KEY);
+
+    assertFalse(plan.isFullRebuild());
+    assertEquals(3, plan.getStaleChunks().size());
+    assertTrue(plan.getStaleChunks().containsAll(List.of(sharingC, sharingB, changed)));
+    assertEquals(List.of(unrelated), plan.getKeptChunks());
+    assertEquals(Set.of("src/a", "src/b", "src/c", "src/d"), plan.getRebuiltDirs());
+  }
+
+  @Test
+  public void shouldRebuildNothingWithoutChangedDirs() {
+    OpenAiVectorStoreChunk chunk = chunk("file-1", "src/a");
+
+    OpenAiVectorStoreSyncPlan plan =
+        new OpenAiVectorStoreSyncPlan(List.of(chunk), Set.of(), FILTER_KEY);
+
+    assertTrue(plan.getStaleChunks().isEmpty());
+    assertEquals(List.of(chunk), plan.getKeptChunks());
+    assertTrue(plan.getRebuiltDirs().isEmpty());
+  }
+
+  @Test
+  public void shouldRebuildAllChunksWhenFileFilterChanges() {
+    OpenAiVectorStoreChunk first = chunk("file-1", "src/a");
+    OpenAiVectorStoreChunk second = chunk("file-2", "src/b");
+
+    OpenAiVectorStoreSyncPlan plan =
+        new OpenAiVectorStoreSyncPlan(List.of(first, second), Set.of(), "other-filter");
+
+    assertTrue(plan.isFullRebuild());
+    assertEquals(List.of(first, second), plan.getStaleChunks());
+    assertTrue(plan.getKeptChunks().isEmpty());
+    assertNull(plan.getRebuiltDirs());
+  }
+
+  @Test
+  public void shouldRebuildAllChunksIndexedWithoutFilterKey() {
+    OpenAiVectorStoreChunk legacy = new OpenAiVectorStoreChunk("file-1", List.of("src/a"), null);
+
+    OpenAiVectorStoreSyncPlan plan =
+        new OpenAiVectorStoreSyncPlan(List.of(legacy), Set.of(), FILTER_KEY);
+
+    assertTrue(plan.isFullRebuild());
+    assertEquals(List.of(legacy), plan.getStaleChunks());
+  }
+
+  private static OpenAiVectorStoreChunk chunk(String fileId, String... dirs) {
+    return new OpenAiVectorStoreChunk(fileId, List.of(dirs), FILTER_KEY);
+  }
+}
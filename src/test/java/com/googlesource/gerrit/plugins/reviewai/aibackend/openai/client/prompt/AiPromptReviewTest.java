@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.aibackend.openai.client.prompt;
+
+import static com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.prompt.PromptCatalog.getPromptValue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.client.api.gerrit.GerritChange;
+import com.googlesource.gerrit.plugins.reviewai.aibackend.common.model.data.ChangeSetData;
+import com.googlesource.gerrit.plugins.reviewai.config.Configuration;
+import com.googlesource.gerrit.plugins.reviewai.interfaces.aibackend.common.client.code.context.ICodeContextPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AiPromptReviewTest {
+  private static final String PATCH_SET = "patch set content";
+
+  private Configuration config;
+  private ChangeSetData changeSetData;
+  private GerritChange change;
+  private ICodeContextPolicy codeContextPolicy;
+
+  @Before
+  public void setUp() {
+    config = mock(Configuration.class);
+    changeSetData = mock(ChangeSetData.class);
+    change = mock(GerritChange.class);
+    when(change.getProjectName()).thenReturn("project");
+    when(change.getFullChangeId()).thenReturn("project~master~I0123");
+    when(change.getIsCommentEvent()).thenReturn(false);
+    codeContextPolicy = mock(ICodeContextPolicy.class);
+  }
+
+  @Test
+  public void shouldNotLeakCommitMessagePromptsIntoPatchSetReview() {
+    AiPromptReviewCommitMessage commitMessagePrompt =
+        new AiPromptReviewCommitMessage(config, changeSetData, change, codeContextPolicy);
+    assertEquals(
+        getPromptValue(
+            "promptsOpenAiReviewCommitMessage", "DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS"),
+        commitMessagePrompt.DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS);
+
+    AiPromptReview reviewPrompt =
+        new AiPromptReview(config, changeSetData, change, codeContextPolicy);
+
+    assertEquals(
+        getPromptValue("prompts", "DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS"),
+        reviewPrompt.DEFAULT_AI_SYSTEM_PROMPT_INSTRUCTIONS);
+    assertEquals(
+        String.format(getPromptValue("promptsOpenAi", "DEFAULT_AI_MESSAGE_REVIEW"), PATCH_SET),
+        reviewPrompt.getDefaultAiThreadReviewMessage(PATCH_SET));
+    List<String> instructions = new ArrayList<>();
+    reviewPrompt.addAiAssistantInstructions(instructions);
+    String reviewInstructions = String.join("\n", instructions);
+    assertTrue(
+        reviewInstructions.contains(
+            getPromptValue(
+                "promptsOpenAiReview", "DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES")));
+    assertFalse(
+        reviewInstructions.contains(
+            getPromptValue(
+                "promptsOpenAiReviewCommitMessage",
+                "DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES")));
+  }
+
+  @Test
+  public void shouldResolveRequestPromptsIndependentlyOfReviewPrompts() {
+    AiPromptRequests requestsPrompt =
+        new AiPromptRequests(config, changeSetData, change, codeContextPolicy);
+    AiPromptReview reviewPrompt =
+        new AiPromptReview(config, changeSetData, change, codeContextPolicy);
+
+    assertEquals(
+        getPromptValue(
+            "promptsOpenAiRequests", "DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES"),
+        requestsPrompt.DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES);
+    assertEquals(
+        getPromptValue(
+            "promptsOpenAiReview", "DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES"),
+        reviewPrompt.DEFAULT_AI_ASSISTANT_INSTRUCTIONS_RESPONSE_EXAMPLES);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.googlesource.gerrit.plugins.reviewai.data.PluginDataStore.GroupCommit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PluginDataStoreTest {
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path dataFile;
+  private Path logFile;
+
+  @Before
+  public void setUp() {
+    dataFile = tempFolder.getRoot().toPath().resolve("change.data");
+    logFile = tempFolder.getRoot().toPath().resolve("change.data.log");
+  }
+
+  @Test
+  public void shouldReplayLogOnLoad() {
+    PluginDataStore store = PluginDataStore.load(dataFile);
+    store.set("removed", "value");
+    store.set("key", "value");
+    store.remove("removed");
+    store.appendToJsonArray("list", "\"first\"");
+    store.appendToJsonArray("list", "\"second\"");
+
+    PluginDataStore reloadedStore = PluginDataStore.load(dataFile);
+
+    assertEquals("value", reloadedStore.get("key"));
+    assertNull(reloadedStore.get("removed"));
+    assertEquals("[\"first\",\"second\"]", reloadedStore.get("list"));
+  }
+
+  @Test
+  public void shouldWriteGroupCommitOnClose() throws IOException {
+    PluginDataStore store = PluginDataStore.load(dataFile);
+    try (GroupCommit ignored = PluginDataStore.beginGroupCommit()) {
+      store.set("key", "value");
+      try (GroupCommit nested = PluginDataStore.beginGroupCommit()) {
+        store.set("other", "value");
+      }
+      assertEquals("value", store.get("other"));
+      assertFalse(Files.exists(logFile));
+    }
+
+    assertEquals(2, PluginDataStore.load(dataFile).getAll().size());
+  }
+
+  @Test
+  public void shouldDiscardIncompleteRecord() throws IOException {
+    PluginDataStore store = PluginDataStore.load(dataFile);
+    store.set("key", "value");
+    long logSize = Files.size(logFile);
+    Files.write(logFile, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+    PluginDataStore reloadedStore = PluginDataStore.load(dataFile);
+    reloadedStore.set("other", "value");
+
+    assertEquals("value", reloadedStore.get("key"));
+    assertEquals(2, PluginDataStore.load(dataFile).getAll().size());
+    assertTrue(Files.size(logFile) > logSize);
+  }
+
+  @Test
+  public void shouldCompactLogIntoSnapshot() throws IOException {
+    PluginDataStore store = PluginDataStore.load(dataFile);
+    String value = "x".repeat(1000);
+    for (int i = 0; i < 1000; i++) {
+      store.set("key" + (i % 10), value + i);
+    }
+
+    // About 1 MB of records was written, while the log is started over beyond 256 KB
+    assertTrue(Files.size(logFile) < 300 * 1024);
+    assertTrue(Files.readString(dataFile).contains("key9="));
+    PluginDataStore reloadedStore = PluginDataStore.load(dataFile);
+    assertEquals(10, reloadedStore.getAll().size());
+    assertEquals(value + 999, reloadedStore.get("key9"));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025. The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.googlesource.gerrit.plugins.reviewai.utils;
+
+import static com.googlesource.gerrit.plugins.reviewai.utils.TemplateUtils.renderTemplate;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+import org.junit.Test;
+
+public class TemplateUtilsTest {
+
+  @Test
+  public void shouldReplacePlaceholders() {
+    String rendered =
+        renderTemplate("Review {%project%} at {%branch%}.", Map.of("project", "p", "branch", "b"));
+
+    assertEquals("Review p at b.", rendered);
+  }
+
+  @Test
+  public void shouldReplacePlaceholdersWithSpaces() {
+    String rendered =
+        renderTemplate(
+            "{% key %}|{%   key%}|{%key   %}|{% two words %}",
+            Map.of("key", "v", "two words", "w"));
+
+    assertEquals("v|v|v|w", rendered);
+  }
+
+  @Test
+  public void shouldEscapeDoubleQuotesInValues() {
+    String rendered = renderTemplate("\"{% value %}\"", Map.of("value", "say \"hi\""));
+
+    assertEquals("\"say \\\"hi\\\"\"", rendered);
+  }
+
+  @Test
+  public void shouldKeepDollarSignsAndBackslashesInValues() {
+    String rendered =
+        renderTemplate("{% a %} {% b %}", Map.of("a", "cost $1 and $0", "b", "C:\\dir\\$x"));
+
+    assertEquals("cost $1 and $0 C:\\dir\\$x", rendered);
+  }
+
+  @Test
+  public void shouldLeaveMissingKeysUntouched() {
+    String rendered = renderTemplate("{% known %} {%  unknown %}", Map.of("known", "k"));
+
+    assertEquals("k {%  unknown %}", rendered);
+  }
+
+  @Test
+  public void shouldRenderTheSameTemplateWithDifferentValues() {
+    String template = "Hello {% name %}!";
+
+    assertEquals("Hello a!", renderTemplate(template, Map.of("name", "a")));
+    assertEquals("Hello b!", renderTemplate(template, Map.of("name", "b")));
+    assertEquals("Hello {% name %}!", renderTemplate(template, Map.of()));
+  }
+
+  @Test
+  public void shouldRenderTemplateWithoutPlaceholders() {
+    assertEquals("plain text", renderTemplate("plain text", Map.of("key", "value")));
+    assertEquals("", renderTemplate("", Map.of()));
+  }
+}